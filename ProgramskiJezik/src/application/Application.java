@@ -1,99 +1,503 @@
 package application;
 
+import cache.CompileCache;
+import compiler.Jit;
+import interpreter.Engine;
+import interpreter.Interpreter;
+import interpreter.IntArray;
+import interpreter.Resolution;
+import interpreter.Resolver;
+import lexer.CharWindow;
+import lexer.Diagnostic;
+import lexer.Diagnostics;
 import lexer.Lexer;
+import lexer.LexerException;
 import lexer.token.Token;
-import lexer.token.TokenFormatter;
+import lexer.token.TokenStream;
+import lexer.token.TokenType;
+import lexer.token.TokenWriter;
+import metrics.Metrics;
+import metrics.Phase;
+import optimizer.Optimizer;
+import parser.RecognizerParser;
+import parser.ast.Ast;
+import vm.Chunk;
+import vm.Disassembler;
+import vm.Lowering;
+import vm.Vm;
 
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class Application
 {
+    private static final String USAGE =
+            "Usage: java application.Application [--stream | --parallel | --parse | --run | --disasm] [--format table|tsv|jsonl] [--engine tree|jit|vm] [--optimize]\n"
+                    + "                                    [--cache DIR [--cache-size MB]] [--max-errors N] [--stats] [--stats-json FILE]\n"
+                    + "                                    [--off-heap MB] [--sequential] [--no-memo] <source-file>\n"
+                    + "       java application.Application --batch [--jobs N] [--parse] [--format table|tsv|jsonl] [--cache DIR [--cache-size MB]]\n"
+                    + "                                    [--max-errors N] [--stats] [--stats-json FILE] <file|dir|glob>...\n"
+                    + "       java application.Application --daemon SOCKET\n"
+                    + "       java application.Application --connect SOCKET [--parse | --run | --disasm] [--format ...] [--engine ...] [--optimize]\n"
+                    + "                                    [--max-errors N] <source-file|->";
 
-    /*
-    Options (pored run i debug) -> Configuration Edit -> Working directory svoj resources folder
-    Ime fajla kao arg komandne linije
-     */
-
-//    public static void main(String[] args) {
-//        if (args.length != 1) {
-//            System.err.println("Usage: java main.Application <source-file>");
-//            System.exit(64);
-//        }
-//
-//        try {
-//            String code = Files.readString(Path.of(args[0]));
-//            Lexer lexer = new Lexer(code);
-//            List<Token> tokens = lexer.scanTokens();
-//
-//            System.out.println(TokenFormatter.formatList(tokens));
-//        } catch (Exception e) {
-//            System.err.println("Error: " + e.getMessage());
-//            System.exit(1);
-//        }
-//    }
-
-    /*
-        if (args.length < 1) {
-            System.err.println("Greska: Nije uneta putanja do fajla");
+    public static void main(String[] args)
+    {
+        Options options;
+        try
+        {
+            options = Options.parse(args);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println("Error: " + e.getMessage());
+            usage();
+            return;
+        }
+        if (options.daemon() != null)
+        {
+            serve(options.daemon());
+            return;
+        }
+        String mode = options.mode();
+        TokenWriter.Format format = options.format();
+        String engine = options.engine();
+        boolean optimize = options.optimize();
+        int maxErrors = options.maxErrors();
+        List<String> paths = options.paths();
+        if (options.connect() != null)
+        {
+            connect(options.connect(), mode, format, engine, optimize, maxErrors, paths.get(0));
+            return;
+        }
+        if (options.sequential()) Interpreter.parallelLoops(false);
+        if (!options.memo()) Interpreter.memoize(false);
+        if (options.offHeap() > 0) IntArray.offHeapBytes(options.offHeap());
+
+        Metrics metrics = Metrics.create(options.measured());
+        if (options.measured()) reportOnExit(metrics, options.stats(), options.statsJson());
+        CompileCache cache = options.cacheDir() == null ? null : openCache(options.cacheDir(), options.cacheSize());
+        if (options.batch())
+        {
+            runBatch(paths, "--parse".equals(mode), format, options.jobs(), cache, metrics, maxErrors);
+            return;
+        }
+        String file = paths.get(0);
+
+        if ("--stream".equals(mode))
+        {
+            streamTokens(Path.of(file), format, metrics, maxErrors);
+            return;
+        }
+
+        // --parallel deli tekst na delove, pa ide mimo kesa
+        CompileCache cached = "--parallel".equals(mode) ? null : cache;
+        String code = null;
+        byte[] raw = null;
+        try
+        {
+            Metrics.Span read = metrics.start(Phase.READ, file);
+            if (cached != null) raw = Files.readAllBytes(Path.of(file));
+            else code = Files.readString(Path.of(file));
+            read.end(raw != null ? raw.length : code.length(), 0);
+        }
+        catch (Exception e)
+        {
+            System.err.println("Error reading file: " + e.getMessage());
             System.exit(1);
+            return;
         }
 
-        String filePath = args[0];
-        String sourceCode = "";
+        try
+        {
+            if ("--parse".equals(mode))
+            {
+                Ast.Program program = cached != null ? parsed(cached, raw, file, metrics).program() : parseProgram(lex(code, file, metrics, maxErrors), file, metrics);
+                System.out.println("OK: " + checked(program, file, metrics).program().items.size() + " top-level items");
+                return;
+            }
+            if ("--run".equals(mode) || "--disasm".equals(mode))
+            {
+                Ast.Program program = cached != null ? parsed(cached, raw, file, metrics).program() : parseProgram(lex(code, file, metrics, maxErrors), file, metrics);
+                Resolution resolved = optimized(checked(program, file, metrics), optimize, file, metrics);
+                if ("--run".equals(mode)) runProgram(resolved, engine, file, metrics);
+                else disassemble(resolved, file, metrics);
+                return;
+            }
+            TokenStream tokens;
+            if (cached != null)
+            {
+                Metrics.Span lex = metrics.start(Phase.LEX, file);
+                tokens = cached.tokens(raw);
+                lex.end(tokens.length(), tokens.size());
+            }
+            else
+            {
+                tokens = lex(code, file, metrics, maxErrors, "--parallel".equals(mode));
+            }
+            Metrics.Span write = metrics.start(Phase.FORMAT, file);
+            TokenWriter out = stdout(format);
+            out.header();
+            for (int i = 0; i < tokens.size(); i++) out.write(tokens, i);
+            out.footer();
+            out.flush();
+            write.end(0, tokens.size());
+        }
+        catch (UncheckedIOException e)
+        {
+            System.err.println("Error writing output: " + e.getMessage());
+            System.exit(1);
+        }
+        catch (LexerException e)
+        {
+            // kes staje na prvoj gresci; ceo spisak daje jos jedan prolaz koji ih skuplja
+            Diagnostics diagnostics = new Diagnostics(maxErrors);
+            new Lexer(code != null ? code : new String(raw, StandardCharsets.UTF_8)).collectErrors(diagnostics).scan();
+            if (!diagnostics.isEmpty()) lexerErrors(diagnostics);
+            System.err.println("Lexer error: " + e.getMessage());
+            System.exit(1);
+        }
+        catch (StackOverflowError e)
+        {
+            // parser, Resolver i optimizator su rekurzivni i rade na steku glavne niti (kao Daemon)
+            System.err.println("Error: program is nested too deeply");
+            System.exit(1);
+        }
+    }
+
+    private static void usage()
+    {
+        System.err.println(USAGE);
+        System.exit(64);
+    }
+
+    // jedan JVM za ceo projekat; izlaz fajlova redom kojim su navedeni, zbirni red na stderr
+    private static void runBatch(List<String> paths, boolean parse, TokenWriter.Format format, int jobs, CompileCache cache, Metrics metrics,
+                                 int maxErrors)
+    {
+        int status;
+        try
+        {
+            List<Path> files = BatchRunner.expand(paths);
+            BatchRunner runner = new BatchRunner(format, parse, jobs, System.out.charset(), cache, metrics, maxErrors);
+            status = runner.run(files, new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        }
+        catch (NoSuchFileException e)
+        {
+            System.err.println("Error reading file: no such file or directory: " + e.getFile());
+            status = 1;
+        }
+        catch (IOException | UncheckedIOException e)
+        {
+            System.err.println("Error reading file: " + e.getMessage());
+            status = 1;
+        }
+        catch (InterruptedException e)
+        {
+            status = 1;
+        }
+        if (status != 0) System.exit(status);
+    }
 
+    private static void serve(Path socket)
+    {
         try
         {
-            sourceCode = new String(Files.readAllBytes(Paths.get(filePath)));
+            Daemon.serve(socket);
         }
         catch (IOException e)
         {
-            System.err.println("Greska pri citanju fajla: " + e.getMessage());
+            System.err.println("Daemon error: " + e.getMessage());
             System.exit(1);
         }
+    }
 
-        System.out.println("=== SOURCE CODE ===");
-        System.out.println(sourceCode);
-        System.out.println("===================\n");
+    // tanak klijent: izvor cita i leksira servis, ovde se samo salje zahtev i ispisuje odgovor
+    private static void connect(Path socket, String mode, TokenWriter.Format format, String engine, boolean optimize, int maxErrors, String file)
+    {
+        String request = mode == null ? "lex" : switch (mode)
+        {
+            case "--parse" -> "parse";
+            case "--run" -> "run";
+            case "--disasm" -> "disasm";
+            default -> "lex";
+        };
+        int status;
+        try
+        {
+            status = Daemon.request(socket, request, format, engine, optimize, maxErrors, file);
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error connecting to daemon: " + e.getMessage());
+            status = 1;
+        }
+        if (status != 0) System.exit(status);
+    }
 
-        // Lexer lexer = new Lexer(sourceCode);
-        // List<Token> tokens = lexer.scanTokens();
-        // System.out.println(TokenFormatter.formatList(tokens));
+    private static CompileCache openCache(Path dir, long maxBytes)
+    {
+        try
+        {
+            return new CompileCache(dir, maxBytes);
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error opening cache: " + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
 
- */
+    // izvestaj i kada se izlazi sa System.exit (greska u programu); tabela na stderr, JSON u fajl
+    private static void reportOnExit(Metrics metrics, boolean summary, Path json)
+    {
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+        {
+            if (summary) for (String line : metrics.summary().split("\\R")) System.err.println("Stats: " + line);
+            if (json == null) return;
+            try
+            {
+                Files.writeString(json, metrics.json(), StandardCharsets.UTF_8);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Error writing stats: " + e.getMessage());
+            }
+        }, "stats"));
+    }
 
+    // direktno na stdout, bez medjukoraka kroz String; isti charset kao System.out
+    private static TokenWriter stdout(TokenWriter.Format format)
+    {
+        return new TokenWriter(new FileOutputStream(FileDescriptor.out), System.out.charset(), format);
+    }
 
-    public static void main(String[] args)
+    // sve greske leksera iz jednog prolaza; sa greskama se ne parsira
+    private static TokenStream lex(String code, String file, Metrics metrics, int maxErrors)
+    {
+        return lex(code, file, metrics, maxErrors, false);
+    }
+
+    private static TokenStream lex(String code, String file, Metrics metrics, int maxErrors, boolean parallel)
+    {
+        Metrics.Span lex = metrics.start(Phase.LEX, file);
+        Diagnostics diagnostics = new Diagnostics(maxErrors);
+        Lexer lexer = new Lexer(code).collectErrors(diagnostics);
+        TokenStream tokens = parallel ? lexer.scanParallel(ForkJoinPool.commonPool()) : lexer.scan();
+        lex.end(code.length(), tokens.size());
+        if (!diagnostics.isEmpty()) lexerErrors(diagnostics);
+        return tokens;
+    }
+
+    // redom po mestu u fajlu, najvise --max-errors
+    private static void lexerErrors(Diagnostics diagnostics)
+    {
+        List<Diagnostic> shown = diagnostics.sorted();
+        for (Diagnostic d : shown) System.err.println("Lexer error: " + d);
+        if (diagnostics.count() > shown.size())
+        {
+            System.err.println("Lexer error: " + (diagnostics.count() - shown.size()) + " more errors not shown (" + diagnostics.count() + " total)");
+        }
+        System.exit(1);
+    }
+
+    // sve sintaksne greske iz jednog prolaza, redom
+    private static Ast.Program parseProgram(TokenStream tokens, String file, Metrics metrics)
+    {
+        Metrics.Span parse = metrics.start(Phase.PARSE, file);
+        RecognizerParser parser = new RecognizerParser(tokens);
+        Ast.Program program = parser.parse();
+        parse.end(0, tokens.size());
+        if (!parser.errors().isEmpty())
+        {
+            for (String error : parser.errors()) System.err.println("Syntax error: " + error);
+            System.exit(1);
+        }
+        return program;
+    }
+
+    // sve semanticke greske (nedeklarisana imena, broj argumenata i indeksa) iz jednog prolaza, redom;
+    // isti Resolution posle ide u Engine, pa se program ne razresava dvaput
+    private static Resolution checked(Ast.Program program, String file, Metrics metrics)
     {
-        if (args.length != 1) {
-            System.err.println("Usage: java application.Application <source-file>");
-            System.exit(64);
+        Metrics.Span check = metrics.start(Phase.CHECK, file);
+        Resolver resolver = new Resolver(program).check();
+        check.end(0, 0);
+        if (!resolver.errors().isEmpty())
+        {
+            for (String error : resolver.errors()) System.err.println("Semantic error: " + error);
+            System.exit(1);
         }
+        return resolver.resolve();
+    }
 
-        String code;
+    // statistika prolaza ide na stderr, da ne mesa izlaz programa; optimizovano stablo je novo, pa ima svoj Resolution
+    private static Resolution optimized(Resolution checked, boolean optimize, String file, Metrics metrics)
+    {
+        if (!optimize) return checked;
+        Optimizer optimizer = new Optimizer();
+        Resolution program;
         try
         {
-            code = Files.readString(Path.of(args[0]));
+            Metrics.Span span = metrics.start(Phase.OPTIMIZE, file);
+            program = new Resolver(optimizer.optimize(checked)).resolve();
+            span.end(0, 0);
         }
-        catch (Exception e)
+        catch (RuntimeException e)
         {
-            System.err.println("Error reading file: " + e.getMessage());
+            System.err.println("Runtime error: " + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+        for (String line : optimizer.report().split("\\R")) System.err.println("Optimizer: " + line);
+        return program;
+    }
+
+    // isto kao parseProgram, za rezultat iz kesa (lekser i parser su jedna faza)
+    private static CompileCache.Parsed parsed(CompileCache cache, byte[] raw, String file, Metrics metrics)
+    {
+        Metrics.Span parse = metrics.start(Phase.PARSE, file);
+        CompileCache.Parsed p = cache.parse(raw);
+        parse.end(raw.length, p.tokens());
+        if (!p.errors().isEmpty())
+        {
+            for (String error : p.errors()) System.err.println("Syntax error: " + error);
+            System.exit(1);
+        }
+        return p;
+    }
+
+    private static void disassemble(Resolution program, String file, Metrics metrics)
+    {
+        String text;
+        try
+        {
+            Metrics.Span compile = metrics.start(Phase.COMPILE, file);
+            Chunk chunk = Lowering.lower(program);
+            compile.end(0, 0);
+            Metrics.Span format = metrics.start(Phase.FORMAT, file);
+            text = Disassembler.disassemble(chunk);
+            format.end(0, 0);
+        }
+        catch (RuntimeException e)
+        {
+            System.err.println("Runtime error: " + e.getMessage());
             System.exit(1);
             return;
         }
+        System.out.print(text);
+    }
 
+    private static void runProgram(Resolution program, String engine, String file, Metrics metrics)
+    {
+        int result = 0;
         try
         {
-            Lexer lexer = new Lexer(code);
-            List<Token> tokens = lexer.scanTokens();
-            System.out.println(TokenFormatter.formatList(tokens));
+            result = execute(program, engine, file, metrics);
         }
         catch (RuntimeException e)
         {
+            System.err.println("Runtime error: " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println("Result: " + result);
+    }
+
+    private static void memoCounters(Interpreter.MemoStats memo, Metrics metrics)
+    {
+        metrics.counter("memo.functions", memo.functions());
+        metrics.counter("memo.hits", memo.hits());
+        metrics.counter("memo.misses", memo.misses());
+        metrics.counter("memo.entries", memo.entries());
+        metrics.counter("memo.evictions", memo.evictions());
+    }
+
+    // interpreter je rekurzivan po dubini poziva, pa radi u niti sa velikim stekom; greska programa se baca dalje
+    static int execute(Resolution program, String engine, String file, Metrics metrics)
+    {
+        int[] result = new int[1];
+        RuntimeException[] error = new RuntimeException[1];
+        Thread t = new Thread(null, () ->
+        {
+            try
+            {
+                Metrics.Span compile = metrics.start(Phase.COMPILE, file);
+                Engine e = switch (engine)
+                {
+                    case "jit" -> new Jit(program);
+                    case "vm" -> new Vm(program);
+                    default -> new Interpreter(program);
+                };
+                compile.end(0, 0);
+                Metrics.Span run = metrics.start(Phase.RUN, file);
+                result[0] = e.run();
+                run.end(0, 0);
+                if (e instanceof Interpreter in) memoCounters(in.memoStats(), metrics);
+            }
+            catch (RuntimeException e)
+            {
+                error[0] = e;
+            }
+        }, "interpreter", 1L << 30);
+        t.start();
+        try
+        {
+            t.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (error[0] != null) throw error[0];
+        return result[0];
+    }
+
+    // fajl se mapira i cita u delovima, redovi se ispisuju cim se token prepozna; lex je i ispis
+    private static void streamTokens(Path path, TokenWriter.Format format, Metrics metrics, int maxErrors)
+    {
+        TokenWriter out = stdout(format);
+        try (CharWindow window = CharWindow.map(path))
+        {
+            long size = Files.size(path);
+            Metrics.Span lex = metrics.start(Phase.LEX, path.toString());
+            Diagnostics diagnostics = new Diagnostics(maxErrors);
+            Lexer lexer = new Lexer(window).collectErrors(diagnostics);
+            out.header();
+            Token t;
+            int n = 0;
+            do
+            {
+                t = lexer.nextToken();
+                out.write(t);
+                n++;
+            }
+            while (t.type != TokenType.EOF);
+            out.footer();
+            out.flush();
+            lex.end(size, n);
+            if (!diagnostics.isEmpty()) lexerErrors(diagnostics);
+        }
+        catch (LexerException e)
+        {
+            out.flush();
             System.err.println("Lexer error: " + e.getMessage());
             System.exit(1);
         }
+        catch (IOException e)
+        {
+            System.err.println("Error reading file: " + e.getMessage());
+            System.exit(1);
+        }
     }
 
 }
@@ -0,0 +1,278 @@
+package application;
+
+import cache.CompileCache;
+import interpreter.Resolver;
+import lexer.Diagnostic;
+import lexer.Diagnostics;
+import lexer.Lexer;
+import lexer.LexerException;
+import lexer.token.TokenStream;
+import lexer.token.TokenWriter;
+import metrics.Metrics;
+import metrics.Phase;
+import parser.RecognizerParser;
+import parser.ast.Ast;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/*
+    Vise fajlova u jednom JVM-u: svaki fajl je jedna virtuelna nit, a semafor ogranicava koliko
+    fajlova (izvor + izlaz) je u memoriji odjednom. Dozvole se uzimaju redom kojim se fajlovi
+    ispisuju, pa su u memoriji uvek fajlovi odmah iza poslednjeg ispisanog i izlaz je uvek istim
+    redosledom, bez obzira koja nit prva zavrsi.
+    I sa merenjem (--stats) fajlovi ostaju na virtuelnim nitima: Metrics sabira faze bez lock-a,
+    a alokacija po fazi je tada nepoznata (n/a), jer je virtuelne niti ne prijavljuju.
+ */
+final class BatchRunner
+{
+    private record Result(byte[] output, int tokens, int errors) {}
+
+    private final TokenWriter.Format format;
+    private final boolean parse;
+    private final int inFlight;
+    private final Charset charset;
+    private final CompileCache cache;       // null: bez kesa
+    private final Metrics metrics;
+    private final int maxErrors;
+
+    BatchRunner(TokenWriter.Format format, boolean parse, int inFlight, Charset charset, CompileCache cache, Metrics metrics, int maxErrors)
+    {
+        this.format = format;
+        this.parse = parse;
+        this.inFlight = inFlight;
+        this.charset = charset;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.maxErrors = maxErrors;
+    }
+
+    // fajlovi redom argumenata; direktorijumi i glob-ovi ("src/**/*.mj") se razvijaju sortirano
+    static List<Path> expand(List<String> args) throws IOException
+    {
+        Set<Path> files = new LinkedHashSet<>();
+        for (String arg : args)
+        {
+            int glob = firstGlobChar(arg);
+            if (glob >= 0)
+            {
+                int slash = arg.lastIndexOf('/', glob);
+                Path base = Path.of(slash < 0 ? "." : arg.substring(0, slash + 1));
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + arg.substring(slash + 1));
+                try (Stream<Path> walk = Files.walk(base))
+                {
+                    walk.filter(Files::isRegularFile)
+                            .filter(p -> matcher.matches(base.relativize(p)))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            }
+            else if (Files.isDirectory(Path.of(arg)))
+            {
+                try (Stream<Path> walk = Files.walk(Path.of(arg)))
+                {
+                    walk.filter(Files::isRegularFile).sorted().forEach(files::add);
+                }
+            }
+            else
+            {
+                files.add(Path.of(arg));
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static int firstGlobChar(String s)
+    {
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') return i;
+        }
+        return -1;
+    }
+
+    // vraca izlazni kod: 0 ako nijedan fajl nema gresku, inace 1
+    int run(List<Path> files, OutputStream out) throws IOException, InterruptedException
+    {
+        long begin = System.nanoTime();
+        Semaphore permits = new Semaphore(inFlight);
+        List<Future<Result>> results = new ArrayList<>(files.size());
+        long tokens = 0;
+        int errors = 0, failedFiles = 0;
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            // nit koja pusta fajlove redom, tek kad se oslobodi dozvola
+            Thread feeder = Thread.ofVirtual().start(() ->
+            {
+                try
+                {
+                    for (Path file : files)
+                    {
+                        permits.acquire();
+                        Future<Result> f = pool.submit(() -> process(file));
+                        synchronized (results)
+                        {
+                            results.add(f);
+                            results.notifyAll();
+                        }
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            for (int i = 0; i < files.size(); i++)
+            {
+                Future<Result> f;
+                synchronized (results)
+                {
+                    while (results.size() <= i) results.wait();
+                    f = results.get(i);
+                    results.set(i, null);
+                }
+                Result r;
+                try
+                {
+                    r = f.get();
+                }
+                catch (ExecutionException e)
+                {
+                    r = new Result(("Error: " + e.getCause() + "\n").getBytes(charset), 0, 1);
+                }
+                out.write(("==> " + files.get(i) + " <==\n").getBytes(charset));
+                out.write(r.output);
+                permits.release();
+
+                tokens += r.tokens;
+                errors += r.errors;
+                if (r.errors > 0) failedFiles++;
+            }
+            out.flush();
+            feeder.join();
+        }
+
+        long ms = (System.nanoTime() - begin) / 1_000_000;
+        String cached = cache == null ? "" : ", cache " + cache.hits() + " hits / " + cache.misses() + " misses";
+        System.err.println("Batch: " + files.size() + " files, " + tokens + " tokens, " + errors + " errors in " + failedFiles
+                + " files, " + ms + " ms" + cached);
+        return errors == 0 ? 0 : 1;
+    }
+
+    private Result process(Path file)
+    {
+        String name = file.toString();
+        String code = null;
+        byte[] raw = null;
+        try
+        {
+            // kes radi nad bajtovima (kljuc je hes sadrzaja), bez kesa se cita kao i ranije
+            Metrics.Span read = metrics.start(Phase.READ, name);
+            if (cache != null) raw = Files.readAllBytes(file);
+            else code = Files.readString(file);
+            read.end(raw != null ? raw.length : code.length(), 0);
+        }
+        catch (IOException | UncheckedIOException e)
+        {
+            return new Result(("Error reading file: " + e.getMessage() + "\n").getBytes(charset), 0, 1);
+        }
+
+        try
+        {
+            if (parse && cache != null)
+            {
+                Metrics.Span span = metrics.start(Phase.PARSE, name);
+                CompileCache.Parsed p = cache.parse(raw);
+                span.end(raw.length, p.tokens());
+                if (!p.errors().isEmpty()) return parsed(p.errors(), p.items(), p.tokens());
+                return checked(p.program(), name, p.tokens());
+            }
+            Metrics.Span lex = metrics.start(Phase.LEX, name);
+            Diagnostics diagnostics = new Diagnostics(maxErrors);
+            TokenStream tokens = cache != null ? cache.tokens(raw) : new Lexer(code).collectErrors(diagnostics).scan();
+            lex.end(tokens.length(), tokens.size());
+            if (!diagnostics.isEmpty()) return lexerErrors(diagnostics);
+            if (parse)
+            {
+                Metrics.Span span = metrics.start(Phase.PARSE, name);
+                RecognizerParser parser = new RecognizerParser(tokens);
+                Ast.Program program = parser.parse();
+                span.end(0, tokens.size());
+                if (!parser.errors().isEmpty()) return parsed(parser.errors(), program.items.size(), tokens.size());
+                return checked(program, name, tokens.size());
+            }
+            Metrics.Span span = metrics.start(Phase.FORMAT, name);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            TokenWriter w = new TokenWriter(bytes, charset, format);
+            w.header();
+            for (int i = 0; i < tokens.size(); i++) w.write(tokens, i);
+            w.footer();
+            w.flush();
+            span.end(bytes.size(), tokens.size());
+            return new Result(bytes.toByteArray(), tokens.size(), 0);
+        }
+        catch (LexerException e)
+        {
+            // kes staje na prvoj gresci; ceo spisak daje jos jedan prolaz koji ih skuplja
+            Diagnostics diagnostics = new Diagnostics(maxErrors);
+            new Lexer(code != null ? code : new String(raw, StandardCharsets.UTF_8)).collectErrors(diagnostics).scan();
+            if (!diagnostics.isEmpty()) return lexerErrors(diagnostics);
+            return new Result(("Lexer error: " + e.getMessage() + "\n").getBytes(charset), 0, 1);
+        }
+    }
+
+    // isti ispis kao Application: redom po mestu u fajlu, najvise maxErrors
+    private Result lexerErrors(Diagnostics diagnostics)
+    {
+        StringBuilder sb = new StringBuilder();
+        List<Diagnostic> shown = diagnostics.sorted();
+        for (Diagnostic d : shown) sb.append("Lexer error: ").append(d).append('\n');
+        if (diagnostics.count() > shown.size())
+        {
+            sb.append("Lexer error: ").append(diagnostics.count() - shown.size()).append(" more errors not shown (")
+                    .append(diagnostics.count()).append(" total)\n");
+        }
+        return new Result(sb.toString().getBytes(charset), 0, diagnostics.count());
+    }
+
+    // semanticke greske posle uspesnog parsiranja, isti ispis kao Application
+    private Result checked(Ast.Program program, String name, int tokens)
+    {
+        Metrics.Span span = metrics.start(Phase.CHECK, name);
+        List<String> errors = new Resolver(program).check().errors();
+        span.end(0, 0);
+        if (errors.isEmpty()) return parsed(errors, program.items.size(), tokens);
+        StringBuilder sb = new StringBuilder();
+        for (String error : errors) sb.append("Semantic error: ").append(error).append('\n');
+        return new Result(sb.toString().getBytes(charset), tokens, errors.size());
+    }
+
+    private Result parsed(List<String> errors, int items, int tokens)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (String error : errors) sb.append("Syntax error: ").append(error).append('\n');
+        if (errors.isEmpty()) sb.append("OK: ").append(items).append(" top-level items\n");
+        return new Result(sb.toString().getBytes(charset), tokens, errors.size());
+    }
+}
@@ -0,0 +1,338 @@
+package application;
+
+import interpreter.Resolution;
+import interpreter.Resolver;
+import lexer.Diagnostic;
+import lexer.Diagnostics;
+import lexer.Lexer;
+import lexer.token.TokenStream;
+import lexer.token.TokenWriter;
+import metrics.Metrics;
+import optimizer.Optimizer;
+import parser.RecognizerParser;
+import parser.ast.Ast;
+import vm.Disassembler;
+import vm.Lowering;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Kompajler kao servis na Unix socket-u: JVM i JIT ostaju topli izmedju poziva, a tokeni fajla se
+    pamte po putanji i menjaju tek kada se promeni vreme izmene ili velicina fajla. Svaka konekcija
+    je jedan zahtev i jedna virtuelna nit, pa se zahtevi obradjuju istovremeno.
+
+    zahtev   mode format engine optimize maxErrors path <apsolutna putanja>\n
+             mode format engine optimize maxErrors source <n>\n <n bajtova izvora, UTF-8>
+    odgovor  exit outLen errLen\n <outLen bajtova stdout> <errLen bajtova stderr>
+
+    mode je lex, parse, run ili disasm; ispis je isti kao iz Application za isti fajl. Zaglavlje je
+    tekst, pa se servis moze probati i bez klijenta (printf '...' | socat - UNIX-CONNECT:sock).
+    Neispravan zahtev, i izvor duzi od programskijezik.daemonMaxSource bajtova (podrazumevano
+    64 MB), dobija exit 64; greska u obradi (i preduboko ugnjezden program) exit 1.
+
+    Tokeni iz memorije su zamrznuti (TokenStream.freeze): vise zahteva ih cita istovremeno, a
+    pokusaj izmene baca izuzetak umesto da pokvari tokene drugom zahtevu.
+ */
+final class Daemon
+{
+    private static final int MAX_FILES = 256;
+    private static final int MAX_HEADER = 1 << 16;
+    static final String MAX_SOURCE_PROPERTY = "programskijezik.daemonMaxSource";
+
+    private final int maxSource = Integer.getInteger(MAX_SOURCE_PROPERTY, 64 << 20);
+
+    private record Lexed(FileTime modified, long size, int maxErrors, TokenStream tokens, Diagnostics diagnostics) {}
+
+    private record Response(int exit, byte[] out, byte[] err) {}
+
+    // LRU po putanji; pristup menja redosled, pa je i get pod bravom
+    private final Map<Path, Lexed> files = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Lexed> eldest)
+        {
+            return size() > MAX_FILES;
+        }
+    });
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger hits = new AtomicInteger();
+
+    // ---------------------------------------------------------------- servis
+
+    static void serve(Path socket) throws IOException
+    {
+        Daemon daemon = new Daemon();
+        Files.deleteIfExists(socket);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+             ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            Runtime.getRuntime().addShutdownHook(new Thread(() ->
+            {
+                try
+                {
+                    Files.deleteIfExists(socket);
+                }
+                catch (IOException ignored)
+                {
+                }
+                System.err.println("Daemon: " + daemon.requests.get() + " requests, " + daemon.hits.get() + " token cache hits");
+            }, "daemon-cleanup"));
+            System.err.println("Daemon: listening on " + socket);
+            while (true)
+            {
+                SocketChannel client = server.accept();
+                pool.submit(() -> daemon.handle(client));
+            }
+        }
+    }
+
+    private void handle(SocketChannel channel)
+    {
+        try (channel)
+        {
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+            Response r;
+            try
+            {
+                r = execute(line(in, MAX_HEADER), in);
+            }
+            catch (IllegalArgumentException e)
+            {
+                r = failure(64, "Bad request: " + e.getMessage());
+            }
+            catch (StackOverflowError e)
+            {
+                r = failure(1, "Error: program is nested too deeply");
+            }
+            catch (RuntimeException e)
+            {
+                r = failure(1, "Internal error: " + e);
+            }
+            OutputStream out = Channels.newOutputStream(channel);
+            out.write((r.exit + " " + r.out.length + " " + r.err.length + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(r.out);
+            out.write(r.err);
+            out.flush();
+        }
+        catch (IOException ignored)
+        {
+            // klijent je prekinuo vezu; nema kome da se javi
+        }
+    }
+
+    private static Response failure(int exit, String message)
+    {
+        return new Response(exit, new byte[0], (message + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Response execute(String header, InputStream in) throws IOException
+    {
+        requests.incrementAndGet();
+        String[] f = header.split(" ", 7);
+        if (f.length != 7) throw new IllegalArgumentException(header);
+        String mode = f[0];
+        TokenWriter.Format format = TokenWriter.Format.valueOf(f[1].toUpperCase(Locale.ROOT));
+        String engine = f[2];
+        boolean optimize = f[3].equals("1");
+        int maxErrors = Integer.parseInt(f[4]);
+        if (maxErrors <= 0 || !List.of("lex", "parse", "run", "disasm").contains(mode)) throw new IllegalArgumentException(header);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StringBuilder err = new StringBuilder();
+        int exit;
+        try
+        {
+            Lexed lexed = switch (f[5])
+            {
+                case "path" -> lexFile(Path.of(f[6]), maxErrors);
+                case "source" -> lex(new String(in.readNBytes(sourceLength(f[6])), StandardCharsets.UTF_8), maxErrors, null, 0);
+                default -> throw new IllegalArgumentException(header);
+            };
+            exit = execute(lexed, mode, format, engine, optimize, out, err);
+        }
+        catch (IOException | UncheckedIOException e)
+        {
+            err.append("Error reading file: ").append(e.getMessage()).append('\n');
+            exit = 1;
+        }
+        return new Response(exit, out.toByteArray(), err.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // isti tok i iste poruke kao Application za jedan fajl
+    private static int execute(Lexed lexed, String mode, TokenWriter.Format format, String engine, boolean optimize,
+                               ByteArrayOutputStream out, StringBuilder err)
+    {
+        if (!lexed.diagnostics.isEmpty())
+        {
+            List<Diagnostic> shown = lexed.diagnostics.sorted();
+            for (Diagnostic d : shown) err.append("Lexer error: ").append(d).append('\n');
+            if (lexed.diagnostics.count() > shown.size())
+            {
+                err.append("Lexer error: ").append(lexed.diagnostics.count() - shown.size()).append(" more errors not shown (")
+                        .append(lexed.diagnostics.count()).append(" total)\n");
+            }
+            return 1;
+        }
+        TokenStream tokens = lexed.tokens;
+        if (mode.equals("lex"))
+        {
+            TokenWriter w = new TokenWriter(out, StandardCharsets.UTF_8, format);
+            w.header();
+            for (int i = 0; i < tokens.size(); i++) w.write(tokens, i);
+            w.footer();
+            w.flush();
+            return 0;
+        }
+
+        RecognizerParser parser = new RecognizerParser(tokens);
+        Ast.Program program = parser.parse();
+        if (!parser.errors().isEmpty())
+        {
+            for (String error : parser.errors()) err.append("Syntax error: ").append(error).append('\n');
+            return 1;
+        }
+        Resolver checked = new Resolver(program).check();
+        List<String> semantic = checked.errors();
+        if (!semantic.isEmpty())
+        {
+            for (String error : semantic) err.append("Semantic error: ").append(error).append('\n');
+            return 1;
+        }
+        Resolution resolved = checked.resolve();
+        StringBuilder text = new StringBuilder();
+        try
+        {
+            if (mode.equals("parse"))
+            {
+                text.append("OK: ").append(program.items.size()).append(" top-level items\n");
+            }
+            else
+            {
+                if (optimize)
+                {
+                    Optimizer optimizer = new Optimizer();
+                    resolved = new Resolver(optimizer.optimize(resolved)).resolve();
+                    for (String line : optimizer.report().split("\\R")) err.append("Optimizer: ").append(line).append('\n');
+                }
+                if (mode.equals("run")) text.append("Result: ").append(Application.execute(resolved, engine, null, Metrics.OFF)).append('\n');
+                else text.append(Disassembler.disassemble(Lowering.lower(resolved)));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            err.append("Runtime error: ").append(e.getMessage()).append('\n');
+            return 1;
+        }
+        out.writeBytes(text.toString().getBytes(StandardCharsets.UTF_8));
+        return 0;
+    }
+
+    // duzina je od klijenta: bez granice bi readNBytes rezervisao koliko god trazi
+    private int sourceLength(String field)
+    {
+        int n = Integer.parseInt(field);
+        if (n < 0) throw new IllegalArgumentException("Bad source length " + n);
+        if (n > maxSource) throw new IllegalArgumentException("Source too large: " + n + " bytes (max " + maxSource + ")");
+        return n;
+    }
+
+    // tokeni iz memorije dok se fajl ne promeni
+    private Lexed lexFile(Path path, int maxErrors) throws IOException
+    {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes a = Files.readAttributes(key, BasicFileAttributes.class);
+        Lexed cached = files.get(key);
+        if (cached != null && cached.modified.equals(a.lastModifiedTime()) && cached.size == a.size() && cached.maxErrors == maxErrors)
+        {
+            hits.incrementAndGet();
+            return cached;
+        }
+        Lexed fresh = lex(Files.readString(key), maxErrors, a.lastModifiedTime(), a.size());
+        files.put(key, fresh);
+        return fresh;
+    }
+
+    private static Lexed lex(String code, int maxErrors, FileTime modified, long size)
+    {
+        Diagnostics diagnostics = new Diagnostics(maxErrors);
+        TokenStream tokens = new Lexer(code).collectErrors(diagnostics).scan().freeze();
+        return new Lexed(modified, size, maxErrors, tokens, diagnostics);
+    }
+
+    private static String line(InputStream in, int max) throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n')
+        {
+            if (b < 0) throw new EOFException("Connection closed before end of header");
+            if (line.size() == max) throw new IllegalArgumentException("Header too long");
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    // ---------------------------------------------------------------- klijent
+
+    // salje jedan zahtev i ispisuje odgovor na stdout/stderr; vraca izlazni kod
+    static int request(Path socket, String mode, TokenWriter.Format format, String engine, boolean optimize, int maxErrors,
+                       String file) throws IOException
+    {
+        String header = mode + " " + format.name().toLowerCase(Locale.ROOT) + " " + engine + " " + (optimize ? 1 : 0) + " " + maxErrors;
+        byte[] source = null;
+        if (file.equals("-"))
+        {
+            source = System.in.readAllBytes();
+            header += " source " + source.length;
+        }
+        else
+        {
+            header += " path " + Path.of(file).toAbsolutePath();
+        }
+
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket)))
+        {
+            OutputStream out = Channels.newOutputStream(channel);
+            out.write((header + "\n").getBytes(StandardCharsets.UTF_8));
+            if (source != null) out.write(source);
+            out.flush();
+
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+            String[] status = line(in, MAX_HEADER).split(" ");
+            int exit = Integer.parseInt(status[0]);
+            byte[] stdout = in.readNBytes(Integer.parseInt(status[1]));
+            byte[] stderr = in.readNBytes(Integer.parseInt(status[2]));
+            // Application sve sto ide na stderr (izvestaj optimizatora, greske) ispise pre rezultata
+            System.err.write(stderr, 0, stderr.length);
+            System.err.flush();
+            System.out.write(stdout, 0, stdout.length);
+            System.out.flush();
+            return exit;
+        }
+    }
+}
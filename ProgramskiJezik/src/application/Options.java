@@ -0,0 +1,149 @@
+package application;
+
+import lexer.token.TokenWriter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+    Opcije komandne linije (Application.USAGE). parse samo cita i proverava argumente, bez
+    izvrsavanja: pogresna ili besmislena kombinacija (npr. --connect sa --batch, --jobs bez
+    --batch) je IllegalArgumentException sa razlogom, a ne tiho ignorisana opcija.
+
+    mode je jedan od --stream, --parallel, --parse, --run, --disasm ili null (ispis tokena).
+ */
+record Options(String mode, TokenWriter.Format format, String engine, boolean batch, boolean optimize,
+               boolean stats, Path statsJson, Path daemon, Path connect, Path cacheDir, long cacheSize,
+               int jobs, int maxErrors, boolean sequential, boolean memo, long offHeap, List<String> paths)
+{
+    Options
+    {
+        paths = List.copyOf(paths);
+    }
+
+    boolean measured() { return stats || statsJson != null; }
+
+    static Options parse(String[] args)
+    {
+        String mode = null;
+        TokenWriter.Format format = TokenWriter.Format.TABLE;
+        String engine = "tree";
+        boolean batch = false, optimize = false, stats = false, sequential = false, memo = true;
+        Path statsJson = null, daemon = null, connect = null, cacheDir = null;
+        long cacheSize = 256L << 20, offHeap = -1;
+        int jobs = Math.max(2, 2 * Runtime.getRuntime().availableProcessors());
+        int maxErrors = 100;
+        List<String> set = new ArrayList<>();       // opcije koje su navedene, za proveru kombinacija
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++)
+        {
+            String arg = args[i];
+            if (arg.startsWith("--"))
+            {
+                if (set.contains(arg)) throw new IllegalArgumentException(arg + " is given more than once");
+                set.add(arg);
+            }
+            switch (arg)
+            {
+                case "--stream", "--parallel", "--parse", "--run", "--disasm" ->
+                {
+                    if (mode != null) throw new IllegalArgumentException(mode + " and " + arg + " cannot be combined");
+                    mode = arg;
+                }
+                case "--format" -> format = format(value(args, ++i, arg));
+                case "--engine" ->
+                {
+                    engine = value(args, ++i, arg);
+                    if (!(engine.equals("tree") || engine.equals("jit") || engine.equals("vm")))
+                        throw new IllegalArgumentException("Unknown engine '" + engine + "'");
+                }
+                case "--batch" -> batch = true;
+                case "--optimize" -> optimize = true;
+                case "--stats" -> stats = true;
+                case "--stats-json" -> statsJson = Path.of(value(args, ++i, arg));
+                case "--cache" -> cacheDir = Path.of(value(args, ++i, arg));
+                case "--cache-size" -> cacheSize = (long) positive(value(args, ++i, arg), arg) << 20;
+                case "--daemon" -> daemon = Path.of(value(args, ++i, arg));
+                case "--connect" -> connect = Path.of(value(args, ++i, arg));
+                case "--max-errors" -> maxErrors = positive(value(args, ++i, arg), arg);
+                case "--jobs" -> jobs = positive(value(args, ++i, arg), arg);
+                case "--sequential" -> sequential = true;
+                case "--no-memo" -> memo = false;
+                case "--off-heap" -> offHeap = (long) positive(value(args, ++i, arg), arg) << 20;
+                default ->
+                {
+                    if (arg.startsWith("--")) throw new IllegalArgumentException("Unknown option " + arg);
+                    paths.add(arg);
+                }
+            }
+        }
+
+        if (daemon != null)
+        {
+            set.remove("--daemon");
+            if (!set.isEmpty()) throw new IllegalArgumentException("--daemon cannot be combined with " + set.get(0));
+            if (!paths.isEmpty()) throw new IllegalArgumentException("--daemon takes no source files");
+        }
+        else if (connect != null)
+        {
+            // daemon prevodi i izvrsava sam, pa opcije ovog procesa tamo nemaju efekta
+            for (String local : List.of("--batch", "--stream", "--parallel", "--cache", "--cache-size", "--stats", "--stats-json",
+                    "--jobs", "--sequential", "--no-memo", "--off-heap"))
+            {
+                if (set.contains(local)) throw new IllegalArgumentException("--connect cannot be combined with " + local);
+            }
+            if (paths.size() != 1) throw new IllegalArgumentException("--connect takes one source file");
+        }
+        else if (batch)
+        {
+            if (mode != null && !mode.equals("--parse")) throw new IllegalArgumentException("--batch cannot be combined with " + mode);
+            if (paths.isEmpty()) throw new IllegalArgumentException("--batch needs at least one file");
+        }
+        else
+        {
+            if (set.contains("--jobs")) throw new IllegalArgumentException("--jobs needs --batch");
+            if (paths.size() != 1) throw new IllegalArgumentException("Expected one source file, got " + paths.size());
+            if (cacheDir != null && ("--stream".equals(mode) || "--parallel".equals(mode)))
+                throw new IllegalArgumentException("--cache cannot be combined with " + mode);
+        }
+        if (set.contains("--cache-size") && cacheDir == null) throw new IllegalArgumentException("--cache-size needs --cache");
+        if (set.contains("--engine") && !"--run".equals(mode)) throw new IllegalArgumentException("--engine needs --run");
+        if (optimize && !("--run".equals(mode) || "--disasm".equals(mode)))
+            throw new IllegalArgumentException("--optimize needs --run or --disasm");
+        return new Options(mode, format, engine, batch, optimize, stats, statsJson, daemon, connect, cacheDir, cacheSize,
+                jobs, maxErrors, sequential, memo, offHeap, paths);
+    }
+
+    private static String value(String[] args, int i, String option)
+    {
+        if (i >= args.length) throw new IllegalArgumentException(option + " needs a value");
+        return args[i];
+    }
+
+    private static int positive(String n, String option)
+    {
+        try
+        {
+            int value = Integer.parseInt(n);
+            if (value > 0) return value;
+        }
+        catch (NumberFormatException ignored)
+        {
+        }
+        throw new IllegalArgumentException(option + " needs a positive number, got '" + n + "'");
+    }
+
+    private static TokenWriter.Format format(String name)
+    {
+        try
+        {
+            return TokenWriter.Format.valueOf(name.toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Unknown format '" + name + "'");
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package cache;
+
+import lexer.token.Token;
+import lexer.token.TokenType;
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Binarni zapis Ast.Program-a: cvorovi u preorder redosledu, svaki sa bajtom oznake, liste sa
+    brojem elemenata ispred; brojevi su varint (Bytes). Token je (tip, indeks leksema u tabeli
+    stringova, literal, red - red prethodnog tokena, kolone, id imena); isti leksemi se pisu jednom.
+
+    brojStringova | stringovi | telo
+
+    Slotovi nisu deo stabla (Resolution je posebna tabela): ucitano stablo se razresava kao i parsirano.
+ */
+final class AstCodec
+{
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final Ast.Type.Kind[] KINDS = Ast.Type.Kind.values();
+
+    private static final byte FUNC = 1, TOP_VAR = 2, TOP_STMT = 3;
+    private static final byte VAR_DECL = 1, RETURN = 2, ASSIGN = 3, CALL_STMT = 4, IF = 5, FOR = 6;
+    private static final int NULL_TOKEN = 0x7F, HAS_LITERAL = 0x80;
+    private static final byte NULL = 0, LITERAL = 1, IDENT = 2, INDEX = 3, GROUPING = 4, CALL = 5, BINARY = 6;
+
+    private AstCodec() {}
+
+    // ---------------------------------------------------------------- pisanje
+
+    private static final class Writer
+    {
+        final Bytes out = new Bytes(1 << 12);
+        final Map<String, Integer> strings = new HashMap<>();
+        final List<String> table = new ArrayList<>();
+        int line;
+
+        void program(Ast.Program p)
+        {
+            out.put(p.explicitProgram ? 1 : 0);
+            out.varint(p.items.size());
+            for (Ast.TopItem item : p.items)
+            {
+                if (item instanceof Ast.FuncDef f)
+                {
+                    out.put(FUNC);
+                    token(f.name);
+                    out.varint(f.params.size());
+                    for (Ast.Param param : f.params)
+                    {
+                        token(param.name);
+                        type(param.type);
+                    }
+                    type(f.returnType);
+                    block(f.body);
+                }
+                else if (item instanceof Ast.TopVarDecl v)
+                {
+                    out.put(TOP_VAR);
+                    varDecl(v.decl);
+                }
+                else
+                {
+                    out.put(TOP_STMT);
+                    statement(((Ast.TopStmt) item).stmt);
+                }
+            }
+        }
+
+        void type(Ast.Type t)
+        {
+            out.put(t.kind.ordinal());
+            token(t.baseType);
+            out.varint(t.rank);
+        }
+
+        // null blok (nema else) je 0, ostali broj naredbi + 1
+        void block(List<Stmt> body)
+        {
+            if (body == null)
+            {
+                out.varint(0);
+                return;
+            }
+            out.varint(body.size() + 1);
+            for (Stmt s : body) statement(s);
+        }
+
+        void statement(Stmt s)
+        {
+            if (s instanceof Stmt.VarDecl v)
+            {
+                out.put(VAR_DECL);
+                varDecl(v);
+            }
+            else if (s instanceof Stmt.Return r)
+            {
+                out.put(RETURN);
+                expr(r.expr);
+            }
+            else if (s instanceof Stmt.Assign a)
+            {
+                out.put(ASSIGN);
+                expr(a.left);
+                token(a.lvalue.name);
+                exprs(a.lvalue.indices);
+            }
+            else if (s instanceof Stmt.CallStmt c)
+            {
+                out.put(CALL_STMT);
+                expr(c.call);
+            }
+            else if (s instanceof Stmt.BeginIf i)
+            {
+                out.put(IF);
+                expr(i.ifArm.cond);
+                block(i.ifArm.block);
+                out.varint(i.orIfArms.size());
+                for (Stmt.BeginIf.Arm arm : i.orIfArms)
+                {
+                    expr(arm.cond);
+                    block(arm.block);
+                }
+                block(i.elseBlock);
+            }
+            else
+            {
+                Stmt.BeginFor f = (Stmt.BeginFor) s;
+                out.put(FOR);
+                token(f.var);
+                expr(f.from);
+                expr(f.to);
+                block(f.body);
+            }
+        }
+
+        void varDecl(Stmt.VarDecl v)
+        {
+            exprs(v.dims);
+            out.varint(v.names.size());
+            for (Token name : v.names) token(name);
+        }
+
+        void exprs(List<Expr> list)
+        {
+            out.varint(list.size());
+            for (Expr e : list) expr(e);
+        }
+
+        void expr(Expr e)
+        {
+            if (e == null)
+            {
+                out.put(NULL);
+            }
+            else if (e instanceof Expr.Literal l)
+            {
+                out.put(LITERAL);
+                token(l.token);
+                out.zigzag(l.value);
+            }
+            else if (e instanceof Expr.Ident id)
+            {
+                out.put(IDENT);
+                token(id.name);
+            }
+            else if (e instanceof Expr.Index ix)
+            {
+                out.put(INDEX);
+                token(ix.name);
+                exprs(ix.indices);
+            }
+            else if (e instanceof Expr.Grouping g)
+            {
+                out.put(GROUPING);
+                expr(g.inner);
+            }
+            else if (e instanceof Expr.Call c)
+            {
+                out.put(CALL);
+                token(c.callTok);
+                token(c.callee);
+                exprs(c.args);
+            }
+            else
+            {
+                Expr.Binary b = (Expr.Binary) e;
+                out.put(BINARY);
+                expr(b.left);
+                token(b.op);
+                expr(b.right);
+            }
+        }
+
+        void token(Token t)
+        {
+            if (t == null)
+            {
+                out.put(NULL_TOKEN);
+                return;
+            }
+            out.put(t.type.ordinal() | (t.literal != null ? HAS_LITERAL : 0));
+            out.varint(string(t.lexeme));
+            if (t.literal != null) out.zigzag(t.literal);
+            out.zigzag(t.line - line);
+            out.zigzag(t.colStart);
+            out.zigzag(t.colEnd - t.colStart);
+            out.zigzag(t.symbol);
+            line = t.line;
+        }
+
+        int string(String s)
+        {
+            Integer i = strings.get(s);
+            if (i != null) return i;
+            strings.put(s, table.size());
+            table.add(s);
+            return table.size() - 1;
+        }
+    }
+
+    static byte[] encode(Ast.Program program)
+    {
+        Writer w = new Writer();
+        w.program(program);
+        byte[] body = w.out.toArray();
+        Bytes all = new Bytes(body.length + 16 * w.table.size());
+        all.varint(w.table.size());
+        for (String str : w.table) all.string(str);
+        all.raw(body);
+        return all.toArray();
+    }
+
+    // ---------------------------------------------------------------- citanje
+
+    private static final class Reader
+    {
+        final ByteBuffer in;
+        final String[] strings;
+
+        int line;
+
+        Reader(ByteBuffer in)
+        {
+            this.in = in;
+            this.strings = new String[count()];
+            for (int i = 0; i < strings.length; i++) strings[i] = Bytes.string(in);
+        }
+
+        int count()
+        {
+            return Bytes.count(in);
+        }
+
+        Ast.Program program()
+        {
+            boolean explicit = in.get() != 0;
+            int n = count();
+            List<Ast.TopItem> items = new ArrayList<>(n);
+            for (int i = 0; i < n; i++)
+            {
+                byte tag = in.get();
+                switch (tag)
+                {
+                    case FUNC ->
+                    {
+                        Token name = token();
+                        int k = count();
+                        List<Ast.Param> params = new ArrayList<>(k);
+                        for (int j = 0; j < k; j++) params.add(new Ast.Param(token(), type()));
+                        Ast.Type ret = type();
+                        items.add(new Ast.FuncDef(name, params, ret, block()));
+                    }
+                    case TOP_VAR -> items.add(new Ast.TopVarDecl(varDecl()));
+                    case TOP_STMT -> items.add(new Ast.TopStmt(statement()));
+                    default -> throw new IllegalStateException("Bad item tag " + tag);
+                }
+            }
+            return new Ast.Program(explicit, items);
+        }
+
+        Ast.Type type()
+        {
+            Ast.Type.Kind kind = KINDS[in.get()];
+            Token base = token();
+            return new Ast.Type(kind, base, Bytes.varint(in));
+        }
+
+        List<Stmt> block()
+        {
+            int n = count() - 1;
+            if (n < 0) return null;
+            List<Stmt> body = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) body.add(statement());
+            return body;
+        }
+
+        Stmt statement()
+        {
+            byte tag = in.get();
+            switch (tag)
+            {
+                case VAR_DECL:
+                    return varDecl();
+                case RETURN:
+                    return new Stmt.Return(expr());
+                case ASSIGN:
+                {
+                    Expr left = expr();
+                    Token name = token();
+                    return new Stmt.Assign(left, new Stmt.LValue(name, exprs()));
+                }
+                case CALL_STMT:
+                    return new Stmt.CallStmt((Expr.Call) expr());
+                case IF:
+                {
+                    Stmt.BeginIf.Arm first = new Stmt.BeginIf.Arm(expr(), block());
+                    int n = count();
+                    List<Stmt.BeginIf.Arm> arms = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) arms.add(new Stmt.BeginIf.Arm(expr(), block()));
+                    return new Stmt.BeginIf(first, arms, block());
+                }
+                case FOR:
+                {
+                    Token var = token();
+                    Expr from = expr(), to = expr();
+                    return new Stmt.BeginFor(var, from, to, block());
+                }
+                default:
+                    throw new IllegalStateException("Bad statement tag " + tag);
+            }
+        }
+
+        Stmt.VarDecl varDecl()
+        {
+            List<Expr> dims = exprs();
+            int n = count();
+            List<Token> names = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) names.add(token());
+            return new Stmt.VarDecl(dims, names);
+        }
+
+        List<Expr> exprs()
+        {
+            int n = count();
+            if (n == 0) return new ArrayList<>(0);
+            List<Expr> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) list.add(expr());
+            return list;
+        }
+
+        Expr expr()
+        {
+            byte tag = in.get();
+            switch (tag)
+            {
+                case NULL:
+                    return null;
+                case LITERAL:
+                {
+                    Token t = token();
+                    return new Expr.Literal(t, Bytes.zigzag(in));
+                }
+                case IDENT:
+                    return new Expr.Ident(token());
+                case INDEX:
+                {
+                    Token name = token();
+                    return new Expr.Index(name, exprs());
+                }
+                case GROUPING:
+                    return new Expr.Grouping(expr());
+                case CALL:
+                {
+                    Token callTok = token(), callee = token();
+                    return new Expr.Call(callTok, callee, exprs());
+                }
+                case BINARY:
+                {
+                    Expr left = expr();
+                    Token op = token();
+                    return new Expr.Binary(left, op, expr());
+                }
+                default:
+                    throw new IllegalStateException("Bad expression tag " + tag);
+            }
+        }
+
+        Token token()
+        {
+            int type = in.get() & 0xFF;
+            if (type == NULL_TOKEN) return null;
+            String lexeme = strings[Bytes.varint(in)];
+            Integer literal = (type & HAS_LITERAL) != 0 ? Bytes.zigzag(in) : null;
+            line += Bytes.zigzag(in);
+            int colStart = Bytes.zigzag(in);
+            int colEnd = colStart + Bytes.zigzag(in);
+            return new Token(TYPES[type & ~HAS_LITERAL], lexeme, literal, line, colStart, colEnd, Bytes.zigzag(in));
+        }
+    }
+
+    static Ast.Program decode(ByteBuffer in)
+    {
+        return new Reader(in).program();
+    }
+}
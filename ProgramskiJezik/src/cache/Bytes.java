@@ -0,0 +1,108 @@
+package cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/*
+    Bafer za zapis unosa u kesu: bajtovi i varint (7 bita po bajtu, najnizi prvi). Mali brojevi,
+    a to su skoro sve razlike pozicija, redovi i indeksi, zauzimaju jedan bajt.
+    zigzag preslikava i negativne brojeve u male (0, -1, 1, -2... -> 0, 1, 2, 3...).
+ */
+final class Bytes
+{
+    private byte[] buf;
+    private int size;
+
+    Bytes(int capacity)
+    {
+        buf = new byte[Math.max(16, capacity)];
+    }
+
+    void put(int b)
+    {
+        if (size == buf.length) grow(1);
+        buf[size++] = (byte) b;
+    }
+
+    void varint(int v)
+    {
+        if (size + 5 > buf.length) grow(5);
+        while ((v & ~0x7F) != 0)
+        {
+            buf[size++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[size++] = (byte) v;
+    }
+
+    void zigzag(int v)
+    {
+        varint((v << 1) ^ (v >> 31));
+    }
+
+    void string(String s)
+    {
+        bytes(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void bytes(byte[] b)
+    {
+        varint(b.length);
+        raw(b);
+    }
+
+    // bez duzine ispred
+    void raw(byte[] b)
+    {
+        if (size + b.length > buf.length) grow(b.length);
+        System.arraycopy(b, 0, buf, size, b.length);
+        size += b.length;
+    }
+
+    byte[] toArray()
+    {
+        byte[] out = new byte[size];
+        System.arraycopy(buf, 0, out, 0, size);
+        return out;
+    }
+
+    private void grow(int need)
+    {
+        byte[] bigger = new byte[Math.max(buf.length * 2, size + need)];
+        System.arraycopy(buf, 0, bigger, 0, size);
+        buf = bigger;
+    }
+
+    static int varint(ByteBuffer in)
+    {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            byte b = in.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IllegalStateException("Bad varint");
+    }
+
+    static int zigzag(ByteBuffer in)
+    {
+        int v = varint(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // broj elemenata; pokvaren zapis ne sme da napravi ogroman niz
+    static int count(ByteBuffer in)
+    {
+        int n = varint(in);
+        if (n < 0 || n > in.remaining()) throw new IllegalStateException("Bad count " + n);
+        return n;
+    }
+
+    static String string(ByteBuffer in)
+    {
+        byte[] b = new byte[count(in)];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,333 @@
+package cache;
+
+import lexer.Lexer;
+import lexer.token.TokenStream;
+import lexer.token.TokenType;
+import parser.RecognizerParser;
+import parser.ast.Ast;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Kes tokena i stabala na disku. Kljuc je SHA-256 od verzije kompajlera i sadrzaja izvora, pa
+    isti fajl (bilo gde, pod bilo kojim imenom) daje isti kljuc, a promena formata ili skupa tokena
+    ponistava sve stare unose. Po kljucu dva fajla:
+
+    <kljuc>.tok   TokenCodec: tokeni, za ispis tokena
+    <kljuc>.ast   broj tokena i stavki, sintaksne greske i Ast.Program (AstCodec) kada gresaka nema
+
+    Unos se cita kroz mmap i dekodira pravo iz mapirane memorije; upisuje se u privremeni fajl koji
+    se atomski preimenuje, pa vise niti (i procesa) moze da deli isti direktorijum. Pogodak pomera
+    vreme izmene fajla na sada; kada zbir velicina predje granicu, brisu se najstariji (LRU) dok
+    kes ne padne na 3/4 granice. Pokvaren ili nepotpun unos se tretira kao promasaj i brise.
+ */
+public final class CompileCache
+{
+    public static final String VERSION = "programski-jezik 1.0";
+
+    private static final int MAGIC = 0x4A414D43;    // "JAMC"
+    private static final int FORMAT = 2;
+    private static final int HEADER = 8;
+    private static final byte[] SALT = (VERSION + "/" + FORMAT + "/" + Arrays.toString(TokenType.values())).getBytes(StandardCharsets.UTF_8);
+
+    /*
+        Rezultat parsiranja kakav je bio bez kesa; program je null kada ima gresaka. Stablo iz kesa
+        se dekodira tek na prvi program(), pa --batch --parse (samo greske i broj stavki) ne pravi
+        nijedan cvor.
+     */
+    public static final class Parsed
+    {
+        private final List<String> errors;
+        private final int tokens;
+        private final int items;
+        private ByteBuffer encoded;
+        private Ast.Program program;
+
+        Parsed(Ast.Program program, List<String> errors, int tokens)
+        {
+            this.program = program;
+            this.errors = errors;
+            this.tokens = tokens;
+            this.items = program == null ? 0 : program.items.size();
+        }
+
+        Parsed(ByteBuffer encoded, List<String> errors, int tokens, int items)
+        {
+            this.encoded = encoded;
+            this.errors = errors;
+            this.tokens = tokens;
+            this.items = items;
+        }
+
+        public List<String> errors() { return errors; }
+
+        public int tokens() { return tokens; }
+
+        public int items() { return items; }
+
+        public Ast.Program program()
+        {
+            if (encoded != null)
+            {
+                program = AstCodec.decode(encoded);
+                encoded = null;
+            }
+            return program;
+        }
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public CompileCache(Path dir, long maxBytes) throws IOException
+    {
+        this.dir = Files.createDirectories(dir);
+        this.maxBytes = maxBytes;
+        long total = 0;
+        for (Entry e : entries()) total += e.size;
+        size.set(total);
+    }
+
+    public static String key(byte[] source)
+    {
+        try
+        {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(SALT);
+            return HexFormat.of().formatHex(sha.digest(source));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // tokeni iz kesa ili iz Lexer-a; greska leksera se ne kesira nego baca kao i bez kesa
+    public TokenStream tokens(byte[] source)
+    {
+        return tokens(key(source), source);
+    }
+
+    private TokenStream tokens(String key, byte[] source)
+    {
+        String text = new String(source, StandardCharsets.UTF_8);
+        Path file = dir.resolve(key + ".tok");
+        ByteBuffer in = load(file);
+        if (in != null)
+        {
+            try
+            {
+                TokenStream ts = TokenCodec.decode(in, text);
+                hits.incrementAndGet();
+                return ts;
+            }
+            catch (RuntimeException e)
+            {
+                discard(file);
+            }
+        }
+        misses.incrementAndGet();
+        TokenStream ts = new Lexer(text).scan();
+        store(file, TokenCodec.encode(ts));
+        return ts;
+    }
+
+    public Parsed parse(byte[] source)
+    {
+        String key = key(source);
+        Path file = dir.resolve(key + ".ast");
+        ByteBuffer in = load(file);
+        if (in != null)
+        {
+            try
+            {
+                Parsed p = decodeParsed(in);
+                hits.incrementAndGet();
+                return p;
+            }
+            catch (RuntimeException e)
+            {
+                discard(file);
+            }
+        }
+        misses.incrementAndGet();
+        TokenStream tokens = tokens(key, source);
+        RecognizerParser parser = new RecognizerParser(tokens);
+        Ast.Program program = parser.parse();
+        Parsed p = new Parsed(parser.errors().isEmpty() ? program : null, List.copyOf(parser.errors()), tokens.size());
+        store(file, encodeParsed(p));
+        return p;
+    }
+
+    public int hits() { return hits.get(); }
+
+    public int misses() { return misses.get(); }
+
+    private static byte[] encodeParsed(Parsed p)
+    {
+        byte[] program = p.program == null ? null : AstCodec.encode(p.program);
+        Bytes out = new Bytes(64 + (program == null ? 0 : program.length));
+        out.varint(p.tokens);
+        out.varint(p.items);
+        out.varint(p.errors.size());
+        for (String error : p.errors) out.string(error);
+        out.put(program == null ? 0 : 1);
+        if (program != null) out.raw(program);
+        return out.toArray();
+    }
+
+    private static Parsed decodeParsed(ByteBuffer in)
+    {
+        int tokens = Bytes.varint(in);
+        int items = Bytes.varint(in);
+        int n = Bytes.count(in);
+        List<String> errors = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) errors.add(Bytes.string(in));
+        return new Parsed(in.get() != 0 ? in : null, errors, tokens, items);
+    }
+
+    // mapiran sadrzaj posle zaglavlja, ili null ako unosa nema (ili je iz druge verzije formata)
+    private ByteBuffer load(Path file)
+    {
+        MappedByteBuffer map;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long n = ch.size();
+            if (n < HEADER || n > Integer.MAX_VALUE)
+            {
+                discard(file);
+                return null;
+            }
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, n);
+        }
+        catch (IOException e)
+        {
+            // nema unosa (NoSuchFileException) ili ne moze da se procita: promasaj
+            return null;
+        }
+        if (map.getInt(0) != MAGIC || map.getInt(4) != FORMAT)
+        {
+            discard(file);
+            return null;
+        }
+        touch(file);
+        return map.position(HEADER).slice();
+    }
+
+    private void store(Path file, byte[] payload)
+    {
+        Path tmp = null;
+        try
+        {
+            tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE))
+            {
+                ch.write(new ByteBuffer[] { ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(FORMAT).flip(), ByteBuffer.wrap(payload) });
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        }
+        catch (IOException e)
+        {
+            // kes je samo ubrzanje: neuspeo upis znaci promasaj sledeci put
+            return;
+        }
+        finally
+        {
+            if (tmp != null) discard(tmp);
+        }
+        if (size.addAndGet(HEADER + payload.length) > maxBytes) evict();
+    }
+
+    private static void touch(Path file)
+    {
+        try
+        {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        catch (IOException ignored)
+        {
+            // unos je mozda u medjuvremenu izbacen; pogodak vazi
+        }
+    }
+
+    private static void discard(Path file)
+    {
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException ignored)
+        {
+        }
+    }
+
+    private record Entry(Path path, long size, long time) {}
+
+    private List<Entry> entries() throws IOException
+    {
+        List<Entry> list = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{tok,ast}"))
+        {
+            for (Path p : files)
+            {
+                try
+                {
+                    BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+                    list.add(new Entry(p, a.size(), a.lastModifiedTime().toMillis()));
+                }
+                catch (NoSuchFileException ignored)
+                {
+                    // obrisan u medjuvremenu
+                }
+            }
+        }
+        return list;
+    }
+
+    private synchronized void evict()
+    {
+        if (size.get() <= maxBytes) return;
+        try
+        {
+            List<Entry> list = entries();
+            list.sort(Comparator.comparingLong(Entry::time));
+            long total = 0;
+            for (Entry e : list) total += e.size;
+            for (Entry e : list)
+            {
+                if (total <= maxBytes / 4 * 3) break;
+                discard(e.path);
+                total -= e.size;
+            }
+            size.set(total);
+        }
+        catch (IOException ignored)
+        {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package cache;
+
+import lexer.SymbolTable;
+import lexer.token.TokenStream;
+import lexer.token.TokenType;
+
+import java.nio.ByteBuffer;
+
+/*
+    Binarni zapis TokenStream-a. Svako polje tokena je razlika u odnosu na prethodni token, kao
+    varint (Bytes), pa je tipican token 4 bajta:
+
+    m | m imena iz SymbolTable, redom id-eva
+    | n | n x (tip, pocetak - kraj prethodnog, duzina, vrednost)
+
+    Redovi i kolone se ne zapisuju: na ucitavanju se LineIndex pravi iz izvora, koji je ionako
+    tu (kljuc je njegov hash). Za IDENT je vrednost id imena; imena se na ucitavanju
+    interniraju istim redom, pa id-evi ostaju isti.
+ */
+final class TokenCodec
+{
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private TokenCodec() {}
+
+    static byte[] encode(TokenStream ts)
+    {
+        int n = ts.size();
+        Bytes out = new Bytes(8 * n + 64);
+        SymbolTable symbols = ts.symbols();
+        out.varint(symbols.size());
+        for (int id = 0; id < symbols.size(); id++) out.string(symbols.name(id));
+        out.varint(n);
+        int end = 0;
+        for (int i = 0; i < n; i++)
+        {
+            int s = ts.start(i), e = ts.end(i);
+            out.put(ts.type(i).ordinal());
+            out.zigzag(s - end);
+            out.zigzag(e - s);
+            out.zigzag(ts.literal(i));
+            end = e;
+        }
+        return out.toArray();
+    }
+
+    // in je postavljen na pocetak zapisa (posle zaglavlja CompileCache-a)
+    static TokenStream decode(ByteBuffer in, CharSequence source)
+    {
+        SymbolTable symbols = new SymbolTable();
+        int m = Bytes.count(in);
+        for (int id = 0; id < m; id++) symbols.intern(Bytes.string(in));
+
+        int n = Bytes.count(in);
+        TokenStream ts = new TokenStream(source, symbols, Math.max(16, n));
+        int end = 0;
+        for (int i = 0; i < n; i++)
+        {
+            TokenType type = TYPES[in.get() & 0xFF];
+            int s = end + Bytes.zigzag(in);
+            int e = s + Bytes.zigzag(in);
+            ts.add(type, s, e, Bytes.zigzag(in));
+            end = e;
+        }
+        ts.lines().scan(source, 0, source.length());
+        return ts;
+    }
+}
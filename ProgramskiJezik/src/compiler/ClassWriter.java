@@ -0,0 +1,217 @@
+package compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Najmanji zapis .class fajla koji nam treba: constant pool (Utf8, Integer, String, Class,
+    Fieldref, Methodref, NameAndType), static int polja i static metode sa Code i StackMapTable
+    atributima. Bez konstruktora i interfejsa; klasa se nikad ne instancira.
+ */
+final class ClassWriter
+{
+    private static final int MAJOR = 65; // Java 21
+
+    private static final int UTF8 = 1, INTEGER = 3, CLASS = 7, STRING = 8, FIELDREF = 9, METHODREF = 10, NAME_AND_TYPE = 12;
+
+    static final int ACC_PRIVATE = 0x0002, ACC_STATIC = 0x0008, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> entries = new HashMap<>();
+    private int poolCount = 1;
+
+    private final int thisClass, superClass;
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+
+    ClassWriter(String name)
+    {
+        thisClass = classRef(name);
+        superClass = classRef("java/lang/Object");
+    }
+
+    int utf8(String s)
+    {
+        Integer i = entries.get("U" + s);
+        if (i != null) return i;
+        try
+        {
+            pool.writeByte(UTF8);
+            pool.writeUTF(s);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return add("U" + s);
+    }
+
+    int integer(int v)
+    {
+        Integer i = entries.get("I" + v);
+        if (i != null) return i;
+        u1(INTEGER);
+        u4(v);
+        return add("I" + v);
+    }
+
+    int string(String s)
+    {
+        int utf = utf8(s);
+        Integer i = entries.get("S" + s);
+        if (i != null) return i;
+        u1(STRING);
+        u2(utf);
+        return add("S" + s);
+    }
+
+    int classRef(String internalName)
+    {
+        int utf = utf8(internalName);
+        Integer i = entries.get("C" + internalName);
+        if (i != null) return i;
+        u1(CLASS);
+        u2(utf);
+        return add("C" + internalName);
+    }
+
+    int fieldRef(String owner, String name, String desc)
+    {
+        return memberRef(FIELDREF, owner, name, desc);
+    }
+
+    int methodRef(String owner, String name, String desc)
+    {
+        return memberRef(METHODREF, owner, name, desc);
+    }
+
+    int thisClass()
+    {
+        return thisClass;
+    }
+
+    private int memberRef(int tag, String owner, String name, String desc)
+    {
+        int cls = classRef(owner);
+        int nt = nameAndType(name, desc);
+        String key = tag + owner + "." + name + ":" + desc;
+        Integer i = entries.get(key);
+        if (i != null) return i;
+        u1(tag);
+        u2(cls);
+        u2(nt);
+        return add(key);
+    }
+
+    private int nameAndType(String name, String desc)
+    {
+        int n = utf8(name), d = utf8(desc);
+        String key = "N" + name + ":" + desc;
+        Integer i = entries.get(key);
+        if (i != null) return i;
+        u1(NAME_AND_TYPE);
+        u2(n);
+        u2(d);
+        return add(key);
+    }
+
+    private int add(String key)
+    {
+        if (poolCount == 0xffff) throw new IllegalStateException("Constant pool overflow");
+        entries.put(key, poolCount);
+        return poolCount++;
+    }
+
+    void field(int access, String name, String desc)
+    {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(b);
+        try
+        {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(desc));
+            out.writeShort(0);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        fields.add(b.toByteArray());
+    }
+
+    void method(int access, String name, String desc, Code code)
+    {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(b);
+        try
+        {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(desc));
+            out.writeShort(1);
+            byte[] attr = code.attribute(this);
+            out.writeShort(utf8("Code"));
+            out.writeInt(attr.length);
+            out.write(attr);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        methods.add(b.toByteArray());
+    }
+
+    byte[] toByteArray()
+    {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(b);
+        try
+        {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR);
+            out.writeShort(poolCount);
+            pool.flush();
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(fields.size());
+            for (byte[] f : fields) out.write(f);
+            out.writeShort(methods.size());
+            for (byte[] m : methods) out.write(m);
+            out.writeShort(0);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return b.toByteArray();
+    }
+
+    private void u1(int v)
+    {
+        poolBytes.write(v);
+    }
+
+    private void u2(int v)
+    {
+        poolBytes.write(v >>> 8);
+        poolBytes.write(v);
+    }
+
+    private void u4(int v)
+    {
+        u2(v >>> 16);
+        u2(v);
+    }
+}
@@ -0,0 +1,341 @@
+package compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/*
+    Bajtkod jedne metode. Svaka lokalna ima stalan tip, int ili interpreter.IntArray (arrayLocal),
+    i inicijalizuje se na ulazu u metodu, a na svakoj tacki spajanja su na steku samo int-ovi, pa
+    je svaki StackMapTable zapis full_frame "tipovi lokalnih + depth int-ova". Dubina steka se
+    prati pri svakoj instrukciji, a labela pamti dubinu sa skoka. Posle goto/ireturn/athrow kod je
+    mrtav; ako se iza njega nesto emituje bez labele, dobija svoj frame (verifier proverava i mrtav kod).
+ */
+final class Code
+{
+    static final int NOP = 0x00, ACONST_NULL = 0x01, ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11, LDC = 0x12, LDC_W = 0x13,
+            ILOAD = 0x15, ALOAD = 0x19, ILOAD_0 = 0x1a, ALOAD_0 = 0x2a, ISTORE = 0x36, ASTORE = 0x3a, ISTORE_0 = 0x3b,
+            ASTORE_0 = 0x4b, IASTORE = 0x4f, POP = 0x57, DUP = 0x59,
+            IADD = 0x60, ISUB = 0x64, IMUL = 0x68, IDIV = 0x6c, IREM = 0x70, IINC = 0x84,
+            IFEQ = 0x99, IFNE = 0x9a, IFGE = 0x9c, IF_ICMPEQ = 0x9f, IF_ICMPNE = 0xa0, IF_ICMPLT = 0xa1, IF_ICMPGE = 0xa2,
+            IF_ICMPGT = 0xa3, IF_ICMPLE = 0xa4, GOTO = 0xa7, IRETURN = 0xac, GETSTATIC = 0xb2, PUTSTATIC = 0xb3,
+            INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, NEW = 0xbb, NEWARRAY = 0xbc, ATHROW = 0xbf, WIDE = 0xc4,
+            IFNONNULL = 0xc7;
+
+    static final int T_INT = 10;
+    static final String ARRAY_CLASS = "interpreter/IntArray";
+
+    // skokovi imaju 16-bitni pomeraj, pa metoda mora da stane u 32 KB
+    static final int MAX_CODE = Short.MAX_VALUE;
+
+    static final class Label
+    {
+        private int pos = -1;
+        private int depth = -1;
+        private int[] patches = new int[2];
+        private int patchCount;
+    }
+
+    private byte[] code = new byte[256];
+    private int pc;
+    private int depth, maxStack;
+    private boolean reachable = true;
+    private final int maxLocals;
+    private final boolean[] arrayLocals;
+    private int[] frameAt = new int[16], frameDepth = new int[16];
+    private int frames;
+
+    Code(int maxLocals)
+    {
+        this.maxLocals = maxLocals;
+        this.arrayLocals = new boolean[maxLocals];
+    }
+
+    // lokalna drzi IntArray u celoj metodi
+    void arrayLocal(int local)
+    {
+        arrayLocals[local] = true;
+    }
+
+    int size()
+    {
+        return pc;
+    }
+
+    boolean reachable()
+    {
+        return reachable;
+    }
+
+    int depth()
+    {
+        return depth;
+    }
+
+    // dubina posle koda koji se ne izvrsava (npr. izraz koji uvek baca), da bi mrtav kod iza bio ispravan
+    void assumeDepth(int d)
+    {
+        depth = d;
+        maxStack = Math.max(maxStack, d);
+    }
+
+    void iconst(int v)
+    {
+        if (v >= -1 && v <= 5) op(ICONST_0 + v, 1);
+        else if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE)
+        {
+            op(BIPUSH, 1);
+            u1(v);
+        }
+        else if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE)
+        {
+            op(SIPUSH, 1);
+            u2(v);
+        }
+        else
+        {
+            throw new IllegalArgumentException("use ldc");
+        }
+    }
+
+    void ldc(int index)
+    {
+        if (index < 256)
+        {
+            op(LDC, 1);
+            u1(index);
+        }
+        else
+        {
+            op(LDC_W, 1);
+            u2(index);
+        }
+    }
+
+    void iload(int local)
+    {
+        local(ILOAD, ILOAD_0, local, 1);
+    }
+
+    void istore(int local)
+    {
+        local(ISTORE, ISTORE_0, local, -1);
+    }
+
+    void aload(int local)
+    {
+        local(ALOAD, ALOAD_0, local, 1);
+    }
+
+    void astore(int local)
+    {
+        local(ASTORE, ASTORE_0, local, -1);
+    }
+
+    private void local(int op, int op0, int local, int delta)
+    {
+        if (local < 4) op(op0 + local, delta);
+        else if (local < 256)
+        {
+            op(op, delta);
+            u1(local);
+        }
+        else
+        {
+            op(WIDE, 0);
+            op(op, delta);
+            u2(local);
+        }
+    }
+
+    void iinc(int local, int by)
+    {
+        if (local < 256 && by >= Byte.MIN_VALUE && by <= Byte.MAX_VALUE)
+        {
+            op(IINC, 0);
+            u1(local);
+            u1(by);
+        }
+        else
+        {
+            op(WIDE, 0);
+            op(IINC, 0);
+            u2(local);
+            u2(by);
+        }
+    }
+
+    // instrukcija bez operanada ili sa operandima koje pozivalac dopisuje; delta je promena dubine steka
+    void op(int opcode, int delta)
+    {
+        if (!reachable)
+        {
+            frame(pc, depth);
+            reachable = true;
+        }
+        put(opcode);
+        depth += delta;
+        if (depth < 0) throw new IllegalStateException("Operand stack underflow at " + pc);
+        maxStack = Math.max(maxStack, depth);
+        if (opcode == GOTO || opcode == IRETURN || opcode == ATHROW) reachable = false;
+    }
+
+    void opWithIndex(int opcode, int index, int delta)
+    {
+        op(opcode, delta);
+        u2(index);
+    }
+
+    // uslovni ili bezuslovni skok; pops je koliko vrednosti skok skida sa steka
+    void jump(int opcode, int pops, Label target)
+    {
+        int at = pc;
+        op(opcode, -pops);
+        if (target.pos >= 0)
+        {
+            u2(target.pos - at);
+        }
+        else
+        {
+            if (target.patchCount == target.patches.length) target.patches = Arrays.copyOf(target.patches, target.patchCount * 2);
+            target.patches[target.patchCount++] = at;
+            u2(0);
+        }
+        if (target.depth < 0) target.depth = depth;
+        else if (target.depth != depth) throw new IllegalStateException("Stack depth mismatch at jump to label: " + target.depth + " vs " + depth);
+    }
+
+    void bind(Label l)
+    {
+        if (pc == 0)
+        {
+            // frame na pocetku metode bi se sudario sa implicitnim pocetnim
+            op(NOP, 0);
+        }
+        if (reachable)
+        {
+            if (l.depth >= 0 && l.depth != depth) throw new IllegalStateException("Stack depth mismatch at label: " + l.depth + " vs " + depth);
+        }
+        else
+        {
+            depth = l.depth >= 0 ? l.depth : depth;
+            reachable = true;
+        }
+        l.depth = depth;
+        l.pos = pc;
+        for (int i = 0; i < l.patchCount; i++)
+        {
+            int at = l.patches[i];
+            int off = pc - at;
+            code[at + 1] = (byte) (off >> 8);
+            code[at + 2] = (byte) off;
+        }
+        frame(pc, depth);
+    }
+
+    private void frame(int at, int d)
+    {
+        if (frames > 0 && frameAt[frames - 1] == at)
+        {
+            if (frameDepth[frames - 1] != d) throw new IllegalStateException("Conflicting frames at " + at);
+            return;
+        }
+        if (frames == frameAt.length)
+        {
+            frameAt = Arrays.copyOf(frameAt, frames * 2);
+            frameDepth = Arrays.copyOf(frameDepth, frames * 2);
+        }
+        frameAt[frames] = at;
+        frameDepth[frames++] = d;
+    }
+
+    void u1(int v)
+    {
+        put(v);
+    }
+
+    void u2(int v)
+    {
+        put(v >> 8);
+        put(v);
+    }
+
+    private void put(int b)
+    {
+        if (pc == code.length) code = Arrays.copyOf(code, pc * 2);
+        code[pc++] = (byte) b;
+    }
+
+    // telo Code atributa (bez imena i duzine)
+    byte[] attribute(ClassWriter cw)
+    {
+        if (pc > MAX_CODE) throw new IllegalStateException("Method too large: " + pc + " bytes");
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(b);
+        try
+        {
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(pc);
+            out.write(code, 0, pc);
+            out.writeShort(0);
+            if (frames == 0)
+            {
+                out.writeShort(0);
+            }
+            else
+            {
+                out.writeShort(1);
+                byte[] map = stackMap(cw.classRef(ARRAY_CLASS));
+                out.writeShort(cw.utf8("StackMapTable"));
+                out.writeInt(map.length);
+                out.write(map);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return b.toByteArray();
+    }
+
+    private byte[] stackMap(int arrayClass)
+    {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(b);
+        try
+        {
+            out.writeShort(frames);
+            int prev = -1;
+            for (int i = 0; i < frames; i++)
+            {
+                // full_frame: offset_delta, lokalne, stek; ITEM_Integer = 1, ITEM_Object = 7 + klasa
+                out.writeByte(255);
+                out.writeShort(frameAt[i] - prev - 1);
+                prev = frameAt[i];
+                out.writeShort(maxLocals);
+                for (int k = 0; k < maxLocals; k++)
+                {
+                    if (arrayLocals[k])
+                    {
+                        out.writeByte(7);
+                        out.writeShort(arrayClass);
+                    }
+                    else
+                    {
+                        out.writeByte(1);
+                    }
+                }
+                out.writeShort(frameDepth[i]);
+                for (int k = 0; k < frameDepth[i]; k++) out.writeByte(1);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return b.toByteArray();
+    }
+}
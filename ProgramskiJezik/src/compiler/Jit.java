@@ -0,0 +1,108 @@
+package compiler;
+
+import interpreter.Engine;
+import interpreter.Resolution;
+import interpreter.Resolver;
+import parser.ast.Ast;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+
+/*
+    Program preveden u JVM bajtkod (JitCompiler) i ucitan kao skrivena klasa, pa ga HotSpot
+    optimizuje kao bilo koji Java kod. Svaki Jit ima svoju klasu, a time i svoje globalne
+    promenljive; klasa nestaje zajedno sa Jit objektom.
+
+    Rekurzija ide po JVM steku: umesto "Too many nested calls" iz Interpreter-a preduboka
+    rekurzija se prijavljuje kao "Stack overflow".
+ */
+public final class Jit implements Engine
+{
+    private static final String NAME = Jit.class.getPackageName() + "/JamProgram";
+
+    private final MethodHandles.Lookup lookup;
+    private final MethodHandle run;
+    private final Map<String, Resolver.Function> functions;
+
+    public Jit(Ast.Program program)
+    {
+        this(new Resolver(program).resolve());
+    }
+
+    public Jit(Resolution r)
+    {
+        this.functions = r.functions();
+        // JVM skrivenoj klasi dodaje jedinstven sufiks, pa ime moze da bude isto za sve programe
+        byte[] bytes = JitCompiler.compile(NAME, r);
+        try
+        {
+            this.lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            this.run = lookup.findStatic(lookup.lookupClass(), JitCompiler.RUN, MethodType.methodType(int.class));
+        }
+        catch (IllegalAccessException | NoSuchMethodException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // bajtovi klase, za javap i poredjenje
+    public static byte[] classBytes(Ast.Program program)
+    {
+        return JitCompiler.compile(NAME, new Resolver(program).resolve());
+    }
+
+    @Override
+    public int run()
+    {
+        try
+        {
+            return (int) run.invokeExact();
+        }
+        catch (StackOverflowError e)
+        {
+            throw new RuntimeException("JAMCRASH > Stack overflow");
+        }
+        catch (RuntimeException | Error e)
+        {
+            throw e;
+        }
+        catch (Throwable e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int call(String name, int... args)
+    {
+        Resolver.Function f = functions.get(name);
+        if (f == null) throw new RuntimeException("JAMCRASH > Undefined function '" + name + "'");
+        if (f.def.params.size() != args.length)
+        {
+            throw new RuntimeException("JAMCRASH > Function '" + name + "' expects " + f.def.params.size() + " arguments but got " + args.length);
+        }
+        if (f.intParams != args.length) throw new RuntimeException("JAMCRASH > Function '" + name + "' has array parameters");
+        try
+        {
+            MethodHandle h = lookup.findStatic(lookup.lookupClass(), JitCompiler.methodName(name),
+                    MethodType.fromMethodDescriptorString(JitCompiler.descriptor(f), null));
+            Object[] boxed = new Object[args.length];
+            for (int i = 0; i < args.length; i++) boxed[i] = args[i];
+            return (int) h.invokeWithArguments(boxed);
+        }
+        catch (StackOverflowError e)
+        {
+            throw new RuntimeException("JAMCRASH > Stack overflow");
+        }
+        catch (RuntimeException | Error e)
+        {
+            throw e;
+        }
+        catch (Throwable e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
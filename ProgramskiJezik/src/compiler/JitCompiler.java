@@ -0,0 +1,555 @@
+package compiler;
+
+import interpreter.Resolution;
+import interpreter.Resolver;
+import lexer.token.Token;
+import lexer.token.TokenType;
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+    Prevodi razresen program (Resolution) u jednu klasu: svaka smoothCriminal funkcija postaje
+    static int f$ime(int..., IntArray...), naredbe na vrhu programa static int run(), a globalne
+    promenljive static polja g$slot (int) i a$slot (IntArray). JVM lokalne su redom: int parametri,
+    parametri nizovi, ostale int lokalne iz Resolver-a, pomocne int lokalne (gornje granice
+    justBeatIt petlji, dimenzije novog niza), ostali nizovi. Nizovi se stavljaju na stek tek
+    posle svih int argumenata, pa su na svakoj tacki spajanja na steku samo int-ovi (Code).
+
+    Greske u vreme izvrsavanja (deljenje nulom, pogresan broj argumenata, indeks van granica)
+    bacaju isti RuntimeException sa istom porukom kao Interpreter, u trenutku kada bi ga i
+    Interpreter bacio.
+ */
+final class JitCompiler
+{
+    static final String RUN = "run";
+
+    private final ClassWriter cw;
+    private final String owner;
+    private static final String ARRAY = "L" + Code.ARRAY_CLASS + ";";
+
+    private final Resolution resolution;
+    private final Map<String, Resolver.Function> functions;
+    private Code c;
+    private int nextTemp;
+    private int intParams, arrayParams, intLocals;
+
+    private JitCompiler(String owner, Resolution resolution)
+    {
+        this.owner = owner;
+        this.cw = new ClassWriter(owner);
+        this.resolution = resolution;
+        this.functions = resolution.functions();
+    }
+
+    static String methodName(String function)
+    {
+        return "f$" + function;
+    }
+
+    // int parametri pa nizovi, svaka grupa po redu iz izvora
+    static String descriptor(Resolver.Function f)
+    {
+        return "(" + "I".repeat(f.intParams) + ARRAY.repeat(f.def.params.size() - f.intParams) + ")I";
+    }
+
+    static byte[] compile(String owner, Resolution resolved)
+    {
+        Ast.Program program = resolved.program();
+        JitCompiler jc = new JitCompiler(owner, resolved);
+        for (int i = 0; i < resolved.globalCount(); i++) jc.cw.field(ClassWriter.ACC_PRIVATE | ClassWriter.ACC_STATIC, "g$" + i, "I");
+        for (int i = 0; i < resolved.globalArrayCount(); i++) jc.cw.field(ClassWriter.ACC_PRIVATE | ClassWriter.ACC_STATIC, "a$" + i, ARRAY);
+
+        for (Resolver.Function f : resolved.functions().values())
+        {
+            Ast.FuncDef def = f.def;
+            jc.begin(f.intParams, def.params.size() - f.intParams, f.frameSize, f.arrayFrameSize, temps(def.body));
+            jc.block(def.body);
+            jc.c.iconst(0);
+            jc.c.op(Code.IRETURN, -1);
+            jc.end(methodName(def.name.lexeme), descriptor(f), def.name);
+        }
+
+        int temps = 0;
+        for (Ast.TopItem item : program.items)
+        {
+            if (item instanceof Ast.TopStmt s) temps = Math.max(temps, temps(List.of(s.stmt)));
+            else if (item instanceof Ast.TopVarDecl v) temps = Math.max(temps, temps(List.of(v.decl)));
+        }
+        jc.begin(0, 0, resolved.mainFrameSize(), resolved.mainArrayFrameSize(), temps);
+        for (Ast.TopItem item : program.items)
+        {
+            if (item instanceof Ast.TopStmt s) jc.statement(s.stmt);
+            else if (item instanceof Ast.TopVarDecl v) jc.declare(v.decl);
+        }
+        jc.c.iconst(0);
+        jc.c.op(Code.IRETURN, -1);
+        jc.end(RUN, "()I", null);
+        return jc.cw.toByteArray();
+    }
+
+    // pomocne lokalne: po jedna za svaku ugnjezdenu petlju i dimenzije niza koji se tu deklarise
+    private static int temps(List<Stmt> body)
+    {
+        int max = 0;
+        for (Stmt s : body)
+        {
+            if (s instanceof Stmt.BeginFor f) max = Math.max(max, 1 + temps(f.body));
+            else if (s instanceof Stmt.VarDecl v) max = Math.max(max, v.dims.size());
+            else if (s instanceof Stmt.BeginIf i)
+            {
+                max = Math.max(max, temps(i.ifArm.block));
+                for (Stmt.BeginIf.Arm arm : i.orIfArms) max = Math.max(max, temps(arm.block));
+                if (i.elseBlock != null) max = Math.max(max, temps(i.elseBlock));
+            }
+        }
+        return max;
+    }
+
+    // sve lokalne (i pomocne) dobijaju 0 ili null na ulazu, da bi svaki frame imao iste tipove
+    private void begin(int intParams, int arrayParams, int frameSize, int arrayFrameSize, int temps)
+    {
+        this.intParams = intParams;
+        this.arrayParams = arrayParams;
+        this.intLocals = frameSize + temps;
+        c = new Code(intLocals + arrayFrameSize);
+        nextTemp = frameSize;
+        for (int slot = 0; slot < arrayFrameSize; slot++) c.arrayLocal(arrayLocal(slot));
+        for (int slot = intParams; slot < intLocals; slot++)
+        {
+            c.iconst(0);
+            c.istore(local(slot));
+        }
+        for (int slot = arrayParams; slot < arrayFrameSize; slot++)
+        {
+            c.op(Code.ACONST_NULL, 1);
+            c.astore(arrayLocal(slot));
+        }
+    }
+
+    // JVM lokalna za int slot iz Resolver-a (ili pomocnu)
+    private int local(int slot)
+    {
+        return slot < intParams ? slot : slot + arrayParams;
+    }
+
+    private int arrayLocal(int slot)
+    {
+        return slot < arrayParams ? intParams + slot : intLocals + slot;
+    }
+
+    private void end(String name, String desc, Token at)
+    {
+        if (c.size() > Code.MAX_CODE)
+        {
+            String what = at == null ? "Top-level code" : "Function '" + at.lexeme + "'";
+            throw new RuntimeException("JAMCRASH > " + what + " is too large to compile (" + c.size() + " bytes of bytecode)");
+        }
+        cw.method(ClassWriter.ACC_STATIC, name, desc, c);
+    }
+
+    private void block(List<Stmt> body)
+    {
+        for (Stmt s : body) statement(s);
+    }
+
+    private void statement(Stmt s)
+    {
+        if (s instanceof Stmt.Assign a)
+        {
+            Stmt.LValue lv = a.lvalue;
+            Resolution.Ref ref = resolution.ref(lv);
+            expr(a.left);
+            if (!lv.indices.isEmpty())
+            {
+                offset(lv.name, ref.global(), ref.slot(), lv.indices);
+                array(ref.global(), ref.slot());
+                c.opWithIndex(Code.INVOKESTATIC, cw.methodRef(Code.ARRAY_CLASS, "set", "(II" + ARRAY + ")V"), -3);
+                return;
+            }
+            store(ref.global(), ref.slot());
+        }
+        else if (s instanceof Stmt.BeginFor f)
+        {
+            loop(f);
+        }
+        else if (s instanceof Stmt.BeginIf i)
+        {
+            Code.Label end = new Code.Label();
+            arm(i.ifArm, end);
+            for (Stmt.BeginIf.Arm arm : i.orIfArms) arm(arm, end);
+            if (i.elseBlock != null) block(i.elseBlock);
+            c.bind(end);
+        }
+        else if (s instanceof Stmt.CallStmt cs)
+        {
+            expr(cs.call);
+            c.op(Code.POP, -1);
+        }
+        else if (s instanceof Stmt.VarDecl v)
+        {
+            declare(v);
+        }
+        else if (s instanceof Stmt.Return r)
+        {
+            if (r.expr == null) c.iconst(0);
+            else expr(r.expr);
+            c.op(Code.IRETURN, -1);
+            c.assumeDepth(0);
+        }
+    }
+
+    private void arm(Stmt.BeginIf.Arm arm, Code.Label end)
+    {
+        Code.Label next = new Code.Label();
+        branch(arm.cond, false, next);
+        block(arm.block);
+        if (c.reachable()) c.jump(Code.GOTO, 0, end);
+        c.bind(next);
+    }
+
+    // isto kao Interpreter.loop: granice jednom, posle tela se cita promenljiva petlje
+    private void loop(Stmt.BeginFor f)
+    {
+        int i = local(resolution.slot(f)), to = local(nextTemp++);
+        expr(f.from);
+        c.istore(i);
+        expr(f.to);
+        c.istore(to);
+        Code.Label top = new Code.Label(), exit = new Code.Label();
+        c.bind(top);
+        c.iload(i);
+        c.iload(to);
+        c.jump(Code.IF_ICMPGT, 2, exit);
+        block(f.body);
+        c.iload(i);
+        c.iload(to);
+        c.jump(Code.IF_ICMPGE, 2, exit);
+        c.iinc(i, 1);
+        c.jump(Code.GOTO, 0, top);
+        c.bind(exit);
+        nextTemp--;
+    }
+
+    private void declare(Stmt.VarDecl v)
+    {
+        if (!v.dims.isEmpty())
+        {
+            allocate(v);
+            return;
+        }
+        boolean global = resolution.global(v);
+        for (int slot : resolution.slots(v))
+        {
+            c.iconst(0);
+            store(global, slot);
+        }
+    }
+
+    // dimenzije u pomocne lokalne, pa za svako ime IntArray.allocate(new int[] { d0, d1... })
+    private void allocate(Stmt.VarDecl v)
+    {
+        int n = v.dims.size();
+        int[] slots = resolution.slots(v);
+        boolean global = resolution.global(v);
+        for (int k = 0; k < n; k++)
+        {
+            expr(v.dims.get(k));
+            c.istore(local(nextTemp + k));
+        }
+        for (int i = 0; i < slots.length; i++)
+        {
+            c.iconst(n);
+            c.op(Code.NEWARRAY, 0);
+            c.u1(Code.T_INT);
+            for (int k = 0; k < n; k++)
+            {
+                c.op(Code.DUP, 1);
+                c.iconst(k);
+                c.iload(local(nextTemp + k));
+                c.op(Code.IASTORE, -3);
+            }
+            c.opWithIndex(Code.INVOKESTATIC, cw.methodRef(Code.ARRAY_CLASS, "allocate", "([I)" + ARRAY), 0);
+            if (global) c.opWithIndex(Code.PUTSTATIC, cw.fieldRef(owner, "a$" + slots[i], ARRAY), -1);
+            else c.astore(arrayLocal(slots[i]));
+            Code.Label ok = new Code.Label();
+            array(global, slots[i]);
+            c.jump(Code.IFNONNULL, 1, ok);
+            Token name = v.names.get(i);
+            fail(Resolver.error(name, "Invalid size for array '" + name.lexeme + "'").getMessage());
+            c.bind(ok);
+        }
+    }
+
+    private void store(boolean global, int slot)
+    {
+        if (global) c.opWithIndex(Code.PUTSTATIC, cw.fieldRef(owner, "g$" + slot, "I"), -1);
+        else c.istore(local(slot));
+    }
+
+    private void array(boolean global, int slot)
+    {
+        if (global) c.opWithIndex(Code.GETSTATIC, cw.fieldRef(owner, "a$" + slot, ARRAY), 1);
+        else c.aload(arrayLocal(slot));
+    }
+
+    /*
+        Ostavlja na steku proveren indeks elementa: indeksi, pa niz, pa IntArray.offset (za 3 i vise
+        dimenzija IntArray.step po dimenziji). -1 je indeks van granica, -2 globalni niz koji jos
+        nije deklarisan.
+     */
+    private void offset(Token name, boolean global, int slot, List<Expr> indices)
+    {
+        int n = indices.size();
+        if (n <= 2)
+        {
+            for (Expr i : indices) expr(i);
+            array(global, slot);
+            c.opWithIndex(Code.INVOKESTATIC, cw.methodRef(Code.ARRAY_CLASS, "offset", "(" + "I".repeat(n) + ARRAY + ")I"), -n);
+        }
+        else
+        {
+            c.iconst(0);
+            for (int k = 0; k < n; k++)
+            {
+                expr(indices.get(k));
+                c.iconst(k);
+                array(global, slot);
+                c.opWithIndex(Code.INVOKESTATIC, cw.methodRef(Code.ARRAY_CLASS, "step", "(III" + ARRAY + ")I"), -3);
+            }
+        }
+        Code.Label ok = new Code.Label();
+        c.op(Code.DUP, 1);
+        c.jump(Code.IFGE, 1, ok);
+        if (global)
+        {
+            Code.Label bounds = new Code.Label();
+            c.iconst(-1);
+            c.jump(Code.IF_ICMPEQ, 2, bounds);
+            fail(undeclared(name));
+            c.bind(bounds);
+        }
+        fail(Resolver.error(name, "Index out of bounds for array '" + name.lexeme + "'").getMessage());
+        c.bind(ok);
+    }
+
+    private static String undeclared(Token name)
+    {
+        return Resolver.error(name, "Array '" + name.lexeme + "' is used before its declaration").getMessage();
+    }
+
+    // ostavlja vrednost izraza na steku
+    private void expr(Expr e)
+    {
+        if (e instanceof Expr.Binary b)
+        {
+            binary(b);
+        }
+        else if (e instanceof Expr.Ident id)
+        {
+            Resolution.Ref ref = resolution.ref(id);
+            if (ref.global()) c.opWithIndex(Code.GETSTATIC, cw.fieldRef(owner, "g$" + ref.slot(), "I"), 1);
+            else c.iload(local(ref.slot()));
+        }
+        else if (e instanceof Expr.Literal l)
+        {
+            constant(l.value);
+        }
+        else if (e instanceof Expr.Grouping g)
+        {
+            expr(g.inner);
+        }
+        else if (e instanceof Expr.Call call)
+        {
+            call(call);
+        }
+        else if (e instanceof Expr.Index ix)
+        {
+            Resolution.Ref ref = resolution.ref(ix);
+            offset(ix.name, ref.global(), ref.slot(), ix.indices);
+            array(ref.global(), ref.slot());
+            c.opWithIndex(Code.INVOKESTATIC, cw.methodRef(Code.ARRAY_CLASS, "get", "(I" + ARRAY + ")I"), -1);
+        }
+    }
+
+    private void constant(int v)
+    {
+        if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) c.iconst(v);
+        else c.ldc(cw.integer(v));
+    }
+
+    private void call(Expr.Call call)
+    {
+        Resolver.Function f = functions.get(call.callee.lexeme);
+        int n = call.args.size(), params = f.def.params.size();
+        if (n != params)
+        {
+            int d = c.depth();
+            fail(Resolver.error(call.callee, "Function '" + call.callee.lexeme + "' expects " + params + " arguments but got " + n).getMessage());
+            c.assumeDepth(d + 1);
+            return;
+        }
+        // int argumenti po redu; za niz se na tom mestu samo proverava da globalni postoji
+        List<Ast.Param> ps = f.def.params;
+        for (int k = 0; k < n; k++)
+        {
+            if (ps.get(k).type.rank == 0)
+            {
+                expr(call.args.get(k));
+            }
+            else if (call.args.get(k) instanceof Expr.Ident id && resolution.ref(id).global())
+            {
+                Code.Label ok = new Code.Label();
+                array(true, resolution.ref(id).slot());
+                c.jump(Code.IFNONNULL, 1, ok);
+                fail(undeclared(id.name));
+                c.bind(ok);
+            }
+        }
+        for (int k = 0; k < n; k++)
+        {
+            if (ps.get(k).type.rank > 0)
+            {
+                Resolution.Ref ref = resolution.ref((Expr.Ident) call.args.get(k));
+                array(ref.global(), ref.slot());
+            }
+        }
+        c.opWithIndex(Code.INVOKESTATIC, cw.methodRef(owner, methodName(call.callee.lexeme), descriptor(f)), 1 - n);
+    }
+
+    private void binary(Expr.Binary b)
+    {
+        TokenType op = b.op.type;
+        switch (op)
+        {
+            case ADD, SUBTRACT, MULTIPLY ->
+            {
+                expr(b.left);
+                expr(b.right);
+                c.op(op == TokenType.ADD ? Code.IADD : op == TokenType.SUBTRACT ? Code.ISUB : Code.IMUL, -1);
+            }
+            case DIVIDE, PERCENT ->
+            {
+                expr(b.left);
+                expr(b.right);
+                Code.Label ok = new Code.Label();
+                c.op(Code.DUP, 1);
+                c.jump(Code.IFNE, 1, ok);
+                fail(Resolver.error(b.op, "Division by zero").getMessage());
+                c.bind(ok);
+                c.op(op == TokenType.DIVIDE ? Code.IDIV : Code.IREM, -1);
+            }
+            default ->
+            {
+                // poredjenja, and i eitherWay: 1 ili 0 preko skoka
+                Code.Label yes = new Code.Label(), end = new Code.Label();
+                int d = c.depth();
+                branch(b, true, yes);
+                c.iconst(0);
+                c.jump(Code.GOTO, 0, end);
+                // ako je uslov uvek netacan, na yes se ne skace i dubina se ne zna iz skoka
+                c.assumeDepth(d);
+                c.bind(yes);
+                c.iconst(1);
+                c.bind(end);
+            }
+        }
+    }
+
+    // skace na target ako je (e != 0) == when, inace nastavlja; stek je isti na oba izlaza
+    private void branch(Expr e, boolean when, Code.Label target)
+    {
+        while (e instanceof Expr.Grouping g) e = g.inner;
+        if (e instanceof Expr.Literal l)
+        {
+            if ((l.value != 0) == when) c.jump(Code.GOTO, 0, target);
+            return;
+        }
+        if (e instanceof Expr.Binary b)
+        {
+            switch (b.op.type)
+            {
+                case AND ->
+                {
+                    if (when)
+                    {
+                        Code.Label skip = new Code.Label();
+                        branch(b.left, false, skip);
+                        branch(b.right, true, target);
+                        c.bind(skip);
+                    }
+                    else
+                    {
+                        branch(b.left, false, target);
+                        branch(b.right, false, target);
+                    }
+                    return;
+                }
+                case OR ->
+                {
+                    if (when)
+                    {
+                        branch(b.left, true, target);
+                        branch(b.right, true, target);
+                    }
+                    else
+                    {
+                        Code.Label skip = new Code.Label();
+                        branch(b.left, true, skip);
+                        branch(b.right, false, target);
+                        c.bind(skip);
+                    }
+                    return;
+                }
+                case EQ, NEQ, LT, LE, GT, GE ->
+                {
+                    expr(b.left);
+                    expr(b.right);
+                    c.jump(compare(b.op.type, when), 2, target);
+                    return;
+                }
+                default -> { }
+            }
+        }
+        expr(e);
+        c.jump(when ? Code.IFNE : Code.IFEQ, 1, target);
+    }
+
+    private static int compare(TokenType op, boolean when)
+    {
+        if (!when)
+        {
+            op = switch (op)
+            {
+                case EQ -> TokenType.NEQ;
+                case NEQ -> TokenType.EQ;
+                case LT -> TokenType.GE;
+                case GE -> TokenType.LT;
+                case GT -> TokenType.LE;
+                default -> TokenType.GT;
+            };
+        }
+        return switch (op)
+        {
+            case EQ -> Code.IF_ICMPEQ;
+            case NEQ -> Code.IF_ICMPNE;
+            case LT -> Code.IF_ICMPLT;
+            case GE -> Code.IF_ICMPGE;
+            case GT -> Code.IF_ICMPGT;
+            default -> Code.IF_ICMPLE;
+        };
+    }
+
+    // throw new RuntimeException(msg); posle ovoga je kod mrtav
+    private void fail(String msg)
+    {
+        c.opWithIndex(Code.NEW, cw.classRef("java/lang/RuntimeException"), 1);
+        c.op(Code.DUP, 1);
+        c.ldc(cw.string(msg));
+        c.opWithIndex(Code.INVOKESPECIAL, cw.methodRef("java/lang/RuntimeException", "<init>", "(Ljava/lang/String;)V"), -2);
+        c.op(Code.ATHROW, -1);
+    }
+}
@@ -0,0 +1,13 @@
+package interpreter;
+
+/*
+    Zajednicki oblik izvrsavanja programa (Interpreter, compiler.Jit), da bi mogli da se menjaju
+    i porede. run() izvrsava naredbe na vrhu programa i vraca vrednost moonWalk-a (0 ako ga nema),
+    call() poziva jednu funkciju nad trenutnim globalnim promenljivama.
+ */
+public interface Engine
+{
+    int run();
+
+    int call(String function, int... args);
+}
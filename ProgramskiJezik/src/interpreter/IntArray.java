@@ -0,0 +1,165 @@
+package interpreter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/*
+    Vrednost promenljive deklarisane sa "array heehee[d0][d1]...": svi elementi su u jednom nizu,
+    red po red (row-major), a strides[k] je broj elemenata izmedju a[..][i][..] i a[..][i+1][..].
+    Pristup a[i][j] je jedna provera granica (svi indeksi odjednom) i i * strides[0] + j, bez
+    nizova nizova i bez alokacije.
+
+    Niz od offHeapBytes() bajtova ili veci nije na Java heap-u nego u direktnim IntBuffer-ima
+    (po 1 GB), pa ogroman niz ne puni heap i GC ga ne prelazi; memoriju vraca Cleaner kada niz
+    postane nedostupan. Granica je sistemsko svojstvo programskijezik.offHeapBytes (podrazumevano
+    64 MB) ili Application --off-heap.
+
+    offset(...) vraca indeks elementa ili -1 kada je neki indeks van granica; staticke varijante
+    (niz je poslednji argument, zbog bajtkoda iz compiler.Jit) za null niz vracaju -2. Poruku sa
+    mestom greske pravi pozivalac, jer samo on zna token.
+ */
+public final class IntArray
+{
+    public static final String OFF_HEAP_PROPERTY = "programskijezik.offHeapBytes";
+
+    private static final int CHUNK_SHIFT = 28;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private static volatile long offHeapBytes = Long.getLong(OFF_HEAP_PROPERTY, 64L << 20);
+
+    private final int[] dims;
+    private final int[] strides;
+    private final int size;
+    private final int[] data;           // null kada je niz van heap-a
+    private final IntBuffer[] chunks;
+
+    private IntArray(int[] dims, int size)
+    {
+        this.dims = dims;
+        this.size = size;
+        this.strides = new int[dims.length];
+        int stride = 1;
+        for (int k = dims.length - 1; k >= 0; k--)
+        {
+            strides[k] = stride;
+            stride *= dims[k];
+        }
+        if ((long) size * Integer.BYTES < offHeapBytes)
+        {
+            data = new int[size];
+            chunks = null;
+        }
+        else
+        {
+            data = null;
+            chunks = new IntBuffer[(int) (((long) size + CHUNK_MASK) >>> CHUNK_SHIFT)];
+            for (int c = 0; c < chunks.length; c++)
+            {
+                int n = Math.min(CHUNK_MASK + 1, size - (c << CHUNK_SHIFT));
+                chunks[c] = ByteBuffer.allocateDirect(n * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+            }
+        }
+    }
+
+    public static long offHeapBytes() { return offHeapBytes; }
+
+    public static void offHeapBytes(long bytes) { offHeapBytes = bytes; }
+
+    // null ako je neka dimenzija negativna ili niz ima vise od Integer.MAX_VALUE elemenata
+    public static IntArray allocate(int[] dims)
+    {
+        return allocate(dims, 0, dims.length);
+    }
+
+    // dimenzije iz from.. (npr. sa steka vm.Vm); niz ih kopira
+    public static IntArray allocate(int[] values, int from, int rank)
+    {
+        long size = 1;
+        for (int k = 0; k < rank; k++)
+        {
+            int d = values[from + k];
+            if (d < 0) return null;
+            size *= d;
+            if (size > Integer.MAX_VALUE) return null;
+        }
+        int[] dims = new int[rank];
+        System.arraycopy(values, from, dims, 0, rank);
+        return new IntArray(dims, (int) size);
+    }
+
+    public int rank() { return dims.length; }
+
+    public int length(int dimension) { return dims[dimension]; }
+
+    public int size() { return size; }
+
+    public boolean offHeap() { return data == null; }
+
+    public int offset(int i)
+    {
+        return (i | (size - 1 - i)) < 0 ? -1 : i;
+    }
+
+    public int offset(int i, int j)
+    {
+        int[] d = dims;
+        return (i | j | (d[0] - 1 - i) | (d[1] - 1 - j)) < 0 ? -1 : i * strides[0] + j;
+    }
+
+    // indeksi su values[from..from+rank())
+    public int offset(int[] values, int from)
+    {
+        int[] d = dims, s = strides;
+        int bad = 0, at = 0;
+        for (int k = 0; k < d.length; k++)
+        {
+            int i = values[from + k];
+            bad |= i | (d[k] - 1 - i);
+            at += i * s[k];
+        }
+        return bad < 0 ? -1 : at;
+    }
+
+    public int get(int offset)
+    {
+        return data != null ? data[offset] : chunks[offset >>> CHUNK_SHIFT].get(offset & CHUNK_MASK);
+    }
+
+    public void set(int offset, int value)
+    {
+        if (data != null) data[offset] = value;
+        else chunks[offset >>> CHUNK_SHIFT].put(offset & CHUNK_MASK, value);
+    }
+
+    // ---------------------------------------------------------------- za compiler.Jit
+
+    public static int offset(int i, IntArray a)
+    {
+        return a == null ? -2 : a.offset(i);
+    }
+
+    public static int offset(int i, int j, IntArray a)
+    {
+        return a == null ? -2 : a.offset(i, j);
+    }
+
+    // jedan korak Horner-ove seme za 3 i vise dimenzija: at * dims[k] + i, pocinje od 0
+    public static int step(int at, int i, int k, IntArray a)
+    {
+        if (a == null) return -2;
+        if (at < 0) return at;
+        int d = a.dims[k];
+        return (i | (d - 1 - i)) < 0 ? -1 : at * d + i;
+    }
+
+    public static int get(int offset, IntArray a)
+    {
+        return a.get(offset);
+    }
+
+    public static void set(int value, int offset, IntArray a)
+    {
+        a.set(offset, value);
+    }
+}
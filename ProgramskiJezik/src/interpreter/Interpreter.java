@@ -0,0 +1,538 @@
+package interpreter;
+
+import lexer.token.Token;
+import parser.ast.Ast;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+    Izvrsavanje stabla nad int[] okvirima: sve promenljive su razresene u slotove (Resolver),
+    a int eval(Node) vraca vrednost direktno, bez Integer-a i bez Visitor<R>. Izvrsava se Nodes,
+    stablo sa slotovima u cvorovima napravljeno iz AST-a i Resolution-a, pa se Ast.Program ne menja
+    i moze da ga deli vise Engine-a.
+
+    Svi okviri su u jednom int[] steku: fp je pocetak okvira tekuce funkcije, sp prvi slobodan slot.
+    Argumenti poziva se racunaju pravo u okvir pozvane funkcije, pa poziv ne alocira nista.
+    Logicke vrednosti su 0 i 1, svaka vrednost razlicita od 0 je tacna. Rezultat programa je
+    vrednost moonWalk na vrhu programa (0 ako ga nema).
+
+    Nizovi (IntArray) su u drugom steku, arrays, sa svojim afp/asp, jer ih int[] ne moze da drzi.
+    U a[i][j] se prvo racunaju indeksi, pa se tek onda cita niz; isto rade compiler.Jit i vm.Vm.
+
+    justBeatIt petlja sa nezavisnim prolazima (LoopDependence) i dovoljno posla (broj prolaza puta
+    cena prolaza, bar parallelThreshold()) deli opseg na ForkJoinPool.commonPool(). Svaki deo radi
+    u svom Interpreter-u sa kopijom tekuceg okvira, a globalne i nizovi su zajednicki; unutrasnje
+    petlje dela idu redom. Greska iz najranijeg dela se baca kao da je petlja isla redom.
+    parallelLoops(false) (programskijezik.parallelLoops=false, Application --sequential) sve
+    petlje izvrsava redom, za poredjenje i trazenje gresaka.
+
+    Poziv nalazi funkciju po rednom broju (Resolution.function, Resolution.table()), bez trazenja po
+    imenu. Ciste funkcije (PureFunctions) pamte rezultate u MemoTable, najvise memoSize() po
+    funkciji; pogodak ne ulazi u telo, pa ne broji ni dubinu poziva. memoize(false)
+    (programskijezik.memoize=false, Application --no-memo) iskljucuje pamcenje, a memoStats() daje
+    pogotke, promasaje i broj zapamcenih rezultata. Deo paralelne petlje ne pamti.
+ */
+public final class Interpreter implements Engine
+{
+    public static final String PARALLEL_PROPERTY = "programskijezik.parallelLoops";
+    public static final String THRESHOLD_PROPERTY = "programskijezik.parallelThreshold";
+
+    private static final int MAX_DEPTH = 100_000;
+
+    public static final String MEMO_PROPERTY = "programskijezik.memoize";
+    public static final String MEMO_SIZE_PROPERTY = "programskijezik.memoSize";
+
+    // zbir po svim tabelama; functions je broj funkcija koje se pamte
+    public record MemoStats(int functions, long hits, long misses, long evictions, long entries)
+    {
+        public double hitRate()
+        {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    private static volatile boolean memoize = !"false".equals(System.getProperty(MEMO_PROPERTY));
+    private static volatile int memoSize = Integer.getInteger(MEMO_SIZE_PROPERTY, 1 << 16);
+    private static volatile boolean parallelLoops = !"false".equals(System.getProperty(PARALLEL_PROPERTY));
+    private static volatile long parallelThreshold = Long.getLong(THRESHOLD_PROPERTY, 1L << 16);
+
+    private final Nodes.Program program;
+    private final Nodes.Function[] table;
+    private final MemoTable[] memos;        // po rednom broju funkcije, null kada se ne pamti
+    private final int mainFrameSize, mainArrayFrameSize;
+    private final int[] globals;
+    private final IntArray[] globalArrays;
+    private int[] stack = new int[1 << 10];
+    private IntArray[] arrays = new IntArray[1 << 6];
+    private int fp, sp, afp, asp, depth;
+    private int returned;
+    private IntArray element;       // niz iz poslednjeg offset(...)
+    private final boolean worker;   // deo paralelne petlje: njegove petlje idu redom
+
+    public Interpreter(Ast.Program program)
+    {
+        this(new Resolver(program).resolve());
+    }
+
+    // program vec razresen (Application posle provere), bez jos jednog prolaza
+    public Interpreter(Resolution r)
+    {
+        this.program = Nodes.build(r);
+        this.table = program.functions;
+        this.memos = new MemoTable[table.length];
+        if (memoize)
+        {
+            boolean[] pure = PureFunctions.memoizable(r);
+            for (int k = 0; k < table.length; k++)
+            {
+                if (pure[k]) memos[k] = new MemoTable(memoSize);
+            }
+        }
+        this.mainFrameSize = r.mainFrameSize();
+        this.mainArrayFrameSize = r.mainArrayFrameSize();
+        this.globals = new int[r.globalCount()];
+        this.globalArrays = new IntArray[r.globalArrayCount()];
+        this.worker = false;
+    }
+
+    // za jedan deo paralelne petlje: tekuci okvir (int i nizovi) je kopiran na dno novih stekova
+    private Interpreter(Interpreter parent)
+    {
+        this.program = parent.program;
+        this.table = parent.table;
+        this.memos = new MemoTable[table.length];
+        this.mainFrameSize = parent.mainFrameSize;
+        this.mainArrayFrameSize = parent.mainArrayFrameSize;
+        this.globals = parent.globals;
+        this.globalArrays = parent.globalArrays;
+        this.stack = Arrays.copyOfRange(parent.stack, parent.fp, Math.max(parent.sp, parent.fp + 16));
+        this.arrays = Arrays.copyOfRange(parent.arrays, parent.afp, Math.max(parent.asp, parent.afp + 4));
+        this.sp = parent.sp - parent.fp;
+        this.asp = parent.asp - parent.afp;
+        this.depth = parent.depth;
+        this.worker = true;
+    }
+
+    public static boolean memoize() { return memoize; }
+
+    public static void memoize(boolean enabled) { memoize = enabled; }
+
+    public static int memoSize() { return memoSize; }
+
+    public static void memoSize(int entries) { memoSize = entries; }
+
+    public MemoStats memoStats()
+    {
+        int functions = 0;
+        long hits = 0, misses = 0, evictions = 0, entries = 0;
+        for (MemoTable m : memos)
+        {
+            if (m == null) continue;
+            functions++;
+            hits += m.hits;
+            misses += m.misses;
+            evictions += m.evictions;
+            entries += m.size();
+        }
+        return new MemoStats(functions, hits, misses, evictions, entries);
+    }
+
+    public static boolean parallelLoops() { return parallelLoops; }
+
+    public static void parallelLoops(boolean enabled) { parallelLoops = enabled; }
+
+    public static long parallelThreshold() { return parallelThreshold; }
+
+    public static void parallelThreshold(long nodes) { parallelThreshold = nodes; }
+
+    @Override
+    public int run()
+    {
+        fp = afp = 0;
+        sp = mainFrameSize;
+        asp = mainArrayFrameSize;
+        ensure(sp);
+        ensureArrays(asp);
+        try
+        {
+            return exec(program.main) ? returned : 0;
+        }
+        catch (StackOverflowError e)
+        {
+            throw new RuntimeException("JAMCRASH > Stack overflow");
+        }
+    }
+
+    // poziv funkcije spolja, posle run() vidi njegove globalne promenljive
+    @Override
+    public int call(String name, int... args)
+    {
+        Nodes.Function fn = program.byName.get(name);
+        if (fn == null) throw new RuntimeException("JAMCRASH > Undefined function '" + name + "'");
+        Resolver.Function f = fn.def;
+        if (f.def.params.size() != args.length)
+        {
+            throw new RuntimeException("JAMCRASH > Function '" + name + "' expects " + f.def.params.size() + " arguments but got " + args.length);
+        }
+        if (f.intParams != args.length) throw new RuntimeException("JAMCRASH > Function '" + name + "' has array parameters");
+        ensure(sp + args.length);
+        System.arraycopy(args, 0, stack, sp, args.length);
+        try
+        {
+            return invoke(fn, sp, asp);
+        }
+        catch (StackOverflowError e)
+        {
+            throw new RuntimeException("JAMCRASH > Stack overflow");
+        }
+    }
+
+    private boolean exec(Nodes.Node[] block)
+    {
+        for (Nodes.Node s : block)
+        {
+            if (exec(s)) return true;
+        }
+        return false;
+    }
+
+    // true kada je izvrsen moonWalk, vrednost je u returned
+    private boolean exec(Nodes.Node s)
+    {
+        if (s instanceof Nodes.Assign a)
+        {
+            int value = eval(a.value);
+            if (a.indices.length > 0)
+            {
+                int at = offset(a.name, a.global, a.slot, a.indices);
+                element.set(at, value);
+            }
+            else if (a.global) globals[a.slot] = value;
+            else stack[fp + a.slot] = value;
+            return false;
+        }
+        if (s instanceof Nodes.For f) return loop(f);
+        if (s instanceof Nodes.If i)
+        {
+            Nodes.Node[] conds = i.conds;
+            for (int k = 0; k < conds.length; k++)
+            {
+                if (eval(conds[k]) != 0) return exec(i.blocks[k]);
+            }
+            return i.elseBlock != null && exec(i.elseBlock);
+        }
+        if (s instanceof Nodes.CallStmt c)
+        {
+            call(c.call);
+            return false;
+        }
+        if (s instanceof Nodes.Declare v)
+        {
+            declare(v);
+            return false;
+        }
+        if (s instanceof Nodes.Return r)
+        {
+            returned = r.expr == null ? 0 : eval(r.expr);
+            return true;
+        }
+        throw new IllegalStateException("Unknown statement " + s.getClass().getSimpleName());
+    }
+
+    // justBeatIt i from a glideTo b: granice se racunaju jednom, b je ukljucen
+    private boolean loop(Nodes.For f)
+    {
+        int i = eval(f.from), to = eval(f.to);
+        if (f.parallelCost > 0 && !worker && parallelLoops && i <= to)
+        {
+            long n = (long) to - i + 1;
+            if (n > 1 && n * f.parallelCost >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1)
+            {
+                parallel(f, i, to, n);
+                return false;
+            }
+        }
+        int slot = f.slot;
+        while (i <= to)
+        {
+            stack[fp + slot] = i;
+            if (exec(f.body)) return true;
+            i = stack[fp + slot];
+            if (i >= to) break;
+            i++;
+        }
+        return false;
+    }
+
+    // najvise 4 dela po niti, a svaki bar parallelThreshold() posla
+    private void parallel(Nodes.For f, int from, int to, long n)
+    {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long parts = Math.max(1, Math.min(pool.getParallelism() * 4L, n * f.parallelCost / parallelThreshold));
+        Range all = new Range(f, from, to, (n + parts - 1) / parts);
+        pool.invoke(all);
+        if (all.error != null) throw all.error;
+    }
+
+    // RecursiveAction je Serializable, ali Range se nikad ne serijalizuje: zivi samo za jedan pool.invoke
+    private final class Range extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Nodes.For loop;
+        private final int from, to;
+        private final long grain;
+        RuntimeException error;
+
+        Range(Nodes.For loop, int from, int to, long grain)
+        {
+            this.loop = loop;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if ((long) to - from + 1 > grain)
+            {
+                int mid = (int) (((long) from + to) >> 1);
+                Range left = new Range(loop, from, mid, grain), right = new Range(loop, mid + 1, to, grain);
+                invokeAll(left, right);
+                error = left.error != null ? left.error : right.error;
+                return;
+            }
+            Interpreter part = new Interpreter(Interpreter.this);
+            try
+            {
+                for (int i = from; ; i++)
+                {
+                    part.stack[loop.slot] = i;
+                    part.exec(loop.body);
+                    if (i == to) break;
+                }
+            }
+            catch (RuntimeException e)
+            {
+                error = e;
+            }
+            catch (StackOverflowError e)
+            {
+                error = new RuntimeException("JAMCRASH > Stack overflow");
+            }
+        }
+    }
+
+    private void declare(Nodes.Declare v)
+    {
+        if (v.dims.length > 0)
+        {
+            allocate(v);
+            return;
+        }
+        for (int slot : v.slots)
+        {
+            if (v.global) globals[slot] = 0;
+            else stack[fp + slot] = 0;
+        }
+    }
+
+    private int eval(Nodes.Node e)
+    {
+        if (e instanceof Nodes.Binary b) return binary(b);
+        if (e instanceof Nodes.Local l) return stack[fp + l.slot];
+        if (e instanceof Nodes.Literal l) return l.value;
+        if (e instanceof Nodes.Global g) return globals[g.slot];
+        if (e instanceof Nodes.Call c) return call(c);
+        if (e instanceof Nodes.Element ix)
+        {
+            int at = offset(ix.name, ix.global, ix.slot, ix.indices);
+            return element.get(at);
+        }
+        throw new IllegalStateException("Unknown expression " + e.getClass().getSimpleName());
+    }
+
+    private int binary(Nodes.Binary b)
+    {
+        Token op = b.op;
+        // eitherWay i and ne racunaju desnu stranu ako je rezultat vec poznat
+        switch (op.type)
+        {
+            case OR: return eval(b.left) != 0 || eval(b.right) != 0 ? 1 : 0;
+            case AND: return eval(b.left) != 0 && eval(b.right) != 0 ? 1 : 0;
+            default: break;
+        }
+        int l = eval(b.left), r = eval(b.right);
+        switch (op.type)
+        {
+            case ADD: return l + r;
+            case SUBTRACT: return l - r;
+            case MULTIPLY: return l * r;
+            case DIVIDE:
+                if (r == 0) throw Resolver.error(op, "Division by zero");
+                return l / r;
+            case PERCENT:
+                if (r == 0) throw Resolver.error(op, "Division by zero");
+                return l % r;
+            case EQ: return l == r ? 1 : 0;
+            case NEQ: return l != r ? 1 : 0;
+            case LT: return l < r ? 1 : 0;
+            case LE: return l <= r ? 1 : 0;
+            case GT: return l > r ? 1 : 0;
+            case GE: return l >= r ? 1 : 0;
+            default: throw Resolver.error(op, "Unsupported operator");
+        }
+    }
+
+    private int call(Nodes.Call c)
+    {
+        Nodes.Function fn = table[c.function];
+        Resolver.Function f = fn.def;
+        Nodes.Node[] args = c.args;
+        int n = args.length;
+        if (n != f.def.params.size())
+        {
+            throw Resolver.error(c.callee, "Function '" + c.callee.lexeme + "' expects " + f.def.params.size() + " arguments but got " + n);
+        }
+        // argument ide u slot parametra (int ili niz); ugnjezdeni pozivi pocinju iznad vec izracunatih
+        int base = sp, arrayBase = asp;
+        ensure(base + f.intParams);
+        ensureArrays(arrayBase + n - f.intParams);
+        int[] slots = fn.paramSlots;
+        for (int i = 0; i < n; i++)
+        {
+            int slot = slots[i];
+            if (fn.arrayParams[i])
+            {
+                Nodes.ArrayArg a = (Nodes.ArrayArg) args[i];
+                arrays[arrayBase + slot] = array(a.name, a.global, a.slot);
+                asp = arrayBase + slot + 1;
+                continue;
+            }
+            sp = base + slot;
+            int v = eval(args[i]);
+            stack[base + slot] = v;
+        }
+        sp = base;
+        asp = arrayBase;
+        MemoTable memo = memos[c.function];
+        if (memo == null) return invoke(fn, base, arrayBase);
+        // kljuc pre poziva, telo moze da menja parametre
+        long key = n == 0 ? 0 : n == 1 ? stack[base] : (long) stack[base] << 32 | (stack[base + 1] & 0xFFFFFFFFL);
+        int e = memo.find(key);
+        if (e >= 0) return memo.value(e);
+        int value = invoke(fn, base, arrayBase);
+        memo.put(key, value);
+        return value;
+    }
+
+    private int invoke(Nodes.Function fn, int base, int arrayBase)
+    {
+        Resolver.Function f = fn.def;
+        if (++depth > MAX_DEPTH) throw Resolver.error(f.def.name, "Too many nested calls");
+        int savedFp = fp, savedSp = sp, savedAfp = afp, savedAsp = asp;
+        fp = base;
+        sp = base + f.frameSize;
+        afp = arrayBase;
+        asp = arrayBase + f.arrayFrameSize;
+        ensure(sp);
+        ensureArrays(asp);
+        try
+        {
+            return exec(fn.body) ? returned : 0;
+        }
+        finally
+        {
+            // nizovi iz okvira ne smeju da ostanu zivi posle povratka
+            if (asp > afp) Arrays.fill(arrays, afp, asp, null);
+            fp = savedFp;
+            sp = savedSp;
+            afp = savedAfp;
+            asp = savedAsp;
+            depth--;
+        }
+    }
+
+    // array heehee[d0][d1] a, b: dimenzije jednom, svako ime dobija svoj niz
+    private void allocate(Nodes.Declare v)
+    {
+        Nodes.Node[] dims = v.dims;
+        int base = sp, n = dims.length;
+        ensure(base + n);
+        for (int k = 0; k < n; k++)
+        {
+            sp = base + k;
+            int d = eval(dims[k]);
+            stack[base + k] = d;
+        }
+        sp = base;
+        for (int i = 0; i < v.slots.length; i++)
+        {
+            IntArray a = IntArray.allocate(stack, base, n);
+            if (a == null) throw Resolver.error(v.names.get(i), "Invalid size for array '" + v.names.get(i).lexeme + "'");
+            if (v.global) globalArrays[v.slots[i]] = a;
+            else arrays[afp + v.slots[i]] = a;
+        }
+    }
+
+    // indeks elementa (niz ostaje u element); prvo indeksi, pa niz, pa jedna provera granica
+    private int offset(Token name, boolean global, int slot, Nodes.Node[] indices)
+    {
+        IntArray a;
+        int at;
+        switch (indices.length)
+        {
+            case 1 ->
+            {
+                int i = eval(indices[0]);
+                a = array(name, global, slot);
+                at = a.offset(i);
+            }
+            case 2 ->
+            {
+                int i = eval(indices[0]), j = eval(indices[1]);
+                a = array(name, global, slot);
+                at = a.offset(i, j);
+            }
+            default ->
+            {
+                int base = sp, n = indices.length;
+                ensure(base + n);
+                for (int k = 0; k < n; k++)
+                {
+                    sp = base + k;
+                    int i = eval(indices[k]);
+                    stack[base + k] = i;
+                }
+                sp = base;
+                a = array(name, global, slot);
+                at = a.offset(stack, base);
+            }
+        }
+        if (at < 0) throw Resolver.error(name, "Index out of bounds for array '" + name.lexeme + "'");
+        element = a;
+        return at;
+    }
+
+    // globalni niz je null dok se njegova deklaracija ne izvrsi; lokalni je uvek vec napravljen
+    private IntArray array(Token name, boolean global, int slot)
+    {
+        if (!global) return arrays[afp + slot];
+        IntArray a = globalArrays[slot];
+        if (a == null) throw Resolver.error(name, "Array '" + name.lexeme + "' is used before its declaration");
+        return a;
+    }
+
+    private void ensure(int size)
+    {
+        if (size > stack.length) stack = Arrays.copyOf(stack, Math.max(size, stack.length * 2));
+    }
+
+    private void ensureArrays(int size)
+    {
+        if (size > arrays.length) arrays = Arrays.copyOf(arrays, Math.max(size, arrays.length * 2));
+    }
+}
@@ -0,0 +1,262 @@
+package interpreter;
+
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    Koje justBeatIt petlje mogu da se izvrsavaju paralelno (Interpreter deli opseg na ForkJoinPool).
+    Radi posle Resolver-a, nad slotovima iz Resolution, i za petlje sa nezavisnim prolazima vraca
+    cenu > 0 (AST se ne menja).
+
+    Prolazi su nezavisni kada telo:
+      - nema moonWalk (prekida petlju, pa redosled postaje vidljiv);
+      - dodeljuje samo promenljive deklarisane u telu (ukljucujuci unutrasnje petlje), nikada
+        promenljivu petlje ni spoljnu promenljivu, pa spoljne promenljive se u petlji ne menjaju;
+      - poziva samo ciste funkcije: bez globalnih promenljivih, bez parametara-nizova i bez
+        rekurzije (direktne ili preko drugih funkcija), koje pozivaju samo ciste funkcije;
+      - svaki spoljni niz u koji upisuje i cita i pise samo kao a[..][i][..], sa promenljivom petlje
+        na istom mestu u svakom pristupu, pa razliciti prolazi diraju razlicite elemente. Nizovi
+        deklarisani u telu su privatni za prolaz.
+
+    U funkciji sa parametrima-nizovima parametar moze da bude bilo koji globalni niz ili drugi
+    parametar istog ranga, pa se svi oni posmatraju kao jedan niz. Greske u izvrsavanju (deljenje
+    nulom, indeks van granica) ne smetaju: Interpreter baca onu iz najranijeg prolaza.
+
+    Cena je procena broja cvorova koje jedan prolaz obidje (pozvana funkcija se racuna
+    celim telom); Interpreter sa njom i brojem prolaza odlucuje da li se deljenje isplati.
+ */
+final class LoopDependence
+{
+    private static final int MAX_COST = 1 << 20;
+
+    private final Resolution resolution;
+    private final Map<String, Ast.FuncDef> functions = new HashMap<>();
+    private final Map<Ast.FuncDef, Integer> pure = new HashMap<>();     // cena tela, -1 ako funkcija nije cista
+    private final Set<Ast.FuncDef> visiting = new HashSet<>();
+    private final Map<Stmt.BeginFor, Integer> costs = new IdentityHashMap<>();
+
+    private LoopDependence(Resolution resolution)
+    {
+        this.resolution = resolution;
+        for (Ast.TopItem item : resolution.program().items)
+        {
+            if (item instanceof Ast.FuncDef f) functions.putIfAbsent(f.name.lexeme, f);
+        }
+    }
+
+    // cena jednog prolaza za svaku petlju sa nezavisnim prolazima; ostalih petlji nema u mapi
+    static Map<Stmt.BeginFor, Integer> parallelCosts(Resolution resolution)
+    {
+        LoopDependence d = new LoopDependence(resolution);
+        for (Ast.TopItem item : resolution.program().items)
+        {
+            if (item instanceof Ast.FuncDef f)
+            {
+                int arrayParams = 0;
+                for (Ast.Param p : f.params)
+                {
+                    if (p.type.rank > 0) arrayParams++;
+                }
+                d.loops(f.body, arrayParams);
+            }
+            else if (item instanceof Ast.TopStmt s)
+            {
+                d.loops(List.of(s.stmt), 0);
+            }
+        }
+        return d.costs;
+    }
+
+    // svaka petlja, i unutrasnje kada spoljna nije nezavisna
+    private void loops(List<Stmt> body, int arrayParams)
+    {
+        for (Stmt s : body)
+        {
+            if (s instanceof Stmt.BeginFor f)
+            {
+                Body b = new Body(f, arrayParams);
+                b.block(f.body);
+                if (b.independent()) costs.put(f, (int) Math.max(1, Math.min(b.cost, MAX_COST)));
+                loops(f.body, arrayParams);
+            }
+            else if (s instanceof Stmt.BeginIf i)
+            {
+                loops(i.ifArm.block, arrayParams);
+                for (Stmt.BeginIf.Arm arm : i.orIfArms) loops(arm.block, arrayParams);
+                if (i.elseBlock != null) loops(i.elseBlock, arrayParams);
+            }
+        }
+    }
+
+    private int pure(Ast.FuncDef f)
+    {
+        Integer known = pure.get(f);
+        if (known != null) return known;
+        if (!visiting.add(f)) return -1;
+        int cost = -1;
+        boolean arrays = false;
+        for (Ast.Param p : f.params) arrays |= p.type.rank > 0;
+        if (!arrays)
+        {
+            Body b = new Body(null, 0);
+            b.block(f.body);
+            if (b.ok) cost = (int) Math.max(1, Math.min(b.cost, MAX_COST));
+        }
+        visiting.remove(f);
+        pure.put(f, cost);
+        return cost;
+    }
+
+    /*
+        Jedan prolaz kroz telo petlje (loop) ili cele funkcije (loop == null, provera cistoce).
+        Za funkciju je dozvoljeno sve lokalno, zabranjene su globalne i necisti pozivi.
+     */
+    private final class Body
+    {
+        private final Stmt.BeginFor loop;
+        private final int loopSlot;
+        private final int arrayParams;
+        private final Set<Integer> locals = new HashSet<>();
+        private final Set<Integer> localArrays = new HashSet<>();
+        private final Map<String, int[]> arrays = new HashMap<>();      // kljuc -> {upis, mesta sa promenljivom petlje}
+        boolean ok = true;
+        long cost;
+
+        Body(Stmt.BeginFor loop, int arrayParams)
+        {
+            this.loop = loop;
+            this.loopSlot = loop == null ? -1 : resolution.slot(loop);
+            this.arrayParams = arrayParams;
+        }
+
+        boolean independent()
+        {
+            if (!ok) return false;
+            for (int[] a : arrays.values())
+            {
+                if (a[0] != 0 && a[1] == 0) return false;
+            }
+            return true;
+        }
+
+        void block(List<Stmt> body)
+        {
+            for (Stmt s : body) statement(s);
+        }
+
+        private void statement(Stmt s)
+        {
+            cost++;
+            if (s instanceof Stmt.Assign a)
+            {
+                expr(a.left);
+                Stmt.LValue lv = a.lvalue;
+                Resolution.Ref ref = resolution.ref(lv);
+                exprs(lv.indices);
+                if (!lv.indices.isEmpty()) array(ref, lv.indices, true);
+                else if (ref.global() || (loop != null && !locals.contains(ref.slot()))) ok = false;
+            }
+            else if (s instanceof Stmt.VarDecl v)
+            {
+                exprs(v.dims);
+                for (int slot : resolution.slots(v)) (v.dims.isEmpty() ? locals : localArrays).add(slot);
+            }
+            else if (s instanceof Stmt.CallStmt c)
+            {
+                expr(c.call);
+            }
+            else if (s instanceof Stmt.Return r)
+            {
+                if (loop != null) ok = false;
+                if (r.expr != null) expr(r.expr);
+            }
+            else if (s instanceof Stmt.BeginIf i)
+            {
+                expr(i.ifArm.cond);
+                block(i.ifArm.block);
+                for (Stmt.BeginIf.Arm arm : i.orIfArms)
+                {
+                    expr(arm.cond);
+                    block(arm.block);
+                }
+                if (i.elseBlock != null) block(i.elseBlock);
+            }
+            else if (s instanceof Stmt.BeginFor f)
+            {
+                expr(f.from);
+                expr(f.to);
+                locals.add(resolution.slot(f));
+                block(f.body);
+            }
+        }
+
+        private void exprs(List<Expr> list)
+        {
+            for (Expr e : list) expr(e);
+        }
+
+        private void expr(Expr e)
+        {
+            cost++;
+            if (e instanceof Expr.Binary b)
+            {
+                expr(b.left);
+                expr(b.right);
+            }
+            else if (e instanceof Expr.Grouping g)
+            {
+                expr(g.inner);
+            }
+            else if (e instanceof Expr.Ident id)
+            {
+                if (resolution.ref(id).global() && loop == null) ok = false;
+            }
+            else if (e instanceof Expr.Index ix)
+            {
+                exprs(ix.indices);
+                array(resolution.ref(ix), ix.indices, false);
+            }
+            else if (e instanceof Expr.Call c)
+            {
+                Ast.FuncDef f = functions.get(c.callee.lexeme);
+                int callee = f == null ? -1 : pure(f);
+                if (callee < 0) ok = false;
+                else cost += callee;
+                exprs(c.args);
+            }
+        }
+
+        private void array(Resolution.Ref ref, List<Expr> indices, boolean write)
+        {
+            boolean global = ref.global();
+            int slot = ref.slot();
+            if (loop == null)
+            {
+                if (global) ok = false;
+                return;
+            }
+            if (!global && localArrays.contains(slot)) return;
+            String key = arrayParams > 0 && (global || slot < arrayParams)
+                    ? "param" + indices.size()
+                    : (global ? "global" : "local") + slot;
+            int at = 0;
+            for (int k = 0; k < indices.size() && k < 32; k++)
+            {
+                if (!(indices.get(k) instanceof Expr.Ident id)) continue;
+                Resolution.Ref r = resolution.ref(id);
+                if (!r.global() && r.slot() == loopSlot) at |= 1 << k;
+            }
+            int[] a = arrays.computeIfAbsent(key, k -> new int[] { 0, -1 });
+            if (write) a[0] = 1;
+            a[1] &= at;
+        }
+    }
+}
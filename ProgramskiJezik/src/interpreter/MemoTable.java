@@ -0,0 +1,161 @@
+package interpreter;
+
+import java.util.Arrays;
+
+/*
+    Zapamceni rezultati jedne ciste funkcije: kljuc su argumenti spakovani u long (najvise dva
+    int-a), vrednost je int. Sve je u primitivnim nizovima: lanci po kanti (next) i LRU lista
+    (older/newer) su indeksi zapisa, pa ni pogodak ni novi zapis ne alociraju.
+
+    Tabela raste udvostrucavanjem do max zapisa; posle toga novi zapis zauzima mesto najdavnije
+    koriscenog. Pogodak pomera zapis na pocetak LRU liste.
+ */
+final class MemoTable
+{
+    private static final int NONE = -1;
+
+    private final int max;
+    private long[] keys = new long[16];
+    private int[] values = new int[16];
+    private int[] next = new int[16];
+    private int[] older = new int[16];
+    private int[] newer = new int[16];
+    private int[] buckets = filled(32);
+    private int newest = NONE, oldest = NONE;
+    private int size;
+
+    long hits, misses, evictions;
+
+    MemoTable(int max)
+    {
+        this.max = Math.max(16, Integer.highestOneBit(max));
+    }
+
+    int size() { return size; }
+
+    // zapis sa kljucem (i pomeren na pocetak LRU liste) ili -1
+    int find(long key)
+    {
+        for (int e = buckets[bucket(key)]; e != NONE; e = next[e])
+        {
+            if (keys[e] == key)
+            {
+                hits++;
+                touch(e);
+                return e;
+            }
+        }
+        misses++;
+        return NONE;
+    }
+
+    int value(int entry) { return values[entry]; }
+
+    // rekurzivni poziv je mogao vec da upise isti kljuc, pa se on samo azurira
+    void put(long key, int value)
+    {
+        int b = bucket(key);
+        for (int e = buckets[b]; e != NONE; e = next[e])
+        {
+            if (keys[e] == key)
+            {
+                values[e] = value;
+                touch(e);
+                return;
+            }
+        }
+        int e;
+        if (size < keys.length)
+        {
+            e = size++;
+        }
+        else if (keys.length < max)
+        {
+            grow();
+            b = bucket(key);
+            e = size++;
+        }
+        else
+        {
+            e = oldest;
+            evictions++;
+            unlink(e);
+            unchain(e);
+        }
+        keys[e] = key;
+        values[e] = value;
+        next[e] = buckets[b];
+        buckets[b] = e;
+        older[e] = NONE;
+        newer[e] = NONE;
+        pushNewest(e);
+    }
+
+    private void touch(int e)
+    {
+        if (e == newest) return;
+        unlink(e);
+        pushNewest(e);
+    }
+
+    private void pushNewest(int e)
+    {
+        older[e] = newest;
+        newer[e] = NONE;
+        if (newest != NONE) newer[newest] = e;
+        newest = e;
+        if (oldest == NONE) oldest = e;
+    }
+
+    private void unlink(int e)
+    {
+        if (older[e] != NONE) newer[older[e]] = newer[e];
+        else oldest = newer[e];
+        if (newer[e] != NONE) older[newer[e]] = older[e];
+        else newest = older[e];
+    }
+
+    // izbacuje zapis iz lanca njegove kante
+    private void unchain(int e)
+    {
+        int b = bucket(keys[e]);
+        if (buckets[b] == e)
+        {
+            buckets[b] = next[e];
+            return;
+        }
+        int p = buckets[b];
+        while (next[p] != e) p = next[p];
+        next[p] = next[e];
+    }
+
+    private void grow()
+    {
+        int n = keys.length * 2;
+        keys = Arrays.copyOf(keys, n);
+        values = Arrays.copyOf(values, n);
+        next = Arrays.copyOf(next, n);
+        older = Arrays.copyOf(older, n);
+        newer = Arrays.copyOf(newer, n);
+        buckets = filled(n * 2);
+        for (int e = 0; e < size; e++)
+        {
+            int b = bucket(keys[e]);
+            next[e] = buckets[b];
+            buckets[b] = e;
+        }
+    }
+
+    private int bucket(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (buckets.length - 1);
+    }
+
+    private static int[] filled(int n)
+    {
+        int[] a = new int[n];
+        Arrays.fill(a, NONE);
+        return a;
+    }
+}
@@ -0,0 +1,299 @@
+package interpreter;
+
+import lexer.token.Token;
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Stablo koje Interpreter izvrsava: isti oblik kao parser.ast, ali cvorovi vec nose slotove i
+    redne brojeve funkcija (Resolution) i cenu paralelne petlje (LoopDependence), pa izvrsavanje
+    cita polja, bez trazenja po identitetu cvora. Zagrade nestaju, liste su nizovi, a ime niza kao
+    argument je ArrayArg.
+
+    Pravi se jednom po Interpreter-u (build) i posle se ne menja: delovi paralelne petlje ga dele,
+    a Ast.Program ostaje netaknut za druge Engine-e.
+ */
+final class Nodes
+{
+    private Nodes()
+    {
+    }
+
+    abstract static class Node {}
+
+    static final class Literal extends Node
+    {
+        final int value;
+        Literal(int value) { this.value = value; }
+    }
+
+    static final class Local extends Node
+    {
+        final int slot;
+        Local(int slot) { this.slot = slot; }
+    }
+
+    static final class Global extends Node
+    {
+        final int slot;
+        Global(int slot) { this.slot = slot; }
+    }
+
+    // a[i][j]; global/slot su niza
+    static final class Element extends Node
+    {
+        final Token name;
+        final boolean global;
+        final int slot;
+        final Node[] indices;
+        Element(Token name, Resolution.Ref ref, Node[] indices)
+        {
+            this.name = name;
+            this.global = ref.global();
+            this.slot = ref.slot();
+            this.indices = indices;
+        }
+    }
+
+    // ime niza kao argument poziva; nije vrednost, eval ga ne prima
+    static final class ArrayArg extends Node
+    {
+        final Token name;
+        final boolean global;
+        final int slot;
+        ArrayArg(Token name, Resolution.Ref ref)
+        {
+            this.name = name;
+            this.global = ref.global();
+            this.slot = ref.slot();
+        }
+    }
+
+    static final class Binary extends Node
+    {
+        final Token op;
+        final Node left, right;
+        Binary(Token op, Node left, Node right) { this.op = op; this.left = left; this.right = right; }
+    }
+
+    static final class Call extends Node
+    {
+        final Token callee;
+        final int function;
+        final Node[] args;
+        Call(Token callee, int function, Node[] args) { this.callee = callee; this.function = function; this.args = args; }
+    }
+
+    // naredbe
+
+    static final class Assign extends Node
+    {
+        final Node value;
+        final Token name;
+        final boolean global;
+        final int slot;
+        final Node[] indices;       // prazno za int promenljivu
+        Assign(Node value, Token name, Resolution.Ref ref, Node[] indices)
+        {
+            this.value = value;
+            this.name = name;
+            this.global = ref.global();
+            this.slot = ref.slot();
+            this.indices = indices;
+        }
+    }
+
+    static final class Declare extends Node
+    {
+        final List<Token> names;
+        final boolean global;
+        final int[] slots;
+        final Node[] dims;          // prazno za int promenljive
+        Declare(List<Token> names, boolean global, int[] slots, Node[] dims)
+        {
+            this.names = names; this.global = global; this.slots = slots; this.dims = dims;
+        }
+    }
+
+    // annieAreYouOkay i fightForYourLife grane redom; elseBlock je null bez poslednje grane
+    static final class If extends Node
+    {
+        final Node[] conds;
+        final Node[][] blocks;
+        final Node[] elseBlock;
+        If(Node[] conds, Node[][] blocks, Node[] elseBlock) { this.conds = conds; this.blocks = blocks; this.elseBlock = elseBlock; }
+    }
+
+    static final class For extends Node
+    {
+        final int slot;
+        final Node from, to;
+        final Node[] body;
+        final int parallelCost;     // > 0: prolazi su nezavisni, cena jednog (LoopDependence)
+        For(int slot, Node from, Node to, Node[] body, int parallelCost)
+        {
+            this.slot = slot; this.from = from; this.to = to; this.body = body; this.parallelCost = parallelCost;
+        }
+    }
+
+    static final class CallStmt extends Node
+    {
+        final Call call;
+        CallStmt(Call call) { this.call = call; }
+    }
+
+    static final class Return extends Node
+    {
+        final Node expr;            // null: moonWalk bez vrednosti
+        Return(Node expr) { this.expr = expr; }
+    }
+
+    static final class Function
+    {
+        final Resolver.Function def;
+        final int[] paramSlots;
+        final boolean[] arrayParams;
+        final Node[] body;
+        Function(Resolver.Function def, int[] paramSlots, boolean[] arrayParams, Node[] body)
+        {
+            this.def = def; this.paramSlots = paramSlots; this.arrayParams = arrayParams; this.body = body;
+        }
+    }
+
+    static final class Program
+    {
+        final Function[] functions;             // po rednom broju iz Resolution.table()
+        final Map<String, Function> byName;
+        final Node[] main;                      // naredbe i globalne deklaracije sa vrha, redom
+        Program(Function[] functions, Map<String, Function> byName, Node[] main)
+        {
+            this.functions = functions; this.byName = byName; this.main = main;
+        }
+    }
+
+    static Program build(Resolution r)
+    {
+        return new Builder(r).program();
+    }
+
+    private static final class Builder
+    {
+        private final Resolution r;
+        private final Map<Stmt.BeginFor, Integer> costs;
+
+        Builder(Resolution r)
+        {
+            this.r = r;
+            this.costs = LoopDependence.parallelCosts(r);
+        }
+
+        Program program()
+        {
+            Resolver.Function[] table = r.table();
+            Function[] functions = new Function[table.length];
+            Map<String, Function> byName = new HashMap<>();
+            for (int k = 0; k < table.length; k++)
+            {
+                List<Ast.Param> params = table[k].def.params;
+                int[] slots = new int[params.size()];
+                boolean[] arrays = new boolean[params.size()];
+                for (int i = 0; i < slots.length; i++)
+                {
+                    slots[i] = r.slot(params.get(i));
+                    arrays[i] = params.get(i).type.rank > 0;
+                }
+                // poziv nosi redni broj funkcije, pa telo moze da se napravi pre tela koja ona poziva
+                functions[k] = new Function(table[k], slots, arrays, block(table[k].def.body));
+                byName.put(table[k].def.name.lexeme, functions[k]);
+            }
+
+            List<Ast.TopItem> items = r.program().items;
+            Node[] main = new Node[items.size()];
+            int n = 0;
+            for (Ast.TopItem item : items)
+            {
+                if (item instanceof Ast.TopStmt s) main[n++] = statement(s.stmt);
+                else if (item instanceof Ast.TopVarDecl v) main[n++] = declare(v.decl);
+            }
+            return new Program(functions, byName, Arrays.copyOf(main, n));
+        }
+
+        private Node[] block(List<Stmt> body)
+        {
+            Node[] out = new Node[body.size()];
+            for (int i = 0; i < out.length; i++) out[i] = statement(body.get(i));
+            return out;
+        }
+
+        private Node statement(Stmt s)
+        {
+            if (s instanceof Stmt.Assign a)
+            {
+                Stmt.LValue lv = a.lvalue;
+                return new Assign(expr(a.left), lv.name, r.ref(lv), exprs(lv.indices));
+            }
+            if (s instanceof Stmt.BeginFor f)
+            {
+                return new For(r.slot(f), expr(f.from), expr(f.to), block(f.body), costs.getOrDefault(f, 0));
+            }
+            if (s instanceof Stmt.BeginIf i)
+            {
+                int n = 1 + i.orIfArms.size();
+                Node[] conds = new Node[n];
+                Node[][] blocks = new Node[n][];
+                conds[0] = expr(i.ifArm.cond);
+                blocks[0] = block(i.ifArm.block);
+                for (int k = 1; k < n; k++)
+                {
+                    Stmt.BeginIf.Arm arm = i.orIfArms.get(k - 1);
+                    conds[k] = expr(arm.cond);
+                    blocks[k] = block(arm.block);
+                }
+                return new If(conds, blocks, i.elseBlock == null ? null : block(i.elseBlock));
+            }
+            if (s instanceof Stmt.CallStmt c) return new CallStmt(call(c.call));
+            if (s instanceof Stmt.VarDecl v) return declare(v);
+            if (s instanceof Stmt.Return ret) return new Return(ret.expr == null ? null : expr(ret.expr));
+            throw new IllegalStateException("Unknown statement " + s.getClass().getSimpleName());
+        }
+
+        private Declare declare(Stmt.VarDecl v)
+        {
+            return new Declare(v.names, r.global(v), r.slots(v), exprs(v.dims));
+        }
+
+        private Node[] exprs(List<Expr> list)
+        {
+            Node[] out = new Node[list.size()];
+            for (int i = 0; i < out.length; i++) out[i] = expr(list.get(i));
+            return out;
+        }
+
+        private Node expr(Expr e)
+        {
+            while (e instanceof Expr.Grouping g) e = g.inner;
+            if (e instanceof Expr.Binary b) return new Binary(b.op, expr(b.left), expr(b.right));
+            if (e instanceof Expr.Literal l) return new Literal(l.value);
+            if (e instanceof Expr.Call c) return call(c);
+            if (e instanceof Expr.Ident id)
+            {
+                Resolution.Ref ref = r.ref(id);
+                if (ref.rank() > 0) return new ArrayArg(id.name, ref);
+                return ref.global() ? new Global(ref.slot()) : new Local(ref.slot());
+            }
+            if (e instanceof Expr.Index ix) return new Element(ix.name, r.ref(ix), exprs(ix.indices));
+            throw new IllegalStateException("Unknown expression " + e.getClass().getSimpleName());
+        }
+
+        private Call call(Expr.Call c)
+        {
+            return new Call(c.callee, r.function(c), exprs(c.args));
+        }
+    }
+}
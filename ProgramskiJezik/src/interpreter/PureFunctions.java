@@ -0,0 +1,153 @@
+package interpreter;
+
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Koje funkcije Interpreter pamti (MemoTable). Funkcija je cista kada ima najvise dva parametra,
+    svi su int, ne cita i ne pise globalne promenljive (ni nizove) i poziva samo ciste funkcije;
+    rekurzija je dozvoljena. Nizovi koje sama deklarise su novi u svakom pozivu, pa ne smetaju.
+    Takva funkcija za iste argumente uvek vraca isto (ili baca istu gresku, a greska se ne pamti).
+
+    Pamti se samo cista funkcija koja nesto poziva ili ima petlju: za prav izraz (x * x + 1)
+    trazenje u tabeli kosta koliko i sam poziv. Radi posle Resolver-a (Resolution.function).
+ */
+final class PureFunctions
+{
+    private static final int MAX_ARGS = 2;
+
+    private PureFunctions()
+    {
+    }
+
+    static boolean[] memoizable(Resolution resolution)
+    {
+        Resolver.Function[] table = resolution.table();
+        int n = table.length;
+        boolean[] pure = new boolean[n];
+        boolean[] busy = new boolean[n];
+        List<List<Integer>> callers = new ArrayList<>(n);
+        ArrayDeque<Integer> impure = new ArrayDeque<>();
+        for (int k = 0; k < n; k++) callers.add(new ArrayList<>());
+        for (int k = 0; k < n; k++)
+        {
+            Ast.FuncDef f = table[k].def;
+            Body b = new Body(resolution);
+            b.block(f.body);
+            pure[k] = b.ok && f.params.size() == table[k].intParams && f.params.size() <= MAX_ARGS;
+            busy[k] = b.busy;
+            for (int callee : b.callees) callers.get(callee).add(k);
+            if (!pure[k]) impure.add(k);
+        }
+        // funkcija koja poziva necistu ni sama nije cista
+        while (!impure.isEmpty())
+        {
+            for (int caller : callers.get(impure.poll()))
+            {
+                if (pure[caller])
+                {
+                    pure[caller] = false;
+                    impure.add(caller);
+                }
+            }
+        }
+        for (int k = 0; k < n; k++) pure[k] &= busy[k];
+        return pure;
+    }
+
+    private static final class Body
+    {
+        private final Resolution resolution;
+        final List<Integer> callees = new ArrayList<>();
+        boolean ok = true;
+        boolean busy;
+
+        Body(Resolution resolution)
+        {
+            this.resolution = resolution;
+        }
+
+        void block(List<Stmt> body)
+        {
+            for (Stmt s : body) statement(s);
+        }
+
+        private void statement(Stmt s)
+        {
+            if (s instanceof Stmt.Assign a)
+            {
+                expr(a.left);
+                exprs(a.lvalue.indices);
+                if (resolution.ref(a.lvalue).global()) ok = false;
+            }
+            else if (s instanceof Stmt.VarDecl v)
+            {
+                exprs(v.dims);
+            }
+            else if (s instanceof Stmt.CallStmt c)
+            {
+                expr(c.call);
+            }
+            else if (s instanceof Stmt.Return r)
+            {
+                if (r.expr != null) expr(r.expr);
+            }
+            else if (s instanceof Stmt.BeginIf i)
+            {
+                expr(i.ifArm.cond);
+                block(i.ifArm.block);
+                for (Stmt.BeginIf.Arm arm : i.orIfArms)
+                {
+                    expr(arm.cond);
+                    block(arm.block);
+                }
+                if (i.elseBlock != null) block(i.elseBlock);
+            }
+            else if (s instanceof Stmt.BeginFor f)
+            {
+                busy = true;
+                expr(f.from);
+                expr(f.to);
+                block(f.body);
+            }
+        }
+
+        private void exprs(List<Expr> list)
+        {
+            for (Expr e : list) expr(e);
+        }
+
+        private void expr(Expr e)
+        {
+            if (e instanceof Expr.Binary b)
+            {
+                expr(b.left);
+                expr(b.right);
+            }
+            else if (e instanceof Expr.Grouping g)
+            {
+                expr(g.inner);
+            }
+            else if (e instanceof Expr.Ident id)
+            {
+                if (resolution.ref(id).global()) ok = false;
+            }
+            else if (e instanceof Expr.Index ix)
+            {
+                exprs(ix.indices);
+                if (resolution.ref(ix).global()) ok = false;
+            }
+            else if (e instanceof Expr.Call c)
+            {
+                busy = true;
+                callees.add(resolution.function(c));
+                exprs(c.args);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package interpreter;
+
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    Rezultat Resolver.resolve(): slotovi, rangovi i redni brojevi funkcija za cvorove jednog
+    programa, po identitetu cvora. AST se ne menja, pa isti Ast.Program mogu istovremeno da
+    izvrsavaju vise Engine-a (batch, daemon, delovi paralelne petlje), svaki sa svojim ili
+    zajednickim Resolution-om. Posle konstrukcije se samo cita.
+
+    Cvor iz nekog drugog stabla (npr. iz optimizovane kopije) nije ovde: to je greska pozivaoca,
+    pa se baca IllegalArgumentException umesto da se tiho vrati slot 0.
+ */
+public final class Resolution
+{
+    // slot u int ili IntArray delu okvira (ili globalnih), rank 0 je int
+    public record Ref(int slot, boolean global, int rank) {}
+
+    private final Ast.Program program;
+    private final Map<String, Resolver.Function> functions;
+    private final Resolver.Function[] table;
+    private final int globalInts, globalArrays;
+    private final int mainFrameSize, mainArrayFrameSize;
+    private final IdentityHashMap<Object, Ref> refs;            // Ident, Index, LValue, Param, BeginFor
+    private final IdentityHashMap<Stmt.VarDecl, int[]> decls;
+    private final Set<Stmt.VarDecl> globalDecls;                // VarDecl iz TopVarDecl
+    private final IdentityHashMap<Expr.Call, Integer> calls;
+
+    Resolution(Ast.Program program, Map<String, Resolver.Function> functions, int globalInts, int globalArrays,
+               int mainFrameSize, int mainArrayFrameSize, IdentityHashMap<Object, Ref> refs,
+               IdentityHashMap<Stmt.VarDecl, int[]> decls, IdentityHashMap<Expr.Call, Integer> calls)
+    {
+        this.program = program;
+        this.functions = Collections.unmodifiableMap(functions);
+        this.table = functions.values().toArray(new Resolver.Function[0]);
+        this.globalInts = globalInts;
+        this.globalArrays = globalArrays;
+        this.mainFrameSize = mainFrameSize;
+        this.mainArrayFrameSize = mainArrayFrameSize;
+        this.refs = refs;
+        this.decls = decls;
+        this.globalDecls = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Ast.TopItem item : program.items)
+        {
+            if (item instanceof Ast.TopVarDecl v) globalDecls.add(v.decl);
+        }
+        this.calls = calls;
+    }
+
+    public Ast.Program program() { return program; }
+
+    public Map<String, Resolver.Function> functions() { return functions; }
+
+    // funkcije redom iz programa; function(Expr.Call) je indeks u ovom nizu
+    public Resolver.Function[] table() { return table.clone(); }
+
+    public int globalCount() { return globalInts; }
+
+    public int globalArrayCount() { return globalArrays; }
+
+    public int mainFrameSize() { return mainFrameSize; }
+
+    public int mainArrayFrameSize() { return mainArrayFrameSize; }
+
+    public Ref ref(Expr.Ident e) { return ref((Object) e); }
+
+    public Ref ref(Expr.Index e) { return ref((Object) e); }
+
+    public Ref ref(Stmt.LValue lv) { return ref((Object) lv); }
+
+    public int slot(Ast.Param p) { return ref(p).slot; }
+
+    // slot promenljive petlje
+    public int slot(Stmt.BeginFor f) { return ref(f).slot; }
+
+    // po jedan za svako ime (sa dims: slotovi nizova)
+    public int[] slots(Stmt.VarDecl v)
+    {
+        int[] slots = decls.get(v);
+        if (slots == null) throw foreign(v);
+        return slots.clone();
+    }
+
+    public boolean global(Stmt.VarDecl v)
+    {
+        if (!decls.containsKey(v)) throw foreign(v);
+        return globalDecls.contains(v);
+    }
+
+    public int function(Expr.Call c)
+    {
+        Integer k = calls.get(c);
+        if (k == null) throw foreign(c);
+        return k;
+    }
+
+    private Ref ref(Object node)
+    {
+        Ref r = refs.get(node);
+        if (r == null) throw foreign(node);
+        return r;
+    }
+
+    private static IllegalArgumentException foreign(Object node)
+    {
+        return new IllegalArgumentException(node.getClass().getSimpleName() + " is not part of the resolved program");
+    }
+}
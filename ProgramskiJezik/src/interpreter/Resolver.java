@@ -0,0 +1,525 @@
+package interpreter;
+
+import lexer.SymbolTable;
+import lexer.token.Token;
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Prolaz pre izvrsavanja: svakoj promenljivoj (VarDecl, Param, promenljiva justBeatIt petlje)
+    dodeljuje fiksan slot u okviru funkcije, a svaka upotreba imena (Ident, Index, LValue) dobija
+    slot deklaracije koju vidi, a svaki poziv redni broj funkcije (Resolution.table()). Interpreter
+    posle radi samo nad int[] okvirima, bez trazenja po imenu. Sve to ide u Resolution, tabelu po
+    identitetu cvora; AST se ne menja.
+
+    Globalne promenljive (heehee na vrhu programa) imaju svoj niz i vidljive su iz svih funkcija.
+    Naredbe na vrhu programa izvrsavaju se u "main" okviru; promenljive iz njihovih blokova su lokalne.
+    Okvir: parametri 0..n-1, pa lokalne; slotovi iz zatvorenog bloka se ponovo koriste.
+
+    Nizovi (array heehee[..], parametar heehee[]) imaju svoje slotove, odvojene od int-ova: i okvir
+    i globalne imaju deo za int vrednosti i deo za IntArray reference. Ovde se proverava i sve sto
+    se o nizovima zna bez izvrsavanja: broj indeksa je rang niza, ime niza je samo argument za
+    parametar istog ranga, niz se ne dodeljuje i funkcija ga ne vraca.
+
+    Ovo je i semanticka provera (Application --parse/--run, batch, daemon): check() ne staje na prvoj
+    gresci nego ih skuplja (errors(), redom po mestu u izvoru), a resolve() baca prvu ili vraca Resolution. Pogresan broj
+    argumenata je samo u errors(): za Engine je to greska u vreme izvrsavanja, pre racunanja argumenata.
+
+    Pokrece se na svako cuvanje fajla, pa mora da bude linearan i na 100k deklaracija: imena su
+    int id-evi (SymbolTable), funkcije i vidljive promenljive su u tabelama sa otvorenim
+    adresiranjem po id-u, a opsezi su stek nizova. Deklaracija je zapis u bindings koji pamti i
+    zapis koji je zaklonila; zatvaranje opsega skida njegove zapise i vraca zaklonjene, bez mape
+    po opsegu.
+ */
+public final class Resolver
+{
+    public static final class Function
+    {
+        public final Ast.FuncDef def;
+        public final int frameSize;
+        public final int arrayFrameSize;
+        public final int intParams;         // parametri bez ranga; nizovi su u arrayFrameSize
+
+        Function(Ast.FuncDef def, int frameSize, int arrayFrameSize)
+        {
+            this.def = def;
+            this.frameSize = frameSize;
+            this.arrayFrameSize = arrayFrameSize;
+            int ints = 0;
+            for (Ast.Param p : def.params)
+            {
+                if (p.type.rank == 0) ints++;
+            }
+            this.intParams = ints;
+        }
+    }
+
+    private static final int UNKNOWN = -1;      // rang nedeklarisanog imena: greska je vec prijavljena
+
+    // greske se nalaze redom obilaska (deklaracije pre tela), a prijavljuju redom po mestu u izvoru
+    private record Error(int line, int col, String message, boolean runtime) {}
+
+    private final Ast.Program program;
+    private final List<Error> found = new ArrayList<>();
+    private List<String> errors;
+    private Resolution resolution;
+
+    private final IdentityHashMap<Object, Resolution.Ref> refs = new IdentityHashMap<>();
+    private final IdentityHashMap<Stmt.VarDecl, int[]> decls = new IdentityHashMap<>();
+    private final IdentityHashMap<Expr.Call, Integer> calls = new IdentityHashMap<>();
+
+    // id-evi iz leksera se prevode jednom po imenu; tokeni bez id-a (symbol -1) idu kroz names
+    private final SymbolTable names = new SymbolTable();
+    private int[] lexerIds = new int[64];
+
+    private final IntTable declared = new IntTable();   // id imena -> redni broj u defs
+    private final List<Ast.FuncDef> defs = new ArrayList<>();
+    private final Map<String, Function> functions = new LinkedHashMap<>();
+
+    private final IntTable visible = new IntTable();    // id imena -> najblizi zapis u bindings
+    private int[] bindName = new int[64];
+    private int[] bindSlot = new int[64];
+    private int[] bindRank = new int[64];
+    private int[] bindShadowed = new int[64];
+    private int bindings, globalBindings;
+    private int[] scopes = new int[16];                 // prvi zapis svakog otvorenog opsega
+    private int depth;
+
+    private int globalInts, globalArrays;
+    private int next, max, nextArray, maxArray;
+    private int mainFrameSize, mainArrayFrameSize;
+
+    public Resolver(Ast.Program program)
+    {
+        this.program = program;
+    }
+
+    public Ast.Program program() { return program; }
+
+    // posle check(), redom po mestu u izvoru
+    public List<String> errors()
+    {
+        check();
+        return errors;
+    }
+
+    // baca RuntimeException za prvu (po mestu u izvoru) nerazresenu ili dvaput deklarisanu promenljivu/funkciju
+    public Resolution resolve()
+    {
+        check();
+        for (Error e : found)
+        {
+            if (!e.runtime) throw new RuntimeException(e.message);
+        }
+        return resolution;
+    }
+
+    // jedan prolaz kroz ceo program, i kada ima gresaka; drugi poziv ne radi nista
+    public Resolver check()
+    {
+        if (errors != null) return this;
+
+        // opseg 0: globalne promenljive; one i funkcije se vide u celom programu, bez obzira na redosled
+        open();
+        for (Ast.TopItem item : program.items)
+        {
+            if (item instanceof Ast.FuncDef f)
+            {
+                int id = id(f.name);
+                if (declared.get(id) >= 0)
+                {
+                    report(f.name, "Function '" + f.name.lexeme + "' already defined");
+                    continue;
+                }
+                declared.put(id, defs.size());
+                defs.add(f);
+                if (f.returnType.rank > 0) report(f.name, "Function '" + f.name.lexeme + "' cannot return an array");
+            }
+            else if (item instanceof Ast.TopVarDecl v)
+            {
+                int rank = v.decl.dims.size();
+                int[] slots = new int[v.decl.names.size()];
+                for (int i = 0; i < slots.length; i++)
+                {
+                    slots[i] = rank > 0 ? globalArrays : globalInts;
+                    if (declare(v.decl.names.get(i), rank, slots[i]) < 0) continue;
+                    if (rank > 0) globalArrays++;
+                    else globalInts++;
+                }
+                decls.put(v.decl, slots);
+            }
+        }
+        globalBindings = bindings;
+
+        for (Ast.TopItem item : program.items)
+        {
+            if (item instanceof Ast.FuncDef f) function(f);
+        }
+
+        // naredbe na vrhu programa su u svom okviru, "main"
+        beginFrame();
+        for (Ast.TopItem item : program.items)
+        {
+            if (item instanceof Ast.TopVarDecl v) dims(v.decl);
+            else if (item instanceof Ast.TopStmt s) statement(s.stmt);
+        }
+        close();
+        close();
+        mainFrameSize = max;
+        mainArrayFrameSize = maxArray;
+
+        found.sort(Comparator.comparingInt(Error::line).thenComparingInt(Error::col));
+        errors = new ArrayList<>(found.size());
+        for (Error e : found) errors.add(e.message);
+        resolution = new Resolution(program, functions, globalInts, globalArrays, mainFrameSize, mainArrayFrameSize, refs, decls, calls);
+        return this;
+    }
+
+    private void function(Ast.FuncDef f)
+    {
+        beginFrame();
+        for (Ast.Param p : f.params) refs.put(p, new Resolution.Ref(local(p.name, p.type.rank), false, p.type.rank));
+        block(f.body);
+        close();
+        functions.putIfAbsent(f.name.lexeme, new Function(f, max, maxArray));
+    }
+
+    private void beginFrame()
+    {
+        next = max = nextArray = maxArray = 0;
+        open();
+    }
+
+    private void block(List<Stmt> body)
+    {
+        int mark = next, arrayMark = nextArray;
+        open();
+        for (Stmt s : body) statement(s);
+        close();
+        next = mark;
+        nextArray = arrayMark;
+    }
+
+    private void statement(Stmt s)
+    {
+        if (s instanceof Stmt.Assign a)
+        {
+            expr(a.left);
+            Stmt.LValue lv = a.lvalue;
+            for (Expr i : lv.indices) expr(i);
+            int b = variable(lv.name);
+            if (b < 0) return;
+            if (lv.indices.isEmpty())
+            {
+                if (bindRank[b] > 0) report(lv.name, "Cannot assign to array '" + lv.name.lexeme + "'");
+            }
+            else
+            {
+                rank(lv.name, bindRank[b], lv.indices.size());
+            }
+            refs.put(lv, ref(b));
+        }
+        else if (s instanceof Stmt.VarDecl v)
+        {
+            dims(v);
+            int[] slots = new int[v.names.size()];
+            for (int i = 0; i < slots.length; i++) slots[i] = local(v.names.get(i), v.dims.size());
+            decls.put(v, slots);
+        }
+        else if (s instanceof Stmt.CallStmt c)
+        {
+            expr(c.call);
+        }
+        else if (s instanceof Stmt.Return r)
+        {
+            if (r.expr != null) expr(r.expr);
+        }
+        else if (s instanceof Stmt.BeginIf i)
+        {
+            expr(i.ifArm.cond);
+            block(i.ifArm.block);
+            for (Stmt.BeginIf.Arm arm : i.orIfArms)
+            {
+                expr(arm.cond);
+                block(arm.block);
+            }
+            if (i.elseBlock != null) block(i.elseBlock);
+        }
+        else if (s instanceof Stmt.BeginFor f)
+        {
+            expr(f.from);
+            expr(f.to);
+            // promenljiva petlje zivi u svom opsegu, zajedno sa telom
+            int mark = next;
+            open();
+            refs.put(f, new Resolution.Ref(local(f.var, 0), false, 0));
+            block(f.body);
+            close();
+            next = mark;
+        }
+    }
+
+    private void dims(Stmt.VarDecl v)
+    {
+        for (Expr d : v.dims) expr(d);
+    }
+
+    private void expr(Expr e)
+    {
+        if (e instanceof Expr.Binary b)
+        {
+            expr(b.left);
+            expr(b.right);
+        }
+        else if (e instanceof Expr.Ident id)
+        {
+            if (ident(id) > 0) report(id.name, "Array '" + id.name.lexeme + "' cannot be used as a value");
+        }
+        else if (e instanceof Expr.Grouping g)
+        {
+            expr(g.inner);
+        }
+        else if (e instanceof Expr.Call c)
+        {
+            call(c);
+        }
+        else if (e instanceof Expr.Index ix)
+        {
+            for (Expr i : ix.indices) expr(i);
+            int b = variable(ix.name);
+            if (b < 0) return;
+            rank(ix.name, bindRank[b], ix.indices.size());
+            refs.put(ix, ref(b));
+        }
+    }
+
+    private void call(Expr.Call c)
+    {
+        int k = declared.get(id(c.callee));
+        Ast.FuncDef f = k < 0 ? null : defs.get(k);
+        calls.put(c, k);
+        if (f == null)
+        {
+            report(c.callee, "Undefined function '" + c.callee.lexeme + "'");
+        }
+        else if (c.args.size() != f.params.size())
+        {
+            found.add(new Error(c.callee.line, c.callee.colStart, message(c.callee,
+                    "Function '" + c.callee.lexeme + "' expects " + f.params.size() + " arguments but " + c.args.size() + " were given"), true));
+            f = null;
+        }
+        for (int i = 0; i < c.args.size(); i++)
+        {
+            Expr a = c.args.get(i);
+            // bez poznatog parametra ime niza nije greska: dovoljno je da je deklarisano
+            int rank = f == null ? UNKNOWN : f.params.get(i).type.rank;
+            if (rank != 0 && a instanceof Expr.Ident id)
+            {
+                int actual = ident(id);
+                if (rank > 0 && actual != UNKNOWN && actual != rank) argument(c, i, rank);
+            }
+            else if (rank > 0)
+            {
+                argument(c, i, rank);
+                expr(a);
+            }
+            else
+            {
+                expr(a);
+            }
+        }
+    }
+
+    // rang imena, UNKNOWN ako nije deklarisano
+    private int ident(Expr.Ident id)
+    {
+        int b = variable(id.name);
+        if (b < 0) return UNKNOWN;
+        refs.put(id, ref(b));
+        return bindRank[b];
+    }
+
+    private Resolution.Ref ref(int binding)
+    {
+        return new Resolution.Ref(bindSlot[binding], binding < globalBindings, bindRank[binding]);
+    }
+
+    private void rank(Token name, int rank, int indices)
+    {
+        if (rank == 0) report(name, "Variable '" + name.lexeme + "' is not an array");
+        else if (rank != indices) report(name, "Array '" + name.lexeme + "' has " + rank + " dimensions but " + indices + " indices were given");
+    }
+
+    private void argument(Expr.Call c, int k, int rank)
+    {
+        report(c.callee, "Argument " + (k + 1) + " of '" + c.callee.lexeme + "' must be an array with " + rank + " dimensions");
+    }
+
+    // najblizi zapis u bindings, -1 (uz gresku) ako ime nije deklarisano
+    private int variable(Token name)
+    {
+        int b = visible.get(id(name));
+        if (b < 0) report(name, "Undefined variable '" + name.lexeme + "'");
+        return b;
+    }
+
+    // novi slot u okviru (int ili niz)
+    private int local(Token name, int rank)
+    {
+        int slot;
+        if (rank > 0)
+        {
+            slot = nextArray++;
+            maxArray = Math.max(maxArray, nextArray);
+        }
+        else
+        {
+            slot = next++;
+            max = Math.max(max, next);
+        }
+        declare(name, rank, slot);
+        return slot;
+    }
+
+    // zapis u bindings, -1 (uz gresku) ako je ime vec deklarisano u istom opsegu
+    private int declare(Token name, int rank, int slot)
+    {
+        int id = id(name);
+        int shadowed = visible.get(id);
+        if (shadowed >= scopes[depth - 1])
+        {
+            report(name, depth == 1 ? "Variable '" + name.lexeme + "' already declared" : "Variable '" + name.lexeme + "' already declared in this scope");
+            return -1;
+        }
+        if (bindings == bindName.length)
+        {
+            bindName = Arrays.copyOf(bindName, bindings * 2);
+            bindSlot = Arrays.copyOf(bindSlot, bindings * 2);
+            bindRank = Arrays.copyOf(bindRank, bindings * 2);
+            bindShadowed = Arrays.copyOf(bindShadowed, bindings * 2);
+        }
+        bindName[bindings] = id;
+        bindSlot[bindings] = slot;
+        bindRank[bindings] = rank;
+        bindShadowed[bindings] = shadowed;
+        visible.put(id, bindings);
+        return bindings++;
+    }
+
+    private void open()
+    {
+        if (depth == scopes.length) scopes = Arrays.copyOf(scopes, depth * 2);
+        scopes[depth++] = bindings;
+    }
+
+    private void close()
+    {
+        int start = scopes[--depth];
+        while (bindings > start)
+        {
+            bindings--;
+            visible.put(bindName[bindings], bindShadowed[bindings]);
+        }
+    }
+
+    private int id(Token name)
+    {
+        int s = name.symbol;
+        if (s < 0) return names.intern(name.lexeme);
+        if (s >= lexerIds.length) lexerIds = Arrays.copyOf(lexerIds, Math.max(lexerIds.length * 2, s + 1));
+        int id = lexerIds[s] - 1;
+        if (id < 0)
+        {
+            id = names.intern(name.lexeme);
+            lexerIds[s] = id + 1;
+        }
+        return id;
+    }
+
+    private void report(Token at, String msg)
+    {
+        found.add(new Error(at.line, at.colStart, message(at, msg), false));
+    }
+
+    private static String message(Token at, String msg)
+    {
+        return "JAMCRASH > " + msg + " at " + at.line + ":" + at.colStart + " near '" + at.lexeme + "'";
+    }
+
+    public static RuntimeException error(Token at, String msg)
+    {
+        return new RuntimeException(message(at, msg));
+    }
+
+    /*
+        int -> int sa otvorenim adresiranjem i linearnim probanjem; kljucevi su id-evi imena (>= 0),
+        -1 je "nema". Zapis se ne brise: zatvoreni opseg upisuje zaklonjenu vrednost (ili -1), pa
+        tabela raste samo sa brojem razlicitih imena.
+     */
+    private static final class IntTable
+    {
+        private int[] keys = new int[64];       // kljuc + 1, 0 je prazno mesto
+        private int[] values = new int[64];
+        private int size;
+
+        int get(int key)
+        {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; ; i = (i + 1) & mask)
+            {
+                if (keys[i] == 0) return -1;
+                if (keys[i] == key + 1) return values[i];
+            }
+        }
+
+        void put(int key, int value)
+        {
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != 0 && keys[i] != key + 1) i = (i + 1) & mask;
+            if (keys[i] == 0)
+            {
+                keys[i] = key + 1;
+                if (++size * 2 > keys.length)
+                {
+                    values[i] = value;
+                    grow();
+                    return;
+                }
+            }
+            values[i] = value;
+        }
+
+        private void grow()
+        {
+            int[] oldKeys = keys, oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++)
+            {
+                if (oldKeys[j] == 0) continue;
+                int i = mix(oldKeys[j] - 1) & mask;
+                while (keys[i] != 0) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        // id-evi su uzastopni, pa se rasipaju da susedni ne prave dugacke nizove probanja
+        private static int mix(int key)
+        {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
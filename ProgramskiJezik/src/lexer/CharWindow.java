@@ -0,0 +1,194 @@
+package lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+    Ograniceni prozor nad izvorom koji se cita u delovima (Reader ili memory-mapped fajl).
+    Indeksi su relativni u odnosu na pocetak prozora; ScannerCore odbacuje sve pre pocetka
+    tekuceg tokena, pa prozor raste samo ako je jedan token duzi od kapaciteta.
+    close zatvara izvor (i kanal mapiranog fajla) i kada citanje stane pre kraja, npr. posle greske.
+ */
+public final class CharWindow implements CharSequence, AutoCloseable
+{
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final Reader in;
+    private char[] buf;
+    private int len;
+    private long base;
+    private boolean eof;
+
+    private CharWindow(Reader in, int capacity)
+    {
+        this.in = in;
+        this.buf = new char[Math.max(16, capacity)];
+    }
+
+    public static CharWindow of(Reader in)
+    {
+        return new CharWindow(in, DEFAULT_CAPACITY);
+    }
+
+    public static CharWindow of(Reader in, int capacity)
+    {
+        return new CharWindow(in, capacity);
+    }
+
+    public static CharWindow map(Path path) throws IOException
+    {
+        return map(path, DEFAULT_CAPACITY);
+    }
+
+    public static CharWindow map(Path path, int capacity) throws IOException
+    {
+        return new CharWindow(new MappedReader(FileChannel.open(path, StandardOpenOption.READ)), capacity);
+    }
+
+    boolean ensure(int idx)
+    {
+        while (idx >= len)
+        {
+            if (eof || !fill()) return false;
+        }
+        return true;
+    }
+
+    private boolean fill()
+    {
+        if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+        try
+        {
+            int n = in.read(buf, len, buf.length - len);
+            if (n < 0)
+            {
+                eof = true;
+                in.close();
+                return false;
+            }
+            len += n;
+            return true;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    boolean wantsCompaction(int idx)
+    {
+        return idx > buf.length / 2;
+    }
+
+    int discard(int keepFrom)
+    {
+        System.arraycopy(buf, keepFrom, buf, 0, len - keepFrom);
+        len -= keepFrom;
+        base += keepFrom;
+        return keepFrom;
+    }
+
+    long base() { return base; }
+
+    @Override
+    public void close() throws IOException
+    {
+        eof = true;
+        in.close();
+    }
+
+    @Override
+    public int length() { return len; }
+
+    @Override
+    public char charAt(int index) { return buf[index]; }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        return new String(buf, start, end - start);
+    }
+
+    @Override
+    public String toString()
+    {
+        return new String(buf, 0, len);
+    }
+
+    private static final class MappedReader extends Reader
+    {
+        private static final long REGION = 1L << 26;
+
+        private final FileChannel ch;
+        private final long size;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        private MappedByteBuffer region;
+        private long regionPos;
+        private boolean flushed;
+
+        MappedReader(FileChannel ch) throws IOException
+        {
+            this.ch = ch;
+            this.size = ch.size();
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int n) throws IOException
+        {
+            CharBuffer out = CharBuffer.wrap(cbuf, off, n);
+            while (out.position() == off)
+            {
+                if (region == null || !region.hasRemaining())
+                {
+                    long next = region == null ? 0 : regionPos + region.position();
+                    if (next >= size)
+                    {
+                        if (flushed) return -1;
+                        CoderResult r = decoder.decode(ByteBuffer.allocate(0), out, true);
+                        if (r.isError()) r.throwException();
+                        decoder.flush(out);
+                        flushed = true;
+                        continue;
+                    }
+                    map(next);
+                }
+                CoderResult r = decoder.decode(region, out, false);
+                if (r.isError()) r.throwException();
+                if (r.isUnderflow() && region.hasRemaining())
+                {
+                    // visebajtni znak presecen granicom regiona
+                    long next = regionPos + region.position();
+                    if (next + region.remaining() >= size) throw new IOException("Truncated UTF-8 input");
+                    map(next);
+                }
+            }
+            return out.position() - off;
+        }
+
+        private void map(long pos) throws IOException
+        {
+            regionPos = pos;
+            region = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(REGION, size - pos));
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            ch.close();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package lexer;
+
+/*
+    Jedna greska leksera: kod (BadBeat, JamCrash), apsolutni offset, red i kolona pocetka, poruka
+    i tekst na tom mestu. toString je ista poruka koju nosi izuzetak kada se greske ne skupljaju.
+ */
+public record Diagnostic(String code, long offset, int line, int col, String message, String excerpt)
+{
+    @Override
+    public String toString()
+    {
+        return "JAMCRASH > " + message + " at " + line + ":" + col + " near '" + excerpt + "'";
+    }
+}
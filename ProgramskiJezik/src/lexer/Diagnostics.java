@@ -0,0 +1,65 @@
+package lexer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+    Skuplja greske leksera umesto prve koja baca izuzetak (Lexer.collectErrors). Pamti najvise max
+    gresaka, a broji sve, pa fajl sa milion losih znakova ne pravi milion zapisa.
+ */
+public final class Diagnostics
+{
+    private static final int EXCERPT = 24;
+
+    private final int max;
+    private final List<Diagnostic> list = new ArrayList<>();
+    private int count;
+
+    public Diagnostics(int max)
+    {
+        this.max = max;
+    }
+
+    void report(String message, long offset, int line, int col, CharSequence text, int from, int to)
+    {
+        count++;
+        if (list.size() == max) return;
+        int colon = message.indexOf(':');
+        String code = colon < 0 ? message : message.substring(0, colon);
+        String excerpt = to - from > EXCERPT
+                ? text.subSequence(from, from + EXCERPT) + "..."
+                : text.subSequence(from, to).toString();
+        list.add(new Diagnostic(code, offset, line, col, message, excerpt));
+    }
+
+    /*
+        Greske dela leksiranog sa redovima od 1 (ParallelLexer), delovi redom: red se pomera za
+        lines, a kolona ne, jer deo pocinje na pocetku reda. Ostaje prvih max u izvoru, kao kod
+        sekvencijalnog leksiranja.
+     */
+    void addAll(Diagnostics part, int lines)
+    {
+        for (Diagnostic d : part.list)
+        {
+            if (list.size() == max) break;
+            list.add(new Diagnostic(d.code(), d.offset(), d.line() + lines, d.col(), d.message(), d.excerpt()));
+        }
+        count += part.count;
+    }
+
+    Diagnostics fresh() { return new Diagnostics(max); }
+
+    public boolean isEmpty() { return count == 0; }
+
+    // sve prijavljene, i one koje nisu zapamcene
+    public int count() { return count; }
+
+    // zapamcene (najvise max), redom po mestu u izvoru
+    public List<Diagnostic> sorted()
+    {
+        List<Diagnostic> out = new ArrayList<>(list);
+        out.sort(Comparator.comparingLong(Diagnostic::offset));
+        return out;
+    }
+}
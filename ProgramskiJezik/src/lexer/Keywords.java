@@ -0,0 +1,95 @@
+package lexer;
+
+import lexer.token.TokenType;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+    Prepoznavanje kljucnih reci direktno nad opsegom izvora, bez pravljenja podstringa.
+    Duzina i prvo slovo jednoznacno odredjuju kandidata (proverava se pri pravljenju tabele),
+    pa se porede samo preostali karakteri.
+ */
+public final class Keywords
+{
+    public static final List<Map.Entry<String, TokenType>> ENTRIES = List.of(
+            Map.entry("heehee", TokenType.INT),
+            Map.entry("ow", TokenType.FLOAT),
+            Map.entry("blackOrWhite", TokenType.BOOL), //bad, justRememberToAlwaysThinkTwice, doThinkTwice
+            Map.entry("shooCaChooCa", TokenType.STRING), //annie, smoothCriminal, sing
+            Map.entry("shooCa", TokenType.CHAR),
+            Map.entry("jam", TokenType.BEGIN), //hitTheFloor, let'sDance
+            Map.entry("jamOut", TokenType.END),
+            Map.entry("smoothCriminal", TokenType.FUNCTION),
+            Map.entry("annieAreYouOkay", TokenType.IF),
+            Map.entry("eitherWay", TokenType.OR),
+            Map.entry("fightForYourLife", TokenType.ELSE),
+            Map.entry("justBeatIt", TokenType.FOR), //loopMoon
+            Map.entry("stayGroovy", TokenType.WHILE),
+            Map.entry("moves", TokenType.GOES), //carryMeThere
+            Map.entry("from", TokenType.FROM), //ofTheWall
+            Map.entry("glideTo", TokenType.TO), // moonTo
+            Map.entry("shamona", TokenType.CALL), //doIt, action, liftMe,rockWithYou
+            Map.entry("moonWalk", TokenType.RETURN),
+            Map.entry("and", TokenType.AND),
+            Map.entry("lieBecomesTheTruth", TokenType.NOT), //notMyLove, notMySon
+            Map.entry("array", TokenType.ARRAY),
+            Map.entry("freeze", TokenType.BREAK),
+            Map.entry("white", TokenType.TRUE),
+            Map.entry("black", TokenType.FALSE)
+    );
+
+    public static final Keywords DEFAULT = new Keywords(ENTRIES);
+
+    private final int maxLen;
+    private final String[] spelling;
+    private final TokenType[] type;
+
+    public Keywords(List<Map.Entry<String, TokenType>> entries)
+    {
+        int max = 0;
+        for (Map.Entry<String, TokenType> e : entries) max = Math.max(max, e.getKey().length());
+        maxLen = max;
+        spelling = new String[(max + 1) * 128];
+        type = new TokenType[(max + 1) * 128];
+        for (Map.Entry<String, TokenType> e : entries)
+        {
+            String kw = e.getKey();
+            if (kw.charAt(0) >= 128) throw new IllegalArgumentException("Non-ASCII keyword: " + kw);
+            int slot = slot(kw.length(), kw.charAt(0));
+            if (spelling[slot] != null)
+            {
+                throw new IllegalStateException("Keywords '" + spelling[slot] + "' and '" + kw + "' share length and first letter");
+            }
+            spelling[slot] = kw;
+            type[slot] = e.getValue();
+        }
+    }
+
+    private static int slot(int len, char first)
+    {
+        return len * 128 + first;
+    }
+
+    public static TokenType lookup(CharSequence src, int start, int end)
+    {
+        return DEFAULT.match(src, start, end);
+    }
+
+    // null ako opseg nije kljucna rec
+    public TokenType match(CharSequence src, int start, int end)
+    {
+        int len = end - start;
+        char first = src.charAt(start);
+        if (len > maxLen || first >= 128) return null;
+
+        int slot = slot(len, first);
+        String kw = spelling[slot];
+        if (kw == null) return null;
+        for (int i = 1; i < len; i++)
+        {
+            if (src.charAt(start + i) != kw.charAt(i)) return null;
+        }
+        return type[slot];
+    }
+}
@@ -1,187 +1,488 @@
 package lexer;
 
 import lexer.token.Token;
+import lexer.token.TokenStream;
 import lexer.token.TokenType;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 public class Lexer
 {
+    public static final String VECTOR_PROPERTY = "programskijezik.vector";
+
+    // SIMD kraj run-a ako je jdk.incubator.vector ucitan i nije iskljucen sa -Dprogramskijezik.vector=false
+    private static final boolean VECTOR = vectorAvailable();
+
+    // ista poruka i kada se greske skupljaju i kada se baca prva
+    private static final String OUT_OF_RANGE = "BadBeat: MoonSteps literal out of range";
+
     private final ScannerCore sc;
-    private final String source;
-    private final List<Token> tokens = new ArrayList<>();
+    private final SymbolTable symbols;
+    private final TokenStream tokens;
+    private Token pending;
+    private Diagnostics diagnostics;    // null: prva greska baca izuzetak
+    private boolean vector = VECTOR;
+    private VectorRuns runs;            // null: runovi se zavrsavaju samo skalarnom petljom
 
     public Lexer(ScannerCore sc, String source)
     {
         this.sc = sc;
-        this.source = source;
-    }
-
-    private static final Map<String, TokenType> KEYWORDS = Map.ofEntries(
-            Map.entry("heehee", TokenType.INT),
-            Map.entry("ow", TokenType.FLOAT),
-            Map.entry("blackOrWhite", TokenType.BOOL), //bad, justRememberToAlwaysThinkTwice, doThinkTwice
-            Map.entry("shooCaChooCa", TokenType.STRING), //annie, smoothCriminal, sing
-            Map.entry("shooCa", TokenType.CHAR),
-            Map.entry("jam", TokenType.BEGIN), //hitTheFloor, let'sDance
-            Map.entry("jamOut", TokenType.END),
-            Map.entry("smoothCriminal", TokenType.FUNCTION),
-            Map.entry("annieAreYouOkay", TokenType.IF),
-            Map.entry("eitherWay", TokenType.OR),
-            Map.entry("fightForYourLife", TokenType.ELSE),
-            Map.entry("justBeatIt", TokenType.FOR), //loopMoon
-            Map.entry("stayGroovy", TokenType.WHILE),
-            Map.entry("moves", TokenType.GOES), //carryMeThere
-            Map.entry("from", TokenType.FROM), //ofTheWall
-            Map.entry("glideTo", TokenType.TO), // moonTo
-            Map.entry("shamona", TokenType.CALL), //doIt, action, liftMe,rockWithYou
-            Map.entry("moonWalk", TokenType.RETURN),
-            Map.entry("and", TokenType.AND),
-            Map.entry("lieBecomesTheTruth", TokenType.NOT), //notMyLove, notMySon
-            Map.entry("array", TokenType.ARRAY),
-            Map.entry("freeze", TokenType.BREAK),
-            Map.entry("white", TokenType.TRUE),
-            Map.entry("black", TokenType.FALSE)
-    );
-
-/*    private static final Map<TokenType, String> TOKEN_PATTERNS = Map.ofEntries(
-            Map.entry(TokenType.INT_LIT, "^[0-9]+"),
-            Map.entry(TokenType.IDENT, "^[a-zA-Z_][a-zA-Z0-9_]*"),
-            Map.entry(TokenType.ADD, "^\\+"),
-            Map.entry(TokenType.SUBTRACT, "^-"),
-            Map.entry(TokenType.MULTIPLY, "^\\*"),
-            Map.entry(TokenType.DIVIDE, "^/"),
-            Map.entry(TokenType.LPAREN, "^\\("),
-            Map.entry(TokenType.RPAREN, "^\\)"),
-            Map.entry(TokenType.LBRACKET, "^\\["),
-            Map.entry(TokenType.RBRACKET, "^\\]"),
-            Map.entry(TokenType.TYPE_COLON, "^:"),
-            Map.entry(TokenType.SEPARATOR_COMMA, "^,"),
-            Map.entry(TokenType.SEPARATOR_SEMICOLON, "^;"),
-            Map.entry(TokenType.EQ, "^="),
-            Map.entry(TokenType.NEQ, "^!="),
-            Map.entry(TokenType.LT, "^<"),
-            Map.entry(TokenType.LE, "^<="),
-            Map.entry(TokenType.GT, "^>"),
-            Map.entry(TokenType.GE, "^>=")
-    );
- */
+        this.symbols = new SymbolTable();
+        this.tokens = new TokenStream(source, symbols);
+        sc.recordLines(tokens.lines());
+    }
+
+    // tabele se prave jednom iz TokenSpec.DEFAULT; novi token se dodaje u spec, ne ovde
+    private final ScannerTables tables = ScannerTables.DEFAULT;
 
     private void scanToken()
     {
-        char c = sc.advance();
-
-        switch (c)
-        {
-            case '(' -> add(TokenType.LPAREN);
-            case ')' -> add(TokenType.RPAREN);
-            case '[' -> add(TokenType.LBRACKET);
-            case ']' -> add(TokenType.RBRACKET);
-            case ',' -> add(TokenType.SEPARATOR_COMMA);
-            case ':' -> add(TokenType.TYPE_COLON);
-            case ';' -> add(TokenType.SEPARATOR_SEMICOLON);
-            case '+' -> add(TokenType.ADD);
-            case '-' -> add(TokenType.SUBTRACT);
-            case '*' -> add(TokenType.MULTIPLY);
-            case '/' -> add(TokenType.DIVIDE);
-            case '%' -> add(TokenType.PERCENT);
-            case '<' -> add(sc.match('=') ? TokenType.LE : TokenType.LT);
-            case '>' -> add(sc.match('=') ? TokenType.GE : TokenType.GT);
-            case '=' -> {
-                if (sc.match('=')) add(TokenType.EQ);
-                else add(TokenType.ASSIGN);
+        CharSequence text = sc.text();
+        byte[] classOf = tables.classOf;
+        char[] next = tables.next;
+        int[] info = tables.info;
+        int shift = tables.shift;
+
+        int start = tables.start();
+        int pos = sc.getCur(), limit = sc.limit(pos);
+
+        // beline: pocetno stanje ima petlju nad njima, preskacu se bez pravljenja tokena; prelaz
+        // za prvi znak posle njih je ujedno i prvi korak DFA ispod, pa se ne racuna dvaput
+        if (runs != null) pos = runs.end(start, pos, limit);
+        int state = start;
+        while (true)
+        {
+            if (pos == limit && (limit = sc.limit(pos)) == pos) break;
+            state = next[start + classOf[text.charAt(pos)]];
+            if (state != start) break;
+            pos++;
+        }
+        if (pos != sc.getCur())
+        {
+            sc.skip(pos - sc.getCur());
+            if (sc.isAtEnd()) return;
+            sc.beginToken();
+            text = sc.text();
+            pos = sc.getCur();
+            limit = sc.limit(pos);
+        }
+
+        int begin = pos;
+        int rule = ScannerTables.NO_RULE;
+        int accepted = 0;
+
+        // najduze poklapanje: idi dok DFA ne umre, zapamti poslednje prihvatajuce stanje
+        while (state != ScannerTables.DEAD)
+        {
+            pos++;
+            int at = info[state >>> shift];
+            if ((at & ScannerTables.LOOP) != 0)
+            {
+                // VectorRuns zavrsava ASCII deo run-a, ostatak (ne-ASCII znakovi) ide kroz tabele
+                if (runs != null) pos = runs.end(state, pos, limit);
+                while (pos < limit && next[state + classOf[text.charAt(pos)]] == state) pos++;
             }
-            case '!' -> {
-                if (sc.match('=')) add(TokenType.NEQ); //nejednakost
-                else add(TokenType.NOT); // not
+            if ((at & ScannerTables.RULE_MASK) != 0)
+            {
+                rule = (at & ScannerTables.RULE_MASK) - 1;
+                accepted = pos - begin;
             }
-            case '&' -> {
-                if (sc.match('&')) add(TokenType.AND);
-                else throw error("BadBeat: Lone '&' found");
+            // na kraju prozora (pos == limit) run mozda nije gotov, pa se ide na dopunu
+            if ((at & ScannerTables.FINAL) != 0 && pos < limit) break;
+            if (pos == limit && (limit = sc.limit(pos)) == pos) break;
+            state = next[state + classOf[text.charAt(pos)]];
+        }
+
+        if (rule == ScannerTables.NO_RULE)
+        {
+            if (diagnostics == null) throw unrecognized();
+            skipUnrecognized();
+            return;
+        }
+        emit(rule, text, begin, accepted, limit);
+    }
+
+    // limit je kraj dostupnog teksta, za znak iza leksema (CHECK_FOLLOW)
+    private void emit(int rule, CharSequence text, int begin, int accepted, int limit)
+    {
+        int action = tables.ruleAction[rule];
+        // najcesci slucaj, operator, zagrada ili novi red: bez provera i bez vrednosti
+        if ((action & ~ScannerTables.SPANS_LINES) == ScannerTables.TOKEN && tokens != null)
+        {
+            if (action == ScannerTables.TOKEN) sc.skip(accepted);
+            else for (int i = 0; i < accepted; i++) sc.advance();
+            tokens.add(tables.ruleType[rule], begin, begin + accepted, 0);
+            return;
+        }
+        // kratak broj iza kog ne stoji slovo: vrednost se cita pravo iz prozora
+        if (action == (ScannerTables.INT | ScannerTables.CHECK_FOLLOW) && tokens != null && accepted <= 9
+            && (begin + accepted == limit || !tables.rejectsFollow(rule, text.charAt(begin + accepted))))
+        {
+            sc.skip(accepted);
+            tokens.add(TokenType.INT_LIT, begin, begin + accepted, shortInt(text, begin, begin + accepted));
+            return;
+        }
+        if ((action & ScannerTables.SPANS_LINES) != 0)
+        {
+            for (int i = 0; i < accepted; i++) sc.advance();
+        }
+        else
+        {
+            sc.skip(accepted);
+        }
+        int end = begin + accepted;
+        if ((action & ScannerTables.CHECK_FOLLOW) != 0 && end < limit && tables.rejectsFollow(rule, text.charAt(end)))
+        {
+            if (diagnostics == null) throw error(tables.followMessage(rule));
+            // "12abc" je jedna greska: prijavljuje se broj, a ostatak reci ide u isti ERROR token
+            report(tables.followMessage(rule));
+            while (!sc.isAtEnd() && (tables.rejectsFollow(rule, sc.peek()) || TokenSpec.isIdentPart(sc.peek()))) sc.advance();
+            addErrorToken();
+            return;
+        }
+        if ((action & ScannerTables.RESERVED) != 0)
+        {
+            TokenType keyword = tables.reserved(rule, text, begin, begin + accepted);
+            if (keyword != null)
+            {
+                add(keyword);
+                return;
             }
-            case '\n' -> tokens.add(new Token(
-                    TokenType.NEWLINE, "\n", null, sc.getStartLine(), sc.getStartCol(), sc.getStartCol()
-            ));
-            case ' ', '\r', '\t' -> {}
-            default -> {
-                if (Character.isDigit(c)) number();
-                else if (isIdentStart(c)) identifier();
-                else throw error("JamCrash: Unrecognized move");
+        }
+
+        switch (action & ScannerTables.KIND_MASK)
+        {
+            case ScannerTables.TOKEN -> add(tables.type(rule));
+            case ScannerTables.INT -> addLiteralInt();
+            case ScannerTables.SYMBOL -> addSymbol();
+            case ScannerTables.ERROR ->
+            {
+                if (diagnostics == null) throw error(tables.message(rule));
+                addError(tables.message(rule));
             }
+            default -> {}
         }
     }
 
+    private LexerException unrecognized()
+    {
+        sc.advance();
+        return error(tables.unrecognized());
+    }
+
+    // niz znakova kojima ne pocinje nijedan token je jedna greska; nastavlja se od prvog koji moze
+    private void skipUnrecognized()
+    {
+        sc.advance();
+        while (!sc.isAtEnd() && tables.next(tables.start(), sc.peek()) == ScannerTables.DEAD) sc.advance();
+        addError(tables.unrecognized());
+    }
+
     public Lexer(String source)
     {
-        this.source = source;
+        this(source, new SymbolTable());
+    }
+
+    // vise fajlova iste kompilacije moze da deli tabelu imena
+    public Lexer(String source, SymbolTable symbols)
+    {
         this.sc = new ScannerCore(source);
+        this.symbols = symbols;
+        this.tokens = new TokenStream(source, symbols);
+        sc.recordLines(tokens.lines());
+    }
+
+    /*
+        pull mod: tokeni se prave jedan po jedan, izvor se cita kroz ograniceni prozor. Imena se
+        ne interniraju (symbol je -1), jer bi tabela rasla sa svakim novim imenom iz izvora bez
+        granice; ko zeli id-e prosledjuje svoju tabelu.
+     */
+    public Lexer(CharWindow window)
+    {
+        this(window, null);
+    }
+
+    public Lexer(CharWindow window, SymbolTable symbols)
+    {
+        this.sc = new ScannerCore(window);
+        this.symbols = symbols;
+        this.tokens = null;
+    }
+
+    // null u pull modu bez tabele
+    public SymbolTable symbols() { return symbols; }
+
+    /*
+        Greske se upisuju u diagnostics umesto da se baca izuzetak: umesto losih znakova ide ERROR
+        token i skeniranje se nastavlja, pa jedan prolaz nadje sve greske.
+     */
+    public Lexer collectErrors(Diagnostics diagnostics)
+    {
+        this.diagnostics = diagnostics;
+        return this;
+    }
+
+    /*
+        Iskljucuje (false) ili vraca SIMD prolaz kroz runove, npr. za poredjenje sa skalarnim.
+        Bez modula jdk.incubator.vector nema efekta; tokeni su isti u oba slucaja.
+     */
+    public Lexer vectorRuns(boolean enabled)
+    {
+        this.vector = enabled && VECTOR;
+        return this;
+    }
+
+    public static boolean vectorRunsAvailable() { return VECTOR; }
+
+    private static boolean vectorAvailable()
+    {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))) return false;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+        try
+        {
+            // ispod 16 znakova po poredjenju (bez SIMD jedinice) tabele su brze
+            return VectorRuns.lanes() >= 16;
+        }
+        catch (LinkageError e)
+        {
+            return false;
+        }
+    }
+
+    // Latin-1 kopija za VectorRuns se pravi tek kada skeniranje krene, i samo nad String izvorom
+    private VectorRuns runs()
+    {
+        if (vector && runs == null && sc.text() instanceof String source) runs = new VectorRuns(source, tables);
+        return runs;
     }
 
     public List<Token> scanTokens()
+    {
+        return scan().asList();
+    }
+
+    public TokenStream scan()
+    {
+        if (tokens == null) throw new IllegalStateException("Streaming lexer, use nextToken()");
+        runs();
+        scanToEnd();
+        tokens.add(TokenType.EOF, sc.getCur(), sc.getCur(), 0);
+        return tokens;
+    }
+
+    // isti tokeni kao scan(), izvor se deli na delove po redovima koji se leksiraju na pool-u
+    public TokenStream scanParallel(ForkJoinPool pool)
+    {
+        if (tokens == null) throw new IllegalStateException("Streaming lexer, use nextToken()");
+        return ParallelLexer.scan(tokens, pool, ParallelLexer.MIN_CHUNK, runs(), diagnostics);
+    }
+
+    public List<Token> scanTokensParallel()
+    {
+        return scanParallel(ForkJoinPool.commonPool()).asList();
+    }
+
+    void scanToEnd()
     {
         while (!sc.isAtEnd())
         {
             sc.beginToken();
             scanToken();
         }
-        tokens.add(new Token(TokenType.EOF, "\0", null, sc.getLine(), sc.getCol(), sc.getCol()));
-        return tokens;
     }
 
-    private void number()
+    ScannerCore core() { return sc; }
+
+    // delovi paralelnog leksiranja dele jednu kopiju izvora
+    Lexer runs(VectorRuns runs)
+    {
+        this.vector = runs != null;
+        this.runs = runs;
+        return this;
+    }
+
+    Lexer(ScannerCore sc, SymbolTable symbols, TokenStream tokens)
+    {
+        this.sc = sc;
+        this.symbols = symbols;
+        this.tokens = tokens;
+        sc.recordLines(tokens.lines());
+    }
+
+    /*
+        Ponovo leksira samo deo izvora oko izmene (offset, removed, inserted) i menja tokens na mestu.
+        Pocinje od prvog tokena ciji se leksem ili znak iza njega (lookahead) nalazi u izmeni, a
+        staje kada novi token pocne tamo gde je poceo neki stari token iza izmene; odatle je ostatak
+        isti, samo pomeren. Ako novi tekst ima gresku, tokens i tekst ostaju kakvi su bili.
+     */
+    public static TokenStream relex(TokenStream tokens, int offset, int removed, String inserted)
     {
-        while (Character.isDigit(sc.peek())) sc.advance();
-        String text = source.substring(sc.getStartIdx(), sc.getCur());
-        char nextChar = sc.peek();
-        if (Character.isAlphabetic(nextChar))
+        if (offset < 0 || removed < 0 || offset + removed > tokens.length())
+        {
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removed) + ") outside source of length " + tokens.length());
+        }
+
+        int from = tokens.firstEndingAt(offset);
+        int pos = from > 0 ? tokens.end(from - 1) : 0;
+        int line = tokens.lines().line(pos), col = tokens.lines().column(pos);
+
+        String removedText = tokens.editSource(from, offset, removed, inserted);
+        int editEnd = offset + inserted.length();
+        TokenStream fresh = new TokenStream(tokens.source(), tokens.symbols(), 16);
+        Lexer lexer = new Lexer(new ScannerCore(tokens.source(), pos, line, col), tokens.symbols(), fresh);
+        ScannerCore sc = lexer.sc;
+        try
+        {
+            int old = from;
+            while (true)
+            {
+                int before = fresh.size();
+                if (sc.isAtEnd())
+                {
+                    fresh.add(TokenType.EOF, sc.getCur(), sc.getCur(), 0);
+                }
+                else
+                {
+                    sc.beginToken();
+                    lexer.scanToken();
+                    if (fresh.size() == before) continue;
+                }
+
+                // stari tokeni iza izmene se citaju vec pomereni za razliku u duzini teksta
+                int start = fresh.start(before);
+                if (start < editEnd) continue;
+                while (tokens.start(old) < start) old++;
+                if (tokens.start(old) == start)
+                {
+                    tokens.replace(from, old, fresh, before);
+                    return tokens;
+                }
+            }
+        }
+        catch (RuntimeException e)
         {
-            //throw error("Error: Character in int literal");
-            throw error("BadBeat: Letter in MoonSteps literal");
+            tokens.editSource(from, offset, inserted.length(), removedText);
+            throw e;
         }
-        addLiteralInt(text);
     }
 
-    private void identifier()
+    public Token nextToken()
     {
-        while (isIdentPart(sc.peek())) sc.advance();
-        String text = source.substring(sc.getStartIdx(), sc.getCur());
-        TokenType type = KEYWORDS.getOrDefault(text, TokenType.IDENT);
-        add(type, text);
+        if (tokens != null) throw new IllegalStateException("In-memory lexer, use scan()");
+        while (pending == null)
+        {
+            if (sc.isAtEnd())
+            {
+                return new Token(TokenType.EOF, "\0", null, sc.getLine(), sc.getCol(), sc.getCol());
+            }
+            sc.beginToken();
+            scanToken();
+        }
+        Token t = pending;
+        pending = null;
+        return t;
+    }
+
+    private void addSymbol()
+    {
+        int start = sc.getStartIdx(), end = sc.getCur();
+        if (symbols == null)
+        {
+            pending = new Token(TokenType.IDENT, sc.slice(start, end), null, sc.getStartLine(), sc.getStartCol(), colEnd());
+            return;
+        }
+        int id = symbols.intern(sc.text(), start, end);
+        if (tokens == null)
+        {
+            pending = new Token(TokenType.IDENT, symbols.name(id), null, sc.getStartLine(), sc.getStartCol(), colEnd(), id);
+            return;
+        }
+        tokens.add(TokenType.IDENT, start, end, id);
     }
 
-    private boolean isIdentStart(char c)
+    private void add(TokenType type)
     {
-        return Character.isLetter(c) || c == '_';
+        if (tokens == null)
+        {
+            pending = new Token(type, sc.slice(sc.getStartIdx(), sc.getCur()), null, sc.getStartLine(), sc.getStartCol(), colEnd());
+            return;
+        }
+        tokens.add(type, sc.getStartIdx(), sc.getCur(), 0);
     }
 
-    private boolean isIdentPart(char c)
+    private int colEnd()
     {
-        return isIdentStart(c) || Character.isDigit(c);
+        return Math.max(sc.getStartCol(), sc.getCol() - 1);
     }
 
-    private void add(TokenType type)
+    private void addLiteralInt()
     {
-        String lex = source.substring(sc.getStartIdx(), sc.getCur());
-        tokens.add(new Token(type, lex, null, sc.getStartLine(), sc.getStartCol(), sc.getCol() - 1));
+        int start = sc.getStartIdx(), end = sc.getCur();
+        int value;
+        try
+        {
+            value = end - start <= 9 ? shortInt(sc.text(), start, end) : Integer.parseInt(sc.text(), start, end, 10);
+        }
+        catch (NumberFormatException e)
+        {
+            if (diagnostics == null) throw error(OUT_OF_RANGE);
+            addError(OUT_OF_RANGE);
+            return;
+        }
+        if (tokens == null)
+        {
+            pending = new Token(TokenType.INT_LIT, sc.slice(start, end), value, sc.getStartLine(), sc.getStartCol(), colEnd());
+            return;
+        }
+        tokens.add(TokenType.INT_LIT, start, end, value);
+    }
+
+    /*
+        Do 9 ASCII cifara broj ne moze da prekoraci int, pa se racuna bez Integer.parseInt
+        (provere znaka, Character.digit po cifri). Run cifara moze da ima i ne-ASCII cifre (sve
+        su > '9'); tada radi Integer.parseInt.
+     */
+    private static int shortInt(CharSequence text, int start, int end)
+    {
+        int value = 0;
+        for (int i = start; i < end; i++)
+        {
+            int d = text.charAt(i) - '0';
+            if (d > 9) return Integer.parseInt(text, start, end, 10);
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private void addError(String msg)
+    {
+        report(msg);
+        addErrorToken();
     }
 
-    private void add(TokenType type, String text)
+    private void report(String msg)
     {
-        tokens.add(new Token(type, text, null, sc.getStartLine(), sc.getStartCol(), sc.getCol() - 1));
+        int start = sc.getStartIdx(), end = sc.getCur();
+        diagnostics.report(msg, sc.offset() - (end - start), sc.getStartLine(), sc.getStartCol(), sc.text(), start, end);
     }
 
-    private void addLiteralInt(String literal)
+    private void addErrorToken()
     {
-        tokens.add(new Token(TokenType.INT_LIT, literal, Integer.valueOf(literal), sc.getStartLine(), sc.getStartCol(), sc.getCol() - 1));
+        int start = sc.getStartIdx(), end = sc.getCur();
+        if (tokens == null)
+        {
+            pending = new Token(TokenType.ERROR, sc.slice(start, end), null, sc.getStartLine(), sc.getStartCol(), colEnd());
+            return;
+        }
+        tokens.add(TokenType.ERROR, start, end, 0);
     }
 
-    private RuntimeException error(String msg)
+    private LexerException error(String msg)
     {
-        String near = source.substring(sc.getStartIdx(), Math.min(sc.getCur(), source.length()));
+        String near = sc.slice(sc.getStartIdx(), Math.min(sc.getCur(), sc.text().length()));
         //return new RuntimeException("LEXER > " + msg + " at " + sc.getStartLine() + ":" + sc.getStartCol() + " near '" + near + "'");
 
-        return new RuntimeException("JAMCRASH > " + msg + " at " + sc.getStartLine() + ":" + sc.getStartCol() + " near '" + near + "'");
+        return new LexerException("JAMCRASH > " + msg + " at " + sc.getStartLine() + ":" + sc.getStartCol() + " near '" + near + "'");
     }
 }
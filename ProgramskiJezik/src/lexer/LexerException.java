@@ -0,0 +1,16 @@
+package lexer;
+
+/*
+    Prva greska leksera kada se greske ne skupljaju (bez Lexer.collectErrors). Poruka je ista kao
+    Diagnostic.toString, pa pozivalac moze da je ispise kao i skupljene greske. Bez stack trace-a:
+    mesto greske je u poruci, a ne u Lexer-u.
+ */
+public final class LexerException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    public LexerException(String message)
+    {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,147 @@
+package lexer;
+
+/*
+    Mesta znakova '\n' u izvoru, rastuce. Red i kolona se ne pamte uz svaki token nego se racunaju
+    iz offset-a tek kada zatrebaju (ispis tokena, poruke o greskama): red je 1 + broj '\n' pre
+    offset-a (binarna pretraga), kolona je rastojanje od poslednjeg '\n' pre njega. Upiti su
+    najcesce redom (parser, ispis), pa se prvo proba red iz prethodnog upita.
+
+    Posle izmene teksta (Lexer.relex) niz ima procep na mestu izmene, kao TokenStream: mesta iza
+    procepa se cuvaju kao rastojanje od kraja izvora, pa ih izmena ispred njih ne pomera.
+    Zamrznut (TokenStream.freeze) se samo cita; hint je jedino sto citanje upisuje.
+ */
+public final class LineIndex
+{
+    private int[] at = new int[16];
+    private int size;
+    private int gapStart;
+    private int length;         // duzina izvora, za mesta iza procepa
+    private int hint;           // broj '\n' pre poslednjeg trazenog offset-a; trka je bezopasna, proverava se
+    private boolean frozen;
+
+    // skener dodaje '\n' redom kojim ih vidi
+    public void add(int newline)
+    {
+        writable();
+        if (gapStart != size) moveGap(size);
+        if (size == at.length) grow(1);
+        at[size++] = newline;
+        gapStart++;
+    }
+
+    // svi '\n' iz text[from, to) (tokeni iz kesa nemaju skener koji ih belezi)
+    public void scan(CharSequence text, int from, int to)
+    {
+        writable();
+        for (int i = from; i < to; i++)
+        {
+            if (text.charAt(i) == '\n') add(i);
+        }
+    }
+
+    public int count() { return size; }
+
+    public void freeze() { frozen = true; }
+
+    private void writable()
+    {
+        if (frozen) throw new IllegalStateException("Line index is read-only");
+    }
+
+    public int line(int offset)
+    {
+        return before(offset) + 1;
+    }
+
+    public int column(int offset)
+    {
+        int k = before(offset);
+        return k == 0 ? offset + 1 : offset - newline(k - 1);
+    }
+
+    // broj '\n' na mestima manjim od offset
+    private int before(int offset)
+    {
+        int h = hint;
+        if (h <= size && (h == 0 || newline(h - 1) < offset))
+        {
+            if (h == size || newline(h) >= offset) return h;
+            if (h + 1 == size || newline(h + 1) >= offset) return hint = h + 1;
+        }
+        int lo = 0, hi = size;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (newline(mid) < offset) lo = mid + 1;
+            else hi = mid;
+        }
+        return hint = lo;
+    }
+
+    private int newline(int k)
+    {
+        return k < gapStart ? at[k] : length - at[k + at.length - size];
+    }
+
+    /*
+        Izvor duzine length je izmenjen na offset: removed znakova je zamenjeno sa inserted.
+        '\n' iz uklonjenog dela nestaju, oni iz inserted ulaze u procep, ostali se pomeraju sami.
+     */
+    public void edit(int offset, int removed, CharSequence inserted, int length)
+    {
+        writable();
+        int k = before(offset);
+        this.length = length;
+        moveGap(k);
+        while (gapStart < size && newline(gapStart) < offset + removed) size--;
+        this.length = length - removed + inserted.length();
+        for (int i = 0; i < inserted.length(); i++)
+        {
+            if (inserted.charAt(i) != '\n') continue;
+            if (size == at.length) grow(1);
+            at[gapStart++] = offset + i;
+            size++;
+        }
+        hint = 0;
+    }
+
+    private void moveGap(int index)
+    {
+        int gap = at.length - size;
+        while (gapStart > index)
+        {
+            int from = --gapStart;
+            at[from + gap] = length - at[from];
+        }
+        while (gapStart < index)
+        {
+            int to = gapStart++;
+            at[to] = length - at[to + gap];
+        }
+    }
+
+    private void grow(int need)
+    {
+        int back = size - gapStart;
+        int[] fresh = new int[Math.max(16, Math.max(at.length + (at.length >> 1), size + need))];
+        System.arraycopy(at, 0, fresh, 0, gapStart);
+        System.arraycopy(at, at.length - back, fresh, fresh.length - back, back);
+        at = fresh;
+    }
+
+    // mesto za n '\n' u koje delovi paralelnog leksiranja upisuju svoje sa copy
+    public void resize(int n)
+    {
+        writable();
+        if (gapStart != size) moveGap(size);
+        if (at.length < n) grow(n - size);
+        size = n;
+        gapStart = n;
+    }
+
+    public void copy(int to, LineIndex part)
+    {
+        writable();
+        System.arraycopy(part.at, 0, at, to, part.size);
+    }
+}
@@ -0,0 +1,179 @@
+package lexer;
+
+import lexer.token.TokenStream;
+import lexer.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+    Paralelno leksiranje jednog velikog izvora. Jezik nema stringove ni blok komentare, a '\n' je
+    uvek svoj token, pa posle svakog '\n' leksiranje krece iz istog stanja kao na pocetku fajla.
+    1) izvor se sece na delove posle '\n', svaki deo se leksira sa svojom tabelom imena i redovima od 1
+    2) prefiksne sume daju pocetni red i mesto svakog dela, imena se prevode u zajednicku tabelu
+       redom kojim bi ih video i sekvencijalni lexer (isti id-evi)
+    3) delovi se paralelno prepisuju u zajednicki TokenStream, zajedno sa svojim '\n' u LineIndex
+    Uz Lexer.collectErrors svaki deo skuplja svoje greske (i ERROR tokene), a spajaju se redom
+    delova sa pomerenim redom, pa je spisak isti kao iz sekvencijalnog leksiranja.
+ */
+final class ParallelLexer
+{
+    // delovi manji od ovoga se ne isplate, mali fajlovi se leksiraju sekvencijalno
+    static final int MIN_CHUNK = 1 << 18;
+
+    private static final class Chunk
+    {
+        final int start, end;
+        final SymbolTable symbols = new SymbolTable();
+        TokenStream tokens;
+        int endLine;
+        Diagnostics diagnostics;
+        LexerException error;
+
+        Chunk(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // runs je null kada nema SIMD prolaza, diagnostics null kada prva greska baca izuzetak
+    static TokenStream scan(TokenStream out, ForkJoinPool pool, int minChunk, VectorRuns runs, Diagnostics diagnostics)
+    {
+        String source = out.source().toString();
+        List<Chunk> chunks = split(source, pool.getParallelism() * 4, minChunk);
+        if (chunks.size() == 1)
+        {
+            return new Lexer(new ScannerCore(source), out.symbols(), out).runs(runs).collectErrors(diagnostics).scan();
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks.size());
+        for (Chunk c : chunks)
+        {
+            if (diagnostics != null) c.diagnostics = diagnostics.fresh();
+            tasks.add(pool.submit(() -> lex(source, c, runs)));
+        }
+        for (ForkJoinTask<?> t : tasks) t.join();
+
+        int[] lineOffset = new int[chunks.size()];
+        int[] at = new int[chunks.size()];
+        int line = 0, total = 0;
+        for (int k = 0; k < chunks.size(); k++)
+        {
+            Chunk c = chunks.get(k);
+            lineOffset[k] = line;
+            line += c.error == null ? c.endLine - 1 : newlines(source, c.start, c.end);
+            if (c.error == null)
+            {
+                at[k] = total;
+                total += c.tokens.size();
+            }
+        }
+        throwErrors(source, chunks, lineOffset);
+        if (diagnostics != null)
+        {
+            for (int k = 0; k < chunks.size(); k++) diagnostics.addAll(chunks.get(k).diagnostics, lineOffset[k]);
+        }
+
+        // id-evi redom prvog pojavljivanja, kao kod sekvencijalnog leksiranja
+        SymbolTable symbols = out.symbols();
+        int[][] symbolIds = new int[chunks.size()][];
+        for (int k = 0; k < chunks.size(); k++)
+        {
+            SymbolTable local = chunks.get(k).symbols;
+            int[] ids = new int[local.size()];
+            for (int id = 0; id < ids.length; id++) ids[id] = symbols.intern(local.name(id));
+            symbolIds[k] = ids;
+        }
+
+        // line je sada broj svih '\n', a lineOffset[k] broj '\n' pre dela k
+        out.resize(total, line);
+        tasks.clear();
+        for (int k = 0; k < chunks.size(); k++)
+        {
+            Chunk c = chunks.get(k);
+            int dst = at[k], lines = lineOffset[k];
+            int[] ids = symbolIds[k];
+            tasks.add(pool.submit(() -> out.copy(dst, c.tokens, lines, ids)));
+        }
+        for (ForkJoinTask<?> t : tasks) t.join();
+
+        out.add(TokenType.EOF, source.length(), source.length(), 0);
+        return out;
+    }
+
+    private static List<Chunk> split(String source, int parts, int minChunk)
+    {
+        int size = Math.max(minChunk, source.length() / Math.max(1, parts) + 1);
+        List<Chunk> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < source.length())
+        {
+            int end = source.length();
+            if (end - start > size)
+            {
+                int nl = source.indexOf('\n', start + size);
+                if (nl >= 0) end = nl + 1;
+            }
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        if (chunks.isEmpty()) chunks.add(new Chunk(0, 0));
+        return chunks;
+    }
+
+    private static void lex(String source, Chunk c, VectorRuns runs)
+    {
+        TokenStream tokens = new TokenStream(source, c.symbols, Math.max(16, (c.end - c.start) / 8));
+        Lexer lexer = new Lexer(new ScannerCore(source, c.start, 1, 1, c.end), c.symbols, tokens).runs(runs).collectErrors(c.diagnostics);
+        try
+        {
+            lexer.scanToEnd();
+        }
+        catch (LexerException e)
+        {
+            c.error = e;
+            return;
+        }
+        c.tokens = tokens;
+        c.endLine = lexer.core().getLine();
+    }
+
+    /*
+        Delovi su leksirani sa redovima od 1, pa se deo sa greskom leksira jos jednom od pravog reda
+        da bi poruka bila ista kao kod sekvencijalnog leksiranja. Baca se samo prva greska u izvoru,
+        kao i sekvencijalno; sve greske daje collectErrors.
+     */
+    private static void throwErrors(String source, List<Chunk> chunks, int[] lineOffset)
+    {
+        for (int k = 0; k < chunks.size(); k++)
+        {
+            Chunk c = chunks.get(k);
+            if (c.error == null) continue;
+            LexerException e = c.error;
+            try
+            {
+                SymbolTable scratch = new SymbolTable();
+                new Lexer(new ScannerCore(source, c.start, lineOffset[k] + 1, 1, c.end), scratch,
+                        new TokenStream(source, scratch, 16)).scanToEnd();
+            }
+            catch (LexerException relined)
+            {
+                e = relined;
+            }
+            throw e;
+        }
+    }
+
+    private static int newlines(String source, int from, int to)
+    {
+        int n = 0;
+        for (int i = from; i < to; i++)
+        {
+            if (source.charAt(i) == '\n') n++;
+        }
+        return n;
+    }
+}
@@ -1,25 +1,66 @@
 package lexer;
 
+/*
+    Skener pamti samo offset-e: red se menja tek na '\n' (advance), a kolona je rastojanje od
+    pocetka reda, pa skip i match ne racunaju nista osim pomeranja. Ako je zadat LineIndex,
+    advance u njega upisuje svaki '\n', pa tokeni ne moraju da nose red i kolonu.
+ */
 public final class ScannerCore
 {
-    private final String src;
+    private final CharSequence src;
+    private final CharWindow window;
+    private final int end;
     private int cur = 0;
     private int line = 1;
-    private int col = 1;
+    private int lineStart = 0;
+    private LineIndex newlines;
 
     private int startIdx = 0;
     private int startLine = 1;
-    private int startCol = 1;
+    private int startLineStart = 0;
 
 
     public ScannerCore(String src)
     {
         this.src = src;
+        this.window = null;
+        this.end = src.length();
+    }
+
+    // nastavlja skeniranje od date pozicije (ponovno leksiranje posle izmene)
+    public ScannerCore(CharSequence src, int cur, int line, int col)
+    {
+        this(src, cur, line, col, src.length());
+    }
+
+    // skenira samo [cur, end), kraj se vidi kao kraj izvora (jedan deo paralelnog leksiranja)
+    public ScannerCore(CharSequence src, int cur, int line, int col, int end)
+    {
+        this.src = src;
+        this.window = null;
+        this.cur = cur;
+        this.line = line;
+        this.lineStart = cur - (col - 1);
+        this.end = end;
+    }
+
+    public ScannerCore(CharWindow window)
+    {
+        this.src = window;
+        this.window = window;
+        this.end = 0;
+    }
+
+    // '\n' od trenutne pozicije nadalje idu u lines (apsolutni offset-i, nema smisla uz prozor)
+    void recordLines(LineIndex lines)
+    {
+        if (window == null) this.newlines = lines;
     }
 
     public boolean isAtEnd()
     {
-        return cur >= src.length();
+        if (window != null) return !window.ensure(cur);
+        return cur >= end;
     }
 
     public char peek()
@@ -29,7 +70,8 @@ public final class ScannerCore
 
     public char peekNext()
     {
-        return (cur + 1 >= src.length()) ? '\0' : src.charAt(cur + 1);
+        if (window != null) return window.ensure(cur + 1) ? src.charAt(cur + 1) : '\0';
+        return (cur + 1 >= end) ? '\0' : src.charAt(cur + 1);
     }
 
     public char advance()
@@ -37,11 +79,9 @@ public final class ScannerCore
         char c = src.charAt(cur++);
         if (c == '\n')
         {
-            line++; col = 1;
-        }
-        else
-        {
-            col++;
+            line++;
+            lineStart = cur;
+            if (newlines != null) newlines.add(cur - 1);
         }
         return c;
     }
@@ -52,20 +92,50 @@ public final class ScannerCore
         {
             return false;
         }
-        cur++; col++;
+        cur++;
         return true;
     }
 
+    // broj karaktera koji su trenutno dostupni kroz text(); za prozor dopunjava ako je idx na kraju
+    public int limit(int idx)
+    {
+        if (window == null) return end;
+        window.ensure(idx);
+        return src.length();
+    }
+
+    // preskace n karaktera za koje se zna da nisu '\n'
+    public void skip(int n)
+    {
+        cur += n;
+    }
+
     public void beginToken() {
+        if (window != null && window.wantsCompaction(cur))
+        {
+            int discarded = window.discard(cur);
+            cur -= discarded;
+            lineStart -= discarded;
+        }
         startIdx = cur;
         startLine = line;
-        startCol = col;
+        startLineStart = lineStart;
     }
 
+    public CharSequence text() { return src; }
+
+    public String slice(int from, int to)
+    {
+        return src.subSequence(from, to).toString();
+    }
+
+    // apsolutni offset, i kada se cita kroz prozor
+    public long offset() { return window == null ? cur : window.base() + cur; }
+
     public int getCur() { return cur; }
     public int getLine() { return line; }
-    public int getCol() { return col; }
+    public int getCol() { return cur - lineStart + 1; }
     public int getStartIdx() { return startIdx; }
     public int getStartLine() { return startLine; }
-    public int getStartCol() { return startCol; }
+    public int getStartCol() { return startIdx - startLineStart + 1; }
 }
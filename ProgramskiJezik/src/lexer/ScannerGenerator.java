@@ -0,0 +1,258 @@
+package lexer;
+
+import lexer.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/*
+    TokenSpec -> ScannerTables.
+    1) "atomi" su svi karakteri iz literala i svi predikati iz pravila; karakteri sa istim skupom
+       atoma koji ih prihvataju dobijaju istu klasu.
+    2) Od pravila se pravi NFA (lanac za literal, petlja za run), pa konstrukcijom podskupova DFA.
+ */
+final class ScannerGenerator
+{
+    private static final int CHARS = 1 << 16;
+
+    private final List<TokenSpec.Rule> rules;
+    private final List<IntPredicate> predicates = new ArrayList<>();
+    private final Map<IntPredicate, Integer> predicateAtom = new IdentityHashMap<>();
+    private final int[] charAtom = new int[128];
+    private int atoms;
+
+    private final List<int[]> nfaEdges = new ArrayList<>(); // parovi (atom, cilj)
+    private final List<Integer> nfaAccept = new ArrayList<>();
+
+    private ScannerGenerator(TokenSpec spec)
+    {
+        this.rules = spec.rules;
+        Arrays.fill(charAtom, -1);
+    }
+
+    static ScannerTables generate(TokenSpec spec)
+    {
+        return new ScannerGenerator(spec).build(spec);
+    }
+
+    private ScannerTables build(TokenSpec spec)
+    {
+        collectAtoms();
+
+        List<BitSet> classSigs = new ArrayList<>();
+        byte[] classOf = classify(classSigs);
+        int classes = classSigs.size();
+        int shift = 32 - Integer.numberOfLeadingZeros(classes - 1);
+
+        newNfaState(-1);
+        for (int r = 0; r < rules.size(); r++)
+        {
+            TokenSpec.Rule rule = rules.get(r);
+            if (rule.text != null)
+            {
+                int s = 0;
+                for (int i = 0; i < rule.text.length(); i++)
+                {
+                    int t = newNfaState(i == rule.text.length() - 1 ? r : -1);
+                    edge(s, charAtom[rule.text.charAt(i)], t);
+                    s = t;
+                }
+            }
+            else if (skipsAtStart(rule))
+            {
+                // beline u jednom redu postaju petlja pocetnog stanja, driver ih preskace pre tokena
+                edge(0, predicateAtom.get(rule.first), 0);
+            }
+            else
+            {
+                int t = newNfaState(r);
+                edge(0, predicateAtom.get(rule.first), t);
+                edge(t, predicateAtom.get(rule.rest), t);
+            }
+        }
+
+        // konstrukcija podskupova, stanje 0 je prazan skup (mrtvo stanje)
+        List<BitSet> dfa = new ArrayList<>();
+        Map<BitSet, Integer> ids = new HashMap<>();
+        dfa.add(new BitSet());
+        ids.put(new BitSet(), 0);
+        BitSet start = new BitSet();
+        start.set(0);
+        dfa.add(start);
+        ids.put(start, 1);
+
+        List<int[]> rows = new ArrayList<>();
+        for (int d = 0; d < dfa.size(); d++)
+        {
+            BitSet set = dfa.get(d);
+            int[] row = new int[classes];
+            for (int k = 0; k < classes; k++)
+            {
+                BitSet sig = classSigs.get(k);
+                BitSet target = new BitSet();
+                for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1))
+                {
+                    int[] edges = nfaEdges.get(s);
+                    for (int e = 0; e < edges.length; e += 2)
+                    {
+                        if (sig.get(edges[e])) target.set(edges[e + 1]);
+                    }
+                }
+                Integer id = ids.get(target);
+                if (id == null)
+                {
+                    id = dfa.size();
+                    dfa.add(target);
+                    ids.put(target, id);
+                }
+                row[k] = id << shift;
+            }
+            rows.add(row);
+        }
+
+        if ((long) dfa.size() << shift > Character.MAX_VALUE) throw new IllegalStateException("Too many scanner states");
+        char[] next = new char[dfa.size() << shift];
+        int[] accept = new int[dfa.size()];
+        boolean[] loops = new boolean[dfa.size()];
+        for (int d = 0; d < dfa.size(); d++)
+        {
+            int[] row = rows.get(d);
+            for (int k = 0; k < classes; k++)
+            {
+                next[(d << shift) + k] = (char) row[k];
+                if (d != 0 && row[k] == d << shift) loops[d] = true;
+            }
+            int best = ScannerTables.NO_RULE;
+            BitSet set = dfa.get(d);
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1))
+            {
+                int r = nfaAccept.get(s);
+                if (r >= 0 && (best == ScannerTables.NO_RULE || r < best)) best = r;
+            }
+            accept[d] = best;
+        }
+
+        int n = rules.size();
+        TokenType[] type = new TokenType[n];
+        int[] action = new int[n];
+        String[] message = new String[n];
+        boolean[][] follow = new boolean[n][];
+        String[] followMessage = new String[n];
+        Keywords[] reserved = new Keywords[n];
+        for (int r = 0; r < n; r++)
+        {
+            TokenSpec.Rule rule = rules.get(r);
+            type[r] = rule.type;
+            message[r] = rule.message;
+            if (rule.message != null) action[r] = ScannerTables.ERROR;
+            else if (rule.type == null) action[r] = ScannerTables.SKIP;
+            else action[r] = switch (rule.value)
+            {
+                case NONE -> ScannerTables.TOKEN;
+                case INT -> ScannerTables.INT;
+                case SYMBOL -> ScannerTables.SYMBOL;
+            };
+            boolean spansLines = rule.text != null ? rule.text.indexOf('\n') >= 0 : rule.first.test('\n') || rule.rest.test('\n');
+            if (spansLines) action[r] |= ScannerTables.SPANS_LINES;
+            if (rule.reserved != null)
+            {
+                action[r] |= ScannerTables.RESERVED;
+                reserved[r] = rule.reserved;
+            }
+            if (rule.follow != null)
+            {
+                action[r] |= ScannerTables.CHECK_FOLLOW;
+                int atom = predicateAtom.get(rule.follow);
+                follow[r] = new boolean[classes];
+                for (int k = 0; k < classes; k++) follow[r][k] = classSigs.get(k).get(atom);
+                followMessage[r] = rule.followMessage;
+            }
+        }
+
+        return new ScannerTables(classOf, classes, shift, next, accept, loops, type, action, message, follow, followMessage, reserved,
+                spec.unrecognized);
+    }
+
+    private static boolean skipsAtStart(TokenSpec.Rule rule)
+    {
+        return rule.text == null && rule.type == null && rule.message == null && rule.first == rule.rest && !rule.first.test('\n');
+    }
+
+    private void collectAtoms()
+    {
+        for (TokenSpec.Rule rule : rules)
+        {
+            if (rule.text != null)
+            {
+                for (int i = 0; i < rule.text.length(); i++)
+                {
+                    char c = rule.text.charAt(i);
+                    if (c >= 128) throw new IllegalArgumentException("Non-ASCII literal: " + rule.text);
+                    if (charAtom[c] < 0) charAtom[c] = atoms++;
+                }
+            }
+            else
+            {
+                predicate(rule.first);
+                predicate(rule.rest);
+            }
+            if (rule.follow != null) predicate(rule.follow);
+        }
+    }
+
+    private void predicate(IntPredicate p)
+    {
+        if (!predicateAtom.containsKey(p))
+        {
+            predicateAtom.put(p, atoms++);
+            predicates.add(p);
+        }
+    }
+
+    private byte[] classify(List<BitSet> classSigs)
+    {
+        byte[] classOf = new byte[CHARS];
+        Map<BitSet, Integer> ids = new HashMap<>();
+        for (int c = 0; c < CHARS; c++)
+        {
+            BitSet sig = new BitSet(atoms);
+            if (c < 128 && charAtom[c] >= 0) sig.set(charAtom[c]);
+            for (IntPredicate p : predicates)
+            {
+                if (p.test(c)) sig.set(predicateAtom.get(p));
+            }
+            Integer id = ids.get(sig);
+            if (id == null)
+            {
+                id = classSigs.size();
+                if (id > Byte.MAX_VALUE) throw new IllegalStateException("Too many character classes");
+                classSigs.add(sig);
+                ids.put(sig, id);
+            }
+            classOf[c] = (byte) (int) id;
+        }
+        return classOf;
+    }
+
+    private int newNfaState(int acceptRule)
+    {
+        nfaEdges.add(new int[0]);
+        nfaAccept.add(acceptRule);
+        return nfaEdges.size() - 1;
+    }
+
+    private void edge(int from, int atom, int to)
+    {
+        int[] old = nfaEdges.get(from);
+        int[] edges = Arrays.copyOf(old, old.length + 2);
+        edges[old.length] = atom;
+        edges[old.length + 1] = to;
+        nfaEdges.set(from, edges);
+    }
+}
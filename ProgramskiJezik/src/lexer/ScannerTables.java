@@ -0,0 +1,164 @@
+package lexer;
+
+import lexer.token.TokenType;
+
+/*
+    Tabele koje ScannerGenerator pravi iz TokenSpec-a: klasa svakog karaktera (ceo BMP),
+    prelazi DFA po (stanje, klasa) i pravilo koje prihvata u datom stanju.
+    Stanje se oznacava pocetkom svog reda u tabeli prelaza (redni broj << shift, red je
+    zaokruzen na stepen dvojke), pa je prelaz jedno sabiranje i jedno citanje niza.
+    Mrtvo stanje je red 0.
+ */
+public final class ScannerTables
+{
+    public static final int DEAD = 0;
+    public static final int NO_RULE = -1;
+
+    // akcija pravila: niza 3 bita su vrsta, ostali bitovi su zastavice
+    public static final int SKIP = 0, TOKEN = 1, INT = 2, SYMBOL = 3, ERROR = 4;
+    public static final int KIND_MASK = 7;
+    public static final int SPANS_LINES = 8;
+    public static final int CHECK_FOLLOW = 16;
+    public static final int RESERVED = 32;
+
+    public static final ScannerTables DEFAULT = ScannerGenerator.generate(TokenSpec.DEFAULT);
+
+    static final int RUN_RANGES = 4;
+
+    // info[stanje]: pravilo koje prihvata + 1 (0 za nijedno) i zastavice, jedno citanje po znaku
+    static final int RULE_MASK = 0xFFFF;
+    static final int LOOP = 1 << 16;        // stanje ima prelaz u samo sebe
+    static final int FINAL = 1 << 17;       // osim u sebe svi prelazi vode u mrtvo stanje
+
+    final byte[] classOf;
+    final int classes;
+    final int shift;
+    final char[] next;
+    final int[] accept;
+    final boolean[] loops;
+    final int[] info;
+    /*
+        Za VectorRuns, po stanju: ASCII znakovi koji stanje drze u njegovoj petlji kao RUN_RANGES
+        parova (lo, hi - lo); visak opsega ponavlja prvi. null ako stanje nema petlju, ako opsega ima
+        vise ili ako je u skupu '?' (njime Latin-1 kopija izvora zamenjuje ostale znakove).
+     */
+    final byte[][] asciiRuns;
+
+    final TokenType[] ruleType;
+    final int[] ruleAction;
+    final String[] ruleMessage;
+    final boolean[][] ruleFollow;
+    final String[] ruleFollowMessage;
+    final Keywords[] ruleReserved;
+    final String unrecognized;
+
+    ScannerTables(byte[] classOf, int classes, int shift, char[] next, int[] accept, boolean[] loops, TokenType[] ruleType, int[] ruleAction,
+                  String[] ruleMessage, boolean[][] ruleFollow, String[] ruleFollowMessage, Keywords[] ruleReserved,
+                  String unrecognized)
+    {
+        this.classOf = classOf;
+        this.classes = classes;
+        this.shift = shift;
+        this.next = next;
+        this.accept = accept;
+        this.loops = loops;
+        this.info = info(classes, shift, next, accept, loops);
+        this.asciiRuns = asciiRuns(classOf, next, loops, shift);
+        this.ruleType = ruleType;
+        this.ruleAction = ruleAction;
+        this.ruleMessage = ruleMessage;
+        this.ruleFollow = ruleFollow;
+        this.ruleFollowMessage = ruleFollowMessage;
+        this.ruleReserved = ruleReserved;
+        this.unrecognized = unrecognized;
+    }
+
+    /*
+        Iz FINAL stanja posle run-a (ili odmah, bez petlje) nema kuda dalje, pa driver staje bez
+        jos jednog prelaza koji bi samo vratio mrtvo stanje.
+     */
+    private static int[] info(int classes, int shift, char[] next, int[] accept, boolean[] loops)
+    {
+        int[] info = new int[accept.length];
+        for (int d = 1; d < info.length; d++)
+        {
+            int state = d << shift;
+            boolean end = true;
+            for (int k = 0; k < classes; k++)
+            {
+                int t = next[state + k];
+                if (t != DEAD && t != state) end = false;
+            }
+            info[d] = (accept[d] + 1) | (loops[d] ? LOOP : 0) | (end ? FINAL : 0);
+        }
+        return info;
+    }
+
+    private static byte[][] asciiRuns(byte[] classOf, char[] next, boolean[] loops, int shift)
+    {
+        byte[][] runs = new byte[loops.length][];
+        for (int d = 0; d < loops.length; d++)
+        {
+            if (!loops[d]) continue;
+            int state = d << shift;
+            byte[] r = new byte[2 * RUN_RANGES];
+            int n = 0;
+            for (int c = 0; c < 128 && n <= RUN_RANGES; c++)
+            {
+                if (next[state + classOf[c]] != state) continue;
+                int hi = c;
+                while (hi + 1 < 128 && next[state + classOf[hi + 1]] == state) hi++;
+                if (c <= '?' && '?' <= hi) n = RUN_RANGES + 1;
+                else if (n < RUN_RANGES)
+                {
+                    r[2 * n] = (byte) c;
+                    r[2 * n + 1] = (byte) (hi - c);
+                }
+                n++;
+                c = hi;
+            }
+            if (n == 0 || n > RUN_RANGES) continue;
+            for (int k = n; k < RUN_RANGES; k++)
+            {
+                r[2 * k] = r[0];
+                r[2 * k + 1] = r[1];
+            }
+            runs[d] = r;
+        }
+        return runs;
+    }
+
+    public int start() { return 1 << shift; }
+
+    public int next(int state, char c)
+    {
+        return next[state + classOf[c]];
+    }
+
+    public int accept(int state) { return accept[state >>> shift]; }
+
+    // stanje ima prelaz u samo sebe (run pravila), driver tada vrti usku petlju bez lanca stanja
+    public boolean loops(int state) { return loops[state >>> shift]; }
+
+    public int states() { return accept.length; }
+    public int classes() { return classes; }
+
+    // null za pravila koja se preskacu ili samo prijavljuju gresku
+    public TokenType type(int rule) { return ruleType[rule]; }
+    public int action(int rule) { return ruleAction[rule]; }
+    public String message(int rule) { return ruleMessage[rule]; }
+    public String unrecognized() { return unrecognized; }
+
+    public boolean rejectsFollow(int rule, char c)
+    {
+        return ruleFollow[rule][classOf[c]];
+    }
+
+    public String followMessage(int rule) { return ruleFollowMessage[rule]; }
+
+    // tip kljucne reci ako je prepoznati opseg rezervisan, inace null
+    public TokenType reserved(int rule, CharSequence src, int start, int end)
+    {
+        return ruleReserved[rule].match(src, start, end);
+    }
+}
@@ -0,0 +1,96 @@
+package lexer;
+
+import java.util.Arrays;
+
+/*
+    Tabela imena za jednu kompilaciju: svako razlicito ime dobija jedan kanonski String i
+    redni broj (id), pa kasnije faze mogu da porede identifikatore po id-u.
+    Otvoreno adresiranje nad opsegom izvora, podstring se pravi samo za novo ime.
+ */
+public final class SymbolTable
+{
+    private String[] names = new String[64];
+    private int[] hashes = new int[64];
+    private int[] slots = new int[128];
+    private int count;
+
+    public int intern(CharSequence src, int start, int end)
+    {
+        int h = hash(src, start, end);
+        int mask = slots.length - 1;
+        for (int i = h & mask; ; i = (i + 1) & mask)
+        {
+            int id = slots[i] - 1;
+            if (id < 0)
+            {
+                return add(src.subSequence(start, end).toString(), h, i);
+            }
+            if (hashes[id] == h && sameName(names[id], src, start, end)) return id;
+        }
+    }
+
+    public int intern(String name)
+    {
+        return intern(name, 0, name.length());
+    }
+
+    // -1 ako ime jos nije videno
+    public int find(CharSequence src, int start, int end)
+    {
+        int h = hash(src, start, end);
+        int mask = slots.length - 1;
+        for (int i = h & mask; ; i = (i + 1) & mask)
+        {
+            int id = slots[i] - 1;
+            if (id < 0) return -1;
+            if (hashes[id] == h && sameName(names[id], src, start, end)) return id;
+        }
+    }
+
+    public String name(int id) { return names[id]; }
+    public int size() { return count; }
+
+    private int add(String name, int h, int slot)
+    {
+        if (count == names.length)
+        {
+            names = Arrays.copyOf(names, count * 2);
+            hashes = Arrays.copyOf(hashes, count * 2);
+        }
+        int id = count++;
+        names[id] = name;
+        hashes[id] = h;
+        slots[slot] = id + 1;
+        if (count * 2 > slots.length) rehash();
+        return id;
+    }
+
+    private void rehash()
+    {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < count; id++)
+        {
+            int i = hashes[id] & mask;
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = id + 1;
+        }
+    }
+
+    private static int hash(CharSequence src, int start, int end)
+    {
+        int h = 0;
+        for (int i = start; i < end; i++) h = 31 * h + src.charAt(i);
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean sameName(String name, CharSequence src, int start, int end)
+    {
+        if (name.length() != end - start) return false;
+        for (int i = 0; i < name.length(); i++)
+        {
+            if (name.charAt(i) != src.charAt(start + i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package lexer;
+
+import java.util.Arrays;
+
+/*
+    Tekst koji se menja na mestu (editor): niz karaktera sa procepom na mestu poslednje izmene.
+    Uzastopne izmene blizu jedna drugoj pomeraju samo karaktere izmedju njih.
+ */
+public final class TextBuffer implements CharSequence
+{
+    private char[] buf;
+    private int gapStart;
+    private int gapEnd;
+
+    public TextBuffer(CharSequence text)
+    {
+        int n = text.length();
+        buf = new char[Math.max(16, n + (n >> 3))];
+        text.toString().getChars(0, n, buf, 0);
+        gapStart = n;
+        gapEnd = buf.length;
+    }
+
+    @Override
+    public int length()
+    {
+        return buf.length - (gapEnd - gapStart);
+    }
+
+    @Override
+    public char charAt(int i)
+    {
+        return buf[i < gapStart ? i : i + (gapEnd - gapStart)];
+    }
+
+    @Override
+    public String subSequence(int from, int to)
+    {
+        if (from < 0 || to > length() || from > to) throw new IndexOutOfBoundsException("[" + from + ", " + to + ")");
+        int gap = gapEnd - gapStart;
+        if (to <= gapStart) return new String(buf, from, to - from);
+        if (from >= gapStart) return new String(buf, from + gap, to - from);
+        return new StringBuilder(to - from)
+                .append(buf, from, gapStart - from)
+                .append(buf, gapEnd, to - gapStart)
+                .toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return subSequence(0, length());
+    }
+
+    public void replace(int offset, int removed, CharSequence inserted)
+    {
+        if (offset < 0 || removed < 0 || offset + removed > length())
+        {
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removed) + ") outside text of length " + length());
+        }
+        moveGap(offset);
+        gapEnd += removed;
+        int n = inserted.length();
+        if (gapEnd - gapStart < n) grow(n);
+        for (int i = 0; i < n; i++) buf[gapStart++] = inserted.charAt(i);
+    }
+
+    private void moveGap(int offset)
+    {
+        if (offset < gapStart)
+        {
+            int n = gapStart - offset;
+            System.arraycopy(buf, offset, buf, gapEnd - n, n);
+            gapStart -= n;
+            gapEnd -= n;
+        }
+        else if (offset > gapStart)
+        {
+            int n = offset - gapStart;
+            System.arraycopy(buf, gapEnd, buf, gapStart, n);
+            gapStart += n;
+            gapEnd += n;
+        }
+    }
+
+    private void grow(int need)
+    {
+        int back = buf.length - gapEnd;
+        int cap = Math.max(buf.length + (buf.length >> 1), length() + need + 16);
+        char[] bigger = Arrays.copyOf(buf, cap);
+        System.arraycopy(buf, gapEnd, bigger, cap - back, back);
+        buf = bigger;
+        gapEnd = cap - back;
+    }
+}
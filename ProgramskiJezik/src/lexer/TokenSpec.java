@@ -0,0 +1,132 @@
+package lexer;
+
+import lexer.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/*
+    Deklarativni opis tokena od kog ScannerGenerator pravi tabele.
+    Pravila se navode po prioritetu: kada dva pravila prepoznaju isti najduzi leksem,
+    pobedjuje ono koje je ranije navedeno. Kljucne reci se ne razvijaju u stanja DFA, vec se
+    vezuju za run pravilo (reserved) i proveravaju savrsenim hesom nad prepoznatim opsegom.
+ */
+public final class TokenSpec
+{
+    public enum Value { NONE, INT, SYMBOL }
+
+    static final class Rule
+    {
+        final String text;
+        final IntPredicate first, rest;
+        final TokenType type;
+        final Value value;
+        final String message;
+        IntPredicate follow;
+        String followMessage;
+        Keywords reserved;
+
+        Rule(String text, IntPredicate first, IntPredicate rest, TokenType type, Value value, String message)
+        {
+            this.text = text;
+            this.first = first;
+            this.rest = rest;
+            this.type = type;
+            this.value = value;
+            this.message = message;
+        }
+    }
+
+    final List<Rule> rules = new ArrayList<>();
+    String unrecognized = "Unrecognized character";
+
+    public static final TokenSpec DEFAULT = new TokenSpec()
+            .literal("(", TokenType.LPAREN)
+            .literal(")", TokenType.RPAREN)
+            .literal("[", TokenType.LBRACKET)
+            .literal("]", TokenType.RBRACKET)
+            .literal(",", TokenType.SEPARATOR_COMMA)
+            .literal(":", TokenType.TYPE_COLON)
+            .literal(";", TokenType.SEPARATOR_SEMICOLON)
+            .literal("+", TokenType.ADD)
+            .literal("-", TokenType.SUBTRACT)
+            .literal("*", TokenType.MULTIPLY)
+            .literal("/", TokenType.DIVIDE)
+            .literal("%", TokenType.PERCENT)
+            .literal("<", TokenType.LT)
+            .literal("<=", TokenType.LE)
+            .literal(">", TokenType.GT)
+            .literal(">=", TokenType.GE)
+            .literal("=", TokenType.ASSIGN)
+            .literal("==", TokenType.EQ)
+            .literal("!", TokenType.NOT)
+            .literal("!=", TokenType.NEQ) //nejednakost
+            .literal("&&", TokenType.AND)
+            .error("&", "BadBeat: Lone '&' found")
+            .literal("\n", TokenType.NEWLINE)
+            .skip(c -> c == ' ' || c == '\r' || c == '\t')
+            .run(TokenType.INT_LIT, Character::isDigit, Character::isDigit, Value.INT)
+            .rejectFollow(Character::isAlphabetic, "BadBeat: Letter in MoonSteps literal")
+            .run(TokenType.IDENT, TokenSpec::isIdentStart, TokenSpec::isIdentPart, Value.SYMBOL)
+            .reserved(Keywords.ENTRIES)
+            .unrecognized("JamCrash: Unrecognized move");
+
+    // kljucne reci koje poslednje dodato run pravilo prijavljuje umesto svog tipa
+    public TokenSpec reserved(List<Map.Entry<String, TokenType>> entries)
+    {
+        rules.get(rules.size() - 1).reserved = new Keywords(entries);
+        return this;
+    }
+
+    public TokenSpec literal(String text, TokenType type)
+    {
+        rules.add(new Rule(text, null, null, type, Value.NONE, null));
+        return this;
+    }
+
+    // tekst koji se prepoznaje samo da bi se prijavila greska
+    public TokenSpec error(String text, String message)
+    {
+        rules.add(new Rule(text, null, null, null, Value.NONE, message));
+        return this;
+    }
+
+    public TokenSpec skip(IntPredicate chars)
+    {
+        rules.add(new Rule(null, chars, chars, null, Value.NONE, null));
+        return this;
+    }
+
+    public TokenSpec run(TokenType type, IntPredicate first, IntPredicate rest, Value value)
+    {
+        rules.add(new Rule(null, first, rest, type, value, null));
+        return this;
+    }
+
+    // greska ako odmah iza poslednjeg dodatog pravila stoji karakter iz date klase
+    public TokenSpec rejectFollow(IntPredicate follow, String message)
+    {
+        Rule last = rules.get(rules.size() - 1);
+        last.follow = follow;
+        last.followMessage = message;
+        return this;
+    }
+
+    public TokenSpec unrecognized(String message)
+    {
+        this.unrecognized = message;
+        return this;
+    }
+
+    static boolean isIdentStart(int c)
+    {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    static boolean isIdentPart(int c)
+    {
+        return isIdentStart(c) || Character.isDigit(c);
+    }
+}
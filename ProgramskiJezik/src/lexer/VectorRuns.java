@@ -0,0 +1,87 @@
+package lexer;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+    Kraj run-a (beline, cifre, ime) bez prolaska znak po znak kroz tabele prelaza. Pre skeniranja
+    Vector API jednim prolazom klasifikuje ceo izvor, SPECIES.length() znakova odjednom (32 uz AVX2,
+    64 uz AVX-512), u bit-mapu po stanju sa petljom: bit i je 1 ako znak i drzi stanje u petlji.
+    end() je onda par operacija nad long-om (numberOfTrailingZeros), dovoljno malo da se ugradi
+    u Lexer.scanToken; poziv Vector API-ja po tokenu kosta vise nego sto usteda na kratkom imenu.
+
+    Izvor se klasifikuje preko Latin-1 kopije; znak van ASCII nije ni u jednom opsegu iz
+    ScannerTables.asciiRuns, pa se tu run prekida i skalarna petlja Lexer-a odlucuje o njemu
+    (ne-ASCII slova i cifre). Klasa koristi jdk.incubator.vector, pa je Lexer ucitava tek kada je
+    modul prisutan (java --add-modules jdk.incubator.vector); bez njega je sve skalarno.
+ */
+final class VectorRuns
+{
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private final long[][] bits;    // po stanju (redni broj), null ako stanje nema ASCII run
+    private final int shift;
+
+    VectorRuns(String source, ScannerTables tables)
+    {
+        byte[] bytes = source.getBytes(StandardCharsets.ISO_8859_1);
+        this.shift = tables.shift;
+        this.bits = new long[tables.asciiRuns.length][];
+        for (int d = 0; d < bits.length; d++)
+        {
+            if (tables.asciiRuns[d] != null) bits[d] = classify(bytes, tables.asciiRuns[d]);
+        }
+    }
+
+    static int lanes() { return SPECIES.length(); }
+
+    /*
+        lo <= c <= hi je (c - lo) <= (hi - lo) bez znaka, a to je (c + 0x80 - lo) <= (hi - lo - 0x80)
+        sa znakom: jedno sabiranje i jedno poredjenje po opsegu (poredjenje bez znaka nema intrinsic
+        za bajtove na svim platformama). Bitovi iza kraja izvora su 0, pa se run tamo prekida.
+     */
+    private static long[] classify(byte[] bytes, byte[] r)
+    {
+        byte bias0 = (byte) (0x80 - r[0]), max0 = (byte) (r[1] - 0x80);
+        byte bias1 = (byte) (0x80 - r[2]), max1 = (byte) (r[3] - 0x80);
+        byte bias2 = (byte) (0x80 - r[4]), max2 = (byte) (r[5] - 0x80);
+        byte bias3 = (byte) (0x80 - r[6]), max3 = (byte) (r[7] - 0x80);
+        long[] out = new long[(bytes.length >>> 6) + 1];
+        int n = SPECIES.length();
+        int i = 0;
+        for (; i + n <= bytes.length; i += n)
+        {
+            ByteVector v = ByteVector.fromArray(SPECIES, bytes, i);
+            VectorMask<Byte> in = v.add(bias0).compare(VectorOperators.LE, max0)
+                    .or(v.add(bias1).compare(VectorOperators.LE, max1))
+                    .or(v.add(bias2).compare(VectorOperators.LE, max2))
+                    .or(v.add(bias3).compare(VectorOperators.LE, max3));
+            // n deli 64, pa maska ne prelazi granicu long-a
+            out[i >>> 6] |= in.toLong() << (i & 63);
+        }
+        for (; i < bytes.length; i++)
+        {
+            byte c = bytes[i];
+            if ((byte) (c + bias0) <= max0 || (byte) (c + bias1) <= max1 || (byte) (c + bias2) <= max2 || (byte) (c + bias3) <= max3)
+            {
+                out[i >>> 6] |= 1L << i;
+            }
+        }
+        return out;
+    }
+
+    // prvi indeks od pos na kome ASCII run stanja state staje, najvise limit
+    int end(int state, int pos, int limit)
+    {
+        long[] b = bits[state >>> shift];
+        if (b == null) return pos;
+        int w = pos >>> 6;
+        long stop = ~b[w] & (-1L << pos);
+        while (stop == 0) stop = ~b[++w];
+        return Math.min(limit, (w << 6) + Long.numberOfTrailingZeros(stop));
+    }
+}
@@ -7,7 +7,12 @@ public class Token
     public final String lexeme;
     public final Integer literal;
     public final int line, colStart, colEnd;
+    public final int symbol;
     public Token(TokenType t, String lx, Integer lit, int line, int cs, int ce)
+    {
+        this(t, lx, lit, line, cs, ce, -1);
+    }
+    public Token(TokenType t, String lx, Integer lit, int line, int cs, int ce, int symbol)
     {
         this.type=t;
         this.lexeme=lx;
@@ -15,6 +20,7 @@ public class Token
         this.line=line;
         this.colStart=cs;
         this.colEnd=ce;
+        this.symbol=symbol;
     }
     public String toString()
     {
@@ -26,11 +26,22 @@ public final class TokenFormatter
 
     public static String format(Token t)
     {
-        String typeStr = center(String.valueOf(t.type), 10);
-        String lexStr = center("'" + escape(t.lexeme) + "'", 18);
-        String litStr = center(t.literal == null ? "N/A" : t.literal.toString(), 11);
-        String lineStr = center("line " + t.line, 9);
-        String colStr = center("col " + t.colStart + "-" + t.colEnd, 12);
+        return formatRow(t.type, t.lexeme, t.literal == null ? "N/A" : t.literal.toString(), t.line, t.colStart, t.colEnd);
+    }
+
+    public static String format(TokenStream ts, int i)
+    {
+        String lit = ts.hasLiteral(i) ? Integer.toString(ts.literal(i)) : "N/A";
+        return formatRow(ts.type(i), ts.lexeme(i), lit, ts.line(i), ts.colStart(i), ts.colEnd(i));
+    }
+
+    private static String formatRow(TokenType type, String lexeme, String literal, int line, int colStart, int colEnd)
+    {
+        String typeStr = center(String.valueOf(type), 10);
+        String lexStr = center("'" + escape(lexeme) + "'", 18);
+        String litStr = center(literal, 11);
+        String lineStr = center("line " + line, 9);
+        String colStr = center("col " + colStart + "-" + colEnd, 12);
 
         return String.format("|%s|%s|%s|%s|%s|", typeStr, lexStr, litStr, lineStr, colStr);
     }
@@ -38,28 +49,59 @@ public final class TokenFormatter
     public static String formatList(List<Token> tokens)
     {
         StringBuilder sb = new StringBuilder();
+        String separator = header(sb);
 
-        String header = String.format(
-                "|%s|%s|%s|%s|%s|",
-                center("TYPE", 10),
-                center("LEXEME", 18),
-                center("LITERAL", 11),
-                center("LINE", 9),
-                center("COLUMNS", 12)
-        );
+        for (Token t : tokens)
+        {
+            sb.append(format(t)).append("\n");
+        }
 
-        String separator = "-".repeat(header.length());
+        sb.append(separator);
+        return sb.toString();
+    }
 
-        sb.append(separator).append("\n");
-        sb.append(header).append("\n");
-        sb.append(separator).append("\n");
+    public static String formatList(TokenStream tokens)
+    {
+        StringBuilder sb = new StringBuilder();
+        String separator = header(sb);
 
-        for (Token t : tokens)
+        for (int i = 0; i < tokens.size(); i++)
         {
-            sb.append(format(t)).append("\n");
+            sb.append(format(tokens, i)).append("\n");
         }
 
         sb.append(separator);
         return sb.toString();
     }
+
+    private static String header(StringBuilder sb)
+    {
+        String separator = tableSeparator();
+        sb.append(tableHeader());
+        return separator;
+    }
+
+    public static String tableSeparator()
+    {
+        return "-".repeat(headerRow().length());
+    }
+
+    // separator, zaglavlje i separator, svaki u svom redu
+    public static String tableHeader()
+    {
+        String separator = tableSeparator();
+        return separator + "\n" + headerRow() + "\n" + separator + "\n";
+    }
+
+    private static String headerRow()
+    {
+        return String.format(
+                "|%s|%s|%s|%s|%s|",
+                center("TYPE", 10),
+                center("LEXEME", 18),
+                center("LITERAL", 11),
+                center("LINE", 9),
+                center("COLUMNS", 12)
+        );
+    }
 }
@@ -0,0 +1,276 @@
+package lexer.token;
+
+import lexer.LineIndex;
+import lexer.SymbolTable;
+import lexer.TextBuffer;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/*
+    Tokeni u paralelnim nizovima. Posle izmene teksta (Lexer.relex) nizovi imaju procep na mestu
+    izmene: tokeni iza procepa cuvaju poziciju od kraja izvora, pa ih nova izmena ispred njih
+    pomera bez prolaska kroz njih. Red i kolona se ne cuvaju, racuna ih LineIndex iz pocetka tokena.
+
+    Posle freeze() tok se vise ne menja (svaka izmena baca IllegalStateException), pa ga vise niti
+    smeju da citaju istovremeno, kao tokene iz kesa u application.Daemon.
+ */
+public final class TokenStream
+{
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private CharSequence source;
+    private final SymbolTable symbols;
+    private byte[] types;
+    private int[] starts;
+    private int[] ends;
+    private int[] values;
+    private final LineIndex lines = new LineIndex();
+    private int size;
+
+    private int length;
+    private int gapStart;
+    private boolean frozen;
+
+    public TokenStream(String source, SymbolTable symbols)
+    {
+        this(source, symbols, Math.max(16, source.length() / 8));
+    }
+
+    public TokenStream(CharSequence source, SymbolTable symbols, int capacity)
+    {
+        this.source = source;
+        this.symbols = symbols;
+        this.length = source.length();
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.values = new int[capacity];
+    }
+
+    public void add(TokenType type, int start, int end, int value)
+    {
+        writable();
+        if (gapStart != size) moveGap(size);
+        if (size == types.length) grow(1);
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        values[size] = value;
+        size++;
+        gapStart++;
+    }
+
+    private void grow(int need)
+    {
+        int back = size - gapStart;
+        int cap = Math.max(16, Math.max(types.length + (types.length >> 1), size + need));
+        types = regrow(types, new byte[cap], back);
+        starts = regrow(starts, new int[cap], back);
+        ends = regrow(ends, new int[cap], back);
+        values = regrow(values, new int[cap], back);
+    }
+
+    private byte[] regrow(byte[] old, byte[] fresh, int back)
+    {
+        System.arraycopy(old, 0, fresh, 0, gapStart);
+        System.arraycopy(old, old.length - back, fresh, fresh.length - back, back);
+        return fresh;
+    }
+
+    private int[] regrow(int[] old, int[] fresh, int back)
+    {
+        System.arraycopy(old, 0, fresh, 0, gapStart);
+        System.arraycopy(old, old.length - back, fresh, fresh.length - back, back);
+        return fresh;
+    }
+
+    // fizicki indeks logickog tokena i
+    private int at(int i)
+    {
+        return i < gapStart ? i : i + types.length - size;
+    }
+
+    // tokeni [index, size) prelaze iza procepa (relativne pozicije), ostali ispred (apsolutne)
+    private void moveGap(int index)
+    {
+        int gap = types.length - size;
+        while (gapStart > index)
+        {
+            int from = --gapStart, to = from + gap;
+            types[to] = types[from];
+            starts[to] = length - starts[from];
+            ends[to] = length - ends[from];
+            values[to] = values[from];
+        }
+        while (gapStart < index)
+        {
+            int to = gapStart++, from = to + gap;
+            types[to] = types[from];
+            starts[to] = length - starts[from];
+            ends[to] = length - ends[from];
+            values[to] = values[from];
+        }
+    }
+
+    /*
+        Spajanje delova leksiranih nezavisno (ParallelLexer): resize rezervise mesto za sve tokene,
+        i za sve '\n', pa se svaki deo upisuje sa copy na svoj pocetak. Delovi ne dele mesto, pa copy
+        za razlicite delove moze da ide paralelno.
+     */
+    public void resize(int n, int newlines)
+    {
+        writable();
+        if (gapStart != size) moveGap(size);
+        if (types.length < n) grow(n - size);
+        size = n;
+        gapStart = n;
+        lines.resize(newlines);
+    }
+
+    // '\n' dela idu od newlineAt, id-evi imena se prevode kroz symbolIds
+    public void copy(int at, TokenStream part, int newlineAt, int[] symbolIds)
+    {
+        writable();
+        int n = part.size;
+        System.arraycopy(part.types, 0, types, at, n);
+        System.arraycopy(part.starts, 0, starts, at, n);
+        System.arraycopy(part.ends, 0, ends, at, n);
+        byte ident = (byte) TokenType.IDENT.ordinal();
+        for (int k = 0; k < n; k++)
+        {
+            values[at + k] = part.types[k] == ident ? symbolIds[part.values[k]] : part.values[k];
+        }
+        lines.copy(newlineAt, part.lines);
+    }
+
+    // prvi token koji se zavrsava na offset ili posle njega (EOF se zavrsava na kraju izvora)
+    public int firstEndingAt(int offset)
+    {
+        int lo = 0, hi = size - 1;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (end(mid) < offset) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /*
+        Menja tekst izvora. Tokeni od indeksa token nadalje se prvo prebace iza procepa, pa se
+        njihove pozicije (i mesta '\n' u LineIndex) pomere zajedno sa krajem izvora; vraca
+        uklonjeni tekst.
+     */
+    public String editSource(int token, int offset, int removed, CharSequence inserted)
+    {
+        writable();
+        if (!(source instanceof TextBuffer)) source = new TextBuffer(source);
+        TextBuffer text = (TextBuffer) source;
+        String old = text.subSequence(offset, offset + removed);
+        moveGap(token);
+        lines.edit(offset, removed, inserted, length);
+        text.replace(offset, removed, inserted);
+        length = text.length();
+        return old;
+    }
+
+    /*
+        Zamenjuje tokene [from, to) sa prvih count tokena iz fresh; ostatak je vec pomeren sa
+        krajem izvora u editSource, a redove i kolone iza izmene daje LineIndex.
+     */
+    public void replace(int from, int to, TokenStream fresh, int count)
+    {
+        writable();
+        moveGap(from);
+        size -= to - from;
+        if (types.length - size < count) grow(count);
+        for (int k = 0; k < count; k++)
+        {
+            types[from + k] = fresh.types[k];
+            starts[from + k] = fresh.start(k);
+            ends[from + k] = fresh.end(k);
+            values[from + k] = fresh.values[k];
+        }
+        size += count;
+        gapStart = from + count;
+    }
+
+    public TokenStream freeze()
+    {
+        frozen = true;
+        lines.freeze();
+        return this;
+    }
+
+    public boolean frozen() { return frozen; }
+
+    private void writable()
+    {
+        if (frozen) throw new IllegalStateException("Token stream is read-only");
+    }
+
+    public int size() { return size; }
+    public CharSequence source() { return source; }
+    public int length() { return length; }
+    public SymbolTable symbols() { return symbols; }
+    public LineIndex lines() { return lines; }
+
+    public TokenType type(int i) { return TYPES[types[at(i)]]; }
+    public int start(int i) { return i < gapStart ? starts[i] : length - starts[at(i)]; }
+    public int end(int i) { return i < gapStart ? ends[i] : length - ends[at(i)]; }
+    public int line(int i) { return lines.line(start(i)); }
+    public int colStart(int i) { return lines.column(start(i)); }
+
+    public int colEnd(int i)
+    {
+        // tokeni nikad ne prelaze u novi red, NEWLINE i EOF imaju kolonu pocetka i kraja istu
+        return colStart(i) + Math.max(end(i) - start(i) - 1, 0);
+    }
+
+    public boolean hasLiteral(int i)
+    {
+        return types[at(i)] == TokenType.INT_LIT.ordinal();
+    }
+
+    public int literal(int i) { return values[at(i)]; }
+
+    // id iz tabele imena za IDENT, -1 za ostale tokene
+    public int symbol(int i)
+    {
+        int p = at(i);
+        return types[p] == TokenType.IDENT.ordinal() ? values[p] : -1;
+    }
+
+    public String lexeme(int i)
+    {
+        int p = at(i);
+        if (types[p] == TokenType.EOF.ordinal()) return "\0";
+        if (types[p] == TokenType.IDENT.ordinal()) return symbols.name(values[p]);
+        return source.subSequence(start(i), end(i)).toString();
+    }
+
+    public Token get(int i)
+    {
+        return new Token(type(i), lexeme(i), hasLiteral(i) ? literal(i) : null, line(i), colStart(i), colEnd(i), symbol(i));
+    }
+
+    public List<Token> asList()
+    {
+        return new TokenList();
+    }
+
+    private final class TokenList extends AbstractList<Token> implements RandomAccess
+    {
+        @Override
+        public Token get(int index)
+        {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            return TokenStream.this.get(index);
+        }
+
+        @Override
+        public int size() { return size; }
+    }
+}
@@ -10,5 +10,6 @@ public enum TokenType
     ASSIGN,
     AND, NOT,
     ARRAY,
+    ERROR,
     NEWLINE, EOF
 }
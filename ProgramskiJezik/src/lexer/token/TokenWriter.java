@@ -0,0 +1,357 @@
+package lexer.token;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/*
+    Ispis tokena red po red kroz jedan bafer koji se ponovo koristi, bez String.format i
+    pomocnih stringova po tokenu. TABLE daje iste bajtove kao TokenFormatter.formatList (plus
+    prelom reda posle poslednjeg separatora, kao println); TSV i JSONL su za druge alate.
+ */
+public final class TokenWriter implements Flushable
+{
+    public enum Format { TABLE, TSV, JSONL }
+
+    private static final int TYPE_W = 10, LEXEME_W = 18, LITERAL_W = 11, LINE_W = 9, COLS_W = 12;
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final char[][] TYPE_CELLS = new char[TYPES.length][];
+    private static final char[][] TYPE_NAMES = new char[TYPES.length][];
+    private static final char[] NO_LITERAL = center("N/A", LITERAL_W);
+    private static final char[] SPACES = " ".repeat(LEXEME_W).toCharArray();
+
+    static
+    {
+        for (TokenType t : TYPES)
+        {
+            TYPE_CELLS[t.ordinal()] = center(t.name(), TYPE_W);
+            TYPE_NAMES[t.ordinal()] = t.name().toCharArray();
+        }
+    }
+
+    private final Writer out;
+    private final Format format;
+    private final char[] buf = new char[1 << 13];
+    private int len;
+    private char[] cell = new char[64];
+    private int cellLen;
+
+    public TokenWriter(Writer out, Format format)
+    {
+        this.out = out;
+        this.format = format;
+    }
+
+    public TokenWriter(OutputStream out, Charset charset, Format format)
+    {
+        this(new OutputStreamWriter(out, charset), format);
+    }
+
+    public static void writeAll(TokenStream tokens, Writer out, Format format)
+    {
+        TokenWriter w = new TokenWriter(out, format);
+        w.header();
+        for (int i = 0; i < tokens.size(); i++) w.write(tokens, i);
+        w.footer();
+        w.flush();
+    }
+
+    public void header()
+    {
+        switch (format)
+        {
+            case TABLE -> put(TokenFormatter.tableHeader());
+            case TSV -> put("type\tlexeme\tliteral\tline\tcol_start\tcol_end\n");
+            case JSONL -> {}
+        }
+    }
+
+    public void footer()
+    {
+        if (format == Format.TABLE)
+        {
+            put(TokenFormatter.tableSeparator());
+            put(System.lineSeparator());
+        }
+    }
+
+    public void write(TokenStream ts, int i)
+    {
+        TokenType type = ts.type(i);
+        int line = ts.line(i), cs = ts.colStart(i), ce = ts.colEnd(i);
+        boolean lit = ts.hasLiteral(i);
+        int value = lit ? ts.literal(i) : 0;
+        // leksem IDENT-a je isti kao tekst izvora, pa se uvek kopira iz izvora
+        if (type == TokenType.EOF) row(type, "\0", 0, 1, lit, value, line, cs, ce);
+        else row(type, ts.source(), ts.start(i), ts.end(i), lit, value, line, cs, ce);
+    }
+
+    public void write(Token t)
+    {
+        boolean lit = t.literal != null;
+        row(t.type, t.lexeme, 0, t.lexeme.length(), lit, lit ? t.literal : 0, t.line, t.colStart, t.colEnd);
+    }
+
+    private void row(TokenType type, CharSequence text, int from, int to, boolean lit, int value, int line, int cs, int ce)
+    {
+        switch (format)
+        {
+            case TABLE -> tableRow(type, text, from, to, lit, value, line, cs, ce);
+            case TSV -> tsvRow(type, text, from, to, lit, value, line, cs, ce);
+            case JSONL -> jsonRow(type, text, from, to, lit, value, line, cs, ce);
+        }
+    }
+
+    // |TYPE|'LEXEME'|LITERAL|line N|col A-B|  (sirine i centriranje kao TokenFormatter)
+    private void tableRow(TokenType type, CharSequence text, int from, int to, boolean lit, int value, int line, int cs, int ce)
+    {
+        put('|');
+        put(TYPE_CELLS[type.ordinal()]);
+        put('|');
+
+        cellLen = 0;
+        cell('\'');
+        for (int i = from; i < to; i++)
+        {
+            char c = text.charAt(i);
+            if (c == '\n') { cell('\\'); cell('n'); }
+            else if (c == '\0') { cell('\\'); cell('0'); }
+            else cell(c);
+        }
+        cell('\'');
+        putCentered(LEXEME_W);
+        put('|');
+
+        if (lit)
+        {
+            cellLen = 0;
+            cellInt(value);
+            putCentered(LITERAL_W);
+        }
+        else
+        {
+            put(NO_LITERAL);
+        }
+        put('|');
+
+        cellLen = 0;
+        cell('l'); cell('i'); cell('n'); cell('e'); cell(' ');
+        cellInt(line);
+        putCentered(LINE_W);
+        put('|');
+
+        cellLen = 0;
+        cell('c'); cell('o'); cell('l'); cell(' ');
+        cellInt(cs);
+        cell('-');
+        cellInt(ce);
+        putCentered(COLS_W);
+        put('|');
+        put('\n');
+    }
+
+    private void tsvRow(TokenType type, CharSequence text, int from, int to, boolean lit, int value, int line, int cs, int ce)
+    {
+        put(TYPE_NAMES[type.ordinal()]);
+        put('\t');
+        for (int i = from; i < to; i++)
+        {
+            char c = text.charAt(i);
+            switch (c)
+            {
+                case '\t' -> { put('\\'); put('t'); }
+                case '\n' -> { put('\\'); put('n'); }
+                case '\r' -> { put('\\'); put('r'); }
+                case '\0' -> { put('\\'); put('0'); }
+                case '\\' -> { put('\\'); put('\\'); }
+                default -> put(c);
+            }
+        }
+        put('\t');
+        if (lit) putInt(value);
+        put('\t');
+        putInt(line);
+        put('\t');
+        putInt(cs);
+        put('\t');
+        putInt(ce);
+        put('\n');
+    }
+
+    private void jsonRow(TokenType type, CharSequence text, int from, int to, boolean lit, int value, int line, int cs, int ce)
+    {
+        put("{\"type\":\"");
+        put(TYPE_NAMES[type.ordinal()]);
+        put("\",\"lexeme\":\"");
+        for (int i = from; i < to; i++)
+        {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\')
+            {
+                put('\\');
+                put(c);
+            }
+            else if (c == '\n')
+            {
+                put('\\');
+                put('n');
+            }
+            else if (c < 0x20)
+            {
+                put("\\u00");
+                put(Character.forDigit(c >> 4, 16));
+                put(Character.forDigit(c & 15, 16));
+            }
+            else
+            {
+                put(c);
+            }
+        }
+        put("\",\"literal\":");
+        if (lit) putInt(value);
+        else put("null");
+        put(",\"line\":");
+        putInt(line);
+        put(",\"colStart\":");
+        putInt(cs);
+        put(",\"colEnd\":");
+        putInt(ce);
+        put("}\n");
+    }
+
+    private static char[] center(String s, int width)
+    {
+        if (s.length() >= width) return s.substring(0, width).toCharArray();
+        int left = (width - s.length()) / 2;
+        char[] c = " ".repeat(width).toCharArray();
+        s.getChars(0, s.length(), c, left);
+        return c;
+    }
+
+    // sadrzaj celije je u cell[0, cellLen); duzi od sirine se odseca kao substring(0, width)
+    private void putCentered(int width)
+    {
+        if (cellLen >= width)
+        {
+            put(cell, width);
+            return;
+        }
+        int pad = width - cellLen, left = pad / 2;
+        put(SPACES, left);
+        put(cell, cellLen);
+        put(SPACES, pad - left);
+    }
+
+    private void cell(char c)
+    {
+        if (cellLen == cell.length) cell = Arrays.copyOf(cell, cellLen * 2);
+        cell[cellLen++] = c;
+    }
+
+    private void cellInt(int v)
+    {
+        if (cellLen + 11 > cell.length) cell = Arrays.copyOf(cell, cell.length * 2 + 11);
+        cellLen = digits(v, cell, cellLen);
+    }
+
+    private void putInt(int v)
+    {
+        if (len + 11 > buf.length) flushBuffer();
+        len = digits(v, buf, len);
+    }
+
+    // upisuje decimalni zapis v od pozicije at, vraca poziciju iza poslednje cifre
+    private static int digits(int v, char[] dst, int at)
+    {
+        long n = v;
+        if (n < 0)
+        {
+            dst[at++] = '-';
+            n = -n;
+        }
+        int end = at;
+        long m = n;
+        do
+        {
+            end++;
+            m /= 10;
+        }
+        while (m != 0);
+        int p = end;
+        do
+        {
+            dst[--p] = (char) ('0' + n % 10);
+            n /= 10;
+        }
+        while (n != 0);
+        return end;
+    }
+
+    private void put(char c)
+    {
+        if (len == buf.length) flushBuffer();
+        buf[len++] = c;
+    }
+
+    private void put(char[] c)
+    {
+        put(c, c.length);
+    }
+
+    private void put(char[] c, int n)
+    {
+        if (len + n > buf.length)
+        {
+            flushBuffer();
+            if (n > buf.length)
+            {
+                write(c, n);
+                return;
+            }
+        }
+        System.arraycopy(c, 0, buf, len, n);
+        len += n;
+    }
+
+    private void put(String s)
+    {
+        for (int i = 0; i < s.length(); i++) put(s.charAt(i));
+    }
+
+    private void flushBuffer()
+    {
+        write(buf, len);
+        len = 0;
+    }
+
+    private void write(char[] c, int n)
+    {
+        try
+        {
+            out.write(c, 0, n);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush()
+    {
+        flushBuffer();
+        try
+        {
+            out.flush();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package metrics;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Merenje faza (Phase) po fajlu: vreme, bajtovi i tokeni koje je faza obradila i bajtovi koje je
+    nit alocirala za to vreme (com.sun.management.ThreadMXBean). Svaka faza je i JFR dogadjaj
+    (PhaseEvent) kada snimanje radi.
+
+        Metrics.Span s = metrics.start(Phase.LEX, file);
+        TokenStream tokens = new Lexer(code).scan();
+        s.end(code.length(), tokens.size());
+
+    counter(name, value) sabira brojace koji nisu vezani za fazu (npr. memo.hits iz interpretera);
+    za par X.hits / X.misses summary ispisuje i procenat pogodaka.
+
+    OFF ne meri nista: start vraca isti prazan Span, bez citanja sata i bez alokacije. Virtuelne
+    niti ne prijavljuju alokacije (-1), pa je alokacija tada nepoznata.
+
+    Zbirovi po fazi su LongAdder-i, pa Span.end iz mnogo niti (batch, jedna virtuelna nit po
+    fajlu) ne ceka na zajednickom lock-u; summary i json citaju zbirove bez zaustavljanja niti.
+ */
+public final class Metrics
+{
+    public static final Metrics OFF = new Metrics(false, false);
+
+    private static final Span NONE = new Span(null, null, null);
+
+    private static final class Threads
+    {
+        static final com.sun.management.ThreadMXBean MX = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    private record Sample(String file, Phase phase, long nanos, long bytes, long tokens, long allocated) {}
+
+    public static final class Span
+    {
+        private final Metrics metrics;
+        private final Phase phase;
+        private final String file;
+        private final long start;
+        private final long allocated;
+        private final PhaseEvent event;
+
+        private Span(Metrics metrics, Phase phase, String file)
+        {
+            this.metrics = metrics;
+            this.phase = phase;
+            this.file = file;
+            if (metrics == null)
+            {
+                start = allocated = 0;
+                event = null;
+                return;
+            }
+            allocated = allocatedBytes();
+            PhaseEvent e = new PhaseEvent();
+            event = e.isEnabled() ? e : null;
+            if (event != null) event.begin();
+            start = System.nanoTime();
+        }
+
+        // bytes i tokens su ono sto je faza obradila; 0 kada nema smisla (npr. tokeni pri citanju)
+        public void end(long bytes, long tokens)
+        {
+            if (metrics == null) return;
+            long nanos = System.nanoTime() - start;
+            long after = allocatedBytes();
+            long alloc = allocated < 0 || after < 0 ? -1 : after - allocated;
+            if (event != null)
+            {
+                event.end();
+                if (event.shouldCommit())
+                {
+                    event.file = file;
+                    event.phase = phase.label();
+                    event.bytes = bytes;
+                    event.tokens = tokens;
+                    event.allocated = alloc;
+                    event.commit();
+                }
+            }
+            if (metrics.stats) metrics.add(new Sample(file, phase, nanos, bytes, tokens, alloc));
+        }
+    }
+
+    private final boolean stats;
+    private final boolean enabled;
+    private final Queue<Sample> samples = new ConcurrentLinkedQueue<>();
+    private final Accumulator[] phases = new Accumulator[Phase.values().length];
+    private final LongAccumulator peakTokens = new LongAccumulator(Math::max, 0);
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    private Metrics(boolean stats, boolean enabled)
+    {
+        this.stats = stats;
+        this.enabled = enabled;
+        for (int i = 0; i < phases.length; i++) phases[i] = new Accumulator();
+    }
+
+    // sa --stats meri i pamti sve; bez njega samo JFR dogadjaji, i to samo ako snimanje vec radi
+    public static Metrics create(boolean stats)
+    {
+        if (stats) return new Metrics(true, true);
+        if (FlightRecorder.isInitialized() && EventType.getEventType(PhaseEvent.class).isEnabled()) return new Metrics(false, true);
+        return OFF;
+    }
+
+    public boolean enabled() { return enabled; }
+
+    public Span start(Phase phase, String file)
+    {
+        return enabled ? new Span(this, phase, file) : NONE;
+    }
+
+    public void counter(String name, long value)
+    {
+        if (!stats) return;
+        synchronized (this)
+        {
+            counters.merge(name, value, Long::sum);
+        }
+    }
+
+    private static long allocatedBytes()
+    {
+        return Threads.MX.getCurrentThreadAllocatedBytes();
+    }
+
+    private void add(Sample s)
+    {
+        samples.add(s);
+        peakTokens.accumulate(s.tokens);
+        Accumulator a = phases[s.phase.ordinal()];
+        a.runs.increment();
+        a.nanos.add(s.nanos);
+        a.bytes.add(s.bytes);
+        a.tokens.add(s.tokens);
+        if (s.allocated < 0) a.allocUnknown.increment();
+        else a.allocated.add(s.allocated);
+    }
+
+    private static final class Accumulator
+    {
+        final LongAdder runs = new LongAdder(), nanos = new LongAdder(), bytes = new LongAdder(), tokens = new LongAdder();
+        final LongAdder allocated = new LongAdder(), allocUnknown = new LongAdder();
+    }
+
+    private record Total(long runs, long nanos, long bytes, long tokens, long allocated, boolean allocKnown) {}
+
+    // null za fazu koja nije merena
+    private Total[] totals()
+    {
+        Total[] totals = new Total[phases.length];
+        for (int i = 0; i < phases.length; i++)
+        {
+            Accumulator a = phases[i];
+            long runs = a.runs.sum();
+            if (runs == 0) continue;
+            totals[i] = new Total(runs, a.nanos.sum(), a.bytes.sum(), a.tokens.sum(), a.allocated.sum(), a.allocUnknown.sum() == 0);
+        }
+        return totals;
+    }
+
+    private static double perSecond(long amount, long nanos)
+    {
+        return nanos == 0 ? 0 : amount * 1e9 / nanos;
+    }
+
+    /*
+        phase      runs         ms       MB/s     tokens/s   alloc MB
+        lex           1     12.345      85.0      1612345       21.4
+        peak token list: 199596 tokens
+     */
+    public String summary()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-9s %6s %10s %10s %12s %10s%n", "phase", "runs", "ms", "MB/s", "tokens/s", "alloc MB"));
+        long nanos = 0;
+        Total[] totals = totals();
+        for (Phase p : Phase.values())
+        {
+            Total t = totals[p.ordinal()];
+            if (t == null) continue;
+            nanos += t.nanos();
+            sb.append(String.format(Locale.ROOT, "%-9s %6d %10.3f %10s %12s %10s%n", p.label(), t.runs(), t.nanos() / 1e6,
+                    t.bytes() == 0 ? "-" : String.format(Locale.ROOT, "%.1f", perSecond(t.bytes(), t.nanos()) / 1e6),
+                    t.tokens() == 0 ? "-" : String.format(Locale.ROOT, "%.0f", perSecond(t.tokens(), t.nanos())),
+                    t.allocKnown() ? String.format(Locale.ROOT, "%.1f", t.allocated() / 1e6) : "n/a"));
+        }
+        sb.append(String.format(Locale.ROOT, "total %.3f ms, peak token list: %d tokens", nanos / 1e6, peakTokens.get()));
+        synchronized (this)
+        {
+            for (Map.Entry<String, Long> c : counters.entrySet())
+            {
+                sb.append(String.format(Locale.ROOT, "%n%-14s %12d", c.getKey(), c.getValue()));
+                String name = c.getKey();
+                Long misses = name.endsWith(".hits") ? counters.get(name.substring(0, name.length() - 5) + ".misses") : null;
+                if (misses != null && c.getValue() + misses > 0)
+                {
+                    sb.append(String.format(Locale.ROOT, "   hit rate %.1f%%", 100.0 * c.getValue() / (c.getValue() + misses)));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    // isti podaci kao summary, plus jedan red po fajlu i fazi; nepoznata alokacija je null
+    public String json()
+    {
+        StringBuilder sb = new StringBuilder("{\"phases\":[");
+        Total[] totals = totals();
+        boolean first = true;
+        for (Phase p : Phase.values())
+        {
+            Total t = totals[p.ordinal()];
+            if (t == null) continue;
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"phase\":\"").append(p.label()).append("\",\"runs\":").append(t.runs())
+                    .append(",\"nanos\":").append(t.nanos()).append(",\"bytes\":").append(t.bytes())
+                    .append(",\"tokens\":").append(t.tokens())
+                    .append(",\"allocated\":").append(t.allocKnown() ? Long.toString(t.allocated()) : "null")
+                    .append(",\"bytesPerSecond\":").append(Math.round(perSecond(t.bytes(), t.nanos())))
+                    .append(",\"tokensPerSecond\":").append(Math.round(perSecond(t.tokens(), t.nanos()))).append('}');
+        }
+        sb.append("],\"peakTokens\":").append(peakTokens.get()).append(",\"counters\":{");
+        synchronized (this)
+        {
+            boolean firstCounter = true;
+            for (Map.Entry<String, Long> c : counters.entrySet())
+            {
+                if (!firstCounter) sb.append(',');
+                firstCounter = false;
+                string(sb, c.getKey());
+                sb.append(':').append(c.getValue());
+            }
+        }
+        sb.append("},\"files\":[");
+        boolean firstFile = true;
+        for (Sample s : samples)
+        {
+            if (!firstFile) sb.append(',');
+            firstFile = false;
+            sb.append("{\"file\":");
+            string(sb, s.file);
+            sb.append(",\"phase\":\"").append(s.phase.label()).append("\",\"nanos\":").append(s.nanos)
+                    .append(",\"bytes\":").append(s.bytes).append(",\"tokens\":").append(s.tokens)
+                    .append(",\"allocated\":").append(s.allocated < 0 ? "null" : Long.toString(s.allocated)).append('}');
+        }
+        return sb.append("]}\n").toString();
+    }
+
+    private static void string(StringBuilder sb, String s)
+    {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,14 @@
+package metrics;
+
+import java.util.Locale;
+
+// faze obrade jednog fajla, redom kojim se izvrsavaju
+public enum Phase
+{
+    READ, LEX, PARSE, CHECK, OPTIMIZE, COMPILE, RUN, FORMAT;
+
+    public String label()
+    {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
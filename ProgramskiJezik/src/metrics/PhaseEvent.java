@@ -0,0 +1,37 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+    JFR dogadjaj za jednu fazu jednog fajla; trajanje je vreme izmedju begin() i commit().
+    Snimanje: java -XX:StartFlightRecording=filename=rec.jfr ... pa jfr print --events programskijezik.Phase rec.jfr
+ */
+@Name("programskijezik.Phase")
+@Label("Compiler Phase")
+@Category("Programski Jezik")
+@Description("One pipeline phase (read, lex, parse, ...) for one source file")
+@StackTrace(false)
+final class PhaseEvent extends jdk.jfr.Event
+{
+    @Label("File")
+    String file;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Tokens")
+    long tokens;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
@@ -0,0 +1,72 @@
+package optimizer;
+
+import lexer.token.Token;
+import lexer.token.TokenType;
+import parser.ast.Expr;
+
+/*
+    Racuna u vreme prevodjenja Binary ciji su operandi konstante, sa istom int aritmetikom
+    (i prelivanjem) kao Interpreter. Zagrade nestaju: prioritet je vec u obliku stabla.
+
+    Deljenje i ostatak nulom se ne racunaju: cvor ostaje i greska se javlja u vreme izvrsavanja,
+    na istom mestu. and / eitherWay sa konstantom levo se skracuju samo kada desna strana ne
+    utice na rezultat (0 and x je 0, 1 eitherWay x je 1), jer se x tada ni ne izvrsava.
+ */
+final class ConstantFolder extends TreeRewriter
+{
+    @Override
+    Expr expr(Expr e)
+    {
+        if (e instanceof Expr.Grouping g)
+        {
+            removed++;
+            return expr(g.inner);
+        }
+        if (!(e instanceof Expr.Binary b)) return super.expr(e);
+
+        Expr left = expr(b.left);
+        TokenType op = b.op.type;
+        if (left instanceof Expr.Literal l && (op == TokenType.AND || op == TokenType.OR) && (l.value != 0) == (op == TokenType.OR))
+        {
+            removed += 1 + size(b.right);
+            rewrites++;
+            return literal(b.op, op == TokenType.OR ? 1 : 0);
+        }
+        Expr right = expr(b.right);
+        if (left instanceof Expr.Literal l && right instanceof Expr.Literal r)
+        {
+            if ((op == TokenType.DIVIDE || op == TokenType.PERCENT) && r.value == 0) return new Expr.Binary(left, b.op, right);
+            removed += 2;
+            rewrites++;
+            return literal(b.op, apply(op, l.value, r.value));
+        }
+        return left == b.left && right == b.right ? b : new Expr.Binary(left, b.op, right);
+    }
+
+    static int apply(TokenType op, int l, int r)
+    {
+        return switch (op)
+        {
+            case ADD -> l + r;
+            case SUBTRACT -> l - r;
+            case MULTIPLY -> l * r;
+            case DIVIDE -> l / r;
+            case PERCENT -> l % r;
+            case EQ -> l == r ? 1 : 0;
+            case NEQ -> l != r ? 1 : 0;
+            case LT -> l < r ? 1 : 0;
+            case LE -> l <= r ? 1 : 0;
+            case GT -> l > r ? 1 : 0;
+            case GE -> l >= r ? 1 : 0;
+            case AND -> l != 0 && r != 0 ? 1 : 0;
+            case OR -> l != 0 || r != 0 ? 1 : 0;
+            default -> throw new IllegalStateException("Unknown operator " + op);
+        };
+    }
+
+    // novi literal nosi poziciju operatora koji ga je dao
+    static Expr.Literal literal(Token at, int value)
+    {
+        return new Expr.Literal(new Token(TokenType.INT_LIT, Integer.toString(value), value, at.line, at.colStart, at.colEnd), value);
+    }
+}
@@ -0,0 +1,118 @@
+package optimizer;
+
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Uklanja kod koji se nikad ne izvrsava; radi posle ConstantFolder-a, pa su konstantni uslovi
+    vec Literal:
+
+    - grana annieAreYouOkay sa uslovom 0 nestaje; grana sa uslovom razlicitim od 0 postaje
+      poslednja (njen blok je "inace"), a grane posle nje nestaju;
+    - annieAreYouOkay bez ijedne grane postaje svoj else blok, ili nestaje;
+    - justBeatIt sa konstantnim granicama od > do nestaje;
+    - naredbe posle moonWalk u istom bloku nestaju.
+
+    Blok koji ostane jedini se ubacuje u okolni blok samo ako nema svojih deklaracija; inace bi
+    njegove promenljive presle u siri opseg (i mogle da se sudare sa okolnim imenima).
+ */
+final class DeadBranches extends TreeRewriter
+{
+    @Override
+    List<Stmt> block(List<Stmt> body)
+    {
+        List<Stmt> out = new ArrayList<>(body.size());
+        for (int i = 0; i < body.size(); i++)
+        {
+            statement(body.get(i), out);
+            if (!out.isEmpty() && out.get(out.size() - 1) instanceof Stmt.Return && i + 1 < body.size())
+            {
+                removed += size(body.subList(i + 1, body.size()));
+                rewrites++;
+                break;
+            }
+        }
+        return out;
+    }
+
+    @Override
+    void statement(Stmt s, List<Stmt> out)
+    {
+        if (s instanceof Stmt.BeginIf i) branches(i, out);
+        else if (s instanceof Stmt.BeginFor f && f.from instanceof Expr.Literal from && f.to instanceof Expr.Literal to && from.value > to.value)
+        {
+            removed += size(f);
+            rewrites++;
+        }
+        else out.add(copy(s));
+    }
+
+    private void branches(Stmt.BeginIf s, List<Stmt> out)
+    {
+        List<Stmt.BeginIf.Arm> all = new ArrayList<>(1 + s.orIfArms.size());
+        all.add(s.ifArm);
+        all.addAll(s.orIfArms);
+
+        List<Stmt.BeginIf.Arm> live = new ArrayList<>(all.size());
+        List<Stmt> otherwise = s.elseBlock;
+        boolean changed = false;
+        for (int k = 0; k < all.size(); k++)
+        {
+            Stmt.BeginIf.Arm arm = all.get(k);
+            if (!(arm.cond instanceof Expr.Literal l))
+            {
+                live.add(arm);
+                continue;
+            }
+            changed = true;
+            if (l.value == 0)
+            {
+                removed += size(arm);
+                continue;
+            }
+            // uvek tacan uslov: ostatak se ne proverava
+            removed += size(arm.cond);
+            for (Stmt.BeginIf.Arm dead : all.subList(k + 1, all.size())) removed += size(dead);
+            if (otherwise != null) removed += size(otherwise);
+            otherwise = arm.block;
+            break;
+        }
+        if (!changed)
+        {
+            out.add(copy(s));
+            return;
+        }
+        rewrites++;
+
+        List<Stmt> elseBlock = otherwise == null ? null : block(otherwise);
+        if (live.isEmpty())
+        {
+            if (elseBlock != null && declares(elseBlock))
+            {
+                // blok sa deklaracijama zadrzava svoj opseg; prva grana je ovde sigurno Literal
+                removed--;
+                Expr.Literal always = ConstantFolder.literal(((Expr.Literal) s.ifArm.cond).token, 1);
+                out.add(new Stmt.BeginIf(new Stmt.BeginIf.Arm(always, elseBlock), List.of(), null));
+                return;
+            }
+            removed++;
+            if (elseBlock != null) out.addAll(elseBlock);
+            return;
+        }
+        List<Stmt.BeginIf.Arm> orIf = new ArrayList<>(live.size() - 1);
+        for (Stmt.BeginIf.Arm arm : live.subList(1, live.size())) orIf.add(arm(arm));
+        out.add(new Stmt.BeginIf(arm(live.get(0)), orIf, elseBlock));
+    }
+
+    private static boolean declares(List<Stmt> block)
+    {
+        for (Stmt s : block)
+        {
+            if (s instanceof Stmt.VarDecl) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,258 @@
+package optimizer;
+
+import lexer.token.Token;
+import lexer.token.TokenType;
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    Izraz u telu justBeatIt petlje koji daje istu vrednost u svakom prolazu racuna se jednom,
+    pre petlje, u novu promenljivu ($inv0, $inv1... ne mogu da se sudare sa imenima iz izvora):
+
+        justBeatIt i from 1 glideTo n jam s = s + a * b jamOut
+    postaje
+        heehee $inv0;  a * b moves $inv0
+        justBeatIt i from 1 glideTo n jam s = s + $inv0 jamOut
+
+    Izraz je nepromenljiv ako su u njemu samo konstante i imena koja se u telu ne dodeljuju, ne
+    deklarisu i nisu promenljiva petlje. Poziv ne moze da bude deo takvog izraza, a ako ga u petlji
+    (ili njenim granicama) ima, i globalne su sumnjive: od imena ostaju samo lokalne pozivaoca.
+    Deljenje se izvlaci samo kada je delilac konstanta razlicita od 0, da greska ne bi promenila
+    mesto; ostali operatori ne bacaju, pa izracunavanje pre petlje (i kad se telo ne izvrsi) nije vidljivo.
+    Nizovi se ne diraju: imena deklarisana sa dimenzijama ne ulaze u izraze koji se izvlace.
+
+    Spoljna petlja se obradjuje pre unutrasnje, pa izraz izlazi iz svih petlji za koje je nepromenljiv.
+    Na vrhu programa nova promenljiva je globalna (TopVarDecl), inace lokalna okolnog bloka.
+ */
+final class LoopHoister extends TreeRewriter
+{
+    private final Set<String> arrays = new HashSet<>();
+    private final List<Set<String>> scopes = new ArrayList<>();
+    private int temps;
+
+    @Override
+    Ast.Program program(Ast.Program p)
+    {
+        for (Ast.TopItem item : p.items)
+        {
+            if (item instanceof Ast.FuncDef f)
+            {
+                for (Ast.Param param : f.params)
+                {
+                    if (param.type.rank > 0) arrays.add(param.name.lexeme);
+                }
+                arrays(f.body);
+            }
+            else if (item instanceof Ast.TopVarDecl v) arrays(List.of(v.decl));
+            else if (item instanceof Ast.TopStmt s) arrays(List.of(s.stmt));
+        }
+        return super.program(p);
+    }
+
+    @Override
+    Ast.FuncDef function(Ast.FuncDef f)
+    {
+        Set<String> params = new HashSet<>();
+        for (Ast.Param p : f.params) params.add(p.name.lexeme);
+        scopes.add(params);
+        Ast.FuncDef out = super.function(f);
+        scopes.clear();
+        return out;
+    }
+
+    @Override
+    List<Stmt> block(List<Stmt> body)
+    {
+        scopes.add(new HashSet<>());
+        List<Stmt> out = super.block(body);
+        scopes.remove(scopes.size() - 1);
+        return out;
+    }
+
+    @Override
+    void statement(Stmt s, List<Stmt> out)
+    {
+        if (s instanceof Stmt.BeginFor f)
+        {
+            loop(f, out);
+            return;
+        }
+        out.add(copy(s));
+        if (s instanceof Stmt.VarDecl v && !scopes.isEmpty())
+        {
+            for (Token name : v.names) scopes.get(scopes.size() - 1).add(name.lexeme);
+        }
+    }
+
+    private void loop(Stmt.BeginFor f, List<Stmt> out)
+    {
+        Set<String> assigned = new HashSet<>();
+        assigned.add(f.var.lexeme);
+        assigned(f.body, assigned);
+        boolean calls = calls(f.from) || calls(f.to) || callsIn(f.body);
+
+        Map<String, Token> hoisted = new HashMap<>();
+        TreeRewriter substitute = new TreeRewriter()
+        {
+            @Override
+            Expr expr(Expr e)
+            {
+                if (!(e instanceof Expr.Binary) || !invariant(e, assigned, calls)) return super.expr(e);
+                String key = key(e);
+                Token temp = hoisted.get(key);
+                if (temp == null)
+                {
+                    temp = new Token(TokenType.IDENT, "$inv" + temps++, null, f.var.line, f.var.colStart, f.var.colEnd);
+                    hoisted.put(key, temp);
+                    out.add(new Stmt.VarDecl(List.of(), List.of(temp)));
+                    out.add(new Stmt.Assign(LoopHoister.this.expr(e), new Stmt.LValue(temp, List.of())));
+                    if (!scopes.isEmpty()) scopes.get(scopes.size() - 1).add(temp.lexeme);
+                    LoopHoister.this.rewrites++;
+                }
+                LoopHoister.this.removed += size(e) - 1;
+                return new Expr.Ident(temp);
+            }
+        };
+        List<Stmt> body = substitute.block(f.body);
+
+        scopes.add(new HashSet<>(Set.of(f.var.lexeme)));
+        body = block(body);
+        scopes.remove(scopes.size() - 1);
+        out.add(new Stmt.BeginFor(f.var, expr(f.from), expr(f.to), body));
+    }
+
+    private boolean invariant(Expr e, Set<String> assigned, boolean calls)
+    {
+        if (e instanceof Expr.Literal) return true;
+        if (e instanceof Expr.Ident id)
+        {
+            String name = id.name.lexeme;
+            return !assigned.contains(name) && !arrays.contains(name) && (!calls || local(name));
+        }
+        if (e instanceof Expr.Grouping g) return invariant(g.inner, assigned, calls);
+        if (e instanceof Expr.Binary b)
+        {
+            if ((b.op.type == TokenType.DIVIDE || b.op.type == TokenType.PERCENT) && !(b.right instanceof Expr.Literal l && l.value != 0))
+            {
+                return false;
+            }
+            return invariant(b.left, assigned, calls) && invariant(b.right, assigned, calls);
+        }
+        return false;
+    }
+
+    private boolean local(String name)
+    {
+        for (Set<String> scope : scopes)
+        {
+            if (scope.contains(name)) return true;
+        }
+        return false;
+    }
+
+    // isti kljuc za iste izraze, pa se a * b iz dve naredbe izvlaci jednom
+    private static String key(Expr e)
+    {
+        if (e instanceof Expr.Literal l) return Integer.toString(l.value);
+        if (e instanceof Expr.Ident id) return id.name.lexeme;
+        if (e instanceof Expr.Grouping g) return key(g.inner);
+        Expr.Binary b = (Expr.Binary) e;
+        return "(" + key(b.left) + " " + b.op.type + " " + key(b.right) + ")";
+    }
+
+    // imena koja telo menja: dodele, deklaracije i promenljive unutrasnjih petlji
+    private static void assigned(List<Stmt> body, Set<String> out)
+    {
+        for (Stmt s : body)
+        {
+            if (s instanceof Stmt.Assign a) out.add(a.lvalue.name.lexeme);
+            else if (s instanceof Stmt.VarDecl v)
+            {
+                for (Token name : v.names) out.add(name.lexeme);
+            }
+            else if (s instanceof Stmt.BeginIf i)
+            {
+                assigned(i.ifArm.block, out);
+                for (Stmt.BeginIf.Arm arm : i.orIfArms) assigned(arm.block, out);
+                if (i.elseBlock != null) assigned(i.elseBlock, out);
+            }
+            else if (s instanceof Stmt.BeginFor f)
+            {
+                out.add(f.var.lexeme);
+                assigned(f.body, out);
+            }
+        }
+    }
+
+    private void arrays(List<Stmt> body)
+    {
+        for (Stmt s : body)
+        {
+            if (s instanceof Stmt.VarDecl v && !v.dims.isEmpty())
+            {
+                for (Token name : v.names) arrays.add(name.lexeme);
+            }
+            else if (s instanceof Stmt.BeginIf i)
+            {
+                arrays(i.ifArm.block);
+                for (Stmt.BeginIf.Arm arm : i.orIfArms) arrays(arm.block);
+                if (i.elseBlock != null) arrays(i.elseBlock);
+            }
+            else if (s instanceof Stmt.BeginFor f) arrays(f.body);
+        }
+    }
+
+    private static boolean callsIn(List<Stmt> body)
+    {
+        for (Stmt s : body)
+        {
+            if (calls(s)) return true;
+        }
+        return false;
+    }
+
+    private static boolean calls(Stmt s)
+    {
+        if (s instanceof Stmt.CallStmt) return true;
+        if (s instanceof Stmt.Assign a) return calls(a.left) || callsAny(a.lvalue.indices);
+        if (s instanceof Stmt.VarDecl v) return callsAny(v.dims);
+        if (s instanceof Stmt.Return r) return r.expr != null && calls(r.expr);
+        if (s instanceof Stmt.BeginIf i)
+        {
+            if (calls(i.ifArm.cond) || callsIn(i.ifArm.block)) return true;
+            for (Stmt.BeginIf.Arm arm : i.orIfArms)
+            {
+                if (calls(arm.cond) || callsIn(arm.block)) return true;
+            }
+            return i.elseBlock != null && callsIn(i.elseBlock);
+        }
+        if (s instanceof Stmt.BeginFor f) return calls(f.from) || calls(f.to) || callsIn(f.body);
+        return false;
+    }
+
+    private static boolean calls(Expr e)
+    {
+        if (e instanceof Expr.Call) return true;
+        if (e instanceof Expr.Binary b) return calls(b.left) || calls(b.right);
+        if (e instanceof Expr.Grouping g) return calls(g.inner);
+        if (e instanceof Expr.Index ix) return callsAny(ix.indices);
+        return false;
+    }
+
+    private static boolean callsAny(List<Expr> list)
+    {
+        for (Expr e : list)
+        {
+            if (calls(e)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package optimizer;
+
+import interpreter.Resolution;
+import interpreter.Resolver;
+import parser.ast.Ast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Prepisuje stablo pre izvrsavanja, prolazima redom:
+
+    fold      ConstantFolder: konstantni izrazi i zagrade
+    branches  DeadBranches: grane i petlje koje se nikad ne izvrsavaju, kod posle moonWalk
+    hoist     LoopHoister: nepromenljivi izrazi iz tela justBeatIt ispred petlje
+
+    Ulazni program se prvo razresi (Resolver, ili vec proveren), pa program sa greskom u imenima pada isto kao bez
+    optimizacije, i kada je greska u kodu koji bi bio uklonjen. Ulazno stablo se ne menja; rezultat
+    je novo stablo koje svaki Engine izvrsava kao i svako drugo.
+ */
+public final class Optimizer
+{
+    public static final class Pass
+    {
+        public final String name;
+        public final int removed;       // cvorova manje posle prolaza (hoist: iz tela petlji)
+        public final int rewrites;
+
+        Pass(String name, int removed, int rewrites)
+        {
+            this.name = name;
+            this.removed = removed;
+            this.rewrites = rewrites;
+        }
+    }
+
+    private final List<Pass> passes = new ArrayList<>();
+    private int before, after;
+
+    public Ast.Program optimize(Ast.Program program)
+    {
+        return optimize(new Resolver(program).resolve());
+    }
+
+    // ulaz vec razresen (Application, daemon), bez novog prolaza
+    public Ast.Program optimize(Resolution checked)
+    {
+        Ast.Program program = checked.program();
+        passes.clear();
+        before = TreeRewriter.size(program);
+        program = pass("fold", new ConstantFolder(), program);
+        program = pass("branches", new DeadBranches(), program);
+        program = pass("hoist", new LoopHoister(), program);
+        after = TreeRewriter.size(program);
+        return program;
+    }
+
+    private Ast.Program pass(String name, TreeRewriter pass, Ast.Program program)
+    {
+        Ast.Program out = pass.program(program);
+        passes.add(new Pass(name, pass.removed, pass.rewrites));
+        return out;
+    }
+
+    public List<Pass> passes() { return passes; }
+
+    public int nodesBefore() { return before; }
+
+    public int nodesAfter() { return after; }
+
+    // jedan red po prolazu i zbir, za stderr
+    public String report()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Pass p : passes)
+        {
+            sb.append(String.format("%-9s -%d nodes, %d rewrites%n", p.name, p.removed, p.rewrites));
+        }
+        sb.append(String.format("%-9s %d -> %d nodes%n", "total", before, after));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package optimizer;
+
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Osnova za prolaze optimizatora: pravi novo stablo od starog, cvor po cvor. Prolaz menja
+    samo ono sto ga zanima (expr / statement), a ostalo prepisuje ova klasa.
+
+    Cvorovi koje Resolution trazi po identitetu (Ident, Index, LValue, VarDecl, BeginFor, Param, Call)
+    se uvek kopiraju: jedan cvor ne sme da bude na dva mesta u stablu, a staro i novo stablo imaju
+    svaki svoj Resolution.
+    Naredba moze da postane nula ili vise naredbi (statement dodaje u out); na vrhu programa
+    VarDecl iz out postaje TopVarDecl, ostalo TopStmt.
+ */
+abstract class TreeRewriter
+{
+    protected int removed;      // cvorova manje nego pre prolaza
+    protected int rewrites;     // broj izmena koje je prolaz napravio
+
+    Ast.Program program(Ast.Program p)
+    {
+        List<Ast.TopItem> items = new ArrayList<>(p.items.size());
+        List<Stmt> out = new ArrayList<>();
+        for (Ast.TopItem item : p.items)
+        {
+            if (item instanceof Ast.FuncDef f)
+            {
+                items.add(function(f));
+                continue;
+            }
+            out.clear();
+            if (item instanceof Ast.TopVarDecl v) topDecl(v.decl, out);
+            else if (item instanceof Ast.TopStmt s) statement(s.stmt, out);
+            for (Stmt s : out) items.add(s instanceof Stmt.VarDecl v ? new Ast.TopVarDecl(v) : new Ast.TopStmt(s));
+        }
+        return new Ast.Program(p.explicitProgram, items);
+    }
+
+    Ast.FuncDef function(Ast.FuncDef f)
+    {
+        List<Ast.Param> params = new ArrayList<>(f.params.size());
+        for (Ast.Param p : f.params) params.add(new Ast.Param(p.name, p.type));
+        return new Ast.FuncDef(f.name, params, f.returnType, block(f.body));
+    }
+
+    void topDecl(Stmt.VarDecl v, List<Stmt> out)
+    {
+        out.add(varDecl(v));
+    }
+
+    List<Stmt> block(List<Stmt> body)
+    {
+        List<Stmt> out = new ArrayList<>(body.size());
+        for (Stmt s : body) statement(s, out);
+        return out;
+    }
+
+    void statement(Stmt s, List<Stmt> out)
+    {
+        out.add(copy(s));
+    }
+
+    // prepisuje jednu naredbu, sa decom kroz expr/block
+    final Stmt copy(Stmt s)
+    {
+        if (s instanceof Stmt.Assign a) return new Stmt.Assign(expr(a.left), new Stmt.LValue(a.lvalue.name, exprs(a.lvalue.indices)));
+        if (s instanceof Stmt.VarDecl v) return varDecl(v);
+        if (s instanceof Stmt.CallStmt c) return new Stmt.CallStmt(call(c.call));
+        if (s instanceof Stmt.Return r) return new Stmt.Return(r.expr == null ? null : expr(r.expr));
+        if (s instanceof Stmt.BeginIf i)
+        {
+            List<Stmt.BeginIf.Arm> arms = new ArrayList<>(i.orIfArms.size());
+            for (Stmt.BeginIf.Arm arm : i.orIfArms) arms.add(arm(arm));
+            return new Stmt.BeginIf(arm(i.ifArm), arms, i.elseBlock == null ? null : block(i.elseBlock));
+        }
+        if (s instanceof Stmt.BeginFor f) return new Stmt.BeginFor(f.var, expr(f.from), expr(f.to), block(f.body));
+        throw new IllegalStateException("Unknown statement " + s.getClass().getSimpleName());
+    }
+
+    final Stmt.BeginIf.Arm arm(Stmt.BeginIf.Arm arm)
+    {
+        return new Stmt.BeginIf.Arm(expr(arm.cond), block(arm.block));
+    }
+
+    final Stmt.VarDecl varDecl(Stmt.VarDecl v)
+    {
+        return new Stmt.VarDecl(exprs(v.dims), v.names);
+    }
+
+    Expr expr(Expr e)
+    {
+        if (e instanceof Expr.Binary b)
+        {
+            Expr left = expr(b.left), right = expr(b.right);
+            return left == b.left && right == b.right ? b : new Expr.Binary(left, b.op, right);
+        }
+        if (e instanceof Expr.Grouping g)
+        {
+            Expr inner = expr(g.inner);
+            return inner == g.inner ? g : new Expr.Grouping(inner);
+        }
+        if (e instanceof Expr.Ident id) return new Expr.Ident(id.name);
+        if (e instanceof Expr.Index ix) return new Expr.Index(ix.name, exprs(ix.indices));
+        if (e instanceof Expr.Call c) return call(c);
+        return e;
+    }
+
+    final Expr.Call call(Expr.Call c)
+    {
+        return new Expr.Call(c.callTok, c.callee, exprs(c.args));
+    }
+
+    final List<Expr> exprs(List<Expr> list)
+    {
+        if (list.isEmpty()) return List.of();
+        List<Expr> out = new ArrayList<>(list.size());
+        for (Expr e : list) out.add(expr(e));
+        return out;
+    }
+
+    // broj cvorova (Expr i Stmt) u stablu, za statistiku
+    static int size(Ast.Program p)
+    {
+        int n = 0;
+        for (Ast.TopItem item : p.items)
+        {
+            if (item instanceof Ast.FuncDef f) n += size(f.body);
+            else if (item instanceof Ast.TopVarDecl v) n += size(v.decl);
+            else if (item instanceof Ast.TopStmt s) n += size(s.stmt);
+        }
+        return n;
+    }
+
+    static int size(List<Stmt> body)
+    {
+        int n = 0;
+        for (Stmt s : body) n += size(s);
+        return n;
+    }
+
+    static int size(Stmt s)
+    {
+        if (s instanceof Stmt.Assign a) return 1 + size(a.left) + sizes(a.lvalue.indices);
+        if (s instanceof Stmt.VarDecl v) return 1 + sizes(v.dims);
+        if (s instanceof Stmt.CallStmt c) return 1 + size(c.call);
+        if (s instanceof Stmt.Return r) return 1 + (r.expr == null ? 0 : size(r.expr));
+        if (s instanceof Stmt.BeginIf i)
+        {
+            int n = 1 + size(i.ifArm);
+            for (Stmt.BeginIf.Arm arm : i.orIfArms) n += size(arm);
+            return i.elseBlock == null ? n : n + size(i.elseBlock);
+        }
+        if (s instanceof Stmt.BeginFor f) return 1 + size(f.from) + size(f.to) + size(f.body);
+        return 1;
+    }
+
+    static int size(Stmt.BeginIf.Arm arm)
+    {
+        return size(arm.cond) + size(arm.block);
+    }
+
+    static int size(Expr e)
+    {
+        if (e instanceof Expr.Binary b) return 1 + size(b.left) + size(b.right);
+        if (e instanceof Expr.Grouping g) return 1 + size(g.inner);
+        if (e instanceof Expr.Index ix) return 1 + sizes(ix.indices);
+        if (e instanceof Expr.Call c) return 1 + sizes(c.args);
+        return 1;
+    }
+
+    private static int sizes(List<Expr> list)
+    {
+        int n = 0;
+        for (Expr e : list) n += size(e);
+        return n;
+    }
+}
@@ -1,4 +1,517 @@
 package parser;
 
-public class RecognizerParser {
+import lexer.token.Token;
+import lexer.token.TokenStream;
+import lexer.token.TokenType;
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Gramatika (NEWLINE ili ';' zavrsava naredbu):
+
+    program   := 'jam' item* 'jamOut'  |  item*                   (prvi oblik: explicitProgram)
+    item      := funcDef | varDecl | stmt
+    funcDef   := 'smoothCriminal' IDENT '(' (param (',' param)*)? ')' (':' type)? block
+    param     := IDENT ':' type
+    type      := 'heehee' ('[' ']')*
+    varDecl   := 'heehee' IDENT (',' IDENT)*  |  'array' 'heehee' ('[' expr ']')+ IDENT (',' IDENT)*
+    stmt      := varDecl
+               | 'moonWalk' expr?
+               | 'shamona' IDENT '(' args ')'
+               | 'annieAreYouOkay' expr block ('fightForYourLife' 'annieAreYouOkay' expr block)* ('fightForYourLife' block)?
+               | 'justBeatIt' IDENT 'from' expr 'glideTo' expr block
+               | expr 'moves' lvalue  |  lvalue '=' expr
+    block     := 'jam' stmt* 'jamOut'
+
+    Izrazi se parsiraju penjanjem po prioritetu (tabela PREC), od najslabijeg:
+    eitherWay < and/&& < == != < < <= > >= < + - < * / %.
+    Unarni operatori nemaju svoj cvor: -e postaje 0 - e, a !e / lieBecomesTheTruth e postaje e == 0.
+
+    Posle greske parser preskace do kraja reda ili do 'jamOut' i nastavlja, pa jedan prolaz
+    prijavljuje sve sintaksne greske (errors()).
+ */
+public class RecognizerParser
+{
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final byte[] PREC = new byte[TYPES.length];
+
+    static
+    {
+        PREC[TokenType.OR.ordinal()] = 1;
+        PREC[TokenType.AND.ordinal()] = 2;
+        PREC[TokenType.EQ.ordinal()] = 3;
+        PREC[TokenType.NEQ.ordinal()] = 3;
+        PREC[TokenType.LT.ordinal()] = 4;
+        PREC[TokenType.LE.ordinal()] = 4;
+        PREC[TokenType.GT.ordinal()] = 4;
+        PREC[TokenType.GE.ordinal()] = 4;
+        PREC[TokenType.ADD.ordinal()] = 5;
+        PREC[TokenType.SUBTRACT.ordinal()] = 5;
+        PREC[TokenType.MULTIPLY.ordinal()] = 6;
+        PREC[TokenType.DIVIDE.ordinal()] = 6;
+        PREC[TokenType.PERCENT.ordinal()] = 6;
+    }
+
+    // bez stack trace-a: baca se samo da bi se odmotalo do naredbe koja se oporavlja
+    private static final class ParseError extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        ParseError(String msg)
+        {
+            super(msg, null, false, false);
+        }
+    }
+
+    private final TokenStream ts;
+    private final List<String> errors = new ArrayList<>();
+    private int pos;
+    private boolean afterError;
+
+    public RecognizerParser(TokenStream tokens)
+    {
+        this.ts = tokens;
+    }
+
+    public List<String> errors() { return errors; }
+
+    public Ast.Program parse()
+    {
+        skipNewlines();
+        boolean explicit = at(TokenType.BEGIN);
+        List<Ast.TopItem> items = new ArrayList<>();
+        if (explicit)
+        {
+            pos++;
+            items(items, TokenType.END);
+            if (!match(TokenType.END)) report("Expected 'jamOut' at the end of the program");
+            skipNewlines();
+        }
+        else
+        {
+            items(items, TokenType.EOF);
+        }
+        if (!at(TokenType.EOF)) report("Unexpected " + describe(pos) + " after the end of the program");
+        return new Ast.Program(explicit, items);
+    }
+
+    private void items(List<Ast.TopItem> items, TokenType end)
+    {
+        while (true)
+        {
+            skipNewlines();
+            if (at(end) || at(TokenType.EOF)) return;
+            try
+            {
+                Ast.TopItem item = item();
+                if (item != null) items.add(item);
+                endOfStatement();
+                if (item != null) afterError = false;
+            }
+            catch (ParseError e)
+            {
+                recover(e);
+                // zalutali 'jamOut' van bloka je vec prijavljen, preskace se
+                if (at(TokenType.END) && end != TokenType.END) pos++;
+            }
+        }
+    }
+
+    private Ast.TopItem item()
+    {
+        switch (type(pos))
+        {
+            case FUNCTION:
+                return funcDef();
+            case INT:
+            case ARRAY:
+                return new Ast.TopVarDecl(varDecl());
+            default:
+                Stmt s = statement();
+                return s == null ? null : new Ast.TopStmt(s);
+        }
+    }
+
+    private Ast.FuncDef funcDef()
+    {
+        pos++;
+        Token name = token(expect(TokenType.IDENT, "Expected function name"));
+        expect(TokenType.LPAREN, "Expected '(' after function name");
+        List<Ast.Param> params = new ArrayList<>();
+        if (!at(TokenType.RPAREN))
+        {
+            do
+            {
+                Token p = token(expect(TokenType.IDENT, "Expected parameter name"));
+                expect(TokenType.TYPE_COLON, "Expected ':' after parameter name");
+                params.add(new Ast.Param(p, type()));
+            }
+            while (match(TokenType.SEPARATOR_COMMA));
+        }
+        expect(TokenType.RPAREN, "Expected ')' after parameters");
+        Ast.Type ret = match(TokenType.TYPE_COLON) ? type() : new Ast.Type(Ast.Type.Kind.VOID, null, 0);
+        return new Ast.FuncDef(name, params, ret, block());
+    }
+
+    private Ast.Type type()
+    {
+        Token base = token(expect(TokenType.INT, "Expected type 'heehee'"));
+        int rank = 0;
+        while (match(TokenType.LBRACKET))
+        {
+            expect(TokenType.RBRACKET, "Expected ']' in array type");
+            rank++;
+        }
+        return new Ast.Type(Ast.Type.Kind.INT, base, rank);
+    }
+
+    private Stmt.VarDecl varDecl()
+    {
+        List<Expr> dims = new ArrayList<>();
+        if (match(TokenType.ARRAY))
+        {
+            expect(TokenType.INT, "Expected 'heehee' after 'array'");
+            do
+            {
+                expect(TokenType.LBRACKET, "Expected '[' with array dimension");
+                dims.add(expression());
+                expect(TokenType.RBRACKET, "Expected ']' after array dimension");
+            }
+            while (at(TokenType.LBRACKET));
+        }
+        else
+        {
+            pos++;
+        }
+        List<Token> names = new ArrayList<>();
+        do
+        {
+            names.add(token(expect(TokenType.IDENT, "Expected variable name")));
+        }
+        while (match(TokenType.SEPARATOR_COMMA));
+        return new Stmt.VarDecl(dims, names);
+    }
+
+    private List<Stmt> block()
+    {
+        skipNewlines();
+        expect(TokenType.BEGIN, "Expected 'jam' to open a block");
+        List<Stmt> body = new ArrayList<>();
+        while (true)
+        {
+            skipNewlines();
+            if (at(TokenType.END) || at(TokenType.EOF)) break;
+            try
+            {
+                Stmt s = statement();
+                if (s != null) body.add(s);
+                endOfStatement();
+                if (s != null) afterError = false;
+            }
+            catch (ParseError e)
+            {
+                recover(e);
+            }
+        }
+        expect(TokenType.END, "Expected 'jamOut' to close the block");
+        return body;
+    }
+
+    // null kada je naredba samo ostatak iza greske u zaglavlju (blok ili grana), on se preskace
+    private Stmt statement()
+    {
+        switch (type(pos))
+        {
+            case INT:
+            case ARRAY:
+                return varDecl();
+            case RETURN:
+            {
+                pos++;
+                return new Stmt.Return(atStatementEnd() ? null : expression());
+            }
+            case CALL:
+                return new Stmt.CallStmt(call(pos++));
+            case IF:
+                return ifStatement();
+            case FOR:
+                return forStatement();
+            case BEGIN:
+            {
+                if (!afterError) report("Block without 'annieAreYouOkay', 'justBeatIt' or 'smoothCriminal'");
+                block();
+                afterError = true;
+                return null;
+            }
+            case ELSE:
+            {
+                if (!afterError) report("'fightForYourLife' without 'annieAreYouOkay'");
+                pos++;
+                if (match(TokenType.IF)) expression();
+                block();
+                afterError = true;
+                return null;
+            }
+            default:
+                return assignment();
+        }
+    }
+
+    private Stmt.BeginIf ifStatement()
+    {
+        pos++;
+        Stmt.BeginIf.Arm ifArm = new Stmt.BeginIf.Arm(expression(), block());
+        List<Stmt.BeginIf.Arm> orIfArms = new ArrayList<>();
+        List<Stmt> elseBlock = null;
+        while (nextSignificant() == TokenType.ELSE)
+        {
+            skipNewlines();
+            pos++;
+            if (match(TokenType.IF))
+            {
+                orIfArms.add(new Stmt.BeginIf.Arm(expression(), block()));
+            }
+            else
+            {
+                elseBlock = block();
+                break;
+            }
+        }
+        return new Stmt.BeginIf(ifArm, orIfArms, elseBlock);
+    }
+
+    private Stmt.BeginFor forStatement()
+    {
+        pos++;
+        Token var = token(expect(TokenType.IDENT, "Expected loop variable after 'justBeatIt'"));
+        expect(TokenType.FROM, "Expected 'from' after loop variable");
+        Expr from = expression();
+        expect(TokenType.TO, "Expected 'glideTo' after loop start");
+        Expr to = expression();
+        return new Stmt.BeginFor(var, from, to, block());
+    }
+
+    // expr moves lvalue  ili  lvalue = expr
+    private Stmt.Assign assignment()
+    {
+        int begin = pos;
+        Expr e = expression();
+        if (match(TokenType.GOES))
+        {
+            Token name = token(expect(TokenType.IDENT, "Expected variable after 'moves'"));
+            return new Stmt.Assign(e, new Stmt.LValue(name, indices()));
+        }
+        if (at(TokenType.ASSIGN))
+        {
+            Stmt.LValue target;
+            if (e instanceof Expr.Ident id) target = new Stmt.LValue(id.name, List.of());
+            else if (e instanceof Expr.Index ix) target = new Stmt.LValue(ix.name, ix.indices);
+            else throw error(begin, "Left side of '=' is not a variable");
+            pos++;
+            return new Stmt.Assign(expression(), target);
+        }
+        throw error(pos, "Expected 'moves' or '=' in statement");
+    }
+
+    public Expr expression()
+    {
+        return binary(1);
+    }
+
+    // penjanje po prioritetu: svi operatori su levo asocijativni
+    private Expr binary(int minPrec)
+    {
+        Expr left = unary();
+        while (true)
+        {
+            int prec = PREC[type(pos).ordinal()];
+            if (prec < minPrec || prec == 0) return left;
+            Token op = token(pos++);
+            left = new Expr.Binary(left, op, binary(prec + 1));
+        }
+    }
+
+    private Expr unary()
+    {
+        TokenType t = type(pos);
+        if (t == TokenType.SUBTRACT)
+        {
+            Token op = token(pos++);
+            Expr operand = unary();
+            return new Expr.Binary(zero(op), op, operand);
+        }
+        if (t == TokenType.NOT)
+        {
+            Token not = token(pos++);
+            Expr operand = unary();
+            Token eq = new Token(TokenType.EQ, not.lexeme, null, not.line, not.colStart, not.colEnd);
+            return new Expr.Binary(operand, eq, zero(not));
+        }
+        return primary();
+    }
+
+    private static Expr.Literal zero(Token at)
+    {
+        return new Expr.Literal(new Token(TokenType.INT_LIT, "0", 0, at.line, at.colStart, at.colStart), 0);
+    }
+
+    private Expr primary()
+    {
+        switch (type(pos))
+        {
+            case INT_LIT:
+            {
+                int i = pos++;
+                return new Expr.Literal(token(i), ts.literal(i));
+            }
+            case TRUE:
+                return new Expr.Literal(token(pos++), 1);
+            case FALSE:
+                return new Expr.Literal(token(pos++), 0);
+            case CALL:
+                return call(pos++);
+            case LPAREN:
+            {
+                pos++;
+                Expr inner = expression();
+                expect(TokenType.RPAREN, "Expected ')' after expression");
+                return new Expr.Grouping(inner);
+            }
+            case IDENT:
+            {
+                int name = pos;
+                if (type(pos + 1) == TokenType.LPAREN) return call(name);
+                pos++;
+                if (!at(TokenType.LBRACKET)) return new Expr.Ident(token(name));
+                return new Expr.Index(token(name), indices());
+            }
+            default:
+                throw error(pos, "Expected expression");
+        }
+    }
+
+    // callTok je 'shamona' ako postoji, inace samo ime
+    private Expr.Call call(int callTok)
+    {
+        int name = type(callTok) == TokenType.CALL ? expect(TokenType.IDENT, "Expected function name after 'shamona'") : pos++;
+        expect(TokenType.LPAREN, "Expected '(' after function name");
+        List<Expr> args = new ArrayList<>();
+        if (!at(TokenType.RPAREN))
+        {
+            do
+            {
+                args.add(expression());
+            }
+            while (match(TokenType.SEPARATOR_COMMA));
+        }
+        expect(TokenType.RPAREN, "Expected ')' after arguments");
+        Token callee = token(name);
+        return new Expr.Call(callTok == name ? callee : token(callTok), callee, args);
+    }
+
+    private List<Expr> indices()
+    {
+        if (!at(TokenType.LBRACKET)) return List.of();
+        List<Expr> indices = new ArrayList<>();
+        while (match(TokenType.LBRACKET))
+        {
+            indices.add(expression());
+            expect(TokenType.RBRACKET, "Expected ']' after index");
+        }
+        return indices;
+    }
+
+    private void endOfStatement()
+    {
+        if (match(TokenType.NEWLINE) || match(TokenType.SEPARATOR_SEMICOLON)) return;
+        if (at(TokenType.END) || at(TokenType.EOF)) return;
+        throw error(pos, "Expected end of line");
+    }
+
+    private boolean atStatementEnd()
+    {
+        TokenType t = type(pos);
+        return t == TokenType.NEWLINE || t == TokenType.SEPARATOR_SEMICOLON || t == TokenType.END || t == TokenType.EOF;
+    }
+
+    // preskace do kraja reda; 'jamOut' ostaje za blok koji ga ceka
+    private void recover(ParseError e)
+    {
+        errors.add(e.getMessage());
+        afterError = true;
+        while (true)
+        {
+            TokenType t = type(pos);
+            if (t == TokenType.EOF || t == TokenType.END) return;
+            pos++;
+            if (t == TokenType.NEWLINE) return;
+        }
+    }
+
+    private TokenType nextSignificant()
+    {
+        int i = pos;
+        while (type(i) == TokenType.NEWLINE) i++;
+        return type(i);
+    }
+
+    private void skipNewlines()
+    {
+        while (true)
+        {
+            TokenType t = type(pos);
+            if (t != TokenType.NEWLINE && t != TokenType.SEPARATOR_SEMICOLON) return;
+            pos++;
+        }
+    }
+
+    private TokenType type(int i)
+    {
+        return i < ts.size() ? ts.type(i) : TokenType.EOF;
+    }
+
+    private boolean at(TokenType t)
+    {
+        return type(pos) == t;
+    }
+
+    private boolean match(TokenType t)
+    {
+        if (type(pos) != t) return false;
+        pos++;
+        return true;
+    }
+
+    // vraca indeks prepoznatog tokena
+    private int expect(TokenType t, String msg)
+    {
+        if (type(pos) != t) throw error(pos, msg);
+        return pos++;
+    }
+
+    private Token token(int i)
+    {
+        return ts.get(i);
+    }
+
+    private ParseError error(int i, String msg)
+    {
+        return new ParseError("JAMCRASH > " + msg + " at " + ts.line(i) + ":" + ts.colStart(i) + " near " + describe(i));
+    }
+
+    private void report(String msg)
+    {
+        errors.add(error(pos, msg).getMessage());
+    }
+
+    private String describe(int i)
+    {
+        if (type(i) == TokenType.EOF) return "end of file";
+        if (type(i) == TokenType.NEWLINE) return "end of line";
+        return "'" + ts.lexeme(i) + "'";
+    }
 }
@@ -0,0 +1,465 @@
+package parser.ast;
+
+import lexer.token.Token;
+import lexer.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Isti program kao Ast.Program, ali u tri int[] niza umesto objekata:
+
+    nodes   4 int-a po cvoru: vrsta, token, a, b
+    lists   nizovi dece: broj elemenata pa elementi (cvorovi ili tokeni); lista je ofset u lists
+    tokens  8 int-ova po tokenu: tip, leksem (indeks u lexemes), ima literal, literal, red, kolone, id imena
+
+    Polja a i b po vrsti cvora (- je neiskorisceno, -1 je "nema"):
+
+    LITERAL   token         a vrednost
+    IDENT     ime
+    INDEX     ime           a lista indeksa
+    GROUPING  -             a unutrasnji izraz
+    CALL      ime funkcije  a shamona token (ili ime)     b lista argumenata
+    BINARY    operator      a levi                        b desni
+    VAR_DECL  -             a lista dimenzija             b lista imena (tokeni)
+    RETURN    -             a izraz ili -1
+    ASSIGN    -             a izraz                       b LVALUE
+    LVALUE    ime           a lista indeksa
+    CALL_STMT -             a CALL
+    IF        -             a lista ARM cvorova           b else lista ili -1
+    ARM       -             a uslov                       b lista naredbi
+    FOR       promenljiva   a od                          b do;  telo je sledeci cvor (BLOCK)
+    BLOCK     -             a lista naredbi
+    FUNC      ime           a lista PARAM cvorova         b telo;  povratni tip je sledeci cvor (TYPE)
+    PARAM     ime           a TYPE
+    TYPE      osnovni tip   a Ast.Type.Kind ordinal       b rang
+
+    Stavke programa (items) su FUNC, VAR_DECL (globalna) ili naredba. Deca se upisuju pre roditelja,
+    pa obilazak nodes redom ide odozdo nagore, bez skakanja po memoriji.
+
+    Obilazak ide preko FlatAst.Visitor: accept(n, v) bira metodu po vrsti cvora, a posetilac cita
+    decu preko id-ova (left, args, body...), bez ijednog objekta po cvoru.
+
+    expr(n) / stmt(n) / toProgram() prave Expr/Stmt objekte (za ispis, poredjenje i postojece
+    Expr.Visitor / Stmt.Visitor); cvor se pravi tek kada se trazi i pamti se. To je put za debug i
+    kompatibilnost, ne za obilazak.
+ */
+public final class FlatAst
+{
+    public static final int LITERAL = 1, IDENT = 2, INDEX = 3, GROUPING = 4, CALL = 5, BINARY = 6,
+            VAR_DECL = 7, RETURN = 8, ASSIGN = 9, LVALUE = 10, CALL_STMT = 11, IF = 12, ARM = 13,
+            FOR = 14, BLOCK = 15, FUNC = 16, PARAM = 17, TYPE = 18;
+
+    private static final int NODE = 4, TOKEN = 8;
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final Ast.Type.Kind[] KINDS = Ast.Type.Kind.values();
+
+    private int[] nodes = new int[NODE * 64];
+    private int nodeCount;
+    private int[] lists = new int[64];
+    private int listSize;
+    private int[] tokens = new int[TOKEN * 64];
+    private int tokenCount;
+    private String[] lexemes = new String[16];
+    private int lexemeCount;
+
+    private boolean explicitProgram;
+    private int items;
+
+    private Object[] objects;       // expr/stmt: vec napravljeni Expr/Stmt po cvoru
+    private Token[] tokenObjects;
+
+    private FlatAst() {}
+
+    // ---------------------------------------------------------------- citanje
+
+    public int nodeCount() { return nodeCount; }
+    public int kind(int n) { return nodes[NODE * n]; }
+    public int token(int n) { return nodes[NODE * n + 1]; }
+    public int a(int n) { return nodes[NODE * n + 2]; }
+    public int b(int n) { return nodes[NODE * n + 3]; }
+
+    public boolean explicitProgram() { return explicitProgram; }
+    public int items() { return items; }
+
+    public int size(int list) { return lists[list]; }
+    public int at(int list, int i) { return lists[list + 1 + i]; }
+
+    // polja po vrsti cvora (tabela gore), da posetilac ne mora da pamti sta je a, a sta b
+    public int value(int literal) { return a(literal); }
+    public int indices(int indexOrLvalue) { return a(indexOrLvalue); }
+    public int inner(int grouping) { return a(grouping); }
+    public int args(int call) { return b(call); }
+    public int left(int binary) { return a(binary); }
+    public int right(int binary) { return b(binary); }
+    public int dims(int varDecl) { return a(varDecl); }
+    public int names(int varDecl) { return b(varDecl); }
+    public int returned(int ret) { return a(ret); }                  // -1: moonWalk bez vrednosti
+    public int assigned(int assign) { return a(assign); }
+    public int lvalue(int assign) { return b(assign); }
+    public int call(int callStmt) { return a(callStmt); }
+    public int arms(int ifNode) { return a(ifNode); }
+    public int elseBlock(int ifNode) { return b(ifNode); }           // -1 bez poslednje grane
+    public int cond(int arm) { return a(arm); }
+    public int block(int arm) { return b(arm); }
+    public int from(int forNode) { return a(forNode); }
+    public int to(int forNode) { return b(forNode); }
+    public int body(int forOrFunc) { return kind(forOrFunc) == FOR ? a(forOrFunc + 1) : b(forOrFunc); }
+    public int params(int func) { return a(func); }
+
+    // ---------------------------------------------------------------- obilazak nad nizovima
+
+    public interface Visitor<R>
+    {
+        R visitLiteral(int n);
+        R visitIdent(int n);
+        R visitIndex(int n);
+        R visitGrouping(int n);
+        R visitCall(int n);
+        R visitBinary(int n);
+        R visitVarDecl(int n);
+        R visitReturn(int n);
+        R visitAssign(int n);
+        R visitCallStmt(int n);
+        R visitIf(int n);
+        R visitFor(int n);
+    }
+
+    public <R> R accept(int n, Visitor<R> v)
+    {
+        return switch (kind(n))
+        {
+            case LITERAL -> v.visitLiteral(n);
+            case IDENT -> v.visitIdent(n);
+            case INDEX -> v.visitIndex(n);
+            case GROUPING -> v.visitGrouping(n);
+            case CALL -> v.visitCall(n);
+            case BINARY -> v.visitBinary(n);
+            case VAR_DECL -> v.visitVarDecl(n);
+            case RETURN -> v.visitReturn(n);
+            case ASSIGN -> v.visitAssign(n);
+            case CALL_STMT -> v.visitCallStmt(n);
+            case IF -> v.visitIf(n);
+            case FOR -> v.visitFor(n);
+            default -> throw new IllegalArgumentException("Node " + n + " is not an expression or a statement");
+        };
+    }
+
+    public int tokenCount() { return tokenCount; }
+    public TokenType tokenType(int t) { return TYPES[tokens[TOKEN * t]]; }
+    public String lexeme(int t) { return lexemes[tokens[TOKEN * t + 1]]; }
+    public int line(int t) { return tokens[TOKEN * t + 4]; }
+    public int colStart(int t) { return tokens[TOKEN * t + 5]; }
+
+    // zauzeta memorija nizova (bez leksema, koji su isti String-ovi kao u stablu)
+    public long bytes()
+    {
+        return 4L * (NODE * nodeCount + listSize + TOKEN * tokenCount) + 4L * lexemeCount;
+    }
+
+    // ---------------------------------------------------------------- pravljenje
+
+    public static FlatAst of(Ast.Program program)
+    {
+        return new Builder().program(program);
+    }
+
+    private static final class Builder
+    {
+        final FlatAst f = new FlatAst();
+        final Map<Token, Integer> tokenIds = new IdentityHashMap<>();
+        final Map<String, Integer> lexemeIds = new HashMap<>();
+        final List<int[]> pending = new ArrayList<>();      // liste se skupljaju pa upisuju u komadu
+
+        FlatAst program(Ast.Program p)
+        {
+            int[] items = new int[p.items.size()];
+            for (int i = 0; i < items.length; i++)
+            {
+                Ast.TopItem item = p.items.get(i);
+                if (item instanceof Ast.FuncDef fn) items[i] = function(fn);
+                else if (item instanceof Ast.TopVarDecl v) items[i] = varDecl(v.decl);
+                else items[i] = statement(((Ast.TopStmt) item).stmt);
+            }
+            f.explicitProgram = p.explicitProgram;
+            f.items = list(items);
+            f.nodes = Arrays.copyOf(f.nodes, NODE * f.nodeCount);
+            f.lists = Arrays.copyOf(f.lists, f.listSize);
+            f.tokens = Arrays.copyOf(f.tokens, TOKEN * f.tokenCount);
+            f.lexemes = Arrays.copyOf(f.lexemes, f.lexemeCount);
+            return f;
+        }
+
+        int function(Ast.FuncDef fn)
+        {
+            int[] params = new int[fn.params.size()];
+            for (int i = 0; i < params.length; i++)
+            {
+                Ast.Param p = fn.params.get(i);
+                int type = type(p.type);
+                params[i] = node(PARAM, token(p.name), type, 0);
+            }
+            int paramList = list(params), body = block(fn.body);
+            int n = node(FUNC, token(fn.name), paramList, body);
+            type(fn.returnType);
+            return n;
+        }
+
+        int type(Ast.Type t)
+        {
+            return node(TYPE, token(t.baseType), t.kind.ordinal(), t.rank);
+        }
+
+        int block(List<Stmt> body)
+        {
+            if (body == null) return -1;
+            int[] stmts = new int[body.size()];
+            for (int i = 0; i < stmts.length; i++) stmts[i] = statement(body.get(i));
+            return list(stmts);
+        }
+
+        int statement(Stmt s)
+        {
+            if (s instanceof Stmt.VarDecl v) return varDecl(v);
+            if (s instanceof Stmt.Return r) return node(RETURN, -1, r.expr == null ? -1 : expr(r.expr), 0);
+            if (s instanceof Stmt.Assign a)
+            {
+                int value = expr(a.left);
+                int lv = node(LVALUE, token(a.lvalue.name), exprs(a.lvalue.indices), 0);
+                return node(ASSIGN, -1, value, lv);
+            }
+            if (s instanceof Stmt.CallStmt c) return node(CALL_STMT, -1, expr(c.call), 0);
+            if (s instanceof Stmt.BeginIf i)
+            {
+                int[] arms = new int[1 + i.orIfArms.size()];
+                arms[0] = arm(i.ifArm);
+                for (int k = 0; k < i.orIfArms.size(); k++) arms[k + 1] = arm(i.orIfArms.get(k));
+                int armList = list(arms);
+                return node(IF, -1, armList, block(i.elseBlock));
+            }
+            Stmt.BeginFor f = (Stmt.BeginFor) s;
+            int from = expr(f.from), to = expr(f.to), body = block(f.body);
+            int n = node(FOR, token(f.var), from, to);
+            node(BLOCK, -1, body, 0);
+            return n;
+        }
+
+        int arm(Stmt.BeginIf.Arm arm)
+        {
+            int cond = expr(arm.cond);
+            return node(ARM, -1, cond, block(arm.block));
+        }
+
+        int varDecl(Stmt.VarDecl v)
+        {
+            int dims = exprs(v.dims);
+            int[] names = new int[v.names.size()];
+            for (int i = 0; i < names.length; i++) names[i] = token(v.names.get(i));
+            return node(VAR_DECL, -1, dims, list(names));
+        }
+
+        int exprs(List<Expr> list)
+        {
+            int[] ids = new int[list.size()];
+            for (int i = 0; i < ids.length; i++) ids[i] = expr(list.get(i));
+            return list(ids);
+        }
+
+        int expr(Expr e)
+        {
+            if (e instanceof Expr.Binary b)
+            {
+                int left = expr(b.left), right = expr(b.right);
+                return node(BINARY, token(b.op), left, right);
+            }
+            if (e instanceof Expr.Literal l) return node(LITERAL, token(l.token), l.value, 0);
+            if (e instanceof Expr.Ident id) return node(IDENT, token(id.name), 0, 0);
+            if (e instanceof Expr.Grouping g) return node(GROUPING, -1, expr(g.inner), 0);
+            if (e instanceof Expr.Index ix) return node(INDEX, token(ix.name), exprs(ix.indices), 0);
+            Expr.Call c = (Expr.Call) e;
+            int args = exprs(c.args);
+            return node(CALL, token(c.callee), token(c.callTok), args);
+        }
+
+        int node(int kind, int token, int a, int b)
+        {
+            if (NODE * (f.nodeCount + 1) > f.nodes.length) f.nodes = Arrays.copyOf(f.nodes, f.nodes.length * 2);
+            int at = NODE * f.nodeCount;
+            f.nodes[at] = kind;
+            f.nodes[at + 1] = token;
+            f.nodes[at + 2] = a;
+            f.nodes[at + 3] = b;
+            return f.nodeCount++;
+        }
+
+        int list(int[] elements)
+        {
+            int need = f.listSize + 1 + elements.length;
+            if (need > f.lists.length) f.lists = Arrays.copyOf(f.lists, Math.max(need, f.lists.length * 2));
+            int at = f.listSize;
+            f.lists[at] = elements.length;
+            System.arraycopy(elements, 0, f.lists, at + 1, elements.length);
+            f.listSize = need;
+            return at;
+        }
+
+        // isti Token objekat je isti token; -1 za null (povratni tip bez osnovnog tipa)
+        int token(Token t)
+        {
+            if (t == null) return -1;
+            Integer id = tokenIds.get(t);
+            if (id != null) return id;
+            if (TOKEN * (f.tokenCount + 1) > f.tokens.length) f.tokens = Arrays.copyOf(f.tokens, f.tokens.length * 2);
+            int at = TOKEN * f.tokenCount;
+            f.tokens[at] = t.type.ordinal();
+            f.tokens[at + 1] = lexeme(t.lexeme);
+            f.tokens[at + 2] = t.literal != null ? 1 : 0;
+            f.tokens[at + 3] = t.literal != null ? t.literal : 0;
+            f.tokens[at + 4] = t.line;
+            f.tokens[at + 5] = t.colStart;
+            f.tokens[at + 6] = t.colEnd;
+            f.tokens[at + 7] = t.symbol;
+            tokenIds.put(t, f.tokenCount);
+            return f.tokenCount++;
+        }
+
+        int lexeme(String s)
+        {
+            Integer id = lexemeIds.get(s);
+            if (id != null) return id;
+            if (f.lexemeCount == f.lexemes.length) f.lexemes = Arrays.copyOf(f.lexemes, f.lexemeCount * 2);
+            f.lexemes[f.lexemeCount] = s;
+            lexemeIds.put(s, f.lexemeCount);
+            return f.lexemeCount++;
+        }
+    }
+
+    // ---------------------------------------------------------------- objekti (debug, kompatibilnost)
+
+    public Ast.Program toProgram()
+    {
+        List<Ast.TopItem> out = new ArrayList<>(size(items));
+        for (int i = 0; i < size(items); i++)
+        {
+            int n = at(items, i);
+            switch (kind(n))
+            {
+                case FUNC -> out.add(function(n));
+                case VAR_DECL -> out.add(new Ast.TopVarDecl((Stmt.VarDecl) stmt(n)));
+                default -> out.add(new Ast.TopStmt(stmt(n)));
+            }
+        }
+        return new Ast.Program(explicitProgram, out);
+    }
+
+    private Ast.FuncDef function(int n)
+    {
+        int params = a(n);
+        List<Ast.Param> list = new ArrayList<>(size(params));
+        for (int i = 0; i < size(params); i++)
+        {
+            int p = at(params, i);
+            list.add(new Ast.Param(tokenObject(token(p)), type(a(p))));
+        }
+        return new Ast.FuncDef(tokenObject(token(n)), list, type(n + 1), stmts(b(n)));
+    }
+
+    private Ast.Type type(int n)
+    {
+        return new Ast.Type(KINDS[a(n)], tokenObject(token(n)), b(n));
+    }
+
+    public Expr expr(int n)
+    {
+        Object[] memo = objects();
+        if (memo[n] != null) return (Expr) memo[n];
+        Expr e = switch (kind(n))
+        {
+            case LITERAL -> new Expr.Literal(tokenObject(token(n)), a(n));
+            case IDENT -> new Expr.Ident(tokenObject(token(n)));
+            case INDEX -> new Expr.Index(tokenObject(token(n)), exprs(a(n)));
+            case GROUPING -> new Expr.Grouping(expr(a(n)));
+            case CALL -> new Expr.Call(tokenObject(a(n)), tokenObject(token(n)), exprs(b(n)));
+            case BINARY -> new Expr.Binary(expr(a(n)), tokenObject(token(n)), expr(b(n)));
+            default -> throw new IllegalArgumentException("Node " + n + " is not an expression");
+        };
+        memo[n] = e;
+        return e;
+    }
+
+    public Stmt stmt(int n)
+    {
+        Object[] memo = objects();
+        if (memo[n] != null) return (Stmt) memo[n];
+        Stmt s = switch (kind(n))
+        {
+            case VAR_DECL ->
+            {
+                int names = b(n);
+                List<Token> list = new ArrayList<>(size(names));
+                for (int i = 0; i < size(names); i++) list.add(tokenObject(at(names, i)));
+                yield new Stmt.VarDecl(exprs(a(n)), list);
+            }
+            case RETURN -> new Stmt.Return(a(n) < 0 ? null : expr(a(n)));
+            case ASSIGN -> new Stmt.Assign(expr(a(n)), new Stmt.LValue(tokenObject(token(b(n))), exprs(a(b(n)))));
+            case CALL_STMT -> new Stmt.CallStmt((Expr.Call) expr(a(n)));
+            case IF ->
+            {
+                int arms = a(n);
+                List<Stmt.BeginIf.Arm> orIf = new ArrayList<>(size(arms) - 1);
+                for (int i = 1; i < size(arms); i++) orIf.add(arm(at(arms, i)));
+                yield new Stmt.BeginIf(arm(at(arms, 0)), orIf, b(n) < 0 ? null : stmts(b(n)));
+            }
+            case FOR -> new Stmt.BeginFor(tokenObject(token(n)), expr(a(n)), expr(b(n)), stmts(a(n + 1)));
+            default -> throw new IllegalArgumentException("Node " + n + " is not a statement");
+        };
+        memo[n] = s;
+        return s;
+    }
+
+    private Stmt.BeginIf.Arm arm(int n)
+    {
+        return new Stmt.BeginIf.Arm(expr(a(n)), stmts(b(n)));
+    }
+
+    private List<Expr> exprs(int list)
+    {
+        int n = size(list);
+        List<Expr> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(expr(at(list, i)));
+        return out;
+    }
+
+    private List<Stmt> stmts(int list)
+    {
+        int n = size(list);
+        List<Stmt> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(stmt(at(list, i)));
+        return out;
+    }
+
+    public Token tokenObject(int t)
+    {
+        if (t < 0) return null;
+        if (tokenObjects == null) tokenObjects = new Token[tokenCount];
+        Token tok = tokenObjects[t];
+        if (tok == null)
+        {
+            int at = TOKEN * t;
+            Integer literal = tokens[at + 2] != 0 ? tokens[at + 3] : null;
+            tok = new Token(TYPES[tokens[at]], lexemes[tokens[at + 1]], literal, tokens[at + 4], tokens[at + 5], tokens[at + 6], tokens[at + 7]);
+            tokenObjects[t] = tok;
+        }
+        return tok;
+    }
+
+    private Object[] objects()
+    {
+        if (objects == null) objects = new Object[nodeCount];
+        return objects;
+    }
+}
@@ -0,0 +1,56 @@
+package vm;
+
+import java.util.Map;
+
+/*
+    Preveden program: jedan int[] kod za sve funkcije, konstante, poruke gresaka i tabela
+    funkcija. CALL nosi indeks u functions; naredbe na vrhu programa su funkcija main.
+ */
+public final class Chunk
+{
+    public static final class Function
+    {
+        public final String name;
+        public final int entry;
+        public final int params;
+        public final int intParams;     // prvih intParams lokalnih; ostali parametri su nizovi
+        public final int locals;        // Resolver-ov okvir + pomocne lokalne petlji i dimenzija
+        public final int arrayLocals;   // nizovi, ukljucujuci parametre
+        public final int maxStack;      // najveca dubina steka operanada
+        public final int tooDeep;       // poruka za preduboku rekurziju
+
+        Function(String name, int entry, int params, int intParams, int locals, int arrayLocals, int maxStack, int tooDeep)
+        {
+            this.name = name;
+            this.entry = entry;
+            this.params = params;
+            this.intParams = intParams;
+            this.locals = locals;
+            this.arrayLocals = arrayLocals;
+            this.maxStack = maxStack;
+            this.tooDeep = tooDeep;
+        }
+    }
+
+    public final int[] code;
+    public final int[] constants;
+    public final String[] messages;
+    public final Function[] functions;
+    public final Map<String, Integer> functionIndex;
+    public final Function main;
+    public final int globals;
+    public final int arrayGlobals;
+
+    Chunk(int[] code, int[] constants, String[] messages, Function[] functions, Map<String, Integer> functionIndex,
+          Function main, int globals, int arrayGlobals)
+    {
+        this.code = code;
+        this.constants = constants;
+        this.messages = messages;
+        this.functions = functions;
+        this.functionIndex = functionIndex;
+        this.main = main;
+        this.globals = globals;
+        this.arrayGlobals = arrayGlobals;
+    }
+}
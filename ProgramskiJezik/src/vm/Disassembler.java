@@ -0,0 +1,91 @@
+package vm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+    Tekstualni prikaz Chunk-a, funkciju po funkciju:
+
+    == fib(1) locals=1 stack=3 ==
+    0000  LOAD    0
+    0002  CONST   #0               ; 2
+    0004  JGE     0011
+ */
+public final class Disassembler
+{
+    private Disassembler() {}
+
+    public static String disassemble(Chunk chunk)
+    {
+        List<Chunk.Function> all = new ArrayList<>(List.of(chunk.functions));
+        all.add(chunk.main);
+        all.sort(Comparator.comparingInt(f -> f.entry));
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("; ").append(chunk.code.length).append(" ints of code, ").append(chunk.constants.length).append(" constants, ")
+                .append(chunk.messages.length).append(" messages, ").append(chunk.globals).append(" globals");
+        if (chunk.arrayGlobals > 0) sb.append(", ").append(chunk.arrayGlobals).append(" global arrays");
+        sb.append('\n');
+        for (int i = 0; i < all.size(); i++)
+        {
+            Chunk.Function f = all.get(i);
+            int end = i + 1 < all.size() ? all.get(i + 1).entry : chunk.code.length;
+            sb.append('\n').append("== ").append(f.name).append('(').append(f.params).append(") locals=").append(f.locals)
+                    .append(" stack=").append(f.maxStack).append(" ==\n");
+            for (int pc = f.entry; pc < end; pc += 1 + Op.OPERANDS[chunk.code[pc]]) instruction(chunk, pc, sb);
+        }
+        return sb.toString();
+    }
+
+    private static void instruction(Chunk chunk, int pc, StringBuilder sb)
+    {
+        int op = chunk.code[pc];
+        String line = String.format("%04d  %-7s", pc, Op.NAMES[op]);
+        if (Op.OPERANDS[op] == 0)
+        {
+            sb.append(line.stripTrailing()).append('\n');
+            return;
+        }
+        int a = chunk.code[pc + 1];
+        String operand, comment = null;
+        switch (op)
+        {
+            case Op.CONST ->
+            {
+                operand = "#" + a;
+                comment = Integer.toString(chunk.constants[a]);
+            }
+            case Op.JUMP, Op.JFALSE, Op.JTRUE, Op.JEQ, Op.JNE, Op.JLT, Op.JLE, Op.JGT, Op.JGE -> operand = String.format("%04d", a);
+            case Op.CALL ->
+            {
+                operand = Integer.toString(a);
+                comment = chunk.functions[a].name;
+            }
+            case Op.DIV, Op.MOD, Op.FAIL ->
+            {
+                operand = "$" + a;
+                comment = chunk.messages[a];
+            }
+            case Op.GLOAD, Op.GSTORE -> operand = "g" + a;
+            case Op.NEWARRAY, Op.GNEWARRAY ->
+            {
+                operand = (op == Op.GNEWARRAY ? "ga" : "a") + a + " " + chunk.code[pc + 2];
+                comment = chunk.messages[chunk.code[pc + 3]];
+            }
+            case Op.AGET, Op.ASET, Op.GAGET, Op.GASET ->
+            {
+                operand = (op == Op.GAGET || op == Op.GASET ? "ga" : "a") + a;
+                comment = chunk.messages[chunk.code[pc + 2]];
+            }
+            case Op.APUSH -> operand = "a" + a;
+            case Op.GAPUSH ->
+            {
+                operand = "ga" + a;
+                comment = chunk.messages[chunk.code[pc + 2]];
+            }
+            default -> operand = Integer.toString(a);
+        }
+        sb.append(line).append(' ').append(comment == null ? operand : String.format("%-16s ; %s", operand, comment)).append('\n');
+    }
+}
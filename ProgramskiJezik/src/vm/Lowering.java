@@ -0,0 +1,481 @@
+package vm;
+
+import interpreter.Resolution;
+import interpreter.Resolver;
+import lexer.token.Token;
+import lexer.token.TokenType;
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Spusta razresen program (Resolution) u linearan kod za Vm. Raspored lokalnih i redosled
+    racunanja su isti kao u Interpreter-u i compiler.Jit-u, a greske u vreme izvrsavanja
+    (FAIL, DIV/MOD nulom) nose istu poruku i javljaju se na istom mestu.
+    Uslovi u annieAreYouOkay/justBeatIt se prevode u skokove (JLT...), bez 0/1 medjurezultata.
+ */
+public final class Lowering
+{
+    private int[] code = new int[256];
+    private int pc;
+    private final List<Integer> constants = new ArrayList<>();
+    private final Map<Integer, Integer> constantIndex = new HashMap<>();
+    private final List<String> messages = new ArrayList<>();
+    private final Map<String, Integer> messageIndex = new HashMap<>();
+    private final Map<String, Integer> functionIndex = new HashMap<>();
+    private List<Resolver.Function> defs;
+    private Resolution resolution;
+
+    private int depth, maxStack, nextTemp, maxTemp;
+
+    private Lowering() {}
+
+    public static Chunk lower(Ast.Program program)
+    {
+        return lower(new Resolver(program).resolve());
+    }
+
+    public static Chunk lower(Resolution resolved)
+    {
+        return new Lowering().lower(resolved.program(), resolved);
+    }
+
+    private Chunk lower(Ast.Program program, Resolution r)
+    {
+        resolution = r;
+        defs = new ArrayList<>(r.functions().values());
+        for (int i = 0; i < defs.size(); i++) functionIndex.put(defs.get(i).def.name.lexeme, i);
+
+        Chunk.Function[] functions = new Chunk.Function[defs.size()];
+        for (int i = 0; i < defs.size(); i++)
+        {
+            Resolver.Function f = defs.get(i);
+            int entry = begin(f.frameSize);
+            block(f.def.body);
+            emit(Op.CONST, constant(0));
+            emit(Op.RET);
+            functions[i] = new Chunk.Function(f.def.name.lexeme, entry, f.def.params.size(), f.intParams, maxTemp, f.arrayFrameSize,
+                    maxStack, message(Resolver.error(f.def.name, "Too many nested calls").getMessage()));
+        }
+
+        int entry = begin(r.mainFrameSize());
+        for (Ast.TopItem item : program.items)
+        {
+            if (item instanceof Ast.TopStmt s) statement(s.stmt);
+            else if (item instanceof Ast.TopVarDecl v) declare(v.decl);
+        }
+        emit(Op.CONST, constant(0));
+        emit(Op.RET);
+        Chunk.Function main = new Chunk.Function("<main>", entry, 0, 0, maxTemp, r.mainArrayFrameSize(), maxStack,
+                message("JAMCRASH > Too many nested calls"));
+
+        int[] consts = new int[constants.size()];
+        for (int i = 0; i < consts.length; i++) consts[i] = constants.get(i);
+        return new Chunk(Arrays.copyOf(code, pc), consts, messages.toArray(new String[0]), functions, functionIndex, main,
+                r.globalCount(), r.globalArrayCount());
+    }
+
+    private int begin(int frameSize)
+    {
+        depth = maxStack = 0;
+        nextTemp = maxTemp = frameSize;
+        return pc;
+    }
+
+    private void block(List<Stmt> body)
+    {
+        for (Stmt s : body) statement(s);
+    }
+
+    private void statement(Stmt s)
+    {
+        if (s instanceof Stmt.Assign a)
+        {
+            Stmt.LValue lv = a.lvalue;
+            Resolution.Ref ref = resolution.ref(lv);
+            expr(a.left);
+            if (!lv.indices.isEmpty())
+            {
+                for (Expr i : lv.indices) expr(i);
+                element(ref.global() ? Op.GASET : Op.ASET, lv.name, ref.global(), ref.slot());
+                depth -= lv.indices.size() + 1;
+                return;
+            }
+            emit(ref.global() ? Op.GSTORE : Op.STORE, ref.slot());
+        }
+        else if (s instanceof Stmt.BeginFor f)
+        {
+            loop(f);
+        }
+        else if (s instanceof Stmt.BeginIf i)
+        {
+            List<Integer> ends = new ArrayList<>();
+            arm(i.ifArm, ends);
+            for (Stmt.BeginIf.Arm arm : i.orIfArms) arm(arm, ends);
+            if (i.elseBlock != null) block(i.elseBlock);
+            for (int at : ends) patch(at, pc);
+        }
+        else if (s instanceof Stmt.CallStmt cs)
+        {
+            expr(cs.call);
+            emit(Op.POP);
+        }
+        else if (s instanceof Stmt.VarDecl v)
+        {
+            declare(v);
+        }
+        else if (s instanceof Stmt.Return r)
+        {
+            if (r.expr == null) emit(Op.CONST, constant(0));
+            else expr(r.expr);
+            emit(Op.RET);
+            depth = 0;
+        }
+    }
+
+    private void arm(Stmt.BeginIf.Arm arm, List<Integer> ends)
+    {
+        List<Integer> next = new ArrayList<>();
+        branch(arm.cond, false, next);
+        block(arm.block);
+        ends.add(jump(Op.JUMP));
+        for (int at : next) patch(at, pc);
+    }
+
+    // isto kao Interpreter.loop: granice jednom, posle tela se cita promenljiva petlje
+    private void loop(Stmt.BeginFor f)
+    {
+        int i = resolution.slot(f), to = nextTemp++;
+        maxTemp = Math.max(maxTemp, nextTemp);
+        expr(f.from);
+        emit(Op.STORE, i);
+        expr(f.to);
+        emit(Op.STORE, to);
+        int top = pc;
+        emit(Op.LOAD, i);
+        emit(Op.LOAD, to);
+        int exit1 = jump(Op.JGT);
+        block(f.body);
+        emit(Op.LOAD, i);
+        emit(Op.LOAD, to);
+        int exit2 = jump(Op.JGE);
+        emit(Op.INC, i);
+        emit(Op.JUMP, top);
+        patch(exit1, pc);
+        patch(exit2, pc);
+        nextTemp--;
+    }
+
+    private void declare(Stmt.VarDecl v)
+    {
+        if (!v.dims.isEmpty())
+        {
+            allocate(v);
+            return;
+        }
+        boolean global = resolution.global(v);
+        for (int slot : resolution.slots(v))
+        {
+            emit(Op.CONST, constant(0));
+            emit(global ? Op.GSTORE : Op.STORE, slot);
+        }
+    }
+
+    // dimenzije jednom, u pomocne lokalne; svako ime dobija svoj niz
+    private void allocate(Stmt.VarDecl v)
+    {
+        int n = v.dims.size(), base = nextTemp;
+        int[] slots = resolution.slots(v);
+        boolean global = resolution.global(v);
+        maxTemp = Math.max(maxTemp, base + n);
+        for (int k = 0; k < n; k++)
+        {
+            expr(v.dims.get(k));
+            emit(Op.STORE, base + k);
+        }
+        for (int i = 0; i < slots.length; i++)
+        {
+            for (int k = 0; k < n; k++) emit(Op.LOAD, base + k);
+            Token name = v.names.get(i);
+            emit(global ? Op.GNEWARRAY : Op.NEWARRAY, slots[i], n,
+                    message(Resolver.error(name, "Invalid size for array '" + name.lexeme + "'").getMessage()));
+            depth -= n;
+        }
+    }
+
+    // AGET/ASET i globalne varijante; indeksi (i vrednost za ASET) su vec na steku
+    private void element(int op, Token name, boolean global, int slot)
+    {
+        int bounds = message(Resolver.error(name, "Index out of bounds for array '" + name.lexeme + "'").getMessage());
+        if (global) emit(op, slot, bounds, undeclared(name));
+        else emit(op, slot, bounds);
+    }
+
+    private int undeclared(Token name)
+    {
+        return message(Resolver.error(name, "Array '" + name.lexeme + "' is used before its declaration").getMessage());
+    }
+
+    private void expr(Expr e)
+    {
+        if (e instanceof Expr.Binary b)
+        {
+            binary(b);
+        }
+        else if (e instanceof Expr.Ident id)
+        {
+            Resolution.Ref ref = resolution.ref(id);
+            emit(ref.global() ? Op.GLOAD : Op.LOAD, ref.slot());
+        }
+        else if (e instanceof Expr.Literal l)
+        {
+            emit(Op.CONST, constant(l.value));
+        }
+        else if (e instanceof Expr.Grouping g)
+        {
+            expr(g.inner);
+        }
+        else if (e instanceof Expr.Call call)
+        {
+            call(call);
+        }
+        else if (e instanceof Expr.Index ix)
+        {
+            Resolution.Ref ref = resolution.ref(ix);
+            for (Expr i : ix.indices) expr(i);
+            element(ref.global() ? Op.GAGET : Op.AGET, ix.name, ref.global(), ref.slot());
+            depth -= ix.indices.size();
+        }
+    }
+
+    private void call(Expr.Call call)
+    {
+        int f = functionIndex.get(call.callee.lexeme);
+        int n = call.args.size(), params = defs.get(f).def.params.size();
+        if (n != params)
+        {
+            fail(Resolver.error(call.callee, "Function '" + call.callee.lexeme + "' expects " + params + " arguments but got " + n).getMessage());
+            depth++;
+            return;
+        }
+        // nizovi idu na svoj stek, pa int argumenti ostaju redom prve lokalne pozvane funkcije
+        List<Ast.Param> ps = defs.get(f).def.params;
+        for (int k = 0; k < n; k++)
+        {
+            if (ps.get(k).type.rank == 0)
+            {
+                expr(call.args.get(k));
+                continue;
+            }
+            Expr.Ident id = (Expr.Ident) call.args.get(k);
+            Resolution.Ref ref = resolution.ref(id);
+            if (ref.global()) emit(Op.GAPUSH, ref.slot(), undeclared(id.name));
+            else emit(Op.APUSH, ref.slot());
+        }
+        emit(Op.CALL, f);
+        depth += 1 - defs.get(f).intParams;
+    }
+
+    private void binary(Expr.Binary b)
+    {
+        TokenType op = b.op.type;
+        switch (op)
+        {
+            case ADD, SUBTRACT, MULTIPLY ->
+            {
+                expr(b.left);
+                expr(b.right);
+                emit(op == TokenType.ADD ? Op.ADD : op == TokenType.SUBTRACT ? Op.SUB : Op.MUL);
+            }
+            case DIVIDE, PERCENT ->
+            {
+                expr(b.left);
+                expr(b.right);
+                emit(op == TokenType.DIVIDE ? Op.DIV : Op.MOD, message(Resolver.error(b.op, "Division by zero").getMessage()));
+            }
+            case EQ, NEQ, LT, LE, GT, GE ->
+            {
+                expr(b.left);
+                expr(b.right);
+                emit(switch (op)
+                {
+                    case EQ -> Op.EQ;
+                    case NEQ -> Op.NE;
+                    case LT -> Op.LT;
+                    case LE -> Op.LE;
+                    case GT -> Op.GT;
+                    default -> Op.GE;
+                });
+            }
+            default ->
+            {
+                // and / eitherWay kao vrednost: 1 ili 0 preko skokova
+                int d = depth;
+                List<Integer> yes = new ArrayList<>();
+                branch(b, true, yes);
+                emit(Op.CONST, constant(0));
+                int end = jump(Op.JUMP);
+                for (int at : yes) patch(at, pc);
+                depth = d;
+                emit(Op.CONST, constant(1));
+                patch(end, pc);
+            }
+        }
+    }
+
+    // skok (adrese u targets, dopunjuju se kasnije) ako je (e != 0) == when
+    private void branch(Expr e, boolean when, List<Integer> targets)
+    {
+        while (e instanceof Expr.Grouping g) e = g.inner;
+        if (e instanceof Expr.Literal l)
+        {
+            if ((l.value != 0) == when) targets.add(jump(Op.JUMP));
+            return;
+        }
+        if (e instanceof Expr.Binary b)
+        {
+            switch (b.op.type)
+            {
+                case AND, OR ->
+                {
+                    // when == true za and (ili false za eitherWay): levi operand odlucuje samo kad "pada"
+                    boolean and = b.op.type == TokenType.AND;
+                    if (and == when)
+                    {
+                        List<Integer> skip = new ArrayList<>();
+                        branch(b.left, !when, skip);
+                        branch(b.right, when, targets);
+                        for (int at : skip) patch(at, pc);
+                    }
+                    else
+                    {
+                        branch(b.left, when, targets);
+                        branch(b.right, when, targets);
+                    }
+                    return;
+                }
+                case EQ, NEQ, LT, LE, GT, GE ->
+                {
+                    expr(b.left);
+                    expr(b.right);
+                    targets.add(jump(compare(b.op.type, when)));
+                    return;
+                }
+                default -> { }
+            }
+        }
+        expr(e);
+        targets.add(jump(when ? Op.JTRUE : Op.JFALSE));
+    }
+
+    private static int compare(TokenType op, boolean when)
+    {
+        if (!when)
+        {
+            op = switch (op)
+            {
+                case EQ -> TokenType.NEQ;
+                case NEQ -> TokenType.EQ;
+                case LT -> TokenType.GE;
+                case GE -> TokenType.LT;
+                case GT -> TokenType.LE;
+                default -> TokenType.GT;
+            };
+        }
+        return switch (op)
+        {
+            case EQ -> Op.JEQ;
+            case NEQ -> Op.JNE;
+            case LT -> Op.JLT;
+            case GE -> Op.JGE;
+            case GT -> Op.JGT;
+            default -> Op.JLE;
+        };
+    }
+
+    private void fail(String msg)
+    {
+        emit(Op.FAIL, message(msg));
+    }
+
+    // vraca adresu operanda skoka, za patch
+    private int jump(int op)
+    {
+        emit(op, -1);
+        return pc - 1;
+    }
+
+    private void patch(int at, int target)
+    {
+        code[at] = target;
+    }
+
+    private int constant(int v)
+    {
+        Integer i = constantIndex.get(v);
+        if (i != null) return i;
+        constants.add(v);
+        constantIndex.put(v, constants.size() - 1);
+        return constants.size() - 1;
+    }
+
+    private int message(String m)
+    {
+        Integer i = messageIndex.get(m);
+        if (i != null) return i;
+        messages.add(m);
+        messageIndex.put(m, messages.size() - 1);
+        return messages.size() - 1;
+    }
+
+    private void emit(int op)
+    {
+        ensure(1);
+        code[pc++] = op;
+        stack(op);
+    }
+
+    private void emit(int op, int operand)
+    {
+        ensure(2);
+        code[pc++] = op;
+        code[pc++] = operand;
+        stack(op);
+    }
+
+    private void emit(int op, int a, int b)
+    {
+        ensure(3);
+        code[pc++] = op;
+        code[pc++] = a;
+        code[pc++] = b;
+        stack(op);
+    }
+
+    private void emit(int op, int a, int b, int c)
+    {
+        ensure(4);
+        code[pc++] = op;
+        code[pc++] = a;
+        code[pc++] = b;
+        code[pc++] = c;
+        stack(op);
+    }
+
+    private void stack(int op)
+    {
+        depth = Math.max(0, depth + Op.STACK[op]);
+        maxStack = Math.max(maxStack, depth);
+    }
+
+    private void ensure(int n)
+    {
+        if (pc + n > code.length) code = Arrays.copyOf(code, Math.max(code.length * 2, pc + n));
+    }
+}
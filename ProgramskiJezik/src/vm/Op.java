@@ -0,0 +1,81 @@
+package vm;
+
+/*
+    Skup instrukcija VM-a. Instrukcija je opcode u int[] kodu, iza njega slede operandi
+    (OPERANDS[op] komada). Skokovi nose apsolutnu adresu cilja.
+
+    Stek operanada je nastavak okvira: okvir funkcije je [lokalne | operandi], pa argumenti
+    poziva koji su na vrhu steka postaju prve lokalne pozvane funkcije bez kopiranja.
+
+    Nizovi (IntArray) su u drugom steku, sa svojim okvirom: APUSH stavlja niz-argument na njegov
+    vrh, a CALL ga, kao i int argumente, pretvara u prve lokalne nizove pozvane funkcije. Broj
+    indeksa u AGET/ASET je rang niza, pa STACK za njih (i za NEWARRAY) dopunjuje Lowering.
+ */
+public final class Op
+{
+    public static final int
+            CONST = 0,      // k          push constants[k]
+            LOAD = 1,       // s          push local s
+            STORE = 2,      // s          local s = pop
+            GLOAD = 3,      // g          push global g
+            GSTORE = 4,     // g          global g = pop
+            ADD = 5,
+            SUB = 6,
+            MUL = 7,
+            DIV = 8,        // m          deljenje nulom baca messages[m]
+            MOD = 9,        // m
+            EQ = 10,
+            NE = 11,
+            LT = 12,
+            LE = 13,
+            GT = 14,
+            GE = 15,
+            JUMP = 16,      // a
+            JFALSE = 17,    // a          pop, skok ako je 0
+            JTRUE = 18,     // a          pop, skok ako nije 0
+            JEQ = 19,       // a          pop b, pop a, skok ako a == b
+            JNE = 20,       // a
+            JLT = 21,       // a
+            JLE = 22,       // a
+            JGT = 23,       // a
+            JGE = 24,       // a
+            INC = 25,       // s          local s += 1
+            CALL = 26,      // f          argumenti su na vrhu steka
+            RET = 27,       //            vraca vrh steka
+            POP = 28,
+            FAIL = 29,      // m          baca messages[m]
+            NEWARRAY = 30,  // s n m      niz s = novi niz sa n dimenzija sa steka; messages[m] ako ne moze
+            GNEWARRAY = 31, // g n m
+            AGET = 32,      // s m        pop indeksi, push element niza s; messages[m] van granica
+            GAGET = 33,     // g m u      messages[u] ako globalni niz jos nije deklarisan
+            ASET = 34,      // s m        pop indeksi, pop vrednost, element niza s = vrednost
+            GASET = 35,     // g m u
+            APUSH = 36,     // s          niz s kao argument sledeceg CALL
+            GAPUSH = 37;    // g u
+
+    public static final int COUNT = 38;
+
+    static final String[] NAMES = {
+            "CONST", "LOAD", "STORE", "GLOAD", "GSTORE", "ADD", "SUB", "MUL", "DIV", "MOD",
+            "EQ", "NE", "LT", "LE", "GT", "GE", "JUMP", "JFALSE", "JTRUE", "JEQ",
+            "JNE", "JLT", "JLE", "JGT", "JGE", "INC", "CALL", "RET", "POP", "FAIL",
+            "NEWARRAY", "GNEWARRAY", "AGET", "GAGET", "ASET", "GASET", "APUSH", "GAPUSH"
+    };
+
+    static final int[] OPERANDS = {
+            1, 1, 1, 1, 1, 0, 0, 0, 1, 1,
+            0, 0, 0, 0, 0, 0, 1, 1, 1, 1,
+            1, 1, 1, 1, 1, 1, 1, 0, 0, 1,
+            3, 3, 2, 3, 2, 3, 1, 2
+    };
+
+    // promena dubine steka operanada; za CALL zavisi od broja argumenata
+    static final int[] STACK = {
+            1, 1, -1, 1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, 0, -1, -1, -2,
+            -2, -2, -2, -2, -2, 0, 0, -1, -1, 0,
+            0, 0, 1, 1, 0, 0, 0, 0
+    };
+
+    private Op() {}
+}
@@ -0,0 +1,234 @@
+package vm;
+
+import interpreter.Engine;
+import interpreter.IntArray;
+import interpreter.Resolution;
+import parser.ast.Ast;
+
+import java.util.Arrays;
+
+/*
+    Petlja koja izvrsava Chunk: jedan switch po instrukciji, pc/sp/fp u lokalnim promenljivama,
+    jedan int[] za sve okvire i stekove operanada. Poziv ne kopira argumente (oni su vec na
+    vrhu steka pozivaoca) i ne alocira nista; povratne adrese su u posebnom int[].
+    Granica dubine poziva i poruke gresaka su iste kao u Interpreter-u.
+
+    Nizovi su u IntArray[] steku sa svojim afp/asp; okvir se pri povratku brise, da niz koji je
+    izasao iz opsega ne bi ostao ziv (i zauzeo memoriju van heap-a) do sledeceg poziva.
+ */
+public final class Vm implements Engine
+{
+    private static final int MAX_DEPTH = 100_000;
+
+    private final Chunk chunk;
+    private final int[] globals;
+    private final IntArray[] globalArrays;
+    private int[] stack = new int[1 << 12];
+    private IntArray[] arrays = new IntArray[1 << 6];
+    private int[] frames = new int[3 * 64];
+
+    public Vm(Ast.Program program)
+    {
+        this(Lowering.lower(program));
+    }
+
+    public Vm(Resolution resolved)
+    {
+        this(Lowering.lower(resolved));
+    }
+
+    public Vm(Chunk chunk)
+    {
+        this.chunk = chunk;
+        this.globals = new int[chunk.globals];
+        this.globalArrays = new IntArray[chunk.arrayGlobals];
+    }
+
+    public Chunk chunk()
+    {
+        return chunk;
+    }
+
+    @Override
+    public int run()
+    {
+        return execute(chunk.main, 0);
+    }
+
+    @Override
+    public int call(String name, int... args)
+    {
+        Integer f = chunk.functionIndex.get(name);
+        if (f == null) throw new RuntimeException("JAMCRASH > Undefined function '" + name + "'");
+        Chunk.Function fn = chunk.functions[f];
+        if (fn.params != args.length)
+        {
+            throw new RuntimeException("JAMCRASH > Function '" + name + "' expects " + fn.params + " arguments but got " + args.length);
+        }
+        if (fn.intParams != args.length) throw new RuntimeException("JAMCRASH > Function '" + name + "' has array parameters");
+        if (stack.length < args.length) stack = Arrays.copyOf(stack, args.length);
+        System.arraycopy(args, 0, stack, 0, args.length);
+        return execute(fn, 0);
+    }
+
+    // argumenti funkcije f su vec u stack[base...]
+    private int execute(Chunk.Function f, int base)
+    {
+        final int[] code = chunk.code, consts = chunk.constants, g = globals;
+        final IntArray[] ga = globalArrays;
+        final Chunk.Function[] functions = chunk.functions;
+        int[] s = grow(base + f.locals + f.maxStack);
+        IntArray[] a = growArrays(f.arrayLocals);
+        int pc = f.entry, fp = base, sp = base + f.locals;
+        int afp = 0, asp = f.arrayLocals;
+        int depth = 0;
+
+        while (true)
+        {
+            switch (code[pc++])
+            {
+                case Op.CONST -> s[sp++] = consts[code[pc++]];
+                case Op.LOAD -> s[sp++] = s[fp + code[pc++]];
+                case Op.STORE -> s[fp + code[pc++]] = s[--sp];
+                case Op.GLOAD -> s[sp++] = g[code[pc++]];
+                case Op.GSTORE -> g[code[pc++]] = s[--sp];
+                case Op.ADD -> { sp--; s[sp - 1] += s[sp]; }
+                case Op.SUB -> { sp--; s[sp - 1] -= s[sp]; }
+                case Op.MUL -> { sp--; s[sp - 1] *= s[sp]; }
+                case Op.DIV ->
+                {
+                    int m = code[pc++], r = s[--sp];
+                    if (r == 0) throw new RuntimeException(chunk.messages[m]);
+                    s[sp - 1] /= r;
+                }
+                case Op.MOD ->
+                {
+                    int m = code[pc++], r = s[--sp];
+                    if (r == 0) throw new RuntimeException(chunk.messages[m]);
+                    s[sp - 1] %= r;
+                }
+                case Op.EQ -> { sp--; s[sp - 1] = s[sp - 1] == s[sp] ? 1 : 0; }
+                case Op.NE -> { sp--; s[sp - 1] = s[sp - 1] != s[sp] ? 1 : 0; }
+                case Op.LT -> { sp--; s[sp - 1] = s[sp - 1] < s[sp] ? 1 : 0; }
+                case Op.LE -> { sp--; s[sp - 1] = s[sp - 1] <= s[sp] ? 1 : 0; }
+                case Op.GT -> { sp--; s[sp - 1] = s[sp - 1] > s[sp] ? 1 : 0; }
+                case Op.GE -> { sp--; s[sp - 1] = s[sp - 1] >= s[sp] ? 1 : 0; }
+                case Op.JUMP -> pc = code[pc];
+                case Op.JFALSE -> pc = s[--sp] == 0 ? code[pc] : pc + 1;
+                case Op.JTRUE -> pc = s[--sp] != 0 ? code[pc] : pc + 1;
+                case Op.JEQ -> { sp -= 2; pc = s[sp] == s[sp + 1] ? code[pc] : pc + 1; }
+                case Op.JNE -> { sp -= 2; pc = s[sp] != s[sp + 1] ? code[pc] : pc + 1; }
+                case Op.JLT -> { sp -= 2; pc = s[sp] < s[sp + 1] ? code[pc] : pc + 1; }
+                case Op.JLE -> { sp -= 2; pc = s[sp] <= s[sp + 1] ? code[pc] : pc + 1; }
+                case Op.JGT -> { sp -= 2; pc = s[sp] > s[sp + 1] ? code[pc] : pc + 1; }
+                case Op.JGE -> { sp -= 2; pc = s[sp] >= s[sp + 1] ? code[pc] : pc + 1; }
+                case Op.INC -> s[fp + code[pc++]]++;
+                case Op.CALL ->
+                {
+                    Chunk.Function callee = functions[code[pc++]];
+                    if (++depth > MAX_DEPTH) throw new RuntimeException(chunk.messages[callee.tooDeep]);
+                    if (3 * depth > frames.length) frames = Arrays.copyOf(frames, frames.length * 2);
+                    frames[3 * depth - 3] = pc;
+                    frames[3 * depth - 2] = fp;
+                    frames[3 * depth - 1] = afp;
+                    fp = sp - callee.intParams;
+                    sp = fp + callee.locals;
+                    if (sp + callee.maxStack > s.length) s = grow(sp + callee.maxStack);
+                    afp = asp - (callee.params - callee.intParams);
+                    asp = afp + callee.arrayLocals;
+                    if (asp > a.length) a = growArrays(asp);
+                    pc = callee.entry;
+                }
+                case Op.RET ->
+                {
+                    int v = s[sp - 1];
+                    if (asp > afp) Arrays.fill(a, afp, asp, null);
+                    if (depth == 0) return v;
+                    sp = fp;
+                    s[sp++] = v;
+                    asp = afp;
+                    pc = frames[3 * depth - 3];
+                    fp = frames[3 * depth - 2];
+                    afp = frames[3 * depth - 1];
+                    depth--;
+                }
+                case Op.POP -> sp--;
+                case Op.FAIL -> throw new RuntimeException(chunk.messages[code[pc]]);
+                case Op.NEWARRAY, Op.GNEWARRAY ->
+                {
+                    int slot = code[pc], n = code[pc + 1];
+                    sp -= n;
+                    IntArray arr = IntArray.allocate(s, sp, n);
+                    if (arr == null) throw new RuntimeException(chunk.messages[code[pc + 2]]);
+                    if (code[pc - 1] == Op.NEWARRAY) a[afp + slot] = arr;
+                    else ga[slot] = arr;
+                    pc += 3;
+                }
+                case Op.AGET ->
+                {
+                    IntArray arr = a[afp + code[pc]];
+                    sp -= arr.rank();
+                    int at = arr.offset(s, sp);
+                    if (at < 0) throw new RuntimeException(chunk.messages[code[pc + 1]]);
+                    s[sp++] = arr.get(at);
+                    pc += 2;
+                }
+                case Op.GAGET ->
+                {
+                    IntArray arr = ga[code[pc]];
+                    if (arr == null) throw new RuntimeException(chunk.messages[code[pc + 2]]);
+                    sp -= arr.rank();
+                    int at = arr.offset(s, sp);
+                    if (at < 0) throw new RuntimeException(chunk.messages[code[pc + 1]]);
+                    s[sp++] = arr.get(at);
+                    pc += 3;
+                }
+                case Op.ASET ->
+                {
+                    IntArray arr = a[afp + code[pc]];
+                    sp -= arr.rank();
+                    int at = arr.offset(s, sp);
+                    if (at < 0) throw new RuntimeException(chunk.messages[code[pc + 1]]);
+                    arr.set(at, s[--sp]);
+                    pc += 2;
+                }
+                case Op.GASET ->
+                {
+                    IntArray arr = ga[code[pc]];
+                    if (arr == null) throw new RuntimeException(chunk.messages[code[pc + 2]]);
+                    sp -= arr.rank();
+                    int at = arr.offset(s, sp);
+                    if (at < 0) throw new RuntimeException(chunk.messages[code[pc + 1]]);
+                    arr.set(at, s[--sp]);
+                    pc += 3;
+                }
+                case Op.APUSH ->
+                {
+                    if (asp == a.length) a = growArrays(asp + 1);
+                    a[asp++] = a[afp + code[pc++]];
+                }
+                case Op.GAPUSH ->
+                {
+                    IntArray arr = ga[code[pc]];
+                    if (arr == null) throw new RuntimeException(chunk.messages[code[pc + 1]]);
+                    if (asp == a.length) a = growArrays(asp + 1);
+                    a[asp++] = arr;
+                    pc += 2;
+                }
+                default -> throw new IllegalStateException("Bad opcode " + code[pc - 1] + " at " + (pc - 1));
+            }
+        }
+    }
+
+    private int[] grow(int size)
+    {
+        if (size > stack.length) stack = Arrays.copyOf(stack, Math.max(size, stack.length * 2));
+        return stack;
+    }
+
+    private IntArray[] growArrays(int size)
+    {
+        if (size > arrays.length) arrays = Arrays.copyOf(arrays, Math.max(size, arrays.length * 2));
+        return arrays;
+    }
+}
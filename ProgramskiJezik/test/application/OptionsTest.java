@@ -0,0 +1,48 @@
+package application;
+
+import lexer.token.TokenWriter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptionsTest
+{
+    @Test
+    void readsValuesAndDefaults()
+    {
+        Options o = Options.parse(new String[] { "--run", "--engine", "vm", "--optimize", "--no-memo", "--cache", "c", "--cache-size", "8", "p.mj" });
+        assertEquals("--run", o.mode());
+        assertEquals("vm", o.engine());
+        assertTrue(o.optimize());
+        assertFalse(o.memo());
+        assertEquals(Path.of("c"), o.cacheDir());
+        assertEquals(8L << 20, o.cacheSize());
+        assertEquals(TokenWriter.Format.TABLE, o.format());
+        assertEquals(100, o.maxErrors());
+        assertEquals(List.of("p.mj"), o.paths());
+    }
+
+    @Test
+    void rejectsIncompatibleCombinations()
+    {
+        assertEquals("--connect cannot be combined with --batch", error("--connect", "s", "--batch", "a.mj"));
+        assertEquals("--daemon cannot be combined with --stats", error("--daemon", "s", "--stats"));
+        assertEquals("--batch cannot be combined with --run", error("--batch", "--run", "a.mj"));
+        assertEquals("--jobs needs --batch", error("--jobs", "4", "a.mj"));
+        assertEquals("--optimize needs --run or --disasm", error("--parse", "--optimize", "a.mj"));
+        assertEquals("--stream and --parse cannot be combined", error("--stream", "--parse", "a.mj"));
+        assertEquals("Expected one source file, got 2", error("a.mj", "b.mj"));
+        assertEquals("--max-errors needs a positive number, got '0'", error("--max-errors", "0", "a.mj"));
+    }
+
+    private static String error(String... args)
+    {
+        return assertThrows(IllegalArgumentException.class, () -> Options.parse(args)).getMessage();
+    }
+}
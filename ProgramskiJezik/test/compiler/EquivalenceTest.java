@@ -0,0 +1,84 @@
+package compiler;
+
+import interpreter.Engine;
+import interpreter.Interpreter;
+import lexer.Lexer;
+import optimizer.Optimizer;
+import org.junit.jupiter.api.Test;
+import parser.RecognizerParser;
+import parser.ast.Ast;
+import vm.Vm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Interpreter, Jit, vm.Vm i Interpreter nad optimizovanim stablom moraju da daju isti rezultat
+    (ili istu gresku) za isti program. Programi su iz ProgramGenerator-a sa fiksnim seed-ovima,
+    pa je neuspeh ponovljiv: poruka navodi seed i izvor.
+ */
+class EquivalenceTest
+{
+    private static final long SEED = 1;
+    private static final int COUNT = 2000;
+
+    @Test
+    void randomProgramsGiveSameOutcomeOnEveryEngine()
+    {
+        List<String> mismatches = new ArrayList<>();
+        int errors = 0;
+        for (int i = 0; i < COUNT; i++)
+        {
+            long seed = SEED + i;
+            String source = new ProgramGenerator(new Random(seed)).program();
+            Ast.Program program = parse(source);
+
+            String tree = outcome(() -> new Interpreter(program));
+            String jit = outcome(() -> new Jit(program));
+            String vm = outcome(() -> new Vm(program));
+            String optimized = outcome(() -> new Interpreter(new Optimizer().optimize(program)));
+            if (!tree.equals(jit) || !tree.equals(vm) || !tree.equals(optimized))
+            {
+                mismatches.add("seed " + seed + ": interpreter " + tree + ", jit " + jit + ", vm " + vm + ", optimized " + optimized + "\n" + source);
+            }
+            if (tree.startsWith("!")) errors++;
+        }
+        assertTrue(mismatches.isEmpty(), mismatches.size() + " mismatches, first:\n" + (mismatches.isEmpty() ? "" : mismatches.get(0)));
+        // generator mora da pogodi i greske (deljenje nulom, granice nizova) i obicne rezultate
+        assertTrue(errors > 0 && errors < COUNT, errors + " of " + COUNT + " programs failed");
+    }
+
+    @Test
+    void generatorIsDeterministic()
+    {
+        assertEquals(new ProgramGenerator(new Random(42)).program(), new ProgramGenerator(new Random(42)).program());
+    }
+
+    private static Ast.Program parse(String source)
+    {
+        RecognizerParser parser = new RecognizerParser(new Lexer(source).scan());
+        Ast.Program program = parser.parse();
+        assertTrue(parser.errors().isEmpty(), () -> "syntax error: " + parser.errors().get(0) + "\n" + source);
+        return program;
+    }
+
+    // rezultat ili poruka greske; preduboka rekurzija se prijavljuje razlicito, pa se izjednacava
+    private static String outcome(Supplier<Engine> factory)
+    {
+        try
+        {
+            return "= " + factory.get().run();
+        }
+        catch (RuntimeException e)
+        {
+            String msg = e.getMessage();
+            if (msg != null && (msg.contains("Stack overflow") || msg.contains("Too many nested calls"))) return "! recursion too deep";
+            return "! " + msg;
+        }
+    }
+}
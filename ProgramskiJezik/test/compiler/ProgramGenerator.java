@@ -0,0 +1,298 @@
+package compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+    Slucajan program za EquivalenceTest: funkcije sa parametrima, globalne, ugnjezdeni
+    if/justBeatIt, moonWalk usred bloka, svi operatori, deljenje koje ponekad ide nulom, konstante
+    van opsega sipush i nizovi sa jednom i dve dimenzije (i kao parametri), sa indeksima i
+    dimenzijama koje ponekad ispadnu iz granica. Isti Random daje isti program.
+ */
+final class ProgramGenerator
+{
+    private static final String[] OPS = { "+", "-", "*", "/", "%", "<", "<=", ">", ">=", "==", "!=", "and", "eitherWay" };
+
+    private final Random rnd;
+    private final StringBuilder out = new StringBuilder();
+    private final List<String> vars = new ArrayList<>();
+    private final List<Boolean> assignable = new ArrayList<>();
+    private final List<Integer> ranks = new ArrayList<>();
+    private final List<List<Integer>> signatures = new ArrayList<>();
+    private int names, indent, loops;
+
+    ProgramGenerator(Random rnd)
+    {
+        this.rnd = rnd;
+    }
+
+    String program()
+    {
+        int globals = rnd.nextInt(3);
+        for (int i = 0; i < globals; i++)
+        {
+            String g = "g" + i;
+            line("heehee " + g);
+            declare(g, true, 0);
+        }
+        if (rnd.nextBoolean()) array("ga" + names++);
+        int functions = rnd.nextInt(4);
+        for (int f = 0; f < functions; f++) function(f);
+        int mark = vars.size();
+        int n = 2 + rnd.nextInt(6);
+        for (int i = 0; i < n; i++) statement(2);
+        truncate(mark);
+        line("moonWalk " + expr(3));
+        return out.toString();
+    }
+
+    private void function(int f)
+    {
+        int params = rnd.nextInt(4);
+        int mark = vars.size();
+        List<Integer> signature = new ArrayList<>();
+        StringBuilder header = new StringBuilder("smoothCriminal f" + f + "(");
+        for (int p = 0; p < params; p++)
+        {
+            String name = "p" + names++;
+            int rank = rnd.nextInt(4) == 0 ? 1 + rnd.nextInt(2) : 0;
+            header.append(p > 0 ? ", " : "").append(name).append(": heehee").append("[]".repeat(rank));
+            declare(name, true, rank);
+            signature.add(rank);
+        }
+        line(header + "): heehee");
+        line("jam");
+        indent++;
+        int n = 1 + rnd.nextInt(5);
+        for (int i = 0; i < n; i++) statement(2);
+        if (rnd.nextBoolean()) line("moonWalk " + expr(2));
+        indent--;
+        line("jamOut");
+        truncate(mark);
+        // tek posle tela, pa funkcija nije rekurzivna i poziv uvek zavrsava
+        signatures.add(signature);
+    }
+
+    private void statement(int depth)
+    {
+        int kind = rnd.nextInt(depth > 0 ? 9 : 5);
+        switch (kind)
+        {
+            case 0, 1 ->
+            {
+                if (rnd.nextInt(4) == 0)
+                {
+                    array("va" + names++);
+                    return;
+                }
+                String name = "v" + names++;
+                line("heehee " + name);
+                declare(name, true, 0);
+            }
+            case 2 ->
+            {
+                String target = target();
+                if (target == null) return;
+                line(rnd.nextBoolean() ? target + " = " + expr(3) : expr(3) + " moves " + target);
+            }
+            case 3 ->
+            {
+                String call = signatures.isEmpty() ? null : call();
+                if (call != null) line("shamona " + call);
+            }
+            case 4 ->
+            {
+                if (rnd.nextInt(4) == 0) line("moonWalk " + expr(2));
+            }
+            case 5, 6 ->
+            {
+                line("annieAreYouOkay " + expr(2));
+                block(depth - 1);
+                while (rnd.nextInt(3) == 0)
+                {
+                    line("fightForYourLife annieAreYouOkay " + expr(2));
+                    block(depth - 1);
+                }
+                if (rnd.nextBoolean())
+                {
+                    line("fightForYourLife");
+                    block(depth - 1);
+                }
+            }
+            default ->
+            {
+                // najvise dve ugnjezdene petlje sa po 4 prolaza, jer pozivi ulaze i u petlje pozvanih funkcija
+                if (loops >= 2) return;
+                String var = "i" + names++;
+                int from = rnd.nextInt(5) - 2;
+                String to = rnd.nextInt(3) == 0 ? from + " + (" + expr(1) + ") % 4" : Integer.toString(from + rnd.nextInt(5) - 1);
+                line("justBeatIt " + var + " from " + from + " glideTo " + to);
+                int mark = vars.size();
+                declare(var, false, 0);
+                loops++;
+                block(depth - 1);
+                loops--;
+                truncate(mark);
+            }
+        }
+    }
+
+    private void block(int depth)
+    {
+        int mark = vars.size();
+        line("jam");
+        indent++;
+        int n = rnd.nextInt(4);
+        for (int i = 0; i < n; i++) statement(depth);
+        indent--;
+        line("jamOut");
+        truncate(mark);
+    }
+
+    private String expr(int depth)
+    {
+        int r = rnd.nextInt(depth <= 0 ? 3 : 10);
+        switch (r)
+        {
+            case 0:
+                return literal();
+            case 1, 2:
+            {
+                String v = pick(0);
+                if (v == null) return literal();
+                if (r == 2 && rnd.nextBoolean())
+                {
+                    String a = pick(rnd.nextBoolean() ? 1 : 2);
+                    if (a != null) return element(a);
+                }
+                return v;
+            }
+            case 3:
+                return rnd.nextBoolean() ? "-" + expr(depth - 1) : "lieBecomesTheTruth " + expr(depth - 1);
+            case 4:
+                return "(" + expr(depth - 1) + ")";
+            case 5:
+            {
+                String call = signatures.isEmpty() ? null : call();
+                return call == null ? literal() : call;
+            }
+            default:
+                return expr(depth - 1) + " " + OPS[rnd.nextInt(OPS.length)] + " " + expr(depth - 1);
+        }
+    }
+
+    private String literal()
+    {
+        return switch (rnd.nextInt(6))
+        {
+            case 0 -> rnd.nextBoolean() ? "white" : "black";
+            case 1 -> Integer.toString(rnd.nextInt(Integer.MAX_VALUE));
+            case 2 -> Integer.toString(40000 + rnd.nextInt(100000));
+            default -> Integer.toString(rnd.nextInt(10));
+        };
+    }
+
+    // null kada za parametar niz nema vidljivog niza istog ranga
+    private String call()
+    {
+        int f = rnd.nextInt(signatures.size());
+        List<Integer> signature = signatures.get(f);
+        // ponekad pogresan broj argumenata, i to mora da bude ista greska
+        boolean wrong = rnd.nextInt(40) == 0;
+        int n = wrong ? signature.size() + 1 : signature.size();
+        StringBuilder sb = new StringBuilder("f" + f + "(");
+        for (int i = 0; i < n; i++)
+        {
+            String a = i < signature.size() && signature.get(i) > 0 ? pick(signature.get(i)) : null;
+            if (i < signature.size() && signature.get(i) > 0 && a == null) return null;
+            sb.append(i > 0 ? ", " : "").append(a != null ? a : expr(1));
+        }
+        return sb.append(")").toString();
+    }
+
+    // array heehee[d] ili [d][d]; dimenzija je ponekad izraz, pa moze da bude i negativna
+    private void array(String name)
+    {
+        int rank = 1 + rnd.nextInt(2);
+        StringBuilder sb = new StringBuilder("array heehee");
+        for (int k = 0; k < rank; k++)
+        {
+            sb.append('[').append(rnd.nextInt(8) == 0 ? "(" + expr(1) + ") % 5" : Integer.toString(1 + rnd.nextInt(4))).append(']');
+        }
+        line(sb + " " + name);
+        declare(name, true, rank);
+    }
+
+    private String element(String array)
+    {
+        StringBuilder sb = new StringBuilder(array);
+        int rank = ranks.get(vars.indexOf(array));
+        for (int k = 0; k < rank; k++) sb.append('[').append(index()).append(']');
+        return sb.toString();
+    }
+
+    // najcesce u granicama (0..3), ponekad van njih
+    private String index()
+    {
+        return switch (rnd.nextInt(6))
+        {
+            case 0 -> "(" + expr(1) + ") % 4";
+            case 1 ->
+            {
+                String v = pick(0);
+                yield v == null ? "0" : "(" + v + ") % 3";
+            }
+            case 2 -> Integer.toString(rnd.nextInt(6) - 1);
+            default -> Integer.toString(rnd.nextInt(2));
+        };
+    }
+
+    // int promenljiva ili element niza kome moze da se dodeli
+    private String target()
+    {
+        if (rnd.nextInt(3) == 0)
+        {
+            String a = pick(1 + rnd.nextInt(2));
+            if (a != null) return element(a);
+        }
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < vars.size(); i++)
+        {
+            if (assignable.get(i) && ranks.get(i) == 0) candidates.add(vars.get(i));
+        }
+        return candidates.isEmpty() ? null : candidates.get(rnd.nextInt(candidates.size()));
+    }
+
+    private String pick(int rank)
+    {
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < vars.size(); i++)
+        {
+            if (ranks.get(i) == rank) candidates.add(vars.get(i));
+        }
+        return candidates.isEmpty() ? null : candidates.get(rnd.nextInt(candidates.size()));
+    }
+
+    private void declare(String name, boolean canAssign, int rank)
+    {
+        vars.add(name);
+        assignable.add(canAssign);
+        ranks.add(rank);
+    }
+
+    private void truncate(int mark)
+    {
+        while (vars.size() > mark)
+        {
+            vars.remove(vars.size() - 1);
+            assignable.remove(assignable.size() - 1);
+            ranks.remove(ranks.size() - 1);
+        }
+    }
+
+    private void line(String text)
+    {
+        out.append("  ".repeat(indent)).append(text).append('\n');
+    }
+}
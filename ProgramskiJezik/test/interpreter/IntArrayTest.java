@@ -0,0 +1,112 @@
+package interpreter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntArrayTest
+{
+    @Test
+    void offsetsAreRowMajor()
+    {
+        IntArray a = IntArray.allocate(new int[] { 3, 4, 5 });
+        assertEquals(3, a.rank());
+        assertEquals(60, a.size());
+        assertEquals(4, a.length(1));
+        assertEquals(2 * 20 + 3 * 5 + 4, a.offset(new int[] { 9, 2, 3, 4 }, 1));
+
+        IntArray b = IntArray.allocate(new int[] { 3, 4 });
+        assertEquals(1 * 4 + 2, b.offset(1, 2));
+        assertEquals(b.offset(2, 3), b.offset(new int[] { 2, 3 }, 0));
+    }
+
+    @Test
+    void outOfBoundsIndexGivesMinusOne()
+    {
+        IntArray a = IntArray.allocate(new int[] { 4 });
+        assertEquals(3, a.offset(3));
+        assertEquals(-1, a.offset(4));
+        assertEquals(-1, a.offset(-1));
+        assertEquals(-1, a.offset(Integer.MIN_VALUE));
+
+        IntArray b = IntArray.allocate(new int[] { 2, 3 });
+        assertEquals(-1, b.offset(0, 3));
+        assertEquals(-1, b.offset(2, 0));
+        assertEquals(-1, b.offset(-1, 1));
+        assertEquals(-1, b.offset(new int[] { 1, 3 }, 0));
+    }
+
+    @Test
+    void staticVariantsReportMissingArray()
+    {
+        IntArray a = IntArray.allocate(new int[] { 2, 3 });
+        assertEquals(-2, IntArray.offset(0, null));
+        assertEquals(-2, IntArray.offset(0, 0, null));
+        assertEquals(5, IntArray.offset(1, 2, a));
+        // Horner: ((0 * 2 + 1) * 3 + 2)
+        assertEquals(5, IntArray.step(IntArray.step(0, 1, 0, a), 2, 1, a));
+        assertEquals(-1, IntArray.step(IntArray.step(0, 2, 0, a), 0, 1, a));
+        assertEquals(-2, IntArray.step(0, 0, 0, null));
+    }
+
+    @Test
+    void invalidSizesAreRejected()
+    {
+        assertNull(IntArray.allocate(new int[] { -1 }));
+        assertNull(IntArray.allocate(new int[] { 3, -2 }));
+        assertNull(IntArray.allocate(new int[] { 65536, 65536 }));
+        IntArray empty = IntArray.allocate(new int[] { 0, 7 });
+        assertNotNull(empty);
+        assertEquals(0, empty.size());
+        assertEquals(-1, empty.offset(0, 0));
+    }
+
+    @Test
+    void allocateCopiesDimensionsFromStack()
+    {
+        int[] stack = { 7, 2, 3, 7 };
+        IntArray a = IntArray.allocate(stack, 1, 2);
+        stack[1] = 100;
+        assertEquals(2, a.length(0));
+        assertEquals(6, a.size());
+    }
+
+    @Test
+    void elementsStartAtZeroAndKeepValues()
+    {
+        IntArray a = IntArray.allocate(new int[] { 10 });
+        assertFalse(a.offHeap());
+        assertEquals(0, a.get(9));
+        a.set(9, -5);
+        IntArray.set(42, 0, a);
+        assertEquals(-5, IntArray.get(9, a));
+        assertEquals(42, a.get(0));
+    }
+
+    @Test
+    void largeArrayGoesOffHeap()
+    {
+        long saved = IntArray.offHeapBytes();
+        try
+        {
+            IntArray.offHeapBytes(64);
+            IntArray small = IntArray.allocate(new int[] { 15 });
+            IntArray big = IntArray.allocate(new int[] { 4, 8 });
+            assertFalse(small.offHeap());
+            assertTrue(big.offHeap());
+
+            assertEquals(0, big.get(big.offset(3, 7)));
+            for (int i = 0; i < big.size(); i++) big.set(i, i * i);
+            assertEquals(31 * 31, big.get(big.offset(3, 7)));
+            assertEquals(-1, big.offset(4, 0));
+        }
+        finally
+        {
+            IntArray.offHeapBytes(saved);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package interpreter;
+
+import lexer.Lexer;
+import org.junit.jupiter.api.Test;
+import parser.RecognizerParser;
+import parser.ast.Ast;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResolverTest
+{
+    @Test
+    void checkCollectsAllErrorsInSourceOrder()
+    {
+        // tela funkcija se obilaze pre naredbi na vrhu, a greske se ipak prijavljuju redom po mestu
+        List<String> errors = new Resolver(parse("""
+                heehee x
+                x = y
+                heehee x
+                smoothCriminal f(): heehee
+                jam
+                  moonWalk z
+                jamOut
+                """)).check().errors();
+        assertEquals(List.of(
+                "JAMCRASH > Undefined variable 'y' at 2:5 near 'y'",
+                "JAMCRASH > Variable 'x' already declared at 3:8 near 'x'",
+                "JAMCRASH > Undefined variable 'z' at 6:12 near 'z'"), errors);
+    }
+
+    @Test
+    void resolveThrowsTheFirstError()
+    {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> new Resolver(parse("""
+                annieAreYouOkay white
+                jam
+                  heehee a
+                  heehee a
+                jamOut
+                moonWalk b
+                """)).resolve());
+        assertEquals("JAMCRASH > Variable 'a' already declared in this scope at 4:10 near 'a'", e.getMessage());
+    }
+
+    @Test
+    void wrongArgumentCountIsReportedButFailsOnlyAtRunTime()
+    {
+        Resolver r = new Resolver(parse("""
+                smoothCriminal f(n: heehee): heehee
+                jam
+                  moonWalk n
+                jamOut
+                moonWalk f(1, 2)
+                """));
+        assertEquals(List.of("JAMCRASH > Function 'f' expects 1 arguments but 2 were given at 5:10 near 'f'"), r.check().errors());
+        RuntimeException e = assertThrows(RuntimeException.class, () -> new Interpreter(r.resolve()).run());
+        assertEquals("JAMCRASH > Function 'f' expects 1 arguments but got 2 at 5:10 near 'f'", e.getMessage());
+    }
+
+    @Test
+    void blockSlotsAreReusedAndShadowingEndsWithTheBlock()
+    {
+        Resolution r = new Resolver(parse("""
+                heehee a
+                a = 1
+                annieAreYouOkay white
+                jam
+                  heehee a, b
+                  a = 5
+                jamOut
+                annieAreYouOkay white
+                jam
+                  heehee c
+                jamOut
+                moonWalk a
+                """)).resolve();
+        assertEquals(2, r.mainFrameSize());
+        assertEquals(1, r.globalCount());
+        assertEquals(1, new Interpreter(r).run());
+    }
+
+    @Test
+    void manyDeclarationsInOneScope()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) sb.append("heehee v").append(i).append('\n');
+        sb.append("moonWalk v99999\n");
+        Resolution r = new Resolver(parse(sb.toString())).resolve();
+        assertEquals(100_000, r.globalCount());
+    }
+
+    @Test
+    void oneProgramIsSharedByEngines() throws Exception
+    {
+        Ast.Program program = parse("""
+                heehee g
+                smoothCriminal f(n: heehee): heehee
+                jam
+                  heehee x
+                  x = n + g
+                  moonWalk x
+                jamOut
+                g = 10
+                moonWalk f(5)
+                """);
+        Resolution first = new Resolver(program).resolve();
+        Resolution second = new Resolver(program).resolve();
+        assertEquals(first.mainFrameSize(), second.mainFrameSize());
+        Thread[] threads = new Thread[4];
+        int[] results = new int[threads.length];
+        for (int i = 0; i < threads.length; i++)
+        {
+            int k = i;
+            threads[i] = new Thread(() -> results[k] = new Interpreter(k % 2 == 0 ? first : second).run());
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+        assertArrayEquals(new int[] { 15, 15, 15, 15 }, results);
+        assertEquals(5, new Interpreter(program).call("f", 5));
+    }
+
+    private static Ast.Program parse(String source)
+    {
+        RecognizerParser parser = new RecognizerParser(new Lexer(source).scan());
+        Ast.Program program = parser.parse();
+        assertTrue(parser.errors().isEmpty(), () -> parser.errors().toString());
+        return program;
+    }
+}
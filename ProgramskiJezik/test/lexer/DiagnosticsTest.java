@@ -0,0 +1,51 @@
+package lexer;
+
+import lexer.token.TokenStream;
+import lexer.token.TokenType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DiagnosticsTest
+{
+    @Test
+    void collectedErrorsKeepScanning()
+    {
+        Diagnostics diagnostics = new Diagnostics(10);
+        TokenStream t = new Lexer("heehee x = 12ab\n  y = 3 & 4\n# z\n").collectErrors(diagnostics).scan();
+        assertEquals(3, diagnostics.count());
+        List<Diagnostic> sorted = diagnostics.sorted();
+        assertEquals(2, sorted.get(1).line());
+        assertEquals(9, sorted.get(1).col());
+        // "12ab" je jedan ERROR token, pa posle njega ide novi red
+        assertEquals(TokenType.ERROR, t.type(3));
+        assertEquals("12ab", t.lexeme(3));
+        assertEquals(TokenType.NEWLINE, t.type(4));
+        assertEquals(TokenType.IDENT, t.type(t.size() - 3));
+    }
+
+    @Test
+    void keepsFirstMaxButCountsAll()
+    {
+        Diagnostics diagnostics = new Diagnostics(2);
+        new Lexer("# a\n# b\n# c\n# d\n").collectErrors(diagnostics).scan();
+        assertEquals(4, diagnostics.count());
+        assertEquals(2, diagnostics.sorted().size());
+        assertEquals(1, diagnostics.sorted().get(0).line());
+    }
+
+    @Test
+    void literalOutOfRangeHasTheSameMessageInBothModes()
+    {
+        String source = "heehee x\nx = 2147483648\n";
+        Diagnostics diagnostics = new Diagnostics(10);
+        new Lexer(source).collectErrors(diagnostics).scan();
+        LexerException e = assertThrows(LexerException.class, () -> new Lexer(source).scan());
+        assertEquals("JAMCRASH > BadBeat: MoonSteps literal out of range at 2:5 near '2147483648'", e.getMessage());
+        assertEquals(e.getMessage(), diagnostics.sorted().get(0).toString());
+        assertEquals(0, e.getStackTrace().length);
+    }
+}
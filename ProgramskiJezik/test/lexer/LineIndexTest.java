@@ -0,0 +1,54 @@
+package lexer;
+
+import lexer.token.TokenStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineIndexTest
+{
+    @Test
+    void lineAndColumnFromOffset()
+    {
+        LineIndex lines = new LineIndex();
+        lines.scan("ab\ncd\n\nx", 0, 8);
+        assertEquals(3, lines.count());
+        assertEquals(1, lines.line(0));
+        assertEquals(2, lines.column(1));
+        assertEquals(1, lines.line(2));
+        assertEquals(2, lines.line(3));
+        assertEquals(1, lines.column(3));
+        assertEquals(3, lines.line(6));
+        assertEquals(4, lines.line(7));
+        assertEquals(1, lines.column(7));
+        // upiti van redosleda ne zavise od hint-a
+        assertEquals(1, lines.line(1));
+        assertEquals(4, lines.line(7));
+        assertEquals(2, lines.line(4));
+    }
+
+    @Test
+    void tokensGetLineAndColumnLazily()
+    {
+        TokenStream t = new Lexer("heehee x = 12 <= y\njam &&\n").scan();
+        assertEquals(1, t.line(0));
+        assertEquals(1, t.colStart(0));
+        assertEquals(12, t.colStart(3));
+        assertEquals(2, t.line(7));
+        assertEquals(5, t.colStart(8));
+    }
+
+    @Test
+    void editMovesLaterNewlines()
+    {
+        String before = "a\nb\nc\n";
+        LineIndex lines = new LineIndex();
+        lines.scan(before, 0, before.length());
+        // "b" -> "x\ny\nz": posle izmene "a\nx\ny\nz\nc\n"
+        lines.edit(2, 1, "x\ny\nz", before.length());
+        assertEquals(5, lines.count());
+        assertEquals(5, lines.line(8));
+        assertEquals(4, lines.line(6));
+        assertEquals(1, lines.column(8));
+    }
+}
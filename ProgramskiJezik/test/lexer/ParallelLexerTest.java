@@ -0,0 +1,89 @@
+package lexer;
+
+import lexer.token.TokenStream;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+    Delovi po redovima daju iste tokene, iste id-eve imena i iste greske kao sekvencijalno
+    leksiranje; minChunk je mali, pa se izvor od nekoliko KB deli na vise delova.
+ */
+class ParallelLexerTest
+{
+    @Test
+    void parallelChunksGiveSameTokensAndErrors()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 400; i++)
+        {
+            sb.append("heehee v").append(i % 37).append(" = ").append(i).append(" * w").append(i % 11).append('\n');
+            if (i % 97 == 0) sb.append("  x = 5 & 6 # ").append(i).append('\n');
+        }
+        String source = sb.toString();
+        Diagnostics sequentialErrors = new Diagnostics(100);
+        TokenStream sequential = new Lexer(source).collectErrors(sequentialErrors).scan();
+        assertEquals(2 * 5, sequentialErrors.count());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            Diagnostics parallelErrors = new Diagnostics(100);
+            TokenStream parallel = ParallelLexer.scan(new TokenStream(source, new SymbolTable()), pool, 64, null, parallelErrors);
+
+            assertEquals(sequential.size(), parallel.size());
+            for (int i = 0; i < sequential.size(); i++)
+            {
+                assertEquals(sequential.get(i).toString(), parallel.get(i).toString(), "token " + i);
+                assertEquals(sequential.literal(i), parallel.literal(i), "literal " + i);
+                assertEquals(sequential.symbol(i), parallel.symbol(i), "symbol " + i);
+            }
+            assertEquals(sequentialErrors.sorted(), parallelErrors.sorted());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void firstErrorIsTheEarliestInTheSource()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++) sb.append(i == 120 || i == 250 ? "x = 1 & 2\n" : "heehee v = 1\n");
+        String source = sb.toString();
+        LexerException sequential = assertThrows(LexerException.class, () -> new Lexer(source).scan());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            LexerException parallel = assertThrows(LexerException.class,
+                    () -> ParallelLexer.scan(new TokenStream(source, new SymbolTable()), pool, 64, null, null));
+            assertEquals(sequential.getMessage(), parallel.getMessage());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void singleChunkFallsBackToSequentialScan()
+    {
+        String source = "heehee x\nx = 1\n";
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            TokenStream parallel = ParallelLexer.scan(new TokenStream(source, new SymbolTable()), pool, 1 << 20, null, null);
+            TokenStream sequential = new Lexer(source).scan();
+            assertEquals(sequential.asList().toString(), parallel.asList().toString());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package lexer;
+
+import lexer.token.Token;
+import lexer.token.TokenStream;
+import lexer.token.TokenType;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Skener iz tabela (ScannerTables iz TokenSpec.DEFAULT): najduze poklapanje, kljucne reci nad
+    run-om imena, brojevi i provera znaka iza broja.
+ */
+class ScannerTest
+{
+    @Test
+    void longestMatchAndKeywords()
+    {
+        assertEquals(List.of(TokenType.INT, TokenType.IDENT, TokenType.ASSIGN, TokenType.INT_LIT, TokenType.LE, TokenType.IDENT,
+                TokenType.NEWLINE, TokenType.BEGIN, TokenType.AND, TokenType.NEWLINE, TokenType.EOF), types("heehee x1 = 12 <= y\njam &&\n"));
+        assertEquals(List.of(TokenType.LT, TokenType.ASSIGN, TokenType.EQ, TokenType.NOT, TokenType.NEQ, TokenType.EOF), types("< = == ! !="));
+        // kljucna rec je samo ceo run imena
+        assertEquals(List.of(TokenType.IDENT, TokenType.IDENT, TokenType.EOF), types("jamming heehee_"));
+    }
+
+    @Test
+    void blanksAreSkippedButNewlinesAreTokens()
+    {
+        assertEquals(List.of(TokenType.IDENT, TokenType.NEWLINE, TokenType.NEWLINE, TokenType.IDENT, TokenType.EOF), types(" \t a \r\n\n  b  "));
+    }
+
+    @Test
+    void unicodeLettersAndDigitsFollowJava()
+    {
+        TokenStream t = new Lexer("čaša_1 = ١٢").scan();
+        assertEquals("čaša_1", t.lexeme(0));
+        assertEquals(12, t.literal(2));
+    }
+
+    @Test
+    void numbersUseFullIntRange()
+    {
+        TokenStream t = new Lexer("2147483647 007 1234567890").scan();
+        assertEquals(Integer.MAX_VALUE, t.literal(0));
+        assertEquals(7, t.literal(1));
+        assertEquals(1234567890, t.literal(2));
+    }
+
+    @Test
+    void firstErrorThrowsWithPosition()
+    {
+        LexerException e = assertThrows(LexerException.class, () -> new Lexer("heehee x = 12ab\n").scan());
+        assertEquals("JAMCRASH > BadBeat: Letter in MoonSteps literal at 1:12 near '12'", e.getMessage());
+        e = assertThrows(LexerException.class, () -> new Lexer("x\n  & y").scan());
+        assertEquals("JAMCRASH > BadBeat: Lone '&' found at 2:3 near '&'", e.getMessage());
+        e = assertThrows(LexerException.class, () -> new Lexer("x # y").scan());
+        assertEquals("JAMCRASH > JamCrash: Unrecognized move at 1:3 near '#'", e.getMessage());
+    }
+
+    @Test
+    void streamingLexerDoesNotInternAndClosesItsSource() throws Exception
+    {
+        boolean[] closed = new boolean[1];
+        Reader in = new StringReader("heehee a\na = a1 + a\n")
+        {
+            @Override
+            public void close()
+            {
+                closed[0] = true;
+            }
+        };
+        try (CharWindow window = CharWindow.of(in))
+        {
+            Lexer lexer = new Lexer(window);
+            assertNull(lexer.symbols());
+            lexer.nextToken();
+            Token t = lexer.nextToken();
+            assertEquals("a", t.lexeme);
+            assertEquals(-1, t.symbol);
+        }
+        assertTrue(closed[0]);
+    }
+
+    private static List<TokenType> types(String source)
+    {
+        TokenStream t = new Lexer(source).scan();
+        List<TokenType> out = new ArrayList<>(t.size());
+        for (int i = 0; i < t.size(); i++) out.add(t.type(i));
+        return out;
+    }
+}
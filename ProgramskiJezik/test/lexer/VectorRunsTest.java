@@ -0,0 +1,52 @@
+package lexer;
+
+import lexer.token.TokenStream;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/*
+    SIMD kraj run-a mora da da iste tokene kao skalarna petlja: runovi preko granice long-a u
+    bit-mapi, ne-ASCII slova i cifre usred imena i broja, '?' (njime Latin-1 kopija zamenjuje
+    znakove van nje) i run do samog kraja izvora.
+ */
+class VectorRunsTest
+{
+    private static final String[] PIECES = { "heehee", " ", "   ", "\t", "\n", "x", "_tmp", "justBeatIt", "12", "0", "=", "+", "<=",
+            "(", ")", "č", "ž", "١٢", "été", "?", "a".repeat(70), " ".repeat(65), "9".repeat(8) };
+
+    @Test
+    void vectorAndScalarRunsGiveSameTokens()
+    {
+        assumeTrue(Lexer.vectorRunsAvailable(), "jdk.incubator.vector nije ucitan");
+        Random rnd = new Random(7);
+        for (int round = 0; round < 200; round++)
+        {
+            StringBuilder sb = new StringBuilder();
+            int n = 1 + rnd.nextInt(300);
+            for (int i = 0; i < n; i++) sb.append(PIECES[rnd.nextInt(PIECES.length)]).append(rnd.nextBoolean() ? " " : "");
+            String source = sb.toString();
+
+            TokenStream scalar = new Lexer(source).vectorRuns(false).collectErrors(new Diagnostics(1000)).scan();
+            TokenStream vector = new Lexer(source).vectorRuns(true).collectErrors(new Diagnostics(1000)).scan();
+            assertEquals(scalar.size(), vector.size(), source);
+            for (int i = 0; i < scalar.size(); i++)
+            {
+                assertEquals(scalar.get(i).toString(), vector.get(i).toString(), source);
+            }
+        }
+    }
+
+    @Test
+    void runEndingAtEndOfSource()
+    {
+        assumeTrue(Lexer.vectorRunsAvailable(), "jdk.incubator.vector nije ucitan");
+        String source = "x = " + "y".repeat(128);
+        TokenStream t = new Lexer(source).vectorRuns(true).scan();
+        assertEquals(128, t.lexeme(2).length());
+        assertEquals(source.length(), t.end(2));
+    }
+}
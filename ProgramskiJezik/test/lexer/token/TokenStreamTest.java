@@ -0,0 +1,76 @@
+package lexer.token;
+
+import lexer.Lexer;
+import lexer.SymbolTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenStreamTest
+{
+    @Test
+    void packedFieldsReadBackAsTokens()
+    {
+        TokenStream t = new Lexer("heehee x1 = 12 <= x1\n").scan();
+        assertEquals(8, t.size());
+        assertEquals(TokenType.INT_LIT, t.type(3));
+        assertTrue(t.hasLiteral(3));
+        assertEquals(12, t.literal(3));
+        assertEquals(12, t.start(3));
+        assertEquals(14, t.end(3));
+        assertEquals("x1", t.lexeme(1));
+        assertEquals("\0", t.lexeme(7));
+
+        Token token = t.get(3);
+        assertEquals(TokenType.INT_LIT, token.type);
+        assertEquals("12", token.lexeme);
+        assertEquals(12, token.literal);
+        assertNull(t.get(2).literal);
+    }
+
+    @Test
+    void sameNameHasSameSymbol()
+    {
+        TokenStream t = new Lexer("a b a\n").scan();
+        assertEquals(t.symbol(0), t.symbol(2));
+        assertFalse(t.symbol(0) == t.symbol(1));
+        assertEquals(-1, t.symbol(3));
+    }
+
+    @Test
+    void growsPastInitialCapacity()
+    {
+        TokenStream t = new TokenStream("", new SymbolTable(), 1);
+        for (int i = 0; i < 1000; i++) t.add(TokenType.INT_LIT, i, i, i * 3);
+        assertEquals(1000, t.size());
+        assertEquals(999 * 3, t.literal(999));
+        assertEquals(500, t.start(500));
+    }
+
+    @Test
+    void listViewIsReadOnlyAndChecksIndex()
+    {
+        TokenStream t = new Lexer("jam\njamOut\n").scan();
+        List<Token> list = t.asList();
+        assertEquals(t.size(), list.size());
+        assertEquals(TokenType.BEGIN, list.get(0).type);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(t.size()));
+        assertThrows(UnsupportedOperationException.class, () -> list.add(list.get(0)));
+    }
+
+    @Test
+    void frozenStreamIsReadOnly()
+    {
+        TokenStream t = new Lexer("jam\n").scan().freeze();
+        assertTrue(t.frozen());
+        assertThrows(IllegalStateException.class, () -> t.add(TokenType.EOF, 0, 0, 0));
+        assertThrows(IllegalStateException.class, () -> t.lines().add(0));
+        assertEquals(2, t.line(2));
+    }
+}
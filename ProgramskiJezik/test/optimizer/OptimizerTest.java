@@ -0,0 +1,197 @@
+package optimizer;
+
+import interpreter.Interpreter;
+import lexer.Lexer;
+import org.junit.jupiter.api.Test;
+import parser.RecognizerParser;
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.Stmt;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptimizerTest
+{
+    @Test
+    void foldsConstantsAndDropsGroupings()
+    {
+        Optimizer optimizer = new Optimizer();
+        Ast.Program out = optimizer.optimize(parse("moonWalk (2 + 3) * 4 - 1\n"));
+
+        Expr.Literal value = assertInstanceOf(Expr.Literal.class, returned(out.items.get(0)));
+        assertEquals(19, value.value);
+        Optimizer.Pass fold = optimizer.passes().get(0);
+        assertEquals("fold", fold.name);
+        assertTrue(fold.rewrites > 0 && fold.removed > 0);
+        assertEquals(1 + 1, optimizer.nodesAfter());
+    }
+
+    @Test
+    void foldingKeepsIntOverflow()
+    {
+        Ast.Program out = new Optimizer().optimize(parse("moonWalk 2147483647 + 1\n"));
+        assertEquals(Integer.MIN_VALUE, assertInstanceOf(Expr.Literal.class, returned(out.items.get(0))).value);
+    }
+
+    @Test
+    void divisionByZeroIsLeftForRunTime()
+    {
+        Ast.Program out = new Optimizer().optimize(parse("moonWalk 1 / 0\n"));
+        assertInstanceOf(Expr.Binary.class, returned(out.items.get(0)));
+        RuntimeException e = assertThrows(RuntimeException.class, () -> new Interpreter(out).run());
+        assertEquals("JAMCRASH > Division by zero at 1:12 near '/'", e.getMessage());
+    }
+
+    @Test
+    void constantConditionsAndEmptyLoopsDisappear()
+    {
+        String source = """
+                heehee x
+                annieAreYouOkay 1 < 0
+                jam
+                  x = 1
+                jamOut
+                fightForYourLife
+                jam
+                  x = 2
+                jamOut
+                justBeatIt i from 5 glideTo 1
+                jam
+                  x = 3
+                jamOut
+                moonWalk x
+                """;
+        Optimizer optimizer = new Optimizer();
+        Ast.Program out = optimizer.optimize(parse(source));
+
+        // heehee x, x = 2 (else blok bez deklaracija ulazi u okolni), moonWalk x
+        assertEquals(3, out.items.size());
+        Stmt.Assign assign = assertInstanceOf(Stmt.Assign.class, ((Ast.TopStmt) out.items.get(1)).stmt);
+        assertEquals(2, assertInstanceOf(Expr.Literal.class, assign.left).value);
+        assertInstanceOf(Stmt.Return.class, ((Ast.TopStmt) out.items.get(2)).stmt);
+        assertTrue(optimizer.passes().get(1).removed > 0);
+        assertEquals(2, new Interpreter(out).run());
+    }
+
+    @Test
+    void statementsAfterMoonWalkInABlockDisappear()
+    {
+        String source = """
+                smoothCriminal f(n: heehee): heehee
+                jam
+                  moonWalk n + 1
+                  n = 7
+                  moonWalk n
+                jamOut
+                moonWalk f(1)
+                """;
+        Ast.Program out = new Optimizer().optimize(parse(source));
+        assertEquals(1, ((Ast.FuncDef) out.items.get(0)).body.size());
+        assertEquals(2, new Interpreter(out).run());
+    }
+
+    @Test
+    void invariantExpressionIsHoistedOutOfTheLoop()
+    {
+        String source = """
+                heehee a
+                heehee b
+                heehee s
+                a = 3
+                b = 4
+                justBeatIt i from 1 glideTo 10
+                jam
+                  s = s + a * b
+                jamOut
+                moonWalk s
+                """;
+        Ast.Program program = parse(source);
+        Optimizer optimizer = new Optimizer();
+        Ast.Program out = optimizer.optimize(program);
+
+        assertTrue(out.items.stream().anyMatch(t -> t instanceof Ast.TopVarDecl d && d.decl.names.get(0).lexeme.equals("$inv0")));
+        Stmt.BeginFor loop = (Stmt.BeginFor) out.items.stream()
+                .filter(t -> t instanceof Ast.TopStmt s && s.stmt instanceof Stmt.BeginFor)
+                .map(t -> ((Ast.TopStmt) t).stmt).findFirst().orElseThrow();
+        Stmt.Assign body = (Stmt.Assign) loop.body.get(0);
+        Expr.Binary sum = assertInstanceOf(Expr.Binary.class, body.left);
+        assertEquals("$inv0", assertInstanceOf(Expr.Ident.class, sum.right).name.lexeme);
+        assertEquals("hoist", optimizer.passes().get(2).name);
+        assertEquals(1, optimizer.passes().get(2).rewrites);
+
+        assertEquals(120, new Interpreter(out).run());
+        assertEquals(new Interpreter(program).run(), new Interpreter(out).run());
+    }
+
+    @Test
+    void assignedNamesAndCallsStayInTheLoop()
+    {
+        String source = """
+                heehee a
+                heehee s
+                smoothCriminal bump(): heehee
+                jam
+                  a = a + 1
+                  moonWalk a
+                jamOut
+                justBeatIt i from 1 glideTo 3
+                jam
+                  s = s + a * 2 + shamona bump()
+                jamOut
+                moonWalk s
+                """;
+        Ast.Program program = parse(source);
+        Optimizer optimizer = new Optimizer();
+        Ast.Program out = optimizer.optimize(program);
+        assertEquals(0, optimizer.passes().get(2).rewrites);
+        assertEquals(new Interpreter(program).run(), new Interpreter(out).run());
+    }
+
+    @Test
+    void inputTreeIsNotChanged()
+    {
+        Ast.Program program = parse("heehee x\nannieAreYouOkay white\njam\n  x = (1 + 2)\njamOut\nmoonWalk x\n");
+        int before = TreeRewriter.size(program);
+        Optimizer optimizer = new Optimizer();
+        optimizer.optimize(program);
+        assertEquals(before, TreeRewriter.size(program));
+        assertEquals(before, optimizer.nodesBefore());
+        assertTrue(optimizer.nodesAfter() < before);
+    }
+
+    @Test
+    void nameErrorsInRemovedCodeStillFail()
+    {
+        Ast.Program program = parse("annieAreYouOkay black\njam\n  moonWalk nope\njamOut\nmoonWalk 1\n");
+        assertThrows(RuntimeException.class, () -> new Optimizer().optimize(program));
+    }
+
+    @Test
+    void reportHasOneLinePerPassAndTotal()
+    {
+        Optimizer optimizer = new Optimizer();
+        optimizer.optimize(parse("moonWalk 1 + 1\n"));
+        List<String> lines = optimizer.report().lines().toList();
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("fold"));
+        assertTrue(lines.get(3).startsWith("total"));
+    }
+
+    private static Expr returned(Ast.TopItem item)
+    {
+        return assertInstanceOf(Stmt.Return.class, ((Ast.TopStmt) item).stmt).expr;
+    }
+
+    private static Ast.Program parse(String source)
+    {
+        RecognizerParser parser = new RecognizerParser(new Lexer(source).scan());
+        Ast.Program program = parser.parse();
+        assertTrue(parser.errors().isEmpty(), () -> parser.errors().toString());
+        return program;
+    }
+}
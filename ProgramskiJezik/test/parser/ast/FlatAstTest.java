@@ -0,0 +1,109 @@
+package parser.ast;
+
+import lexer.Lexer;
+import org.junit.jupiter.api.Test;
+import parser.RecognizerParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FlatAstTest
+{
+    private static final String SOURCE = """
+            heehee s
+            smoothCriminal f(n: heehee): heehee
+            jam
+              moonWalk (n + 1) * 2
+            jamOut
+            justBeatIt i from 1 glideTo 3
+            jam
+              annieAreYouOkay i == 2
+              jam
+                s = s + f(i)
+              jamOut
+            jamOut
+            moonWalk s
+            """;
+
+    @Test
+    void visitorWalksTheArenaWithoutObjects()
+    {
+        FlatAst f = FlatAst.of(new RecognizerParser(new Lexer(SOURCE).scan()).parse());
+        List<String> seen = new ArrayList<>();
+        var v = new FlatAst.Visitor<Void>()
+        {
+            void list(int list)
+            {
+                for (int i = 0; i < f.size(list); i++) f.accept(f.at(list, i), this);
+            }
+
+            @Override public Void visitLiteral(int n) { seen.add(Integer.toString(f.value(n))); return null; }
+            @Override public Void visitIdent(int n) { seen.add(f.lexeme(f.token(n))); return null; }
+            @Override public Void visitIndex(int n) { list(f.indices(n)); return null; }
+            @Override public Void visitGrouping(int n) { seen.add("()"); return f.accept(f.inner(n), this); }
+            @Override public Void visitCall(int n) { seen.add("call " + f.lexeme(f.token(n))); list(f.args(n)); return null; }
+
+            @Override
+            public Void visitBinary(int n)
+            {
+                seen.add(f.lexeme(f.token(n)));
+                f.accept(f.left(n), this);
+                return f.accept(f.right(n), this);
+            }
+
+            @Override public Void visitVarDecl(int n) { seen.add("decl " + f.lexeme(f.at(f.names(n), 0))); return null; }
+            @Override public Void visitReturn(int n) { seen.add("return"); return f.accept(f.returned(n), this); }
+
+            @Override
+            public Void visitAssign(int n)
+            {
+                seen.add("assign " + f.lexeme(f.token(f.lvalue(n))));
+                return f.accept(f.assigned(n), this);
+            }
+
+            @Override public Void visitCallStmt(int n) { return f.accept(f.call(n), this); }
+
+            @Override
+            public Void visitIf(int n)
+            {
+                seen.add("if");
+                int arm = f.at(f.arms(n), 0);
+                f.accept(f.cond(arm), this);
+                list(f.block(arm));
+                return null;
+            }
+
+            @Override
+            public Void visitFor(int n)
+            {
+                seen.add("for " + f.lexeme(f.token(n)));
+                f.accept(f.from(n), this);
+                f.accept(f.to(n), this);
+                list(f.body(n));
+                return null;
+            }
+        };
+        int items = f.items();
+        for (int i = 0; i < f.size(items); i++)
+        {
+            int n = f.at(items, i);
+            if (f.kind(n) == FlatAst.FUNC) v.list(f.body(n));
+            else f.accept(n, v);
+        }
+        assertEquals(List.of("decl s", "return", "*", "()", "+", "n", "1", "2", "for i", "1", "3",
+                "if", "==", "i", "2", "assign s", "+", "s", "call f", "i", "return", "s"), seen);
+    }
+
+    @Test
+    void materializedTreeMatchesTheArena()
+    {
+        FlatAst f = FlatAst.of(new RecognizerParser(new Lexer(SOURCE).scan()).parse());
+        Ast.Program p = f.toProgram();
+        assertEquals(f.size(f.items()), p.items.size());
+        Stmt.BeginFor loop = (Stmt.BeginFor) ((Ast.TopStmt) p.items.get(2)).stmt;
+        assertEquals("i", loop.var.lexeme);
+        assertEquals(1, loop.body.size());
+    }
+}
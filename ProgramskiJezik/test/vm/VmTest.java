@@ -0,0 +1,163 @@
+package vm;
+
+import lexer.Lexer;
+import org.junit.jupiter.api.Test;
+import parser.RecognizerParser;
+import parser.ast.Ast;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VmTest
+{
+    private static final String FACT = """
+            smoothCriminal fact(n: heehee): heehee
+            jam
+              annieAreYouOkay n <= 1
+              jam
+                moonWalk 1
+              jamOut
+              moonWalk n * shamona fact(n - 1)
+            jamOut
+            """;
+
+    @Test
+    void arithmeticFollowsPrecedenceAndIntOverflow()
+    {
+        assertEquals(13, run("moonWalk 2 + 3 * 4 - 10 / 3 % 2\n"));
+        assertEquals(-7, run("moonWalk -(3 + 4)\n"));
+        assertEquals(Integer.MIN_VALUE, run("moonWalk 2147483647 + 1\n"));
+    }
+
+    @Test
+    void comparisonsAndLogicGiveZeroOrOne()
+    {
+        assertEquals(1, run("moonWalk 3 < 4 and lieBecomesTheTruth black\n"));
+        assertEquals(0, run("moonWalk 3 >= 4 eitherWay 2 != 2\n"));
+        assertEquals(1, run("moonWalk white\n"));
+    }
+
+    @Test
+    void programWithoutMoonWalkReturnsZero()
+    {
+        assertEquals(0, run("heehee x\nx = 5\n"));
+    }
+
+    @Test
+    void recursiveFunctionFromMainAndThroughCall()
+    {
+        Vm vm = new Vm(parse(FACT + "moonWalk fact(10)\n"));
+        assertEquals(3628800, vm.run());
+        assertEquals(120, vm.call("fact", 5));
+    }
+
+    @Test
+    void callChecksNameAndArguments()
+    {
+        Vm vm = new Vm(parse(FACT));
+        assertTrue(assertThrows(RuntimeException.class, () -> vm.call("nope")).getMessage().startsWith("JAMCRASH > Undefined function 'nope'"));
+        assertTrue(assertThrows(RuntimeException.class, () -> vm.call("fact", 1, 2)).getMessage().contains("expects 1 arguments but got 2"));
+    }
+
+    @Test
+    void loopsAndGlobalsKeepState()
+    {
+        String source = """
+                heehee s
+                smoothCriminal sum(n: heehee): heehee
+                jam
+                  justBeatIt i from 1 glideTo n
+                  jam
+                    s = s + i
+                  jamOut
+                  moonWalk s
+                jamOut
+                shamona sum(10)
+                moonWalk s
+                """;
+        Vm vm = new Vm(parse(source));
+        assertEquals(55, vm.run());
+        // globale ostaju posle run(), pa drugi poziv nastavlja zbir
+        assertEquals(55 + 3, vm.call("sum", 2));
+    }
+
+    @Test
+    void arraysAreRowMajorAndPassedByReference()
+    {
+        String source = """
+                smoothCriminal fill(a: heehee[][]): heehee
+                jam
+                  justBeatIt i from 0 glideTo 2
+                  jam
+                    justBeatIt j from 0 glideTo 3
+                    jam
+                      a[i][j] = i * 10 + j
+                    jamOut
+                  jamOut
+                  moonWalk 0
+                jamOut
+                array heehee[3][4] m
+                shamona fill(m)
+                moonWalk m[2][3] * 100 + m[1][0]
+                """;
+        assertEquals(2310, run(source));
+    }
+
+    @Test
+    void runtimeErrorsNameThePlace()
+    {
+        assertEquals("JAMCRASH > Division by zero at 2:7 near '/'", error("heehee x\nx = 7 / 0\n"));
+        assertEquals("JAMCRASH > Index out of bounds for array 'a' at 2:10 near 'a'", error("array heehee[3] a\nmoonWalk a[3]\n"));
+        assertEquals("JAMCRASH > Invalid size for array 'a' at 1:18 near 'a'", error("array heehee[-1] a\nmoonWalk 0\n"));
+    }
+
+    @Test
+    void unboundedRecursionIsReported()
+    {
+        String source = """
+                smoothCriminal f(n: heehee): heehee
+                jam
+                  moonWalk shamona f(n + 1)
+                jamOut
+                moonWalk f(0)
+                """;
+        String msg = error(source);
+        assertTrue(msg.contains("Stack overflow") || msg.contains("Too many nested calls"), msg);
+    }
+
+    @Test
+    void chunkCanBeReusedByAnotherVm()
+    {
+        Vm first = new Vm(parse(FACT + "moonWalk fact(6)\n"));
+        assertEquals(720, new Vm(first.chunk()).run());
+    }
+
+    @Test
+    void disassemblerListsEveryFunction()
+    {
+        String text = Disassembler.disassemble(new Vm(parse(FACT + "moonWalk fact(3)\n")).chunk());
+        assertTrue(text.contains("== fact(1)"), text);
+        assertTrue(text.contains("CALL"), text);
+        assertTrue(text.lines().anyMatch(l -> l.matches("\\d{4}  CONST +#\\d+ +; 1")), text);
+    }
+
+    private static int run(String source)
+    {
+        return new Vm(parse(source)).run();
+    }
+
+    private static String error(String source)
+    {
+        Vm vm = new Vm(parse(source));
+        return assertThrows(RuntimeException.class, vm::run).getMessage();
+    }
+
+    private static Ast.Program parse(String source)
+    {
+        RecognizerParser parser = new RecognizerParser(new Lexer(source).scan());
+        Ast.Program program = parser.parse();
+        assertTrue(parser.errors().isEmpty(), () -> parser.errors().toString());
+        return program;
+    }
+}
@@ -0,0 +1,369 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.RecognizerParser;
+import parser.ast.Ast;
+import parser.ast.Expr;
+import parser.ast.FlatAst;
+import parser.ast.Stmt;
+
+import java.lang.ref.Reference;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+    Stablo objekata (Ast.Program) prema FlatAst-u nad istim corpus-om. Svaki obilazak broji izraze
+    i naredbe i sabira literale, pa svi vracaju isti broj:
+
+    tree     Expr.Visitor / Stmt.Visitor nad objektima
+    adapter  isti posetilac nad objektima iz FlatAst.stmt (napravljeni su vec pri zagrevanju)
+    visitor  FlatAst.Visitor nad id-ovima cvorova, bez objekata
+    walk     rekurzivno po nizovima, switch po vrsti bez posetioca
+    scan     jedan prolaz kroz nodes redom, kada redosled nije bitan
+    flatten  pravljenje FlatAst-a iz stabla
+
+    Na pocetku se ispisuje koliko heap-a drze stablo i FlatAst istog programa (razlika zauzetog
+    heap-a posle System.gc(), sa i bez rezultata).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AstBenchmark
+{
+    @State(Scope.Benchmark)
+    public static class Trees
+    {
+        Ast.Program tree;
+        FlatAst flat;
+        FlatAst adapted;
+
+        @Setup(Level.Trial)
+        public void setup(Corpus c)
+        {
+            tree = new RecognizerParser(c.tokens).parse();
+            flat = FlatAst.of(tree);
+            adapted = FlatAst.of(tree);
+            int expected = treeVisitor(tree);
+            if (adapterVisitor(adapted) != expected || flatVisitor(flat) != expected || walk(flat) != expected
+                    || scan(flat) != expected)
+                throw new IllegalStateException("Flat traversal differs from the tree");
+
+            long treeBytes = retained(() -> new RecognizerParser(c.tokens).parse());
+            long flatBytes = retained(() -> FlatAst.of(new RecognizerParser(c.tokens).parse()));
+            System.out.printf("%n%s/%d: %d tokens, %d flat nodes; heap tree %d B, flat %d B (arrays %d B), %.1fx%n",
+                    c.mix, c.size, c.tokens.size(), flat.nodeCount(), treeBytes, flatBytes, flat.bytes(),
+                    (double) treeBytes / flatBytes);
+        }
+    }
+
+    @Benchmark
+    public int tree(Trees t) { return treeVisitor(t.tree); }
+
+    @Benchmark
+    public int adapter(Trees t) { return adapterVisitor(t.adapted); }
+
+    @Benchmark
+    public int visitor(Trees t) { return flatVisitor(t.flat); }
+
+    @Benchmark
+    public int walk(Trees t) { return walk(t.flat); }
+
+    @Benchmark
+    public int scan(Trees t) { return scan(t.flat); }
+
+    @Benchmark
+    public FlatAst flatten(Trees t) { return FlatAst.of(t.tree); }
+
+    // ---------------------------------------------------------------- objekti
+
+    private static final class Counter implements Expr.Visitor<Void>, Stmt.Visitor<Void>
+    {
+        int nodes, sum;
+
+        void stmts(List<Stmt> block)
+        {
+            if (block != null) for (Stmt s : block) s.accept(this);
+        }
+
+        void exprs(List<Expr> list)
+        {
+            for (Expr e : list) e.accept(this);
+        }
+
+        @Override public Void visitLiteral(Expr.Literal e) { nodes++; sum += e.value; return null; }
+        @Override public Void visitIdent(Expr.Ident e) { nodes++; return null; }
+        @Override public Void visitIndex(Expr.Index e) { nodes++; exprs(e.indices); return null; }
+        @Override public Void visitGrouping(Expr.Grouping e) { nodes++; e.inner.accept(this); return null; }
+        @Override public Void visitCall(Expr.Call e) { nodes++; exprs(e.args); return null; }
+
+        @Override
+        public Void visitBinary(Expr.Binary e)
+        {
+            nodes++;
+            e.left.accept(this);
+            e.right.accept(this);
+            return null;
+        }
+
+        @Override public Void visitVarDecl(Stmt.VarDecl s) { nodes++; exprs(s.dims); return null; }
+
+        @Override
+        public Void visitReturn(Stmt.Return s)
+        {
+            nodes++;
+            if (s.expr != null) s.expr.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitAssign(Stmt.Assign s)
+        {
+            nodes++;
+            s.left.accept(this);
+            exprs(s.lvalue.indices);
+            return null;
+        }
+
+        @Override public Void visitCallStmt(Stmt.CallStmt s) { nodes++; s.call.accept(this); return null; }
+
+        @Override
+        public Void visitBeginIf(Stmt.BeginIf s)
+        {
+            nodes++;
+            s.ifArm.cond.accept(this);
+            stmts(s.ifArm.block);
+            for (Stmt.BeginIf.Arm arm : s.orIfArms)
+            {
+                arm.cond.accept(this);
+                stmts(arm.block);
+            }
+            stmts(s.elseBlock);
+            return null;
+        }
+
+        @Override
+        public Void visitBeginFor(Stmt.BeginFor s)
+        {
+            nodes++;
+            s.from.accept(this);
+            s.to.accept(this);
+            stmts(s.body);
+            return null;
+        }
+
+        int result() { return 31 * sum + nodes; }
+    }
+
+    static int treeVisitor(Ast.Program p)
+    {
+        Counter c = new Counter();
+        for (Ast.TopItem item : p.items)
+        {
+            if (item instanceof Ast.FuncDef f) c.stmts(f.body);
+            else if (item instanceof Ast.TopVarDecl v) v.decl.accept(c);
+            else ((Ast.TopStmt) item).stmt.accept(c);
+        }
+        return c.result();
+    }
+
+    // postojeci posetilac, bez izmena, nad FlatAst-om
+    static int adapterVisitor(FlatAst f)
+    {
+        Counter c = new Counter();
+        int items = f.items();
+        for (int i = 0; i < f.size(items); i++)
+        {
+            int n = f.at(items, i);
+            if (f.kind(n) == FlatAst.FUNC) block(f, f.b(n), c);
+            else f.stmt(n).accept(c);
+        }
+        return c.result();
+    }
+
+    private static void block(FlatAst f, int list, Counter c)
+    {
+        for (int i = 0; i < f.size(list); i++) f.stmt(f.at(list, i)).accept(c);
+    }
+
+    // ---------------------------------------------------------------- posetilac nad nizovima
+
+    private static final class FlatCounter implements FlatAst.Visitor<Void>
+    {
+        final FlatAst f;
+        int nodes, sum;
+
+        FlatCounter(FlatAst f) { this.f = f; }
+
+        void list(int list)
+        {
+            for (int i = 0, n = f.size(list); i < n; i++) f.accept(f.at(list, i), this);
+        }
+
+        @Override public Void visitLiteral(int n) { nodes++; sum += f.value(n); return null; }
+        @Override public Void visitIdent(int n) { nodes++; return null; }
+        @Override public Void visitIndex(int n) { nodes++; list(f.indices(n)); return null; }
+        @Override public Void visitGrouping(int n) { nodes++; f.accept(f.inner(n), this); return null; }
+        @Override public Void visitCall(int n) { nodes++; list(f.args(n)); return null; }
+
+        @Override
+        public Void visitBinary(int n)
+        {
+            nodes++;
+            f.accept(f.left(n), this);
+            f.accept(f.right(n), this);
+            return null;
+        }
+
+        @Override public Void visitVarDecl(int n) { nodes++; list(f.dims(n)); return null; }
+
+        @Override
+        public Void visitReturn(int n)
+        {
+            nodes++;
+            if (f.returned(n) >= 0) f.accept(f.returned(n), this);
+            return null;
+        }
+
+        @Override
+        public Void visitAssign(int n)
+        {
+            nodes++;
+            f.accept(f.assigned(n), this);
+            list(f.indices(f.lvalue(n)));
+            return null;
+        }
+
+        @Override public Void visitCallStmt(int n) { nodes++; f.accept(f.call(n), this); return null; }
+
+        @Override
+        public Void visitIf(int n)
+        {
+            nodes++;
+            int arms = f.arms(n);
+            for (int i = 0; i < f.size(arms); i++)
+            {
+                int arm = f.at(arms, i);
+                f.accept(f.cond(arm), this);
+                list(f.block(arm));
+            }
+            if (f.elseBlock(n) >= 0) list(f.elseBlock(n));
+            return null;
+        }
+
+        @Override
+        public Void visitFor(int n)
+        {
+            nodes++;
+            f.accept(f.from(n), this);
+            f.accept(f.to(n), this);
+            list(f.body(n));
+            return null;
+        }
+    }
+
+    static int flatVisitor(FlatAst f)
+    {
+        FlatCounter c = new FlatCounter(f);
+        int items = f.items();
+        for (int i = 0; i < f.size(items); i++)
+        {
+            int n = f.at(items, i);
+            if (f.kind(n) == FlatAst.FUNC) c.list(f.body(n));
+            else f.accept(n, c);
+        }
+        return 31 * c.sum + c.nodes;
+    }
+
+    // ---------------------------------------------------------------- nizovi
+
+    private static final class Walker
+    {
+        final FlatAst f;
+        int nodes, sum;
+
+        Walker(FlatAst f) { this.f = f; }
+
+        void list(int list)
+        {
+            for (int i = 0; i < f.size(list); i++) node(f.at(list, i));
+        }
+
+        void node(int n)
+        {
+            switch (f.kind(n))
+            {
+                case FlatAst.LITERAL -> { nodes++; sum += f.a(n); }
+                case FlatAst.IDENT -> nodes++;
+                case FlatAst.INDEX, FlatAst.VAR_DECL -> { nodes++; list(f.a(n)); }
+                case FlatAst.GROUPING, FlatAst.CALL_STMT -> { nodes++; node(f.a(n)); }
+                case FlatAst.CALL -> { nodes++; list(f.b(n)); }
+                case FlatAst.BINARY -> { nodes++; node(f.a(n)); node(f.b(n)); }
+                case FlatAst.RETURN -> { nodes++; if (f.a(n) >= 0) node(f.a(n)); }
+                case FlatAst.ASSIGN -> { nodes++; node(f.a(n)); list(f.a(f.b(n))); }
+                case FlatAst.IF ->
+                {
+                    nodes++;
+                    int arms = f.a(n);
+                    for (int i = 0; i < f.size(arms); i++)
+                    {
+                        int arm = f.at(arms, i);
+                        node(f.a(arm));
+                        list(f.b(arm));
+                    }
+                    if (f.b(n) >= 0) list(f.b(n));
+                }
+                case FlatAst.FOR -> { nodes++; node(f.a(n)); node(f.b(n)); list(f.a(n + 1)); }
+                case FlatAst.FUNC -> list(f.b(n));
+                default -> throw new IllegalStateException("Unexpected node kind " + f.kind(n));
+            }
+        }
+    }
+
+    static int walk(FlatAst f)
+    {
+        Walker w = new Walker(f);
+        w.list(f.items());
+        return 31 * w.sum + w.nodes;
+    }
+
+    static int scan(FlatAst f)
+    {
+        int nodes = 0, sum = 0;
+        for (int n = 0, count = f.nodeCount(); n < count; n++)
+        {
+            int kind = f.kind(n);
+            if (kind == FlatAst.LITERAL) sum += f.a(n);
+            if (kind <= FlatAst.ASSIGN || (kind >= FlatAst.CALL_STMT && kind <= FlatAst.IF) || kind == FlatAst.FOR) nodes++;
+        }
+        return 31 * sum + nodes;
+    }
+
+    private static long retained(Supplier<Object> make)
+    {
+        long before = used();
+        Object o = make.get();
+        long after = used();
+        Reference.reachabilityFence(o);
+        return after - before;
+    }
+
+    private static long used()
+    {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+    Pokrece benchmark-e sa GC profilerom i ops/s prevodi u MB/s, tokene/s i bajtove alocirane
+    po tokenu (velicina i broj tokena corpus-a po operaciji). Argumenti su isti kao za JMH, npr.
+    java -cp benchmarks.jar benchmark.BenchmarkReport LexerBenchmark -p size=1048576 -p mix=BALANCED
+ */
+public final class BenchmarkReport
+{
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException
+    {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .parent(cmd)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+
+        Map<String, Corpus> corpora = new HashMap<>();
+        System.out.println();
+        System.out.printf("%-36s %-12s %8s %12s %10s %12s %10s%n", "Benchmark", "mix", "size", "ops/s", "MB/s", "tokens/s", "B/token");
+        for (RunResult r : results)
+        {
+            BenchmarkParams p = r.getParams();
+            String size = p.getParam("size"), mix = p.getParam("mix");
+            double ops = r.getPrimaryResult().getScore();
+            Result<?> alloc = r.getSecondaryResults().get("gc.alloc.rate.norm");
+
+            String name = p.getBenchmark();
+            name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1);
+            if (size == null || mix == null)
+            {
+                // benchmark bez corpus-a (npr. InterpreterBenchmark): samo rezultat i bajtovi po operaciji
+                StringBuilder params = new StringBuilder();
+                for (String key : p.getParamsKeys()) params.append(params.isEmpty() ? "" : ",").append(p.getParam(key));
+                System.out.printf("%-36s %-21s %12.3f %-6s %16s %10.1f B/op%n", name, params, r.getPrimaryResult().getScore(),
+                        r.getPrimaryResult().getScoreUnit(), "", alloc == null ? Double.NaN : alloc.getScore());
+                continue;
+            }
+            Corpus c = corpora.computeIfAbsent(size + "/" + mix,
+                    k -> Corpus.of(Integer.parseInt(size), CorpusGenerator.Mix.valueOf(mix)));
+            double bytesPerToken = alloc == null ? Double.NaN : alloc.getScore() / c.tokens.size();
+
+            System.out.printf("%-36s %-12s %8s %12.1f %10.1f %12.0f %10.1f%n", name, mix, size, ops,
+                    ops * c.text.length() / 1e6, ops * c.tokens.size(), bytesPerToken);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package benchmark;
+
+import lexer.Lexer;
+import lexer.token.TokenStream;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+    Zajednicki ulaz svih benchmark-a: jedan generisan program po kombinaciji parametara.
+    Svaka operacija obradi ceo corpus, pa BenchmarkReport iz ops/s racuna MB/s i tokene/s.
+ */
+@State(Scope.Benchmark)
+public class Corpus
+{
+    @Param({"65536", "1048576"})
+    public int size;
+
+    @Param({"BALANCED", "OPERATORS", "IDENTIFIERS", "KEYWORDS", "NUMBERS"})
+    public CorpusGenerator.Mix mix;
+
+    public String text;
+    public TokenStream tokens;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        text = CorpusGenerator.generate(size, mix);
+        tokens = new Lexer(text).scan();
+    }
+
+    public static Corpus of(int size, CorpusGenerator.Mix mix)
+    {
+        Corpus c = new Corpus();
+        c.size = size;
+        c.mix = mix;
+        c.setup();
+        return c;
+    }
+}
@@ -0,0 +1,205 @@
+package benchmark;
+
+import lexer.Keywords;
+import lexer.token.TokenType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+/*
+    Sinteticki programi zadate velicine od pravih kljucnih reci (Keywords.ENTRIES).
+    Mix odredjuje odnos naredbi, operatora, imena i brojeva; izlaz je uvek leksicki ispravan.
+
+    java -cp benchmarks.jar benchmark.CorpusGenerator <velicina> <mix> <izlazni-fajl> [seed]
+ */
+public final class CorpusGenerator
+{
+    public enum Mix
+    {
+        //        terms  identLen  vocab  numbers  blocks  tight
+        BALANCED(    3,       6,    200,    0.30,   0.25,  0.3),
+        OPERATORS(   9,       2,     20,    0.35,   0.05,  0.8),
+        IDENTIFIERS( 2,      14,   5000,    0.05,   0.10,  0.0),
+        KEYWORDS(    1,       4,     30,    0.20,   0.70,  0.0),
+        NUMBERS(     5,       3,     20,    0.80,   0.10,  0.5);
+
+        final int terms;          // prosecan broj operanada u izrazu
+        final int identLen;       // prosecna duzina imena
+        final int vocab;          // broj razlicitih imena
+        final double numbers;     // udeo brojeva medju operandima
+        final double blocks;      // udeo naredbi sa blokom (annieAreYouOkay, justBeatIt, smoothCriminal)
+        final double tight;       // udeo operatora bez razmaka oko sebe
+
+        Mix(int terms, int identLen, int vocab, double numbers, double blocks, double tight)
+        {
+            this.terms = terms;
+            this.identLen = identLen;
+            this.vocab = vocab;
+            this.numbers = numbers;
+            this.blocks = blocks;
+            this.tight = tight;
+        }
+    }
+
+    private static final String[] BINARY = { "+", "-", "*", "/", "%", "<", "<=", ">", ">=", "==", "!=", "&&" };
+
+    private final Mix mix;
+    private final Random rnd;
+    private final String[] names;
+    private final StringBuilder out = new StringBuilder();
+    private int depth;
+    private final boolean[] ifBlock = new boolean[8]; // otvoreni blok je grana annieAreYouOkay, moze da dobije else
+
+    private CorpusGenerator(Mix mix, long seed)
+    {
+        this.mix = mix;
+        this.rnd = new Random(seed);
+        this.names = new String[mix.vocab];
+        for (int i = 0; i < names.length; i++) names[i] = name(i);
+    }
+
+    public static String generate(int size, Mix mix)
+    {
+        return generate(size, mix, 42);
+    }
+
+    public static String generate(int size, Mix mix, long seed)
+    {
+        CorpusGenerator g = new CorpusGenerator(mix, seed);
+        g.line(kw(TokenType.BEGIN));
+        while (g.out.length() < size) g.statement();
+        while (g.depth > 0) g.close();
+        g.line(kw(TokenType.END));
+        return g.out.toString();
+    }
+
+    static String kw(TokenType type)
+    {
+        for (Map.Entry<String, TokenType> e : Keywords.ENTRIES)
+        {
+            if (e.getValue() == type) return e.getKey();
+        }
+        throw new IllegalArgumentException("No keyword for " + type);
+    }
+
+    private void statement()
+    {
+        if (depth > 0 && rnd.nextInt(6) == 0)
+        {
+            close();
+            return;
+        }
+        if (depth < 6 && rnd.nextDouble() < mix.blocks)
+        {
+            // funkcije samo na vrhu programa
+            int kind = rnd.nextInt(depth == 0 ? 3 : 2);
+            switch (kind)
+            {
+                case 0 -> line(kw(TokenType.IF) + " " + expr());
+                case 1 -> line(kw(TokenType.FOR) + " " + ident() + " " + kw(TokenType.FROM) + " " + operand() + " " + kw(TokenType.TO) + " " + operand());
+                default -> line(kw(TokenType.FUNCTION) + " " + ident() + "(" + ident() + ": " + kw(TokenType.INT) + "): " + kw(TokenType.INT));
+            }
+            line(kw(TokenType.BEGIN));
+            ifBlock[++depth] = kind == 0;
+            return;
+        }
+        switch (rnd.nextInt(6))
+        {
+            case 0 -> line(kw(TokenType.INT) + " " + ident() + ", " + ident());
+            case 1 -> line(kw(TokenType.CALL) + " " + ident() + "(" + expr() + ", " + operand() + ")");
+            case 2 -> line(kw(TokenType.RETURN) + " " + expr());
+            case 3 -> line(ident() + " = " + expr());
+            default -> line(expr() + " " + kw(TokenType.GOES) + " " + ident());
+        }
+    }
+
+    private void close()
+    {
+        boolean wasIf = ifBlock[depth--];
+        line(kw(TokenType.END));
+        if (wasIf && rnd.nextInt(4) == 0)
+        {
+            boolean orIf = rnd.nextBoolean();
+            line(kw(TokenType.ELSE) + (orIf ? " " + kw(TokenType.IF) + " " + expr() : ""));
+            line(kw(TokenType.BEGIN));
+            ifBlock[++depth] = orIf;
+        }
+    }
+
+    private String expr()
+    {
+        StringBuilder sb = new StringBuilder(operand());
+        int terms = 1 + rnd.nextInt(2 * mix.terms);
+        for (int i = 1; i < terms; i++)
+        {
+            String op = rnd.nextInt(12) == 0 ? " " + (rnd.nextBoolean() ? kw(TokenType.AND) : kw(TokenType.OR)) + " "
+                    : BINARY[rnd.nextInt(BINARY.length)];
+            if (!op.startsWith(" ") && rnd.nextDouble() >= mix.tight) op = " " + op + " ";
+            sb.append(op);
+            sb.append(rnd.nextInt(10) == 0 ? "(" + operand() + " " + BINARY[rnd.nextInt(5)] + " " + operand() + ")" : operand());
+        }
+        return sb.toString();
+    }
+
+    private String operand()
+    {
+        double r = rnd.nextDouble();
+        if (r < mix.numbers) return Integer.toString(rnd.nextInt(rnd.nextBoolean() ? 10 : 100000));
+        if (r < mix.numbers + 0.03) return rnd.nextBoolean() ? kw(TokenType.TRUE) : kw(TokenType.FALSE);
+        String id = ident();
+        return rnd.nextInt(15) == 0 ? id + "[" + ident() + "]" : id;
+    }
+
+    private String ident()
+    {
+        return names[rnd.nextInt(names.length)];
+    }
+
+    // ime koje nije kljucna rec; duzina oko mix.identLen
+    private String name(int i)
+    {
+        while (true)
+        {
+            int len = Math.max(1, mix.identLen / 2 + rnd.nextInt(mix.identLen + 1));
+            StringBuilder sb = new StringBuilder(len);
+            sb.append((char) ('a' + rnd.nextInt(26)));
+            for (int k = 1; k < len; k++)
+            {
+                int c = rnd.nextInt(40);
+                sb.append(c < 26 ? (char) ('a' + c) : c < 36 ? (char) ('0' + c - 26) : c < 39 ? (char) ('A' + c - 36) : '_');
+            }
+            if (len < 4) sb.append(i);
+            String s = sb.toString();
+            if (Keywords.lookup(s, 0, s.length()) == null) return s;
+        }
+    }
+
+    private void line(String text)
+    {
+        for (int i = 0; i < depth; i++) out.append(rnd.nextInt(8) == 0 ? '\t' : ' ').append(' ');
+        out.append(text).append('\n');
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 3)
+        {
+            System.err.println("Usage: java benchmark.CorpusGenerator <size> <" + String.join("|", names()) + "> <out-file> [seed]");
+            System.exit(64);
+        }
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        String text = generate(Integer.parseInt(args[0]), Mix.valueOf(args[1]), seed);
+        Files.writeString(Path.of(args[2]), text);
+    }
+
+    private static String[] names()
+    {
+        Mix[] mixes = Mix.values();
+        String[] s = new String[mixes.length];
+        for (int i = 0; i < mixes.length; i++) s[i] = mixes[i].name();
+        return s;
+    }
+}
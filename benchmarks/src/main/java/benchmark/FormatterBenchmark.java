@@ -0,0 +1,41 @@
+package benchmark;
+
+import lexer.token.TokenFormatter;
+import lexer.token.TokenWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark
+{
+    @Benchmark
+    public String formatList(Corpus c)
+    {
+        return TokenFormatter.formatList(c.tokens);
+    }
+
+    // isti izlaz kroz TokenWriter, bajtovi idu u Writer koji ih odbacuje
+    @Benchmark
+    public void writeTable(Corpus c)
+    {
+        TokenWriter.writeAll(c.tokens, Writer.nullWriter(), TokenWriter.Format.TABLE);
+    }
+
+    @Benchmark
+    public void writeJsonLines(Corpus c)
+    {
+        TokenWriter.writeAll(c.tokens, Writer.nullWriter(), TokenWriter.Format.JSONL);
+    }
+}
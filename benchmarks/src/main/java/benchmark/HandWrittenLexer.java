@@ -0,0 +1,106 @@
+package benchmark;
+
+import lexer.Keywords;
+import lexer.LexerException;
+import lexer.ScannerCore;
+import lexer.SymbolTable;
+import lexer.token.TokenStream;
+import lexer.token.TokenType;
+
+/*
+    Rucno pisan skener (switch po prvom znaku, petlje za broj i ime) nad istim ScannerCore,
+    SymbolTable i TokenStream kao lexer.Lexer: isti tokeni, pa ScannerBenchmark poredi samo
+    nacin prepoznavanja. Greske baca kao Lexer bez collectErrors.
+ */
+public final class HandWrittenLexer
+{
+    private final ScannerCore sc;
+    private final SymbolTable symbols = new SymbolTable();
+    private final TokenStream tokens;
+
+    public HandWrittenLexer(String source)
+    {
+        this.sc = new ScannerCore(source);
+        this.tokens = new TokenStream(source, symbols);
+    }
+
+    public TokenStream scan()
+    {
+        while (!sc.isAtEnd())
+        {
+            sc.beginToken();
+            scanToken();
+        }
+        tokens.add(TokenType.EOF, sc.getCur(), sc.getCur(), 0);
+        return tokens;
+    }
+
+    private void scanToken()
+    {
+        char c = sc.advance();
+        switch (c)
+        {
+            case '(' -> add(TokenType.LPAREN);
+            case ')' -> add(TokenType.RPAREN);
+            case '[' -> add(TokenType.LBRACKET);
+            case ']' -> add(TokenType.RBRACKET);
+            case ',' -> add(TokenType.SEPARATOR_COMMA);
+            case ':' -> add(TokenType.TYPE_COLON);
+            case ';' -> add(TokenType.SEPARATOR_SEMICOLON);
+            case '+' -> add(TokenType.ADD);
+            case '-' -> add(TokenType.SUBTRACT);
+            case '*' -> add(TokenType.MULTIPLY);
+            case '/' -> add(TokenType.DIVIDE);
+            case '%' -> add(TokenType.PERCENT);
+            case '<' -> add(sc.match('=') ? TokenType.LE : TokenType.LT);
+            case '>' -> add(sc.match('=') ? TokenType.GE : TokenType.GT);
+            case '=' -> add(sc.match('=') ? TokenType.EQ : TokenType.ASSIGN);
+            case '!' -> add(sc.match('=') ? TokenType.NEQ : TokenType.NOT);
+            case '&' ->
+            {
+                if (sc.match('&')) add(TokenType.AND);
+                else throw error("BadBeat: Lone '&' found");
+            }
+            case '\n' -> add(TokenType.NEWLINE);
+            case ' ', '\r', '\t' -> {}
+            default ->
+            {
+                if (Character.isDigit(c)) number();
+                else if (Character.isLetter(c) || c == '_') identifier();
+                else throw error("JamCrash: Unrecognized move");
+            }
+        }
+    }
+
+    private void number()
+    {
+        while (Character.isDigit(sc.peek())) sc.advance();
+        if (Character.isAlphabetic(sc.peek())) throw error("BadBeat: Letter in MoonSteps literal");
+        int start = sc.getStartIdx(), end = sc.getCur();
+        tokens.add(TokenType.INT_LIT, start, end, Integer.parseInt(sc.text(), start, end, 10));
+    }
+
+    private void identifier()
+    {
+        while (isIdentPart(sc.peek())) sc.advance();
+        int start = sc.getStartIdx(), end = sc.getCur();
+        TokenType keyword = Keywords.lookup(sc.text(), start, end);
+        if (keyword != null) add(keyword);
+        else tokens.add(TokenType.IDENT, start, end, symbols.intern(sc.text(), start, end));
+    }
+
+    private static boolean isIdentPart(char c)
+    {
+        return Character.isLetter(c) || c == '_' || Character.isDigit(c);
+    }
+
+    private void add(TokenType type)
+    {
+        tokens.add(type, sc.getStartIdx(), sc.getCur(), 0);
+    }
+
+    private LexerException error(String msg)
+    {
+        return new LexerException("JAMCRASH > " + msg + " at " + sc.getStartLine() + ":" + sc.getStartCol());
+    }
+}
@@ -0,0 +1,101 @@
+package benchmark;
+
+import compiler.Jit;
+import interpreter.Engine;
+import interpreter.Interpreter;
+import lexer.Lexer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.RecognizerParser;
+import parser.ast.Ast;
+import vm.Vm;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Izvrsavanje malih programa koji su skoro samo pozivi (fib) ili samo petlje i aritmetika (loops),
+    stablom (tree) ili prevedeno u JVM bajtkod (jit).
+    Sa GC profilerom (BenchmarkReport) gc.alloc.rate.norm treba da bude ~0 B/op.
+
+    tree ne pamti rezultate funkcija (isti Interpreter bi posle prvog run() fib vracao iz tabele);
+    memo je stablo sa pamcenjem, svaki put nov Interpreter (ukljucuje i Resolver), pa meri ceo
+    jedan izvrsen program.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark
+{
+    static final Map<String, String> PROGRAMS = Map.of(
+            "fib", """
+                    smoothCriminal fib(n: heehee): heehee
+                    jam
+                        annieAreYouOkay n < 2
+                        jam
+                            moonWalk n
+                        jamOut
+                        moonWalk fib(n - 1) + fib(n - 2)
+                    jamOut
+                    moonWalk fib(24)
+                    """,
+            "loops", """
+                    heehee sum
+                    justBeatIt i from 1 glideTo 400
+                    jam
+                        justBeatIt j from 1 glideTo 400
+                        jam
+                            annieAreYouOkay (i * j) % 7 == 3 eitherWay j == i
+                            jam
+                                sum = sum + i * j - (j / 3)
+                            jamOut
+                            fightForYourLife
+                            jam
+                                sum = sum - 1
+                            jamOut
+                        jamOut
+                    jamOut
+                    moonWalk sum
+                    """);
+
+    @Param({"fib", "loops"})
+    public String program;
+
+    @Param({"tree", "memo", "jit", "vm"})
+    public String engine;
+
+    private Ast.Program ast;
+    private Engine compiled;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        ast = new RecognizerParser(new Lexer(PROGRAMS.get(program)).scan()).parse();
+        Interpreter.memoize(engine.equals("memo"));
+        compiled = switch (engine)
+        {
+            case "jit" -> new Jit(ast);
+            case "vm" -> new Vm(ast);
+            default -> new Interpreter(ast);
+        };
+    }
+
+    @Benchmark
+    public int run()
+    {
+        return engine.equals("memo") ? new Interpreter(ast).run() : compiled.run();
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import lexer.Keywords;
+import lexer.token.TokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Provera kljucnih reci koju lexer radi za svaki prepoznat identifikator (pogodci i promasaji
+    u odnosu kakav je u corpus-u).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeywordBenchmark
+{
+    private int[] starts;
+    private int[] ends;
+    private int count;
+
+    @Setup(Level.Trial)
+    public void words(Corpus c)
+    {
+        TokenStream ts = c.tokens;
+        starts = new int[ts.size()];
+        ends = new int[ts.size()];
+        for (int i = 0; i < ts.size(); i++)
+        {
+            if (ts.end(i) > ts.start(i) && Character.isLetter(c.text.charAt(ts.start(i))))
+            {
+                starts[count] = ts.start(i);
+                ends[count++] = ts.end(i);
+            }
+        }
+    }
+
+    @Benchmark
+    public int lookup(Corpus c)
+    {
+        String text = c.text;
+        int hits = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (Keywords.lookup(text, starts[i], ends[i]) != null) hits++;
+        }
+        return hits;
+    }
+}
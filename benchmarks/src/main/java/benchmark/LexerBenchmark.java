@@ -0,0 +1,54 @@
+package benchmark;
+
+import lexer.CharWindow;
+import lexer.Lexer;
+import lexer.token.Token;
+import lexer.token.TokenStream;
+import lexer.token.TokenType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark
+{
+    @Benchmark
+    public List<Token> scanTokens(Corpus c)
+    {
+        return new Lexer(c.text).scanTokens();
+    }
+
+    @Benchmark
+    public TokenStream scanParallel(Corpus c)
+    {
+        return new Lexer(c.text).scanParallel(ForkJoinPool.commonPool());
+    }
+
+    // pull mod kroz ograniceni prozor, tokeni se prave jedan po jedan
+    @Benchmark
+    public void nextToken(Corpus c, Blackhole bh)
+    {
+        Lexer lexer = new Lexer(CharWindow.of(new StringReader(c.text)));
+        Token t;
+        do
+        {
+            t = lexer.nextToken();
+            bh.consume(t);
+        }
+        while (t.type != TokenType.EOF);
+    }
+}
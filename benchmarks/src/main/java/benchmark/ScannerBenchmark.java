@@ -0,0 +1,37 @@
+package benchmark;
+
+import lexer.Lexer;
+import lexer.token.TokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Skener iz tabela (lexer.Lexer, bez SIMD prolaza) prema rucno pisanom switch skeneru
+    (HandWrittenLexer) nad istim TokenStream-om: razlika je samo u prepoznavanju tokena.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScannerBenchmark
+{
+    @Benchmark
+    public TokenStream tables(Corpus c)
+    {
+        return new Lexer(c.text).vectorRuns(false).scan();
+    }
+
+    @Benchmark
+    public TokenStream handWritten(Corpus c)
+    {
+        return new HandWrittenLexer(c.text).scan();
+    }
+}
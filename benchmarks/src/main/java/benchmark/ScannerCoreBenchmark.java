@@ -0,0 +1,46 @@
+package benchmark;
+
+import lexer.ScannerCore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScannerCoreBenchmark
+{
+    @Benchmark
+    public int advance(Corpus c)
+    {
+        ScannerCore sc = new ScannerCore(c.text);
+        int newlines = 0;
+        while (!sc.isAtEnd())
+        {
+            if (sc.advance() == '\n') newlines++;
+        }
+        return newlines + sc.getCol();
+    }
+
+    // kao kod dvoznakovnih operatora: posle '<', '>', '=', '!' proba se '='
+    @Benchmark
+    public int match(Corpus c)
+    {
+        ScannerCore sc = new ScannerCore(c.text);
+        int matched = 0;
+        while (!sc.isAtEnd())
+        {
+            char ch = sc.advance();
+            if ((ch == '<' || ch == '>' || ch == '=' || ch == '!') && sc.match('=')) matched++;
+        }
+        return matched;
+    }
+}
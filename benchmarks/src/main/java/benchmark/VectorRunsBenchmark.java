@@ -0,0 +1,38 @@
+package benchmark;
+
+import lexer.Lexer;
+import lexer.token.TokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Isti lexer sa i bez SIMD prolaza kroz runove (lexer.VectorRuns). Fork dobija modul
+    jdk.incubator.vector; na JVM-u bez njega (ili sa -Dprogramskijezik.vector=false) su obe
+    varijante skalarne. Najveca razlika je na mix=IDENTIFIERS (duga imena).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class VectorRunsBenchmark
+{
+    @Benchmark
+    public TokenStream scalar(Corpus c)
+    {
+        return new Lexer(c.text).vectorRuns(false).scan();
+    }
+
+    @Benchmark
+    public TokenStream vector(Corpus c)
+    {
+        return new Lexer(c.text).scan();
+    }
+}